@@ -0,0 +1,93 @@
+package co.todotech.busqueda;
+
+import co.todotech.model.dto.producto.CatalogoFacetadoDto;
+import co.todotech.model.dto.producto.FiltroCatalogoDto;
+import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.model.entities.Categoria;
+import co.todotech.model.enums.EstadoProducto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Consulta facetada (dos categorías, una marca, rango de precio y con stock) sobre 10k y 100k
+ * productos sintéticos: filtrar y contar recorriendo la lista, como hace hoy el frontend,
+ * contra las intersecciones de bitsets de {@link FacetasCatalogo}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FacetasCatalogoBenchmark {
+
+    private static final String[] MARCAS = {"Samsung", "Lenovo", "Asus", "Sony", "Canon", "Logitech", "HP",
+            "Xiaomi", "Apple", "Dell", "Epson", "Kingston", "TP-Link", "JBL", "Genius"};
+    private static final int[] GARANTIAS = {3, 6, 12, 24};
+    private static final int CATEGORIAS = 20;
+
+    @Param({"10000", "100000"})
+    private int productos;
+
+    private List<ProductoDto> catalogo;
+    private FacetasCatalogo facetas;
+    private FiltroCatalogoDto filtro;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Categoria> categorias = new ArrayList<>();
+        for (long i = 1; i <= CATEGORIAS; i++) {
+            categorias.add(Categoria.builder().id(i).nombre("Categoría " + i).build());
+        }
+        catalogo = new ArrayList<>(productos);
+        for (int i = 0; i < productos; i++) {
+            ProductoDto dto = new ProductoDto();
+            dto.setId((long) i);
+            dto.setNombre("Producto " + i);
+            dto.setCategoria(categorias.get(random.nextInt(CATEGORIAS)));
+            dto.setMarca(MARCAS[random.nextInt(MARCAS.length)]);
+            dto.setPrecio((double) (10_000 + random.nextInt(5_000_000)));
+            dto.setGarantia(GARANTIAS[random.nextInt(GARANTIAS.length)]);
+            dto.setStock(random.nextInt(10));
+            dto.setEstado(dto.getStock() > 0 ? EstadoProducto.ACTIVO : EstadoProducto.AGOTADO);
+            catalogo.add(dto);
+        }
+        facetas = new FacetasCatalogo(new double[]{100_000, 500_000, 1_000_000, 3_000_000});
+        facetas.reconstruir(catalogo);
+        filtro = new FiltroCatalogoDto(List.of(3L, 7L), List.of("Sony"), 200_000.0, 2_000_000.0, null, true, 0, 20);
+    }
+
+    @Benchmark
+    public Map<String, Integer> recorridoLineal() {
+        Predicate<ProductoDto> categoria = p -> filtro.categorias().contains(p.getCategoria().getId());
+        Predicate<ProductoDto> marca = p -> filtro.marcas().contains(p.getMarca());
+        Predicate<ProductoDto> precio = p -> p.getPrecio() >= filtro.precioMin() && p.getPrecio() <= filtro.precioMax();
+        Predicate<ProductoDto> stock = p -> p.getStock() > 0;
+
+        // Un conteo por faceta con los demás filtros, igual que la versión con bitsets
+        Map<String, Integer> conteos = new HashMap<>();
+        List<ProductoDto> pagina = new ArrayList<>();
+        for (ProductoDto p : catalogo) {
+            boolean c = categoria.test(p), m = marca.test(p), pr = precio.test(p), s = stock.test(p);
+            if (m && pr && s) conteos.merge("c" + p.getCategoria().getId(), 1, Integer::sum);
+            if (c && pr && s) conteos.merge("m" + p.getMarca(), 1, Integer::sum);
+            if (c && m && s) conteos.merge("p", 1, Integer::sum);
+            if (c && m && pr) conteos.merge("s" + s, 1, Integer::sum);
+            if (c && m && pr && s && pagina.size() < filtro.tamano()) pagina.add(p);
+        }
+        return conteos;
+    }
+
+    @Benchmark
+    public CatalogoFacetadoDto bitsets() {
+        return facetas.consultar(filtro);
+    }
+}
@@ -0,0 +1,77 @@
+package co.todotech.busqueda;
+
+import co.todotech.model.dto.producto.ProductoDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda en un catálogo sintético de 10k y 100k productos: recorrido lineal equivalente a
+ * {@code LOWER(nombre) LIKE '%term%'} (sin contar el viaje a la BD) contra el índice invertido,
+ * con una consulta exacta, un prefijo, un error de tipeo y dos términos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndiceProductosBenchmark {
+
+    private static final String[] TIPOS = {"Portátil", "Cámara", "Audífonos", "Monitor", "Teclado", "Mouse",
+            "Parlante", "Tableta", "Celular", "Impresora", "Router", "Disco", "Memoria", "Cargador", "Cable"};
+    private static final String[] MARCAS = {"Samsung", "Lenovo", "Asus", "Sony", "Canon", "Logitech", "HP",
+            "Xiaomi", "Apple", "Dell", "Epson", "Kingston", "TP-Link", "JBL", "Genius"};
+    private static final String[] ADJETIVOS = {"Inalámbrico", "Gamer", "Profesional", "Compacto", "Ultra",
+            "Mecánico", "Curvo", "Portátil", "Recargable", "Táctil", "Ergonómico", "Bluetooth"};
+
+    @Param({"10000", "100000"})
+    private int productos;
+
+    @Param({"mecanico", "ergon", "inalambirco", "monitor curvo"})
+    private String consulta;
+
+    private List<ProductoDto> catalogo;
+    private IndiceProductos indice;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        catalogo = new ArrayList<>(productos);
+        for (int i = 0; i < productos; i++) {
+            ProductoDto dto = new ProductoDto();
+            dto.setId((long) i);
+            String tipo = TIPOS[random.nextInt(TIPOS.length)];
+            String marca = MARCAS[random.nextInt(MARCAS.length)];
+            dto.setNombre(tipo + " " + ADJETIVOS[random.nextInt(ADJETIVOS.length)] + " " + marca + " " + i);
+            dto.setCodigo(String.format("%s-%06d", tipo.substring(0, 3).toUpperCase(Locale.ROOT), i));
+            dto.setMarca(marca);
+            dto.setDescripcion(tipo + " " + ADJETIVOS[random.nextInt(ADJETIVOS.length)].toLowerCase(Locale.ROOT)
+                    + " con garantía de " + (1 + random.nextInt(24)) + " meses");
+            catalogo.add(dto);
+        }
+        indice = new IndiceProductos(50);
+        indice.reconstruir(catalogo);
+    }
+
+    @Benchmark
+    public List<Long> recorridoLineal() {
+        String termino = consulta.toLowerCase(Locale.ROOT);
+        List<Long> ids = new ArrayList<>();
+        for (ProductoDto dto : catalogo) {
+            if (dto.getNombre().toLowerCase(Locale.ROOT).contains(termino)) {
+                ids.add(dto.getId());
+            }
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public List<Long> indiceInvertido() {
+        return indice.buscar(consulta);
+    }
+}
@@ -0,0 +1,65 @@
+package co.todotech.busqueda;
+
+import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.model.dto.producto.SugerenciaProductoDto;
+import co.todotech.model.enums.EstadoProducto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Una pulsación del buscador sobre un catálogo sintético de 100k productos: prefijos de una
+ * letra (rango enorme, servido desde los mejores guardados), de tres letras y de palabra y media.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SugerenciasProductosBenchmark {
+
+    private static final String[] TIPOS = {"Portátil", "Cámara", "Audífonos", "Monitor", "Teclado", "Mouse",
+            "Parlante", "Tableta", "Celular", "Impresora", "Router", "Disco", "Memoria", "Cargador", "Cable"};
+    private static final String[] MARCAS = {"Samsung", "Lenovo", "Asus", "Sony", "Canon", "Logitech", "HP",
+            "Xiaomi", "Apple", "Dell", "Epson", "Kingston", "TP-Link", "JBL", "Genius"};
+
+    @Param({"100000"})
+    private int productos;
+
+    @Param({"c", "tec", "monitor cu"})
+    private String prefijo;
+
+    private SugerenciasProductos sugerencias;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<ProductoDto> catalogo = new ArrayList<>(productos);
+        Map<Long, Long> vendidas = new HashMap<>();
+        for (int i = 0; i < productos; i++) {
+            ProductoDto dto = new ProductoDto();
+            dto.setId((long) i);
+            String marca = MARCAS[random.nextInt(MARCAS.length)];
+            dto.setNombre(TIPOS[random.nextInt(TIPOS.length)] + (random.nextBoolean() ? " Curvo " : " Pro ") + marca + " " + i);
+            dto.setMarca(marca);
+            dto.setPrecio(10.0 + random.nextInt(5000));
+            dto.setImagenUrl("https://cdn.todotech.co/productos/" + i + ".jpg");
+            dto.setEstado(EstadoProducto.ACTIVO);
+            catalogo.add(dto);
+            vendidas.put((long) i, (long) random.nextInt(1000));
+        }
+        sugerencias = new SugerenciasProductos(10);
+        sugerencias.reconstruir(catalogo, vendidas);
+    }
+
+    @Benchmark
+    public List<SugerenciaProductoDto> sugerir() {
+        return sugerencias.sugerir(prefijo, 8);
+    }
+}
@@ -0,0 +1,90 @@
+package co.todotech.cache;
+
+import co.todotech.cache.VersionCatalogo.Seccion;
+import co.todotech.model.dto.MensajeDto;
+import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.model.entities.Categoria;
+import co.todotech.model.enums.EstadoProducto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cuerpo de {@code GET /productos/publicos/todos} escrito a un stream: Jackson sobre el
+ * {@link MensajeDto} completo, como hasta ahora, contra el armado con {@link FragmentosJson}
+ * cuando el listado está vigente y cuando una venta acaba de cambiar un producto.
+ *
+ * {@code ./gradlew jmh -Pjmh.includes=FragmentosJson -Pjmh.prof=gc}: con el perfilador gc se ve
+ * la asignación por petición (gc.alloc.rate.norm). La línea base de Jackson varía mucho entre
+ * JVM (JIT y GC), de ahí las tres bifurcaciones con el heap fijo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class FragmentosJsonBenchmark {
+
+    private static final String MENSAJE = "Todos los productos obtenidos";
+
+    @Param({"100", "1000"})
+    private int productos;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Descarta lo escrito; Jackson cierra el stream al terminar y este lo ignora
+    private final OutputStream salida = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private List<ProductoDto> catalogo;
+    private VersionCatalogo versionCatalogo;
+    private FragmentosJson fragmentos;
+    private long vendido;
+
+    @Setup
+    public void setUp() throws IOException {
+        catalogo = new ArrayList<>(productos);
+        for (long i = 0; i < productos; i++) {
+            Categoria categoria = Categoria.builder().id(i % 20).nombre("Categoría " + i % 20).build();
+            catalogo.add(new ProductoDto(i, "Producto " + i, "PRD-" + i, "Descripción del producto " + i,
+                    categoria, 150_000.0 + i, 10, "https://cdn.todotech.co/productos/" + i + ".webp",
+                    "Marca " + i % 15, 12, EstadoProducto.ACTIVO));
+        }
+        versionCatalogo = new VersionCatalogo();
+        fragmentos = new FragmentosJson(objectMapper, versionCatalogo, 20_000);
+        listado().escribirEn(salida);
+    }
+
+    @Benchmark
+    public void jackson() throws IOException {
+        objectMapper.writeValue(salida, new MensajeDto<>(false, MENSAJE, catalogo));
+    }
+
+    @Benchmark
+    public void listadoVigente() throws IOException {
+        listado().escribirEn(salida);
+    }
+
+    // Una venta por petición: se rearma el listado y solo se serializa el producto vendido
+    @Benchmark
+    public void trasUnaVenta() throws IOException {
+        versionCatalogo.incrementar(Seccion.PRODUCTOS, vendido++ % productos);
+        listado().escribirEn(salida);
+    }
+
+    private RespuestaJson listado() {
+        return fragmentos.lista(MENSAJE, Seccion.PRODUCTOS, "todos", () -> catalogo, ProductoDto::getId);
+    }
+}
@@ -0,0 +1,104 @@
+package co.todotech.jdbc;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decrementos de stock concurrentes sobre un mismo producto, como en un checkout con mucha
+ * demanda: {@value #HILOS} hilos, un pool de {@value #HILOS} conexiones y cada decremento en su
+ * propia transacción. La corrección (nada de sobreventa) la prueba
+ * {@code ProductoStockConcurrencyTest}; aquí solo interesa el rendimiento.
+ *
+ * <ul>
+ *   <li>updateCondicional: el UPDATE de {@code ProductoRepository.decrementarStockSiDisponible}.</li>
+ *   <li>leerYGuardar: el camino anterior (leer el stock, restarlo en Java y guardarlo), como
+ *   referencia; además de más lento pierde actualizaciones.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(DecrementoStockBenchmark.HILOS)
+@Fork(1)
+public class DecrementoStockBenchmark {
+
+    static final int HILOS = 16;
+    // Alcanza para toda la iteración: se mide el decremento aceptado, no el rechazo por agotado
+    private static final int STOCK_INICIAL = 1_000_000_000;
+
+    private static final String DECREMENTAR = "UPDATE producto SET stock = stock - ?, "
+            + "estado = CASE WHEN estado = 'ACTIVO' AND stock - ? <= 0 THEN 'AGOTADO' ELSE estado END "
+            + "WHERE id = ? AND stock >= ? AND estado IN ('ACTIVO')";
+
+    private HikariDataSource pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:stock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        config.setMaximumPoolSize(HILOS);
+        config.setMinimumIdle(HILOS);
+        pool = new HikariDataSource(config);
+        try (Connection conexion = pool.getConnection(); Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("CREATE TABLE IF NOT EXISTS producto "
+                    + "(id BIGINT PRIMARY KEY, stock INT NOT NULL, estado VARCHAR(20) NOT NULL)");
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void reponerStock() throws SQLException {
+        try (Connection conexion = pool.getConnection(); Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("MERGE INTO producto KEY (id) VALUES (1, " + STOCK_INICIAL + ", 'ACTIVO')");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public int updateCondicional() throws SQLException {
+        try (Connection conexion = pool.getConnection();
+             PreparedStatement update = conexion.prepareStatement(DECREMENTAR)) {
+            update.setInt(1, 1);
+            update.setInt(2, 1);
+            update.setLong(3, 1L);
+            update.setInt(4, 1);
+            return update.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public int leerYGuardar() throws SQLException {
+        try (Connection conexion = pool.getConnection()) {
+            conexion.setAutoCommit(false);
+            try (PreparedStatement consulta = conexion.prepareStatement("SELECT stock FROM producto WHERE id = ?");
+                 PreparedStatement update = conexion.prepareStatement("UPDATE producto SET stock = ? WHERE id = ?")) {
+                consulta.setLong(1, 1L);
+                int stock;
+                try (ResultSet resultado = consulta.executeQuery()) {
+                    resultado.next();
+                    stock = resultado.getInt(1);
+                }
+                update.setInt(1, stock - 1);
+                update.setLong(2, 1L);
+                int filas = update.executeUpdate();
+                conexion.commit();
+                return filas;
+            } finally {
+                conexion.setAutoCommit(true);
+            }
+        }
+    }
+}
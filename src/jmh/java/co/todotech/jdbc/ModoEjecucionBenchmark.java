@@ -0,0 +1,146 @@
+package co.todotech.jdbc;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Prueba de carga de los dos modos de ejecución, sin levantar la aplicación: cada petición
+ * espera una llamada externa (Stripe, {@value #LLAMADA_EXTERNA_MS} ms) y luego retiene una
+ * conexión de un pool de {@value #CONEXIONES} durante una transacción corta.
+ *
+ * <ul>
+ *   <li>plataforma: {@value #HILOS_TOMCAT} hilos, como {@code server.tomcat.max-threads}.</li>
+ *   <li>virtual: un hilo virtual por petición ({@code spring.threads.virtual.enabled}).</li>
+ *   <li>admision: con o sin {@link AdmisionDataSource} delante del pool, con los
+ *   {@value #CONEXIONES}-1 permisos que deja la configuración por defecto.</li>
+ * </ul>
+ *
+ * Las peticiones llegan a ritmo fijo ({@code porSegundo}) y la latencia se mide desde el
+ * instante en que debía llegar cada una, no desde que un hilo la toma: así la cola de
+ * Tomcat también cuenta. Los percentiles quedan en los contadores auxiliares.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+// Los contadores EVENTS se suman entre iteraciones: una sola medición da el valor directo
+@Measurement(iterations = 1)
+@Fork(1)
+public class ModoEjecucionBenchmark {
+
+    private static final int PETICIONES = 3_000;
+    private static final int CONEXIONES = 5;
+    // Igual que EjecucionConfig por defecto: una conexión queda fuera del semáforo para las anidadas
+    private static final int PERMISOS = Math.max(1, CONEXIONES - 1);
+    private static final int HILOS_TOMCAT = 50;
+    private static final long LLAMADA_EXTERNA_MS = 50;
+    private static final long TRANSACCION_MS = 2;
+
+    @Param({"plataforma", "virtual"})
+    private String modo;
+
+    @Param({"false", "true"})
+    private boolean admision;
+
+    // 1500/s: sobra pool, faltan hilos de plataforma. 3000/s: el cuello es el pool
+    @Param({"1500", "3000"})
+    private int porSegundo;
+
+    private HikariDataSource pool;
+    private DataSource dataSource;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Latencias {
+        public double p50Ms;
+        public double p99Ms;
+        public double maximoMs;
+        public long errores;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:carga;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(CONEXIONES);
+        config.setMinimumIdle(CONEXIONES);
+        config.setConnectionTimeout(30_000);
+        pool = new HikariDataSource(config);
+        try (Connection conexion = pool.getConnection(); Statement sentencia = conexion.createStatement()) {
+            sentencia.execute("CREATE TABLE IF NOT EXISTS producto (id BIGINT PRIMARY KEY, stock INT)");
+            sentencia.execute("MERGE INTO producto KEY (id) VALUES (1, 100)");
+        }
+        dataSource = admision
+                ? new AdmisionDataSource(pool, PERMISOS, Duration.ofSeconds(30))
+                : pool;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public void carga(Latencias latencias) throws InterruptedException {
+        Timer timer = Timer.builder("carga")
+                .publishPercentiles(0.5, 0.99)
+                // Que la ventana de percentiles y máximo cubra toda la carga
+                .distributionStatisticExpiry(Duration.ofMinutes(10))
+                .register(new SimpleMeterRegistry());
+        LongAdder errores = new LongAdder();
+        long intervalo = TimeUnit.SECONDS.toNanos(1) / porSegundo;
+
+        try (ExecutorService executor = "virtual".equals(modo)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(HILOS_TOMCAT)) {
+            long inicio = System.nanoTime();
+            for (int i = 0; i < PETICIONES; i++) {
+                long llegada = inicio + i * intervalo;
+                LockSupport.parkNanos(llegada - System.nanoTime());
+                executor.execute(() -> {
+                    try {
+                        atender();
+                    } catch (Exception e) {
+                        errores.increment();
+                    }
+                    timer.record(System.nanoTime() - llegada, TimeUnit.NANOSECONDS);
+                });
+            }
+        }
+
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        latencias.p50Ms = snapshot.percentileValues()[0].value(TimeUnit.MILLISECONDS);
+        latencias.p99Ms = snapshot.percentileValues()[1].value(TimeUnit.MILLISECONDS);
+        latencias.maximoMs = snapshot.max(TimeUnit.MILLISECONDS);
+        latencias.errores = errores.sum();
+    }
+
+    private void atender() throws Exception {
+        Thread.sleep(LLAMADA_EXTERNA_MS);
+        try (Connection conexion = dataSource.getConnection();
+             PreparedStatement consulta = conexion.prepareStatement("SELECT stock FROM producto WHERE id = ?")) {
+            consulta.setLong(1, 1L);
+            try (ResultSet resultado = consulta.executeQuery()) {
+                resultado.next();
+            }
+            Thread.sleep(TRANSACCION_MS);
+        }
+    }
+}
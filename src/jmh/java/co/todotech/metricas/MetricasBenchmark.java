@@ -0,0 +1,82 @@
+package co.todotech.metricas;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de registrar una muestra de latencia. Lo que interesa es la asignación por operación:
+ * correr con {@code -Pjmh.prof=gc} y leer {@code gc.alloc.rate.norm} (bytes por muestra).
+ *
+ * <ul>
+ *   <li>timerCacheado: el {@code record} puro sobre un timer ya resuelto.</li>
+ *   <li>timerDesdeMapa: el camino del aspecto de servicios (mapa por método + record).</li>
+ *   <li>timerConBuilder: resolver el timer con builder y tags en cada llamada, lo que se evita.</li>
+ *   <li>timerConPercentiles: el timer de {@code MonitorPasarela}, que calcula p50/p95/p99 en la instancia.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricasBenchmark {
+
+    private PrometheusMeterRegistry registry;
+    private Timer timer;
+    private Map<Method, Timer> timers;
+    private Method metodo;
+    private Timer timerPercentiles;
+    private long nanos;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        timer = Timer.builder(MetricasServicioAspect.METRICA)
+                .tags("clase", "OrdenServiceImpl", "metodo", "obtenerOrden", "excepcion", "none")
+                .register(registry);
+        metodo = Object.class.getMethod("toString");
+        timers = new ConcurrentHashMap<>();
+        timers.put(metodo, timer);
+        timerPercentiles = Timer.builder("todotech.pasarela.llamadas")
+                .tags("pasarela", "stripe", "operacion", "crear")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    @Benchmark
+    public void timerCacheado() {
+        timer.record(siguienteMuestra(), TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void timerDesdeMapa() {
+        timers.computeIfAbsent(metodo, m -> timer).record(siguienteMuestra(), TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void timerConBuilder() {
+        Timer.builder(MetricasServicioAspect.METRICA)
+                .tags("clase", "OrdenServiceImpl", "metodo", "obtenerOrden", "excepcion", "none")
+                .register(registry)
+                .record(siguienteMuestra(), TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void timerConPercentiles() {
+        timerPercentiles.record(siguienteMuestra(), TimeUnit.NANOSECONDS);
+    }
+
+    // Latencias entre ~0.1 ms y ~6.5 ms, sin constante que el JIT pueda plegar
+    private long siguienteMuestra() {
+        nanos = (nanos + 104_729) & 0x3F_FFFF;
+        return 100_000 + nanos;
+    }
+}
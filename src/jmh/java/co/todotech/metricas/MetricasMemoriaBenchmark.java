@@ -0,0 +1,61 @@
+package co.todotech.metricas;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memoria retenida por timer registrado en el registro de Prometheus, sin y con histograma de
+ * percentiles. Con el resultado se dimensiona {@code metricas.max-medidores}: el tope por los
+ * bytes por timer da la memoria máxima del registro.
+ * El resultado está en el contador auxiliar {@code bytesPorTimer}; el tiempo no interesa.
+ *
+ * A diferencia de {@code TokenBlacklistMemoriaBenchmark} no se mide el heap tras un GC: el
+ * heap ocupado tras {@code System.gc()} no reflejaba el registro recién poblado y salía negativo una
+ * iteración de cada dos. Se recorre el grafo con JOL, restando el de un registro vacío.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+// Los contadores EVENTS se suman entre iteraciones: una sola medición da el valor directo
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djdk.attach.allowAttachSelf", "-XX:+EnableDynamicAgentLoading", "-Djol.magicFieldOffset=true"})
+public class MetricasMemoriaBenchmark {
+
+    private static final int TIMERS = 1_000;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Memoria {
+        public long bytesPorTimer;
+    }
+
+    @Benchmark
+    public void timerSinHistograma(Memoria memoria) {
+        memoria.bytesPorTimer = medir(false);
+    }
+
+    @Benchmark
+    public void timerConHistograma(Memoria memoria) {
+        memoria.bytesPorTimer = medir(true);
+    }
+
+    private long medir(boolean histograma) {
+        long vacio = GraphLayout.parseInstance(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)).totalSize();
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        for (int i = 0; i < TIMERS; i++) {
+            Timer.builder(MetricasServicioAspect.METRICA)
+                    .tags("clase", "Servicio" + (i / 20) + "ServiceImpl", "metodo", "metodo" + (i % 20), "excepcion", "none")
+                    .publishPercentileHistogram(histograma)
+                    .register(registry)
+                    .record(Duration.ofMillis(i % 50 + 1));
+        }
+        return (GraphLayout.parseInstance(registry).totalSize() - vacio) / TIMERS;
+    }
+}
@@ -0,0 +1,86 @@
+package co.todotech.model.entities;
+
+import co.todotech.model.enums.EstadoOrden;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de armar y modificar órdenes de 10, 100 y 1000 líneas: recálculo completo en cada
+ * cambio (comportamiento anterior: agregarDetalle + calcularTotales explícito) contra los
+ * totales incrementales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrdenTotalesBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int lineas;
+
+    private Orden ordenArmada;
+    private DetalleOrden lineaCentral;
+    private int cantidad;
+
+    @Setup
+    public void setUp() {
+        ordenArmada = nuevaOrden();
+        for (int i = 0; i < lineas; i++) {
+            ordenArmada.agregarDetalle(linea(i));
+        }
+        lineaCentral = ordenArmada.getProductos().get(lineas / 2);
+    }
+
+    @Benchmark
+    public Orden armarConRecalculoCompleto() {
+        Orden orden = nuevaOrden();
+        for (int i = 0; i < lineas; i++) {
+            DetalleOrden detalle = linea(i);
+            detalle.setOrden(orden);
+            orden.getProductos().add(detalle);
+            orden.calcularTotales();
+            orden.calcularTotales();
+        }
+        return orden;
+    }
+
+    @Benchmark
+    public Orden armarIncremental() {
+        Orden orden = nuevaOrden();
+        for (int i = 0; i < lineas; i++) {
+            orden.agregarDetalle(linea(i));
+        }
+        return orden;
+    }
+
+    @Benchmark
+    public Double cambiarCantidadConRecalculoCompleto() {
+        lineaCentral.setCantidad(1 + (cantidad++ & 15));
+        lineaCentral.calcularSubtotal();
+        ordenArmada.calcularTotales();
+        return ordenArmada.getTotal();
+    }
+
+    @Benchmark
+    public Double cambiarCantidadIncremental() {
+        ordenArmada.actualizarCantidadDetalle(lineaCentral, 1 + (cantidad++ & 15));
+        return ordenArmada.getTotal();
+    }
+
+    private static Orden nuevaOrden() {
+        return Orden.builder()
+                .numeroOrden("BENCH")
+                .estado(EstadoOrden.AGREGANDOPRODUCTOS)
+                .build();
+    }
+
+    private static DetalleOrden linea(int i) {
+        return DetalleOrden.builder()
+                .precioUnitario(10.0 + (i % 50))
+                .cantidad(1 + (i % 4))
+                .build();
+    }
+}
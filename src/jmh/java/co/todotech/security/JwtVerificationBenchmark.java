@@ -0,0 +1,64 @@
+package co.todotech.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el camino anterior del filtro (validateToken + tres getters que decodifican
+ * de nuevo el token) contra la verificación en una sola pasada y contra un acierto
+ * en {@link VerifiedTokenCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache cache;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwtUtil = new JwtUtil(null);
+        setField(jwtUtil, "jwtSecret", "benchmark_jwt_secret_muy_largo_y_seguro_minimo_32");
+        setField(jwtUtil, "expiration", 3_600_000L);
+        setField(jwtUtil, "issuer", "todotech-app");
+        jwtUtil.init();
+
+        token = jwtUtil.generateToken("admin", 1L, "ADMIN");
+
+        cache = new VerifiedTokenCache(10_000);
+        cache.put(token, jwtUtil.verifyToken(token).orElseThrow());
+    }
+
+    @Benchmark
+    public void filtroAnteriorCuatroPasadas(Blackhole bh) {
+        if (jwtUtil.validateToken(token)) {
+            bh.consume(jwtUtil.getUsernameFromToken(token));
+            bh.consume(jwtUtil.getUserIdFromToken(token));
+            bh.consume(jwtUtil.getRoleFromToken(token));
+        }
+    }
+
+    @Benchmark
+    public JwtPrincipal verificacionUnaPasada() {
+        return jwtUtil.verifyToken(token).orElse(null);
+    }
+
+    @Benchmark
+    public JwtPrincipal aciertoEnCache() {
+        return cache.get(token);
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = JwtUtil.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
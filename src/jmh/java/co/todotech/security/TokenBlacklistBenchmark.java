@@ -0,0 +1,91 @@
+package co.todotech.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consulta de la blacklist en el filtro de autenticación: mapa anterior con el token
+ * completo como clave contra filtro de Bloom + resumen del jti.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenBlacklistBenchmark {
+
+    @Param({"10000"})
+    private int revocados;
+
+    private Map<String, LocalDateTime> mapaAnterior;
+    private TokenBlacklistService blacklist;
+
+    private String tokenActivo;
+    private JwtPrincipal principalActivo;
+    private String tokenRevocado;
+    private JwtPrincipal principalRevocado;
+
+    @Setup
+    public void setUp() {
+        mapaAnterior = new ConcurrentHashMap<>();
+        blacklist = new TokenBlacklistService(revocados, 60, Clock.systemUTC());
+
+        for (int i = 0; i < revocados; i++) {
+            String token = token("revocado-" + i);
+            mapaAnterior.put(token, LocalDateTime.now());
+            blacklist.blacklistToken(token);
+        }
+
+        tokenActivo = token("activo");
+        principalActivo = principal("activo");
+        tokenRevocado = token("revocado-" + (revocados / 2));
+        principalRevocado = principal("revocado-" + (revocados / 2));
+    }
+
+    @Benchmark
+    public boolean mapaAnteriorTokenActivo() {
+        // Una String nueva por petición, como la que sale del header: sin hash cacheado
+        return mapaAnterior.containsKey(new String(tokenActivo));
+    }
+
+    @Benchmark
+    public boolean bloomTokenActivo() {
+        return blacklist.isRevoked(principalActivo, tokenActivo);
+    }
+
+    @Benchmark
+    public boolean mapaAnteriorTokenRevocado() {
+        return mapaAnterior.containsKey(new String(tokenRevocado));
+    }
+
+    @Benchmark
+    public boolean bloomTokenRevocado() {
+        return blacklist.isRevoked(principalRevocado, tokenRevocado);
+    }
+
+    static String token(String jwtId) {
+        return JWT.create()
+                .withIssuer("todotech-app")
+                .withSubject("usuario_benchmark")
+                .withClaim("userId", 42L)
+                .withClaim("role", "VENDEDOR")
+                .withIssuedAt(new Date())
+                .withExpiresAt(Date.from(Instant.now().plusSeconds(86_400)))
+                .withJWTId(jwtId)
+                .sign(Algorithm.HMAC256("benchmark_jwt_secret_muy_largo_y_seguro_minimo_32"));
+    }
+
+    static JwtPrincipal principal(String jwtId) {
+        return new JwtPrincipal("usuario_benchmark", 42L, "VENDEDOR", jwtId, Instant.now().plusSeconds(86_400));
+    }
+}
@@ -0,0 +1,75 @@
+package co.todotech.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memoria retenida por entrada revocada: mapa anterior (token completo + LocalDateTime)
+ * contra la blacklist actual (resumen de 128 bits + exp + cubeta + bits del filtro).
+ * El resultado está en el contador auxiliar {@code bytesPorEntrada}; el tiempo no interesa.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+// Los contadores EVENTS se suman entre iteraciones: una sola medición da el valor directo
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseSerialGC")
+public class TokenBlacklistMemoriaBenchmark {
+
+    private static final int ENTRADAS = 50_000;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Memoria {
+        public long bytesPorEntrada;
+    }
+
+    private List<String> tokens;
+    // La estructura medida queda referenciada hasta la siguiente iteración
+    private Object retenido;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokens = new ArrayList<>(ENTRADAS);
+        for (int i = 0; i < ENTRADAS; i++) {
+            tokens.add(TokenBlacklistBenchmark.token("revocado-" + i));
+        }
+    }
+
+    @Benchmark
+    public void mapaAnterior(Memoria memoria) {
+        retenido = null;
+        long antes = memoriaUsada();
+        Map<String, LocalDateTime> mapa = new ConcurrentHashMap<>();
+        // Como en producción, cada clave es la copia que llegó en el header del logout
+        tokens.forEach(token -> mapa.put(new String(token.toCharArray()), LocalDateTime.now()));
+        retenido = mapa;
+        memoria.bytesPorEntrada = (memoriaUsada() - antes) / ENTRADAS;
+    }
+
+    @Benchmark
+    public void blacklistActual(Memoria memoria) {
+        retenido = null;
+        long antes = memoriaUsada();
+        TokenBlacklistService blacklist = new TokenBlacklistService(ENTRADAS, 60, Clock.systemUTC());
+        tokens.forEach(blacklist::blacklistToken);
+        retenido = blacklist;
+        memoria.bytesPorEntrada = (memoriaUsada() - antes) / ENTRADAS;
+    }
+
+    private static long memoriaUsada() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,495 @@
+package co.todotech.busqueda;
+
+import co.todotech.model.dto.producto.CatalogoFacetadoDto;
+import co.todotech.model.dto.producto.ConteoFacetaDto;
+import co.todotech.model.dto.producto.FiltroCatalogoDto;
+import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.model.enums.EstadoProducto;
+import co.todotech.utils.TrasCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Navegación del catálogo por facetas (categoría, marca, precio, garantía y disponibilidad)
+ * sin SQL.
+ *
+ * Cada producto visible recibe un ordinal denso y cada valor de faceta guarda un {@link BitSet}
+ * con los ordinales que lo tienen. Combinar filtros es intersectar bitsets, y el conteo de un
+ * valor es la cardinalidad de su bitset contra los demás filtros (el filtro de la propia
+ * faceta no se aplica, así se ve cuántos productos hay al cambiar de valor). Los rangos de
+ * precio configurados tienen su bitset; un rango libre (precioMin/precioMax) sale de los
+ * ordinales ordenados por precio.
+ *
+ * Los ordinales se asignan en orden de id (los productos nuevos tienen ids mayores) y no se
+ * reutilizan hasta reconstruir: recorrer el resultado devuelve los productos ordenados por id
+ * sin ordenar nada.
+ *
+ * Las escrituras (altas, cambios, movimientos de stock) se aplican tras el commit con el
+ * candado de escritura; las consultas comparten el de lectura.
+ */
+@Slf4j
+@Component
+public class FacetasCatalogo {
+
+    // Lo mismo que muestra el escaparate: ni inactivos ni descontinuados
+    private static final Set<EstadoProducto> ESTADOS_VISIBLES = EnumSet.of(EstadoProducto.ACTIVO, EstadoProducto.AGOTADO);
+
+    private static final Comparator<ConteoFacetaDto> MAS_FRECUENTE_PRIMERO = Comparator
+            .comparingLong(ConteoFacetaDto::cantidad).reversed()
+            .thenComparing(ConteoFacetaDto::etiqueta, String.CASE_INSENSITIVE_ORDER);
+
+    private final double[] limitesPrecio;
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    private final Lock lectura = candado.readLock();
+    private final Lock escritura = candado.writeLock();
+
+    // Todo lo siguiente se protege con el candado
+    private final Map<Long, Integer> ordinales = new HashMap<>();
+    private final List<ProductoDto> fichas = new ArrayList<>();
+    private final BitSet vivos = new BitSet();
+    private final BitSet conStock = new BitSet();
+    private final Map<Long, BitSet> porCategoria = new HashMap<>();
+    private final Map<Long, String> nombresCategoria = new HashMap<>();
+    private final Map<String, BitSet> porMarca = new HashMap<>();
+    private final Map<String, String> nombresMarca = new HashMap<>();
+    private final Map<Integer, BitSet> porGarantia = new HashMap<>();
+    private final BitSet[] porRangoPrecio;
+    // Ordinales ordenados por precio: un rango libre es un tramo contiguo que se ubica con dos búsquedas binarias
+    private double[] preciosOrdenados = new double[0];
+    private int[] ordinalesPorPrecio = new int[0];
+    private int conPrecio;
+
+    @Autowired
+    public FacetasCatalogo(@Value("${catalogo.facetas.limites-precio:100000,500000,1000000,3000000}") double[] limitesPrecio) {
+        double[] ordenados = limitesPrecio.clone();
+        Arrays.sort(ordenados);
+        this.limitesPrecio = ordenados;
+        this.porRangoPrecio = new BitSet[ordenados.length + 1];
+        for (int i = 0; i < porRangoPrecio.length; i++) {
+            porRangoPrecio[i] = new BitSet();
+        }
+    }
+
+    public void reconstruir(Collection<ProductoDto> productos) {
+        List<ProductoDto> porId = productos.stream()
+                .filter(producto -> producto.getId() != null)
+                .sorted(Comparator.comparing(ProductoDto::getId))
+                .toList();
+
+        escritura.lock();
+        try {
+            ordinales.clear();
+            fichas.clear();
+            vivos.clear();
+            conStock.clear();
+            porCategoria.clear();
+            nombresCategoria.clear();
+            porMarca.clear();
+            nombresMarca.clear();
+            porGarantia.clear();
+            Arrays.stream(porRangoPrecio).forEach(BitSet::clear);
+            porId.forEach(this::agregar);
+            ordenarPrecios();
+            log.info("🧮 Facetas del catálogo construidas: {} productos, {} categorías, {} marcas",
+                    vivos.cardinality(), porCategoria.size(), porMarca.size());
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /** Agrega, reemplaza o retira (si dejó de ser visible) el producto tras el commit. */
+    public void actualizar(ProductoDto producto) {
+        if (producto == null || producto.getId() == null) {
+            return;
+        }
+        TrasCommit.ejecutar(() -> conEscritura(() -> {
+            quitar(producto.getId());
+            int ordinal = agregar(producto);
+            if (ordinal >= 0) {
+                insertarPrecio(ordinal);
+            }
+        }));
+    }
+
+    public void eliminar(Long id) {
+        TrasCommit.ejecutar(() -> conEscritura(() -> quitar(id)));
+    }
+
+    /**
+     * Refleja un UPDATE atómico de stock: aplica la diferencia y la misma regla de estado que
+     * la consulta (ACTIVO sin stock pasa a AGOTADO y AGOTADO con stock vuelve a ACTIVO).
+     * Las diferencias se suman, así que el orden en que hacen commit no importa.
+     */
+    public void ajustarStock(Long id, int diferencia) {
+        TrasCommit.ejecutar(() -> conEscritura(() -> {
+            Integer ordinal = ordinales.get(id);
+            if (ordinal == null || !vivos.get(ordinal)) {
+                return;
+            }
+            ProductoDto anterior = fichas.get(ordinal);
+            int stock = (anterior.getStock() != null ? anterior.getStock() : 0) + diferencia;
+            EstadoProducto estado = anterior.getEstado();
+            if (estado == EstadoProducto.ACTIVO && stock <= 0) {
+                estado = EstadoProducto.AGOTADO;
+            } else if (estado == EstadoProducto.AGOTADO && stock > 0) {
+                estado = EstadoProducto.ACTIVO;
+            }
+
+            ProductoDto actual = copiar(anterior);
+            actual.setStock(stock);
+            actual.setEstado(estado);
+            fichas.set(ordinal, actual);
+            conStock.set(ordinal, disponible(actual));
+        }));
+    }
+
+    public CatalogoFacetadoDto consultar(FiltroCatalogoDto filtro) {
+        lectura.lock();
+        try {
+            BitSet categorias = union(porCategoria, filtro.categorias(), Function.identity());
+            BitSet marcas = union(porMarca, filtro.marcas(), TextoBusqueda::normalizar);
+            BitSet garantias = union(porGarantia, filtro.garantias(), Function.identity());
+            BitSet precio = rangoPrecio(filtro.precioMin(), filtro.precioMax());
+            BitSet disponibilidad = filtroDisponibilidad(filtro.disponible());
+
+            BitSet resultado = interseccion(categorias, marcas, garantias, precio, disponibilidad);
+            return new CatalogoFacetadoDto(
+                    pagina(resultado, filtro.pagina(), filtro.tamano()),
+                    resultado.cardinality(),
+                    contar(interseccion(marcas, garantias, precio, disponibilidad), porCategoria,
+                            String::valueOf, nombresCategoria::get),
+                    contar(interseccion(categorias, garantias, precio, disponibilidad), porMarca,
+                            nombresMarca::get, nombresMarca::get),
+                    contarRangosPrecio(interseccion(categorias, marcas, garantias, disponibilidad)),
+                    contarGarantias(interseccion(categorias, marcas, precio, disponibilidad)),
+                    contarDisponibilidad(interseccion(categorias, marcas, garantias, precio)));
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    public int size() {
+        lectura.lock();
+        try {
+            return vivos.cardinality();
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    // Devuelve el ordinal, o -1 si el producto no es visible. El orden por precio lo mantiene quien llama
+    private int agregar(ProductoDto producto) {
+        if (!ESTADOS_VISIBLES.contains(producto.getEstado())) {
+            return -1;
+        }
+        Integer ordinal = ordinales.computeIfAbsent(producto.getId(), id -> {
+            fichas.add(null);
+            return fichas.size() - 1;
+        });
+
+        ProductoDto ficha = copiar(producto);
+        fichas.set(ordinal, ficha);
+        vivos.set(ordinal);
+        conStock.set(ordinal, disponible(ficha));
+
+        if (ficha.getCategoria() != null && ficha.getCategoria().getId() != null) {
+            Long categoria = ficha.getCategoria().getId();
+            porCategoria.computeIfAbsent(categoria, c -> new BitSet()).set(ordinal);
+            if (ficha.getCategoria().getNombre() != null) {
+                nombresCategoria.put(categoria, ficha.getCategoria().getNombre());
+            }
+        }
+        String marca = claveMarca(ficha);
+        if (!marca.isEmpty()) {
+            porMarca.computeIfAbsent(marca, m -> new BitSet()).set(ordinal);
+            nombresMarca.putIfAbsent(marca, ficha.getMarca().trim());
+        }
+        if (ficha.getGarantia() != null) {
+            porGarantia.computeIfAbsent(ficha.getGarantia(), g -> new BitSet()).set(ordinal);
+        }
+        if (ficha.getPrecio() != null) {
+            porRangoPrecio[rango(ficha.getPrecio())].set(ordinal);
+        }
+        return ordinal;
+    }
+
+    // El ordinal queda reservado para el id: si vuelve a ser visible conserva su lugar en el orden
+    private void quitar(Long id) {
+        Integer ordinal = ordinales.get(id);
+        if (ordinal == null || !vivos.get(ordinal)) {
+            return;
+        }
+        ProductoDto ficha = fichas.get(ordinal);
+        vivos.clear(ordinal);
+        conStock.clear(ordinal);
+        fichas.set(ordinal, null);
+
+        if (ficha.getCategoria() != null && ficha.getCategoria().getId() != null) {
+            Long categoria = ficha.getCategoria().getId();
+            if (limpiar(porCategoria, categoria, ordinal)) {
+                nombresCategoria.remove(categoria);
+            }
+        }
+        String marca = claveMarca(ficha);
+        if (!marca.isEmpty() && limpiar(porMarca, marca, ordinal)) {
+            nombresMarca.remove(marca);
+        }
+        if (ficha.getGarantia() != null) {
+            limpiar(porGarantia, ficha.getGarantia(), ordinal);
+        }
+        if (ficha.getPrecio() != null) {
+            porRangoPrecio[rango(ficha.getPrecio())].clear(ordinal);
+            quitarPrecio(ordinal, ficha.getPrecio());
+        }
+    }
+
+    private void ordenarPrecios() {
+        ordinalesPorPrecio = vivos.stream()
+                .filter(ordinal -> fichas.get(ordinal).getPrecio() != null)
+                .boxed()
+                .sorted(Comparator.comparingDouble(ordinal -> fichas.get(ordinal).getPrecio()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        conPrecio = ordinalesPorPrecio.length;
+        preciosOrdenados = new double[conPrecio];
+        for (int i = 0; i < conPrecio; i++) {
+            preciosOrdenados[i] = fichas.get(ordinalesPorPrecio[i]).getPrecio();
+        }
+    }
+
+    private void insertarPrecio(int ordinal) {
+        Double precio = fichas.get(ordinal).getPrecio();
+        if (precio == null) {
+            return;
+        }
+        if (conPrecio == ordinalesPorPrecio.length) {
+            int capacidad = Math.max(16, conPrecio * 2);
+            ordinalesPorPrecio = Arrays.copyOf(ordinalesPorPrecio, capacidad);
+            preciosOrdenados = Arrays.copyOf(preciosOrdenados, capacidad);
+        }
+        int posicion = posicion(precio, false);
+        System.arraycopy(ordinalesPorPrecio, posicion, ordinalesPorPrecio, posicion + 1, conPrecio - posicion);
+        System.arraycopy(preciosOrdenados, posicion, preciosOrdenados, posicion + 1, conPrecio - posicion);
+        ordinalesPorPrecio[posicion] = ordinal;
+        preciosOrdenados[posicion] = precio;
+        conPrecio++;
+    }
+
+    private void quitarPrecio(int ordinal, double precio) {
+        for (int i = posicion(precio, true); i < conPrecio && preciosOrdenados[i] == precio; i++) {
+            if (ordinalesPorPrecio[i] == ordinal) {
+                System.arraycopy(ordinalesPorPrecio, i + 1, ordinalesPorPrecio, i, conPrecio - i - 1);
+                System.arraycopy(preciosOrdenados, i + 1, preciosOrdenados, i, conPrecio - i - 1);
+                conPrecio--;
+                return;
+            }
+        }
+    }
+
+    // Primera posición con un precio mayor al dado (o mayor o igual, si incluirIguales)
+    private int posicion(double precio, boolean incluirIguales) {
+        int desde = 0;
+        int hasta = conPrecio;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            double actual = preciosOrdenados[medio];
+            if (actual < precio || (!incluirIguales && actual == precio)) {
+                desde = medio + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+        return desde;
+    }
+
+    private List<ProductoDto> pagina(BitSet resultado, int pagina, int tamano) {
+        List<ProductoDto> productos = new ArrayList<>(Math.min(tamano, 100));
+        long saltar = (long) pagina * tamano;
+        for (int i = resultado.nextSetBit(0); i >= 0 && productos.size() < tamano; i = resultado.nextSetBit(i + 1)) {
+            if (saltar > 0) {
+                saltar--;
+            } else {
+                productos.add(fichas.get(i));
+            }
+        }
+        return productos;
+    }
+
+    private <K> List<ConteoFacetaDto> contar(BitSet base, Map<K, BitSet> postings,
+                                             Function<K, String> valor, Function<K, String> etiqueta) {
+        List<ConteoFacetaDto> conteos = new ArrayList<>();
+        postings.forEach((clave, posting) -> {
+            int cantidad = cardinalidadInterseccion(base, posting);
+            if (cantidad > 0) {
+                String nombre = etiqueta.apply(clave);
+                conteos.add(new ConteoFacetaDto(valor.apply(clave), nombre != null ? nombre : valor.apply(clave), cantidad));
+            }
+        });
+        conteos.sort(MAS_FRECUENTE_PRIMERO);
+        return conteos;
+    }
+
+    private List<ConteoFacetaDto> contarRangosPrecio(BitSet base) {
+        List<ConteoFacetaDto> conteos = new ArrayList<>();
+        for (int i = 0; i < porRangoPrecio.length; i++) {
+            int cantidad = cardinalidadInterseccion(base, porRangoPrecio[i]);
+            if (cantidad > 0) {
+                String desde = i == 0 ? "" : formatear(limitesPrecio[i - 1]);
+                String hasta = i == limitesPrecio.length ? "" : formatear(limitesPrecio[i]);
+                String etiqueta = desde.isEmpty() ? "Menos de " + hasta
+                        : hasta.isEmpty() ? desde + " o más" : desde + " a " + hasta;
+                conteos.add(new ConteoFacetaDto(desde + "-" + hasta, etiqueta, cantidad));
+            }
+        }
+        return conteos;
+    }
+
+    private List<ConteoFacetaDto> contarGarantias(BitSet base) {
+        List<ConteoFacetaDto> conteos = new ArrayList<>();
+        new TreeMap<>(porGarantia).forEach((meses, posting) -> {
+            int cantidad = cardinalidadInterseccion(base, posting);
+            if (cantidad > 0) {
+                conteos.add(new ConteoFacetaDto(String.valueOf(meses), meses + " meses", cantidad));
+            }
+        });
+        return conteos;
+    }
+
+    private List<ConteoFacetaDto> contarDisponibilidad(BitSet base) {
+        int conUnidades = cardinalidadInterseccion(base, conStock);
+        int sinUnidades = base.cardinality() - conUnidades;
+        List<ConteoFacetaDto> conteos = new ArrayList<>(2);
+        if (conUnidades > 0) {
+            conteos.add(new ConteoFacetaDto("true", "Con stock", conUnidades));
+        }
+        if (sinUnidades > 0) {
+            conteos.add(new ConteoFacetaDto("false", "Agotado", sinUnidades));
+        }
+        return conteos;
+    }
+
+    // null = la faceta no filtra
+    private static <K, V> BitSet union(Map<K, BitSet> postings, List<V> valores, Function<V, K> clave) {
+        if (valores == null || valores.isEmpty()) {
+            return null;
+        }
+        BitSet union = new BitSet();
+        for (V valor : valores) {
+            BitSet posting = valor != null ? postings.get(clave.apply(valor)) : null;
+            if (posting != null) {
+                union.or(posting);
+            }
+        }
+        return union;
+    }
+
+    // Los precios son casi todos distintos: en vez de un bitset por precio se marca el tramo ordenado
+    private BitSet rangoPrecio(Double minimo, Double maximo) {
+        if (minimo == null && maximo == null) {
+            return null;
+        }
+        int desde = minimo != null ? posicion(minimo, true) : 0;
+        int hasta = maximo != null ? posicion(maximo, false) : conPrecio;
+        BitSet rango = new BitSet(fichas.size());
+        for (int i = desde; i < hasta; i++) {
+            rango.set(ordinalesPorPrecio[i]);
+        }
+        return rango;
+    }
+
+    private BitSet filtroDisponibilidad(Boolean disponible) {
+        if (disponible == null) {
+            return null;
+        }
+        if (disponible) {
+            return conStock;
+        }
+        BitSet agotados = (BitSet) vivos.clone();
+        agotados.andNot(conStock);
+        return agotados;
+    }
+
+    private BitSet interseccion(BitSet... filtros) {
+        BitSet resultado = (BitSet) vivos.clone();
+        for (BitSet filtro : filtros) {
+            if (filtro != null) {
+                resultado.and(filtro);
+            }
+        }
+        return resultado;
+    }
+
+    private static int cardinalidadInterseccion(BitSet a, BitSet b) {
+        BitSet menor = a.length() <= b.length() ? a : b;
+        BitSet copia = (BitSet) menor.clone();
+        copia.and(menor == a ? b : a);
+        return copia.cardinality();
+    }
+
+    // true si el bitset quedó vacío y se retiró el valor
+    private static <K> boolean limpiar(Map<K, BitSet> postings, K clave, int ordinal) {
+        BitSet posting = postings.get(clave);
+        if (posting == null) {
+            return false;
+        }
+        posting.clear(ordinal);
+        if (posting.isEmpty()) {
+            postings.remove(clave);
+            return true;
+        }
+        return false;
+    }
+
+    private int rango(double precio) {
+        int posicion = Arrays.binarySearch(limitesPrecio, precio);
+        // Un precio igual a un límite abre el rango siguiente
+        return posicion >= 0 ? posicion + 1 : -posicion - 1;
+    }
+
+    private void conEscritura(Runnable cambio) {
+        escritura.lock();
+        try {
+            cambio.run();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private static boolean disponible(ProductoDto producto) {
+        return producto.getEstado() == EstadoProducto.ACTIVO && producto.getStock() != null && producto.getStock() > 0;
+    }
+
+    private static String claveMarca(ProductoDto producto) {
+        return producto.getMarca() == null ? "" : TextoBusqueda.normalizar(producto.getMarca().trim());
+    }
+
+    private static String formatear(double valor) {
+        return BigDecimal.valueOf(valor).stripTrailingZeros().toPlainString();
+    }
+
+    // Las fichas no comparten instancia con quien las entrega: los DTO son mutables
+    private static ProductoDto copiar(ProductoDto producto) {
+        return new ProductoDto(producto.getId(), producto.getNombre(), producto.getCodigo(), producto.getDescripcion(),
+                producto.getCategoria(), producto.getPrecio(), producto.getStock(), producto.getImagenUrl(),
+                producto.getMarca(), producto.getGarantia(), producto.getEstado());
+    }
+}
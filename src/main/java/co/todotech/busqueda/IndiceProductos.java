@@ -0,0 +1,300 @@
+package co.todotech.busqueda;
+
+import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.utils.TrasCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Índice invertido en memoria sobre nombre, marca, código y descripción de los productos.
+ *
+ * Cada término normalizado ({@link TextoBusqueda}) apunta a los productos que lo contienen con
+ * un peso según el campo. Una consulta exige todos sus términos; cada uno acepta la palabra
+ * exacta, palabras que empiezan por él y, desde {@value #LARGO_MINIMO_TOLERANCIA} letras, un
+ * error de tipeo. El costo depende de cuántos productos contienen los términos buscados, no
+ * del tamaño del catálogo.
+ *
+ * Los errores de tipeo se resuelven con un diccionario de borrados: cada término se registra
+ * también sin cada una de sus letras, y la consulta busca sus propios borrados ahí. Así se
+ * encuentran sustituciones, inserciones, omisiones y transposiciones sin recorrer el diccionario.
+ *
+ * Las escrituras se aplican tras el commit y están serializadas; las lecturas no bloquean.
+ */
+@Slf4j
+@Component
+public class IndiceProductos {
+
+    static final int LARGO_MINIMO_TOLERANCIA = 4;
+    private static final int LARGO_MINIMO_PREFIJO = 2;
+    // Una consulta de dos letras puede ser prefijo de cientos de términos
+    private static final int MAX_EXPANSIONES_PREFIJO = 64;
+
+    private static final float PESO_CODIGO = 4f;
+    private static final float PESO_NOMBRE = 3f;
+    private static final float PESO_MARCA = 2f;
+    private static final float PESO_DESCRIPCION = 1f;
+
+    private static final float FACTOR_EXACTO = 1f;
+    private static final float FACTOR_PREFIJO = 0.6f;
+    private static final float FACTOR_TOLERANTE = 0.4f;
+
+    private static final Comparator<Resultado> PEOR_PRIMERO = Comparator.comparingDouble(Resultado::puntaje)
+            .thenComparing(Resultado::id, Comparator.reverseOrder());
+
+    private final int maxResultados;
+    private volatile Contenido contenido = new Contenido();
+
+    @Autowired
+    public IndiceProductos(@Value("${busqueda.productos.max-resultados:50}") int maxResultados) {
+        if (maxResultados <= 0) {
+            throw new IllegalArgumentException("busqueda.productos.max-resultados debe ser mayor a 0");
+        }
+        this.maxResultados = maxResultados;
+    }
+
+    /** Reemplaza el índice completo; las búsquedas en curso terminan sobre el anterior. */
+    public void reconstruir(Collection<ProductoDto> productos) {
+        Contenido nuevo = new Contenido();
+        productos.forEach(nuevo::agregar);
+        synchronized (this) {
+            contenido = nuevo;
+        }
+        log.info("🔎 Índice de búsqueda de productos construido: {} productos, {} términos",
+                nuevo.documentos.size(), nuevo.postings.size());
+    }
+
+    /** Indexa (o reindexa) el producto cuando la transacción actual haga commit. */
+    public void actualizar(ProductoDto producto) {
+        TrasCommit.ejecutar(() -> {
+            synchronized (this) {
+                contenido.agregar(producto);
+            }
+        });
+    }
+
+    public void eliminar(Long id) {
+        TrasCommit.ejecutar(() -> {
+            synchronized (this) {
+                contenido.quitar(id);
+            }
+        });
+    }
+
+    public List<Long> buscar(String consulta) {
+        return buscar(consulta, maxResultados);
+    }
+
+    /** Ids de los productos que contienen todos los términos, del más al menos relevante. */
+    public List<Long> buscar(String consulta, int limite) {
+        Set<String> terminos = TextoBusqueda.terminos(consulta);
+        if (terminos.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        Contenido actual = contenido;
+        Map<Long, Float> acumulado = null;
+        for (String termino : terminos) {
+            Map<Long, Float> puntajes = actual.puntuar(termino);
+            if (puntajes.isEmpty()) {
+                return List.of();
+            }
+            acumulado = acumulado == null ? puntajes : intersectar(acumulado, puntajes);
+            if (acumulado.isEmpty()) {
+                return List.of();
+            }
+        }
+        return mejores(acumulado, limite);
+    }
+
+    public int size() {
+        return contenido.documentos.size();
+    }
+
+    public int getTerminos() {
+        return contenido.postings.size();
+    }
+
+    private static Map<Long, Float> intersectar(Map<Long, Float> a, Map<Long, Float> b) {
+        Map<Long, Float> menor = a.size() <= b.size() ? a : b;
+        Map<Long, Float> mayor = menor == a ? b : a;
+        Map<Long, Float> interseccion = new HashMap<>();
+        menor.forEach((id, puntaje) -> {
+            Float otro = mayor.get(id);
+            if (otro != null) {
+                interseccion.put(id, puntaje + otro);
+            }
+        });
+        return interseccion;
+    }
+
+    // Montículo de tamaño límite: no ordena todos los candidatos
+    private static List<Long> mejores(Map<Long, Float> puntajes, int limite) {
+        PriorityQueue<Resultado> cola = new PriorityQueue<>(Math.min(limite, puntajes.size()) + 1, PEOR_PRIMERO);
+        puntajes.forEach((id, puntaje) -> {
+            Resultado resultado = new Resultado(id, puntaje);
+            if (cola.size() < limite) {
+                cola.add(resultado);
+            } else if (PEOR_PRIMERO.compare(resultado, cola.peek()) > 0) {
+                cola.poll();
+                cola.add(resultado);
+            }
+        });
+
+        Long[] ids = new Long[cola.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = cola.poll().id();
+        }
+        return List.of(ids);
+    }
+
+    private record Resultado(Long id, float puntaje) {}
+
+    private static final class Contenido {
+
+        // término -> (id de producto -> peso del término en ese producto)
+        final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+        // término sin una de sus letras -> términos que lo generan
+        final Map<String, Set<String>> borrados = new ConcurrentHashMap<>();
+        // id -> términos con los que se indexó, para poder quitarlo
+        final Map<Long, Map<String, Float>> documentos = new ConcurrentHashMap<>();
+
+        void agregar(ProductoDto producto) {
+            if (producto == null || producto.getId() == null) {
+                return;
+            }
+            quitar(producto.getId());
+
+            Map<String, Float> pesos = new HashMap<>();
+            sumar(pesos, TextoBusqueda.terminos(producto.getCodigo()), PESO_CODIGO);
+            String codigo = TextoBusqueda.compacto(producto.getCodigo());
+            if (!codigo.isEmpty()) {
+                pesos.putIfAbsent(codigo, PESO_CODIGO);
+            }
+            sumar(pesos, TextoBusqueda.terminos(producto.getNombre()), PESO_NOMBRE);
+            sumar(pesos, TextoBusqueda.terminos(producto.getMarca()), PESO_MARCA);
+            sumar(pesos, TextoBusqueda.terminos(producto.getDescripcion()), PESO_DESCRIPCION);
+
+            pesos.forEach((termino, peso) -> {
+                Map<Long, Float> lista = postings.get(termino);
+                if (lista == null) {
+                    lista = new ConcurrentHashMap<>();
+                    registrarBorrados(termino);
+                    postings.put(termino, lista);
+                }
+                lista.put(producto.getId(), peso);
+            });
+            documentos.put(producto.getId(), pesos);
+        }
+
+        void quitar(Long id) {
+            Map<String, Float> anteriores = documentos.remove(id);
+            if (anteriores == null) {
+                return;
+            }
+            for (String termino : anteriores.keySet()) {
+                Map<Long, Float> lista = postings.get(termino);
+                if (lista == null) {
+                    continue;
+                }
+                lista.remove(id);
+                if (lista.isEmpty()) {
+                    postings.remove(termino);
+                    quitarBorrados(termino);
+                }
+            }
+        }
+
+        /** Mejor puntaje de cada producto para un término de la consulta. */
+        Map<Long, Float> puntuar(String termino) {
+            Map<Long, Float> puntajes = new HashMap<>();
+            acumular(puntajes, termino, FACTOR_EXACTO);
+
+            if (termino.length() >= LARGO_MINIMO_PREFIJO) {
+                int expansiones = 0;
+                for (String candidato : postings.subMap(termino, false, termino + Character.MAX_VALUE, false).keySet()) {
+                    if (expansiones++ == MAX_EXPANSIONES_PREFIJO) {
+                        break;
+                    }
+                    acumular(puntajes, candidato, FACTOR_PREFIJO);
+                }
+            }
+
+            if (termino.length() >= LARGO_MINIMO_TOLERANCIA) {
+                for (String candidato : cercanos(termino)) {
+                    acumular(puntajes, candidato, FACTOR_TOLERANTE);
+                }
+            }
+            return puntajes;
+        }
+
+        private void acumular(Map<Long, Float> puntajes, String termino, float factor) {
+            Map<Long, Float> lista = postings.get(termino);
+            if (lista == null || lista.isEmpty()) {
+                return;
+            }
+            // Los términos raros pesan más que los que aparecen en medio catálogo
+            float idf = (float) Math.log(1.0 + (double) documentos.size() / lista.size());
+            float escala = factor * idf;
+            lista.forEach((id, peso) -> puntajes.merge(id, peso * escala, Math::max));
+        }
+
+        // Términos del índice a un error de tipeo (distintos del propio término)
+        private Set<String> cercanos(String termino) {
+            Set<String> candidatos = new HashSet<>(borrados.getOrDefault(termino, Set.of()));
+            for (int i = 0; i < termino.length(); i++) {
+                String borrado = borrar(termino, i);
+                if (postings.containsKey(borrado)) {
+                    candidatos.add(borrado);
+                }
+                candidatos.addAll(borrados.getOrDefault(borrado, Set.of()));
+            }
+            candidatos.remove(termino);
+            candidatos.removeIf(candidato -> TextoBusqueda.distancia(termino, candidato, 1) > 1);
+            return candidatos;
+        }
+
+        private void registrarBorrados(String termino) {
+            if (termino.length() < LARGO_MINIMO_TOLERANCIA) {
+                return;
+            }
+            for (int i = 0; i < termino.length(); i++) {
+                borrados.computeIfAbsent(borrar(termino, i), b -> ConcurrentHashMap.newKeySet()).add(termino);
+            }
+        }
+
+        private void quitarBorrados(String termino) {
+            if (termino.length() < LARGO_MINIMO_TOLERANCIA) {
+                return;
+            }
+            for (int i = 0; i < termino.length(); i++) {
+                borrados.computeIfPresent(borrar(termino, i), (b, terminos) -> {
+                    terminos.remove(termino);
+                    return terminos.isEmpty() ? null : terminos;
+                });
+            }
+        }
+
+        private static String borrar(String termino, int posicion) {
+            return termino.substring(0, posicion) + termino.substring(posicion + 1);
+        }
+
+        private static void sumar(Map<String, Float> pesos, Collection<String> terminos, float peso) {
+            for (String termino : terminos) {
+                pesos.merge(termino, peso, Float::sum);
+            }
+        }
+    }
+}
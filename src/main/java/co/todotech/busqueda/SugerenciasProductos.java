@@ -0,0 +1,236 @@
+package co.todotech.busqueda;
+
+import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.model.dto.producto.SugerenciaProductoDto;
+import co.todotech.model.enums.EstadoProducto;
+import co.todotech.utils.TrasCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Autocompletado del buscador del escaparate por prefijo de nombre y marca.
+ *
+ * Cada producto aporta unas pocas claves normalizadas: el nombre desde cada una de sus primeras
+ * palabras ("portatil gamer asus", "gamer asus", ...) y la marca seguida del nombre. Las claves
+ * viven en un conjunto ordenado, así que las que empiezan por lo escrito forman un rango
+ * contiguo. Se devuelven los más populares (unidades vendidas recientes) de ese rango.
+ *
+ * Los prefijos cortos cubren rangos grandes: si un rango supera {@value #UMBRAL_MEMORIA} claves,
+ * sus mejores ids se guardan y las siguientes pulsaciones iguales no lo recorren. Una escritura
+ * descarta solo los prefijos de las claves que cambió; precio e imagen se leen al responder,
+ * así que cambiarlos no descarta nada.
+ */
+@Slf4j
+@Component
+public class SugerenciasProductos {
+
+    static final int UMBRAL_MEMORIA = 256;
+    // Nadie escribe más que esto en el buscador antes de elegir
+    private static final int LARGO_MAXIMO_CLAVE = 32;
+    private static final int MAX_PALABRAS = 4;
+
+    // Los descontinuados e inactivos no se venden; los agotados sí se muestran
+    private static final Set<EstadoProducto> ESTADOS_SUGERIBLES = EnumSet.of(EstadoProducto.ACTIVO, EstadoProducto.AGOTADO);
+
+    private final int maxSugerencias;
+
+    private final ConcurrentSkipListSet<Clave> claves = new ConcurrentSkipListSet<>();
+    private final Map<Long, Candidato> candidatos = new ConcurrentHashMap<>();
+    private final Map<String, List<Long>> mejoresPorPrefijo = new ConcurrentHashMap<>();
+    private final AtomicLong generacion = new AtomicLong();
+    private volatile Map<Long, Long> popularidad = Map.of();
+
+    // Más vendido primero; a igual popularidad, el nombre más corto (el más parecido a lo escrito)
+    private final Comparator<Long> ranking = Comparator
+            .comparingLong((Long id) -> popularidad.getOrDefault(id, 0L)).reversed()
+            .thenComparingInt(this::largoNombre)
+            .thenComparing(Comparator.naturalOrder());
+
+    @Autowired
+    public SugerenciasProductos(@Value("${sugerencias.productos.max:10}") int maxSugerencias) {
+        if (maxSugerencias <= 0) {
+            throw new IllegalArgumentException("sugerencias.productos.max debe ser mayor a 0");
+        }
+        this.maxSugerencias = maxSugerencias;
+    }
+
+    public synchronized void reconstruir(Collection<ProductoDto> productos, Map<Long, Long> vendidas) {
+        claves.clear();
+        candidatos.clear();
+        popularidad = Map.copyOf(vendidas);
+        productos.forEach(this::agregar);
+        descartarTodo();
+        log.info("🔤 Sugerencias de productos construidas: {} productos, {} claves", candidatos.size(), claves.size());
+    }
+
+    /** Agrega, reemplaza o retira (si ya no se vende) el producto tras el commit. */
+    public void actualizar(ProductoDto producto) {
+        if (producto == null || producto.getId() == null) {
+            return;
+        }
+        TrasCommit.ejecutar(() -> {
+            synchronized (this) {
+                quitar(producto.getId());
+                agregar(producto);
+            }
+        });
+    }
+
+    public void eliminar(Long id) {
+        TrasCommit.ejecutar(() -> {
+            synchronized (this) {
+                quitar(id);
+            }
+        });
+    }
+
+    /** Cambia el orden de todas las sugerencias: no se puede descartar por prefijo. */
+    public synchronized void actualizarPopularidad(Map<Long, Long> vendidas) {
+        popularidad = Map.copyOf(vendidas);
+        descartarTodo();
+    }
+
+    public List<SugerenciaProductoDto> sugerir(String prefijo, int limite) {
+        String consulta = recortar(String.join(" ", TextoBusqueda.palabras(prefijo)));
+        int cantidad = Math.min(limite, maxSugerencias);
+        if (consulta.isEmpty() || cantidad <= 0) {
+            return List.of();
+        }
+
+        List<Long> mejores = mejoresPorPrefijo.get(consulta);
+        if (mejores == null) {
+            mejores = calcularMejores(consulta);
+        }
+
+        List<SugerenciaProductoDto> sugerencias = new ArrayList<>(cantidad);
+        for (Long id : mejores) {
+            Candidato candidato = candidatos.get(id);
+            if (candidato != null) {
+                sugerencias.add(candidato.sugerencia());
+                if (sugerencias.size() == cantidad) {
+                    break;
+                }
+            }
+        }
+        return sugerencias;
+    }
+
+    public int size() {
+        return candidatos.size();
+    }
+
+    private List<Long> calcularMejores(String consulta) {
+        long generacionInicial = generacion.get();
+
+        Set<Long> ids = new LinkedHashSet<>();
+        int recorridas = 0;
+        for (Clave clave : claves.subSet(Clave.desde(consulta), Clave.desde(consulta + Character.MAX_VALUE))) {
+            ids.add(clave.productoId());
+            recorridas++;
+        }
+        ids.removeIf(id -> !candidatos.containsKey(id));
+
+        List<Long> mejores = ids.stream()
+                .sorted(ranking)
+                .limit(maxSugerencias)
+                .toList();
+
+        if (recorridas > UMBRAL_MEMORIA && generacion.get() == generacionInicial) {
+            mejoresPorPrefijo.put(consulta, mejores);
+        }
+        return mejores;
+    }
+
+    private void agregar(ProductoDto producto) {
+        if (producto.getId() == null || !ESTADOS_SUGERIBLES.contains(producto.getEstado())) {
+            return;
+        }
+
+        List<String> nombre = TextoBusqueda.palabras(producto.getNombre());
+        List<String> marca = TextoBusqueda.palabras(producto.getMarca());
+        Set<String> nuevas = new LinkedHashSet<>();
+        for (int i = 0; i < Math.min(nombre.size(), MAX_PALABRAS); i++) {
+            nuevas.add(recortar(String.join(" ", nombre.subList(i, nombre.size()))));
+        }
+        if (!marca.isEmpty()) {
+            List<String> marcaYNombre = new ArrayList<>(marca);
+            marcaYNombre.addAll(nombre);
+            nuevas.add(recortar(String.join(" ", marcaYNombre)));
+        }
+        nuevas.remove("");
+
+        SugerenciaProductoDto sugerencia = new SugerenciaProductoDto(
+                producto.getId(), producto.getNombre(), producto.getPrecio(), producto.getImagenUrl());
+        candidatos.put(producto.getId(), new Candidato(sugerencia, Set.copyOf(nuevas)));
+        nuevas.forEach(clave -> claves.add(new Clave(clave, producto.getId())));
+        descartarPrefijos(nuevas);
+    }
+
+    private void quitar(Long id) {
+        Candidato anterior = candidatos.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        anterior.claves().forEach(clave -> claves.remove(new Clave(clave, id)));
+        descartarPrefijos(anterior.claves());
+    }
+
+    // La generación se sube antes de descartar: un cálculo en curso no guarda su resultado
+    private void descartarPrefijos(Collection<String> cambiadas) {
+        generacion.incrementAndGet();
+        for (String clave : cambiadas) {
+            for (int largo = 1; largo <= clave.length(); largo++) {
+                mejoresPorPrefijo.remove(clave.substring(0, largo));
+            }
+        }
+    }
+
+    private void descartarTodo() {
+        generacion.incrementAndGet();
+        mejoresPorPrefijo.clear();
+    }
+
+    private int largoNombre(Long id) {
+        Candidato candidato = candidatos.get(id);
+        return candidato == null ? Integer.MAX_VALUE : candidato.largoNombre();
+    }
+
+    private static String recortar(String clave) {
+        return clave.length() > LARGO_MAXIMO_CLAVE ? clave.substring(0, LARGO_MAXIMO_CLAVE) : clave;
+    }
+
+    private record Candidato(SugerenciaProductoDto sugerencia, Set<String> claves) {
+
+        int largoNombre() {
+            return Objects.requireNonNullElse(sugerencia.nombre(), "").length();
+        }
+    }
+
+    private record Clave(String texto, long productoId) implements Comparable<Clave> {
+
+        static Clave desde(String texto) {
+            return new Clave(texto, Long.MIN_VALUE);
+        }
+
+        @Override
+        public int compareTo(Clave otra) {
+            int porTexto = texto.compareTo(otra.texto);
+            return porTexto != 0 ? porTexto : Long.compare(productoId, otra.productoId);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package co.todotech.busqueda;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización compartida por el índice y las consultas: minúsculas, sin tildes ni diéresis
+ * ("Cámara" y "camara" son el mismo término, la ñ queda como n) y cortado en palabras
+ * alfanuméricas.
+ */
+public final class TextoBusqueda {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private TextoBusqueda() {
+    }
+
+    public static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS_DIACRITICAS.matcher(descompuesto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /** Términos distintos del texto, en orden de aparición. */
+    public static Set<String> terminos(String texto) {
+        return new LinkedHashSet<>(palabras(texto));
+    }
+
+    /** Todas las palabras del texto, en orden y con repeticiones. */
+    public static List<String> palabras(String texto) {
+        List<String> palabras = new ArrayList<>();
+        for (String palabra : SEPARADORES.split(normalizar(texto))) {
+            if (!palabra.isEmpty()) {
+                palabras.add(palabra);
+            }
+        }
+        return palabras;
+    }
+
+    /** El texto como un solo término: "LAP-001" también se encuentra como "lap001". */
+    public static String compacto(String texto) {
+        return SEPARADORES.matcher(normalizar(texto)).replaceAll("");
+    }
+
+    /**
+     * Distancia de Damerau-Levenshtein restringida (una transposición cuenta como un error),
+     * cortando en cuanto supera {@code maxima}.
+     */
+    static int distancia(String a, String b, int maxima) {
+        if (Math.abs(a.length() - b.length()) > maxima) {
+            return maxima + 1;
+        }
+        int[] anterior2 = new int[b.length() + 1];
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            int minimoFila = actual[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int valor = Math.min(Math.min(anterior[j] + 1, actual[j - 1] + 1), anterior[j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    valor = Math.min(valor, anterior2[j - 2] + 1);
+                }
+                actual[j] = valor;
+                minimoFila = Math.min(minimoFila, valor);
+            }
+            if (minimoFila > maxima) {
+                return maxima + 1;
+            }
+            int[] libre = anterior2;
+            anterior2 = anterior;
+            anterior = actual;
+            actual = libre;
+        }
+        return anterior[b.length()];
+    }
+}
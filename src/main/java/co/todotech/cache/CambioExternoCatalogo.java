@@ -0,0 +1,33 @@
+package co.todotech.cache;
+
+import co.todotech.cache.VersionCatalogo.Seccion;
+
+/**
+ * Otra instancia confirmó escrituras en la sección. Se publica antes de subir aquí su versión:
+ * quien guarde en memoria datos de la sección debe descartarlos o recargarlos al recibirlo, para
+ * que nada anterior quede guardado con la versión nueva.
+ *
+ * Si quien recarga desde la BD encuentra exactamente lo que ya tenía, lo indica con
+ * {@link #sinDiferencias()} y la versión no sube: los ETag y lo cacheado siguen valiendo.
+ */
+public final class CambioExternoCatalogo {
+
+    private final Seccion seccion;
+    private boolean sinDiferencias;
+
+    public CambioExternoCatalogo(Seccion seccion) {
+        this.seccion = seccion;
+    }
+
+    public Seccion seccion() {
+        return seccion;
+    }
+
+    public void sinDiferencias() {
+        this.sinDiferencias = true;
+    }
+
+    public boolean huboDiferencias() {
+        return !sinDiferencias;
+    }
+}
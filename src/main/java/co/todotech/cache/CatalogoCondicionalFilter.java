@@ -0,0 +1,231 @@
+package co.todotech.cache;
+
+import co.todotech.cache.VersionCatalogo.Seccion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * GET condicional para las lecturas del catálogo ({@code /productos/publicos/**},
+ * {@code /categorias/**} y {@code /metodos-pago/**}).
+ *
+ * El ETag de una respuesta son las versiones de las secciones de las que depende
+ * ({@link VersionCatalogo}). Si el cliente ya tiene ese ETag se responde 304 antes de llegar al
+ * controlador: sin BD ni Jackson. Si no, se reenvían los bytes ya serializados para esa versión,
+ * y solo el primer GET de cada URL tras una escritura llega al controlador.
+ *
+ * Last-Modified tiene precisión de segundos: mientras no termine el segundo de la última
+ * escritura puede llegar otra con la misma fecha, así que hasta entonces no se envía ni se
+ * acepta If-Modified-Since y la revalidación queda en manos del ETag.
+ *
+ * Corre detrás de Spring Security (filtro sin orden explícito): las rutas autenticadas solo
+ * responden desde aquí a quien ya pasó la autenticación.
+ */
+@Component
+public class CatalogoCondicionalFilter extends OncePerRequestFilter {
+
+    // Las rutas autenticadas no deben quedar en cachés compartidas y se revalidan siempre
+    private static final String CACHE_PRIVADO = "private, no-cache";
+
+    private final VersionCatalogo versionCatalogo;
+    private final String cachePublico;
+    private final int maxRespuestas;
+    private final Clock clock;
+
+    private final Map<String, Respuesta> respuestas = new ConcurrentHashMap<>();
+    private final LongAdder noModificadas = new LongAdder();
+    private final LongAdder desdeMemoria = new LongAdder();
+
+    @Autowired
+    public CatalogoCondicionalFilter(VersionCatalogo versionCatalogo,
+                                     @Value("${catalogo.http.max-age-segundos:30}") int maxAgeSegundos,
+                                     @Value("${catalogo.http.max-respuestas:500}") int maxRespuestas) {
+        this(versionCatalogo, maxAgeSegundos, maxRespuestas, Clock.systemUTC());
+    }
+
+    CatalogoCondicionalFilter(VersionCatalogo versionCatalogo, int maxAgeSegundos, int maxRespuestas, Clock clock) {
+        this.versionCatalogo = versionCatalogo;
+        this.cachePublico = "public, max-age=" + maxAgeSegundos;
+        this.maxRespuestas = maxRespuestas;
+        this.clock = clock;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || Recurso.de(ruta(request)) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Recurso recurso = Recurso.de(ruta(request));
+        String etag = etag(recurso);
+        Instant modificado = ultimaModificacion(recurso);
+        String cacheControl = recurso.publico() ? cachePublico : CACHE_PRIVADO;
+
+        if (noModificado(request, etag, modificado)) {
+            noModificadas.increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            escribirCabeceras(response, etag, modificado, cacheControl);
+            return;
+        }
+
+        String clave = request.getQueryString() == null ? ruta(request) : ruta(request) + "?" + request.getQueryString();
+        Respuesta guardada = respuestas.get(clave);
+        if (guardada != null && guardada.etag().equals(etag)) {
+            desdeMemoria.increment();
+            escribirCabeceras(response, etag, modificado, cacheControl);
+            response.setContentType(guardada.tipoContenido());
+            response.setContentLength(guardada.cuerpo().length);
+            response.getOutputStream().write(guardada.cuerpo());
+            return;
+        }
+
+        ContentCachingResponseWrapper envoltura = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, envoltura);
+            // Solo las respuestas correctas: los errores no se revalidan ni se guardan
+            if (envoltura.getStatus() == HttpServletResponse.SC_OK) {
+                escribirCabeceras(envoltura, etag, modificado, cacheControl);
+                guardar(clave, new Respuesta(recurso, etag, envoltura.getContentType(), envoltura.getContentAsByteArray()));
+            }
+        } finally {
+            envoltura.copyBodyToResponse();
+        }
+    }
+
+    public long getNoModificadas() {
+        return noModificadas.sum();
+    }
+
+    public long getDesdeMemoria() {
+        return desdeMemoria.sum();
+    }
+
+    // Versión leída antes de cargar los datos: como sube tras el commit, los datos son al menos así de nuevos
+    private String etag(Recurso recurso) {
+        return recurso.secciones().stream()
+                .map(seccion -> seccion.name().charAt(0) + Long.toString(versionCatalogo.version(seccion)))
+                .collect(Collectors.joining(".", "\"", "\""));
+    }
+
+    // null mientras siga abierto el segundo de la última escritura
+    private Instant ultimaModificacion(Recurso recurso) {
+        Instant modificado = recurso.secciones().stream()
+                .map(versionCatalogo::ultimaModificacion)
+                .max(Instant::compareTo)
+                .orElseThrow();
+        return clock.instant().isBefore(modificado.plusSeconds(1)) ? null : modificado;
+    }
+
+    // If-None-Match manda sobre If-Modified-Since (RFC 9110 §13.2.2)
+    private static boolean noModificado(HttpServletRequest request, String etag, Instant modificado) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidato : ifNoneMatch.split(",")) {
+                String valor = candidato.trim();
+                // Comparación débil, la que pide la norma para If-None-Match
+                if (valor.startsWith("W/")) {
+                    valor = valor.substring(2);
+                }
+                if (valor.equals("*") || valor.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (modificado == null) {
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince >= 0 && modificado.toEpochMilli() <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            // Fecha mal formada: se ignora la cabecera
+            return false;
+        }
+    }
+
+    private static void escribirCabeceras(HttpServletResponse response, String etag, Instant modificado,
+                                          String cacheControl) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (modificado != null) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, modificado.toEpochMilli());
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+    }
+
+    // Lleno: se descartan las respuestas de versiones viejas y, si no alcanza, no se guarda
+    private void guardar(String clave, Respuesta respuesta) {
+        if (respuestas.size() >= maxRespuestas && !respuestas.containsKey(clave)) {
+            respuestas.values().removeIf(guardada -> !guardada.etag().equals(etag(guardada.recurso())));
+            if (respuestas.size() >= maxRespuestas) {
+                return;
+            }
+        }
+        respuestas.put(clave, respuesta);
+    }
+
+    private static String ruta(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private record Respuesta(Recurso recurso, String etag, String tipoContenido, byte[] cuerpo) {}
+
+    enum Recurso {
+        PRODUCTOS_PUBLICOS(EnumSet.of(Seccion.PRODUCTOS), true),
+        // Depende de qué categorías tienen productos
+        CATEGORIAS_CON_PRODUCTOS(EnumSet.of(Seccion.CATEGORIAS, Seccion.PRODUCTOS), false),
+        CATEGORIAS(EnumSet.of(Seccion.CATEGORIAS), false),
+        METODOS_PAGO(EnumSet.of(Seccion.METODOS_PAGO), false);
+
+        private final Set<Seccion> secciones;
+        private final boolean publico;
+
+        Recurso(Set<Seccion> secciones, boolean publico) {
+            this.secciones = secciones;
+            this.publico = publico;
+        }
+
+        Set<Seccion> secciones() {
+            return secciones;
+        }
+
+        boolean publico() {
+            return publico;
+        }
+
+        static Recurso de(String ruta) {
+            if (ruta.startsWith("/productos/publicos/")) {
+                return PRODUCTOS_PUBLICOS;
+            }
+            if (ruta.equals("/categorias/con-productos")) {
+                return CATEGORIAS_CON_PRODUCTOS;
+            }
+            if (ruta.equals("/categorias") || ruta.startsWith("/categorias/")) {
+                return CATEGORIAS;
+            }
+            if (ruta.equals("/metodos-pago") || ruta.startsWith("/metodos-pago/")) {
+                return METODOS_PAGO;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package co.todotech.cache;
+
+import co.todotech.cache.VersionCatalogo.Seccion;
+import co.todotech.model.dto.MensajeDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * JSON ya serializado (UTF-8) de los DTO del catálogo, por entidad y versión
+ * ({@link VersionCatalogo}), más los trozos de los listados completos por versión de la sección.
+ *
+ * Una respuesta se arma con el sobre del {@link MensajeDto} y esos bytes, sin pasar por Jackson
+ * ni copiarlos: un producto que no cambió se serializa una sola vez aunque salga en muchos
+ * listados. Un fragmento vale mientras la versión de su entidad no cambie; al fallar, se carga y
+ * se serializa de nuevo.
+ *
+ * Debajo de {@link CatalogoCondicionalFilter}: aquel guarda cuerpos completos por URL y se
+ * descarta entero con cualquier escritura de la sección; esto conserva cada entidad no tocada.
+ */
+@Component
+public class FragmentosJson {
+
+    // Listados por sección y nombre: son pocos y solo referencian los fragmentos
+    private static final int MAX_LISTAS = 256;
+    // Se busca en el sobre serializado para partirlo en prefijo y sufijo
+    private static final String MARCADOR = "\u0001datos\u0001";
+
+    private static final byte[] ABRE = {'['};
+    private static final byte[] SEPARADOR = {','};
+    private static final byte[] CIERRA = {']'};
+
+    private final ObjectMapper objectMapper;
+    private final VersionCatalogo versionCatalogo;
+    private final int maxFragmentos;
+
+    private final Map<Clave, Fragmento> fragmentos = new ConcurrentHashMap<>();
+    private final Map<ClaveLista, Listado> listas = new ConcurrentHashMap<>();
+    private final Map<String, Sobre> sobres = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public FragmentosJson(ObjectMapper objectMapper, VersionCatalogo versionCatalogo,
+                          @Value("${catalogo.json.max-fragmentos:20000}") int maxFragmentos) {
+        this.objectMapper = objectMapper;
+        this.versionCatalogo = versionCatalogo;
+        this.maxFragmentos = maxFragmentos;
+    }
+
+    /**
+     * {@code MensajeDto(false, mensaje, entidad)}. Si el fragmento de la entidad está vigente no se
+     * llama a la carga: la baja también cambia la versión, así que sigue existiendo.
+     */
+    public <T, E extends Exception> RespuestaJson uno(String mensaje, Seccion seccion, Long id, Carga<T, E> carga)
+            throws E {
+        Sobre sobre = sobre(mensaje);
+        // Versión leída antes de cargar: como sube tras el commit, los datos son al menos así de nuevos
+        long version = versionCatalogo.version(seccion, id);
+        Clave clave = new Clave(seccion, id);
+        Fragmento guardado = fragmentos.get(clave);
+        if (guardado != null && guardado.version() == version) {
+            hits.increment();
+            return new RespuestaJson(sobre.prefijo(), guardado.json(), sobre.sufijo());
+        }
+        misses.increment();
+
+        T entidad = carga.cargar();
+        byte[] json = serializar(entidad);
+        // Un "no existe" no se guarda: el alta no cambia la versión de ninguna entidad
+        if (entidad != null) {
+            guardar(fragmentos, clave, new Fragmento(version, json), maxFragmentos, this::fragmentoVigente);
+        }
+        return new RespuestaJson(sobre.prefijo(), json, sobre.sufijo());
+    }
+
+    /**
+     * {@code MensajeDto(false, mensaje, lista)}. El listado entero vale mientras la sección no
+     * cambie; si cambió, se vuelve a cargar y solo se serializan las entidades sin fragmento vigente.
+     */
+    public <T, E extends Exception> RespuestaJson lista(String mensaje, Seccion seccion, String nombre,
+                                                        Carga<List<T>, E> carga, Function<T, Long> id) throws E {
+        long version = versionCatalogo.version(seccion);
+        ClaveLista clave = new ClaveLista(seccion, nombre, mensaje);
+        Listado guardado = listas.get(clave);
+        if (guardado != null && guardado.version() == version) {
+            hits.increment();
+            return new RespuestaJson(guardado.partes());
+        }
+        misses.increment();
+
+        List<T> elementos = carga.cargar();
+        Sobre sobre = sobre(mensaje);
+        // prefijo [ f0 , f1 ... ] sufijo: los fragmentos se referencian, no se copian
+        byte[][] partes = new byte[elementos.isEmpty() ? 4 : 2 * elementos.size() + 3][];
+        int parte = 0;
+        partes[parte++] = sobre.prefijo();
+        partes[parte++] = ABRE;
+        for (int i = 0; i < elementos.size(); i++) {
+            if (i > 0) {
+                partes[parte++] = SEPARADOR;
+            }
+            T elemento = elementos.get(i);
+            partes[parte++] = fragmento(seccion, id.apply(elemento), elemento, version);
+        }
+        partes[parte++] = CIERRA;
+        partes[parte] = sobre.sufijo();
+
+        guardar(listas, clave, new Listado(version, partes), MAX_LISTAS, this::listaVigente);
+        return new RespuestaJson(partes);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public int size() {
+        return fragmentos.size() + listas.size();
+    }
+
+    private byte[] fragmento(Seccion seccion, Long id, Object elemento, long versionSeccion) {
+        long version = versionCatalogo.version(seccion, id);
+        Clave clave = new Clave(seccion, id);
+        Fragmento guardado = fragmentos.get(clave);
+        if (guardado != null && guardado.version() == version) {
+            hits.increment();
+            return guardado.json();
+        }
+        misses.increment();
+
+        byte[] json = serializar(elemento);
+        // Si la entidad cambió después de leer la sección, el elemento cargado puede ser anterior al cambio
+        if (version <= versionSeccion) {
+            guardar(fragmentos, clave, new Fragmento(version, json), maxFragmentos, this::fragmentoVigente);
+        }
+        return json;
+    }
+
+    // Lleno: se descartan las entradas de versiones viejas y, si no alcanza, no se guarda
+    private <K, V> void guardar(Map<K, V> mapa, K clave, V valor, int maximo, Predicate<Map.Entry<K, V>> vigente) {
+        if (mapa.size() >= maximo && !mapa.containsKey(clave)) {
+            int antes = mapa.size();
+            mapa.entrySet().removeIf(vigente.negate());
+            evictions.add(Math.max(0, antes - mapa.size()));
+            if (mapa.size() >= maximo) {
+                return;
+            }
+        }
+        mapa.put(clave, valor);
+    }
+
+    private boolean fragmentoVigente(Map.Entry<Clave, Fragmento> entrada) {
+        Clave clave = entrada.getKey();
+        return entrada.getValue().version() == versionCatalogo.version(clave.seccion(), clave.id());
+    }
+
+    private boolean listaVigente(Map.Entry<ClaveLista, Listado> entrada) {
+        return entrada.getValue().version() == versionCatalogo.version(entrada.getKey().seccion());
+    }
+
+    private Sobre sobre(String mensaje) {
+        return sobres.computeIfAbsent(mensaje, this::crearSobre);
+    }
+
+    // Serializa el MensajeDto con el marcador en data y lo parte ahí: mismo orden de campos y escapes que Jackson
+    private Sobre crearSobre(String mensaje) {
+        byte[] completo = serializar(new MensajeDto<>(false, mensaje, MARCADOR));
+        byte[] marcador = serializar(MARCADOR);
+        int inicio = buscar(completo, marcador);
+        if (inicio < 0) {
+            throw new IllegalStateException("No se encontró el marcador en el sobre de: " + mensaje);
+        }
+        return new Sobre(Arrays.copyOfRange(completo, 0, inicio),
+                Arrays.copyOfRange(completo, inicio + marcador.length, completo.length));
+    }
+
+    private static int buscar(byte[] texto, byte[] patron) {
+        for (int i = 0; i + patron.length <= texto.length; i++) {
+            if (Arrays.equals(texto, i, i + patron.length, patron, 0, patron.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private byte[] serializar(Object valor) {
+        try {
+            return objectMapper.writeValueAsBytes(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("DTO del catálogo no serializable", e);
+        }
+    }
+
+    /** Carga de los datos cuando no hay fragmento vigente; puede lanzar las excepciones del servicio. */
+    @FunctionalInterface
+    public interface Carga<T, E extends Exception> {
+        T cargar() throws E;
+    }
+
+    private record Clave(Seccion seccion, Long id) {}
+
+    private record ClaveLista(Seccion seccion, String nombre, String mensaje) {}
+
+    private record Fragmento(long version, byte[] json) {}
+
+    private record Listado(long version, byte[][] partes) {}
+
+    private record Sobre(byte[] prefijo, byte[] sufijo) {}
+}
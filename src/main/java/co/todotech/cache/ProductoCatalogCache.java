@@ -0,0 +1,312 @@
+package co.todotech.cache;
+
+import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.model.entities.Categoria;
+import co.todotech.model.enums.EstadoProducto;
+import co.todotech.utils.TrasCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria del catálogo de productos.
+ *
+ * Guarda {@link ProductoDto} por id y las vistas de listado (todos, por estado, por categoría,
+ * disponibles) ya mapeadas, para que el escaparate público no consulte la BD ni ejecute
+ * MapStruct en cada petición. Las escrituras en productos invalidan la entrada del producto
+ * y todas las vistas; la invalidación se repite al hacer commit para que ningún lector
+ * concurrente deje en caché datos anteriores a la transacción.
+ *
+ * Lo guardado se comparte entre todos los lectores, así que se guardan copias de solo lectura:
+ * un setter sobre un producto cacheado lanza {@link UnsupportedOperationException}.
+ */
+@Slf4j
+@Component
+public class ProductoCatalogCache {
+
+    private final Map<Clave, Entrada> entradas = new ConcurrentHashMap<>();
+    private final AtomicLong generacion = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    private final int maxEntradas;
+    private final Duration ttl;
+    private final Clock clock;
+
+    @Autowired
+    public ProductoCatalogCache(@Value("${catalogo.cache.max-entradas:5000}") int maxEntradas,
+                                @Value("${catalogo.cache.ttl-segundos:300}") long ttlSegundos) {
+        this(maxEntradas, Duration.ofSeconds(ttlSegundos), Clock.systemUTC());
+    }
+
+    ProductoCatalogCache(int maxEntradas, Duration ttl, Clock clock) {
+        if (maxEntradas <= 0) {
+            throw new IllegalArgumentException("catalogo.cache.max-entradas debe ser mayor a 0");
+        }
+        this.maxEntradas = maxEntradas;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    /**
+     * Devuelve el valor cacheado o lo carga con {@code cargador}, siempre como copia de solo lectura.
+     * Si hubo una invalidación mientras se cargaba, el resultado se devuelve pero no se guarda.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obtener(Clave clave, Supplier<T> cargador) {
+        Entrada entrada = entradas.get(clave);
+        Instant ahora = clock.instant();
+
+        if (entrada != null && entrada.expiraEn().isAfter(ahora)) {
+            hits.increment();
+            return (T) entrada.valor();
+        }
+
+        misses.increment();
+        long generacionInicial = generacion.get();
+        T valor = (T) soloLectura(cargador.get());
+
+        if (valor != null && generacion.get() == generacionInicial) {
+            guardar(clave, valor, ahora);
+        }
+        return valor;
+    }
+
+    /**
+     * Escritura directa: tras el commit el producto queda actualizado en caché
+     * y las vistas de listado se descartan.
+     */
+    public void refrescarProducto(Long id, ProductoDto dto) {
+        descartar(id);
+        long generacionEscritura = generacion.get();
+        Object copia = soloLectura(dto);
+        // Los datos nuevos solo son visibles tras el commit: se vuelve a aplicar en ese momento.
+        // Si hubo otra invalidación desde la escritura (p. ej. una transacción posterior que confirmó
+        // antes), este valor puede ser el más viejo: se descarta sin guardarlo, como en obtener
+        TrasCommit.registrar(() -> {
+            boolean vigente = generacion.get() == generacionEscritura;
+            descartar(id);
+            if (copia != null && vigente) {
+                guardar(Clave.producto(id), copia, clock.instant());
+            }
+        });
+    }
+
+    public void invalidarProducto(Long id) {
+        descartar(id);
+        TrasCommit.registrar(() -> descartar(id));
+    }
+
+    public void invalidarTodo() {
+        limpiar();
+        TrasCommit.registrar(this::limpiar);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidaciones() {
+        return invalidaciones.sum();
+    }
+
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public int size() {
+        return entradas.size();
+    }
+
+    // Subir la generación impide que una carga iniciada antes guarde un valor obsoleto
+    private void descartar(Long id) {
+        invalidaciones.increment();
+        generacion.incrementAndGet();
+        entradas.remove(Clave.producto(id));
+        entradas.keySet().removeIf(Clave::esVista);
+    }
+
+    private void limpiar() {
+        invalidaciones.increment();
+        generacion.incrementAndGet();
+        entradas.clear();
+    }
+
+    private void guardar(Clave clave, Object valor, Instant ahora) {
+        if (entradas.size() >= maxEntradas && !entradas.containsKey(clave)) {
+            hacerEspacio(ahora);
+        }
+        entradas.put(clave, new Entrada(valor, ahora.plus(ttl)));
+    }
+
+    // Primero descarta las expiradas; si sigue llena, libera ~10% de las entradas
+    private void hacerEspacio(Instant ahora) {
+        entradas.values().removeIf(entrada -> !entrada.expiraEn().isAfter(ahora));
+        if (entradas.size() < maxEntradas) {
+            return;
+        }
+
+        int aDescartar = Math.max(1, maxEntradas / 10);
+        Iterator<Clave> it = entradas.keySet().iterator();
+        while (aDescartar-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    // Las vistas son listas de productos; cualquier otro valor se guarda tal cual
+    private static Object soloLectura(Object valor) {
+        if (valor instanceof ProductoDto dto) {
+            return dto instanceof ProductoSoloLectura ? dto : new ProductoSoloLectura(dto);
+        }
+        if (valor instanceof List<?> lista) {
+            return lista.stream().map(ProductoCatalogCache::soloLectura).toList();
+        }
+        return valor;
+    }
+
+    private record Entrada(Object valor, Instant expiraEn) {}
+
+    private static final class ProductoSoloLectura extends ProductoDto {
+
+        ProductoSoloLectura(ProductoDto dto) {
+            super(dto.getId(), dto.getNombre(), dto.getCodigo(), dto.getDescripcion(),
+                    dto.getCategoria() == null ? null : new CategoriaSoloLectura(dto.getCategoria()),
+                    dto.getPrecio(), dto.getStock(), dto.getImagenUrl(), dto.getMarca(), dto.getGarantia(),
+                    dto.getEstado());
+        }
+
+        @Override
+        public void setId(Long id) {
+            throw sinEscritura();
+        }
+
+        @Override
+        public void setNombre(String nombre) {
+            throw sinEscritura();
+        }
+
+        @Override
+        public void setCodigo(String codigo) {
+            throw sinEscritura();
+        }
+
+        @Override
+        public void setDescripcion(String descripcion) {
+            throw sinEscritura();
+        }
+
+        @Override
+        public void setCategoria(Categoria categoria) {
+            throw sinEscritura();
+        }
+
+        @Override
+        public void setPrecio(Double precio) {
+            throw sinEscritura();
+        }
+
+        @Override
+        public void setStock(Integer stock) {
+            throw sinEscritura();
+        }
+
+        @Override
+        public void setImagenUrl(String imagenUrl) {
+            throw sinEscritura();
+        }
+
+        @Override
+        public void setMarca(String marca) {
+            throw sinEscritura();
+        }
+
+        @Override
+        public void setGarantia(Integer garantia) {
+            throw sinEscritura();
+        }
+
+        @Override
+        public void setEstado(EstadoProducto estado) {
+            throw sinEscritura();
+        }
+    }
+
+    private static final class CategoriaSoloLectura extends Categoria {
+
+        CategoriaSoloLectura(Categoria categoria) {
+            super(categoria.getId(), categoria.getNombre());
+        }
+
+        @Override
+        public void setId(Long id) {
+            throw sinEscritura();
+        }
+
+        @Override
+        public void setNombre(String nombre) {
+            throw sinEscritura();
+        }
+    }
+
+    private static UnsupportedOperationException sinEscritura() {
+        return new UnsupportedOperationException("Los productos del catálogo en caché son de solo lectura");
+    }
+
+    public enum TipoClave {
+        PRODUCTO, TODOS, ESTADO, CATEGORIA, DISPONIBLES
+    }
+
+    public record Clave(TipoClave tipo, Object parametro) {
+
+        public static Clave producto(Long id) {
+            return new Clave(TipoClave.PRODUCTO, id);
+        }
+
+        public static Clave todos() {
+            return new Clave(TipoClave.TODOS, null);
+        }
+
+        public static Clave estado(EstadoProducto estado) {
+            return new Clave(TipoClave.ESTADO, estado);
+        }
+
+        public static Clave categoria(Long categoriaId) {
+            return new Clave(TipoClave.CATEGORIA, categoriaId);
+        }
+
+        public static Clave disponibles() {
+            return new Clave(TipoClave.DISPONIBLES, null);
+        }
+
+        boolean esVista() {
+            return tipo != TipoClave.PRODUCTO;
+        }
+    }
+}
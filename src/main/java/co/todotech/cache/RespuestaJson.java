@@ -0,0 +1,26 @@
+package co.todotech.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Cuerpo JSON ya serializado, en trozos que se escriben tal cual a la respuesta
+ * ({@link RespuestaJsonConverter}): el sobre del {@code MensajeDto} y los datos guardados en
+ * {@link FragmentosJson}, sin copiarlos a un arreglo nuevo por petición.
+ */
+public record RespuestaJson(byte[]... partes) {
+
+    public long longitud() {
+        long longitud = 0;
+        for (byte[] parte : partes) {
+            longitud += parte.length;
+        }
+        return longitud;
+    }
+
+    public void escribirEn(OutputStream salida) throws IOException {
+        for (byte[] parte : partes) {
+            salida.write(parte);
+        }
+    }
+}
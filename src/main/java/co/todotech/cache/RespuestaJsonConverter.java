@@ -0,0 +1,48 @@
+package co.todotech.cache;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Escribe un {@link RespuestaJson} directo al stream de la respuesta, con su Content-Length.
+ * Spring Boot pone los convertidores declarados como bean delante de los suyos, así que Jackson
+ * no llega a ver estos cuerpos.
+ */
+@Component
+public class RespuestaJsonConverter extends AbstractHttpMessageConverter<RespuestaJson> {
+
+    public RespuestaJsonConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RespuestaJson.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected RespuestaJson readInternal(Class<? extends RespuestaJson> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("RespuestaJson solo se escribe", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(RespuestaJson respuesta, MediaType contentType) {
+        return respuesta.longitud();
+    }
+
+    @Override
+    protected void writeInternal(RespuestaJson respuesta, HttpOutputMessage outputMessage) throws IOException {
+        respuesta.escribirEn(outputMessage.getBody());
+    }
+}
@@ -0,0 +1,132 @@
+package co.todotech.cache;
+
+import co.todotech.cache.VersionCatalogo.Seccion;
+import co.todotech.model.entities.CatalogoVersion;
+import co.todotech.repository.CatalogoVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Versiones del catálogo entre instancias: sin esto, una escritura en un nodo no cambia los ETag
+ * ni descarta las respuestas y fragmentos guardados en los demás.
+ *
+ * Cada sección tiene una fila en {@code catalogo_version}. Cada pocos segundos el nodo sube la
+ * fila de las secciones en las que confirmó escrituras desde la vuelta anterior y lee las demás;
+ * si otra instancia la subió, avisa con {@link CambioExternoCatalogo} (cachés e índices en
+ * memoria se descartan o rehacen) y después sube aquí la sección entera ({@link VersionCatalogo}),
+ * salvo que lo recargado haya salido igual a lo que ya había.
+ * Lo escrito en otra instancia se ve aquí como máximo dos intervalos después.
+ *
+ * La fila no se sube dentro de la transacción de cada escritura: las ventas de productos distintos
+ * quedarían todas en fila tras el bloqueo de la de productos.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class SincronizacionCatalogo {
+
+    private final VersionCatalogo versionCatalogo;
+    private final CatalogoVersionRepository versionRepository;
+    private final TransactionTemplate transaccion;
+    private final ApplicationEventPublisher eventos;
+
+    private final AtomicBoolean iniciado = new AtomicBoolean(false);
+    // Solo los toca el hilo del sondeo una vez iniciado
+    private final Map<Seccion, Long> vistas = new EnumMap<>(Seccion.class);
+    private final Map<Seccion, Long> difundidos = new EnumMap<>(Seccion.class);
+
+    public SincronizacionCatalogo(VersionCatalogo versionCatalogo,
+                                  CatalogoVersionRepository versionRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  ApplicationEventPublisher eventos) {
+        this.versionCatalogo = versionCatalogo;
+        this.versionRepository = versionRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.eventos = eventos;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        for (Seccion seccion : Seccion.values()) {
+            inicializarFila(seccion);
+            vistas.put(seccion, leer(seccion));
+            difundidos.put(seccion, 0L);
+        }
+        iniciado.set(true);
+        log.info("🔄 Versiones compartidas del catálogo: {}", vistas);
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.sincronizacion.intervalo-ms:2000}",
+            initialDelayString = "${catalogo.sincronizacion.intervalo-ms:2000}")
+    public void sincronizar() {
+        if (!iniciado.get()) {
+            return;
+        }
+        for (Seccion seccion : Seccion.values()) {
+            try {
+                sincronizar(seccion);
+            } catch (DataAccessException e) {
+                // Lo pendiente sigue pendiente: se reintenta en la próxima vuelta
+                log.warn("⚠️ No se pudo sincronizar la versión de {}: {}", seccion, e.getMessage());
+            }
+        }
+    }
+
+    private void sincronizar(Seccion seccion) {
+        long cambios = versionCatalogo.cambiosLocales(seccion);
+        boolean difundir = cambios > difundidos.get(seccion);
+
+        long version = transaccion.execute(estado -> {
+            if (difundir && versionRepository.incrementar(seccion.name()) == 0) {
+                throw new IllegalStateException("No existe la fila de catalogo_version para " + seccion);
+            }
+            return leer(seccion);
+        });
+
+        // Con la fila bloqueada hasta el commit, la versión anterior a la nuestra es version - 1
+        long ajena = difundir ? version - 1 : version;
+        if (ajena > vistas.get(seccion)) {
+            // Primero se descarta lo viejo; con la versión nueva solo se guarda lo que se cargue después
+            CambioExternoCatalogo cambio = new CambioExternoCatalogo(seccion);
+            eventos.publishEvent(cambio);
+            if (cambio.huboDiferencias()) {
+                versionCatalogo.cambioExterno(seccion);
+                log.debug("Sección {} cambiada en otra instancia (versión {})", seccion, version);
+            }
+        }
+        vistas.put(seccion, version);
+        if (difundir) {
+            difundidos.put(seccion, cambios);
+        }
+    }
+
+    private long leer(Seccion seccion) {
+        return versionRepository.findVersion(seccion.name()).orElse(0L);
+    }
+
+    // Varias instancias pueden arrancar a la vez: la que pierde la carrera ignora la clave duplicada
+    private void inicializarFila(Seccion seccion) {
+        try {
+            transaccion.executeWithoutResult(estado -> {
+                if (!versionRepository.existsById(seccion.name())) {
+                    versionRepository.saveAndFlush(new CatalogoVersion(seccion.name(), 0L));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("La fila de catalogo_version de {} ya fue creada por otra instancia", seccion);
+        }
+    }
+}
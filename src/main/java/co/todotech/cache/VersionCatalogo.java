@@ -0,0 +1,139 @@
+package co.todotech.cache;
+
+import co.todotech.utils.TrasCommit;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Versión de los datos del catálogo, una por sección. Toda escritura que cambia lo que devuelve
+ * una lectura del catálogo sube la versión de su sección, y de ella salen los ETag y
+ * Last-Modified de las respuestas HTTP.
+ *
+ * Cada entidad tiene además su propia versión (la de la sección cuando se escribió por última
+ * vez), para que lo cacheado por id solo se descarte si cambió esa entidad. Un cambio que toca a
+ * toda la sección (renombrar una categoría cambia todos los productos) sube la base, y la base
+ * cuenta como versión mínima de cada entidad.
+ *
+ * La versión arranca en la hora actual en milisegundos y nunca queda por detrás de ella: un
+ * reinicio no repite un ETag que un cliente ya tenga guardado.
+ *
+ * Las versiones son de esta instancia. Lo que se escribe desde otra llega por
+ * {@link SincronizacionCatalogo}, que sube aquí la sección entera; por eso
+ * {@link #incrementarLocal(Seccion)} queda para lo que solo cambió en la memoria de esta.
+ */
+@Component
+public class VersionCatalogo {
+
+    public enum Seccion {
+        PRODUCTOS, CATEGORIAS, METODOS_PAGO
+    }
+
+    private final Map<Seccion, AtomicReference<Estado>> estados = new EnumMap<>(Seccion.class);
+    private final Map<Seccion, Map<Long, Long>> porEntidad = new EnumMap<>(Seccion.class);
+    // Escrituras confirmadas aquí, para que SincronizacionCatalogo sepa qué secciones avisar
+    private final Map<Seccion, AtomicLong> cambiosLocales = new EnumMap<>(Seccion.class);
+    private final Clock clock;
+
+    public VersionCatalogo() {
+        this(Clock.systemUTC());
+    }
+
+    VersionCatalogo(Clock clock) {
+        this.clock = clock;
+        for (Seccion seccion : Seccion.values()) {
+            long inicial = clock.millis();
+            estados.put(seccion, new AtomicReference<>(new Estado(inicial, inicial, instanteActual())));
+            porEntidad.put(seccion, new ConcurrentHashMap<>());
+            cambiosLocales.put(seccion, new AtomicLong());
+        }
+    }
+
+    /**
+     * Cambio que puede tocar a cualquier entidad de las secciones. Se aplica al hacer commit (o
+     * enseguida, fuera de una transacción); antes no, porque un lector podría guardar los datos
+     * anteriores con la versión nueva.
+     */
+    public void incrementar(Seccion... secciones) {
+        TrasCommit.ejecutar(() -> {
+            for (Seccion seccion : secciones) {
+                subir(seccion, true);
+                cambiosLocales.get(seccion).incrementAndGet();
+            }
+        });
+    }
+
+    public void incrementar(Seccion seccion, Long id) {
+        incrementar(seccion, List.of(id));
+    }
+
+    /** Cambio de las entidades indicadas; con la lista vacía solo cambia el orden o la selección. */
+    public void incrementar(Seccion seccion, Collection<Long> ids) {
+        TrasCommit.ejecutar(() -> {
+            subir(seccion, ids);
+            cambiosLocales.get(seccion).incrementAndGet();
+        });
+    }
+
+    /** Como {@link #incrementar(Seccion...)}, sin avisar a las demás instancias: la BD no cambió. */
+    public void incrementarLocal(Seccion seccion) {
+        TrasCommit.ejecutar(() -> subir(seccion, true));
+    }
+
+    /** Como {@link #incrementar(Seccion, Collection)}, sin avisar a las demás instancias. */
+    public void incrementarLocal(Seccion seccion, Collection<Long> ids) {
+        TrasCommit.ejecutar(() -> subir(seccion, ids));
+    }
+
+    public long version(Seccion seccion) {
+        return estados.get(seccion).get().version();
+    }
+
+    public long version(Seccion seccion, Long id) {
+        long base = estados.get(seccion).get().base();
+        Long propia = porEntidad.get(seccion).get(id);
+        return propia == null ? base : Math.max(propia, base);
+    }
+
+    public Instant ultimaModificacion(Seccion seccion) {
+        return estados.get(seccion).get().modificado();
+    }
+
+    /** Escrituras de la sección confirmadas en esta instancia desde que arrancó. */
+    public long cambiosLocales(Seccion seccion) {
+        return cambiosLocales.get(seccion).get();
+    }
+
+    // Otra instancia escribió en la sección: no se sabe qué entidades, así que cambian todas
+    void cambioExterno(Seccion seccion) {
+        subir(seccion, true);
+    }
+
+    private void subir(Seccion seccion, Collection<Long> ids) {
+        long version = subir(seccion, false);
+        ids.forEach(id -> porEntidad.get(seccion).put(id, version));
+    }
+
+    private long subir(Seccion seccion, boolean todaLaSeccion) {
+        return estados.get(seccion).updateAndGet(estado -> {
+            long version = Math.max(estado.version() + 1, clock.millis());
+            return new Estado(version, todaLaSeccion ? version : estado.base(), instanteActual());
+        }).version();
+    }
+
+    // Last-Modified viaja con precisión de segundos
+    private Instant instanteActual() {
+        return clock.instant().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private record Estado(long version, long base, Instant modificado) {}
+}
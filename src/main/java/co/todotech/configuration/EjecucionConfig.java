@@ -0,0 +1,54 @@
+package co.todotech.configuration;
+
+import co.todotech.jdbc.AdmisionDataSource;
+import co.todotech.metricas.AdmisionJdbcMetricas;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Modo de ejecución con hilos virtuales y admisión a JDBC.
+ *
+ * Los hilos virtuales los activa Spring Boot con {@code spring.threads.virtual.enabled}: Tomcat
+ * atiende cada petición en uno, y también las tareas asíncronas (exportaciones en streaming,
+ * {@code @Async}) y las programadas. Una llamada lenta a Stripe deja de ocupar uno de los
+ * {@code server.tomcat.max-threads} hilos, pero ya nada limita cuántas peticiones llegan a la
+ * vez al pool de conexiones: de eso se encarga {@link AdmisionDataSource}.
+ */
+@Slf4j
+@Configuration
+public class EjecucionConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "jdbc.admision.habilitada", havingValue = "true")
+    public static BeanPostProcessor admisionJdbc(Environment env) {
+        // Una conexión del pool queda fuera del semáforo, para las transacciones anidadas
+        int conexiones = env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        int permisos = env.getProperty("jdbc.admision.permisos", Integer.class, Math.max(1, conexiones - 1));
+        Duration espera = Duration.ofMillis(env.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30_000L));
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nombre) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof AdmisionDataSource)) {
+                    log.info("🚦 Admisión a JDBC activa sobre '{}': {} permisos para {} conexiones, espera máxima {} ms",
+                            nombre, permisos, conexiones, espera.toMillis());
+                    return new AdmisionDataSource(dataSource, permisos, espera);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "jdbc.admision.habilitada", havingValue = "true")
+    public AdmisionJdbcMetricas admisionJdbcMetricas(DataSource dataSource) {
+        return new AdmisionJdbcMetricas((AdmisionDataSource) dataSource);
+    }
+}
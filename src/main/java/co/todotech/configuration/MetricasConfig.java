@@ -0,0 +1,57 @@
+package co.todotech.configuration;
+
+import co.todotech.cache.FragmentosJson;
+import co.todotech.cache.ProductoCatalogCache;
+import co.todotech.metricas.CacheMetricas;
+import co.todotech.metricas.MetricasServicioAspect;
+import co.todotech.metricas.PasarelaMetricas;
+import co.todotech.metricas.PresupuestoMedidores;
+import co.todotech.security.VerifiedTokenCache;
+import co.todotech.service.impl.PaymentGatewayFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Métricas de la aplicación sobre Micrometer, exportadas en /actuator/prometheus.
+ *
+ * Spring Boot ya publica JVM, HTTP y el pool de Hikari ({@code hikaricp.connections.*});
+ * aquí se agregan los servicios, las cachés y las pasarelas, con un tope de medidores.
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public MeterFilter etiquetasComunes(@Value("${spring.application.name:TodoTech}") String aplicacion) {
+        return MeterFilter.commonTags(Tags.of("application", aplicacion));
+    }
+
+    // Último filtro: cuenta los medidores que de verdad se registran
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public PresupuestoMedidores presupuestoMedidores(@Value("${metricas.max-medidores:1500}") int maximo) {
+        return new PresupuestoMedidores(maximo);
+    }
+
+    @Bean
+    public MetricasServicioAspect metricasServicioAspect(MeterRegistry registry) {
+        return new MetricasServicioAspect(registry);
+    }
+
+    @Bean
+    public CacheMetricas cacheMetricas(ProductoCatalogCache catalogoCache, VerifiedTokenCache verifiedTokenCache,
+                                       FragmentosJson fragmentosJson) {
+        return new CacheMetricas(catalogoCache, verifiedTokenCache, fragmentosJson);
+    }
+
+    @Bean
+    public PasarelaMetricas pasarelaMetricas(PaymentGatewayFactory paymentGatewayFactory) {
+        return new PasarelaMetricas(paymentGatewayFactory);
+    }
+}
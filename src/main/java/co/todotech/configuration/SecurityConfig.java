@@ -3,21 +3,28 @@ package co.todotech.configuration;
 import co.todotech.security.JwtAuthenticationFilter;
 import co.todotech.security.JwtUtil;
 import co.todotech.security.TokenBlacklistService;
+import co.todotech.security.VerifiedTokenCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 @EnableMethodSecurity
@@ -26,6 +33,10 @@ public class SecurityConfig {
 
     private final JwtUtil jwtUtil;
     private final TokenBlacklistService tokenBlacklistService;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    @Value("${metricas.prometheus.redes-permitidas:127.0.0.1/32,::1/128}")
+    private String redesMetricas;
 
     @Bean
     public PasswordEncoder passwordEncoder() {
@@ -47,12 +58,17 @@ public class SecurityConfig {
                                 "/productos/publicos/**",
                                 "/stripe/**",
                                 "/paypal/**",
+                                "/api/payment-gateway/webhook/**", // Autenticado por firma de la pasarela
                                 "/health",
                                 "/",
                                 "/api/monitoring/health",        // ✅ NUEVO
-                                "/api/monitoring/test"           // ✅ NUEVO
+                                "/api/monitoring/test",          // ✅ NUEVO
+                                "/actuator/health"
                         ).permitAll()
 
+                        // 📈 SCRAPE DE PROMETHEUS: sin token, solo desde las redes configuradas
+                        .requestMatchers("/actuator/prometheus").access(desdeRedesDeMetricas())
+
                         // 🔐 ENDPOINTS QUE REQUIEREN AUTENTICACIÓN BÁSICA
                         .requestMatchers("/usuarios/logout").authenticated()
 
@@ -63,12 +79,23 @@ public class SecurityConfig {
                         // 🔒 TODAS LAS DEMÁS REQUESTS REQUIEREN AUTENTICACIÓN
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, tokenBlacklistService),
+                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, tokenBlacklistService, verifiedTokenCache),
                         UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 
+    // Detrás de un proxy la IP remota es la del proxy: configurar la red interna del scraper
+    private AuthorizationManager<RequestAuthorizationContext> desdeRedesDeMetricas() {
+        List<IpAddressMatcher> redes = Arrays.stream(redesMetricas.split(","))
+                .map(String::trim)
+                .filter(red -> !red.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        return (autenticacion, contexto) -> new AuthorizationDecision(
+                redes.stream().anyMatch(red -> red.matches(contexto.getRequest())));
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
@@ -96,14 +123,18 @@ public class SecurityConfig {
                 "Accept",
                 "Origin",
                 "Access-Control-Request-Method",
-                "Access-Control-Request-Headers"
+                "Access-Control-Request-Headers",
+                "If-None-Match",
+                "If-Modified-Since"
         ));
 
         // ✅ HEADERS EXPUESTOS
         configuration.setExposedHeaders(Arrays.asList(
                 "X-Auth-Token",
                 "Authorization",
-                "Content-Disposition"
+                "Content-Disposition",
+                "ETag",
+                "Last-Modified"
         ));
 
         // ✅ PERMITIR CREDENCIALES
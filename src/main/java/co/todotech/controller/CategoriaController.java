@@ -1,5 +1,7 @@
 package co.todotech.controller;
 
+import co.todotech.cache.FragmentosJson;
+import co.todotech.cache.VersionCatalogo.Seccion;
 import co.todotech.model.dto.MensajeDto;
 import co.todotech.model.dto.categoria.CategoriaDto;
 import co.todotech.service.CategoriaService;
@@ -17,6 +19,7 @@ import java.util.List;
 public class CategoriaController {
 
     private final CategoriaService categoriaService;
+    private final FragmentosJson fragmentosJson;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -54,10 +57,10 @@ public class CategoriaController {
 
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<MensajeDto<CategoriaDto>> obtenerCategoriaPorId(@PathVariable Long id) {
+    public ResponseEntity<?> obtenerCategoriaPorId(@PathVariable Long id) {
         try {
-            CategoriaDto dto = categoriaService.obtenerCategoriaPorId(id);
-            return ResponseEntity.ok(new MensajeDto<>(false, "Categoría encontrada", dto));
+            return ResponseEntity.ok(fragmentosJson.uno("Categoría encontrada", Seccion.CATEGORIAS, id,
+                    () -> categoriaService.obtenerCategoriaPorId(id)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
         }
@@ -76,10 +79,10 @@ public class CategoriaController {
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<MensajeDto<List<CategoriaDto>>> obtenerTodasLasCategorias() {
+    public ResponseEntity<?> obtenerTodasLasCategorias() {
         try {
-            List<CategoriaDto> categorias = categoriaService.obtenerTodasLasCategorias();
-            return ResponseEntity.ok(new MensajeDto<>(false, "Categorías obtenidas exitosamente", categorias));
+            return ResponseEntity.ok(fragmentosJson.lista("Categorías obtenidas exitosamente", Seccion.CATEGORIAS,
+                    "todas", categoriaService::obtenerTodasLasCategorias, CategoriaDto::getId));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
         }
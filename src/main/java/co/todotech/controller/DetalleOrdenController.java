@@ -2,6 +2,7 @@ package co.todotech.controller;
 
 import co.todotech.model.dto.MensajeDto;
 import co.todotech.model.dto.detalleorden.CreateDetalleOrdenDto;
+import co.todotech.model.dto.detalleorden.CreateDetallesOrdenDto;
 import co.todotech.model.dto.detalleorden.DetalleOrdenDto;
 import co.todotech.model.dto.detalleorden.EliminarDetalleRequest;
 import co.todotech.model.dto.detalleorden.validacion.BulkStockValidationRequest;
@@ -38,6 +39,19 @@ public class DetalleOrdenController {
         }
     }
 
+    @PostMapping("/orden/{ordenId}/lote")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR')")
+    public ResponseEntity<MensajeDto<List<DetalleOrdenDto>>> crearDetallesOrden(
+            @PathVariable("ordenId") Long ordenId,
+            @Valid @RequestBody CreateDetallesOrdenDto dto) {
+        try {
+            List<DetalleOrdenDto> detallesCreados = detalleOrdenService.crearDetallesOrden(dto, ordenId);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Detalles de orden creados exitosamente", detallesCreados));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<MensajeDto<DetalleOrdenDto>> obtenerDetalleOrden(
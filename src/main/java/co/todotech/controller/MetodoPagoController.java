@@ -1,5 +1,7 @@
 package co.todotech.controller;
 
+import co.todotech.cache.FragmentosJson;
+import co.todotech.cache.VersionCatalogo.Seccion;
 import co.todotech.model.dto.MensajeDto;
 import co.todotech.model.dto.metodopago.MetodoPagoDto;
 import co.todotech.model.enums.TipoMetodo;
@@ -18,6 +20,7 @@ import java.util.List;
 public class MetodoPagoController {
 
     private final MetodoPagoService metodoPagoService;
+    private final FragmentosJson fragmentosJson;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -55,10 +58,10 @@ public class MetodoPagoController {
 
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<MensajeDto<MetodoPagoDto>> obtenerMetodoPagoPorId(@PathVariable Long id) {
+    public ResponseEntity<?> obtenerMetodoPagoPorId(@PathVariable Long id) {
         try {
-            MetodoPagoDto dto = metodoPagoService.obtenerMetodoPagoPorId(id);
-            return ResponseEntity.ok(new MensajeDto<>(false, "Método de pago encontrado", dto));
+            return ResponseEntity.ok(fragmentosJson.uno("Método de pago encontrado", Seccion.METODOS_PAGO, id,
+                    () -> metodoPagoService.obtenerMetodoPagoPorId(id)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
         }
@@ -114,10 +117,10 @@ public class MetodoPagoController {
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<MensajeDto<List<MetodoPagoDto>>> obtenerTodosLosMetodosPago() {
+    public ResponseEntity<?> obtenerTodosLosMetodosPago() {
         try {
-            List<MetodoPagoDto> lista = metodoPagoService.obtenerTodosLosMetodosPago();
-            return ResponseEntity.ok(new MensajeDto<>(false, "Todos los métodos de pago obtenidos exitosamente", lista));
+            return ResponseEntity.ok(fragmentosJson.lista("Todos los métodos de pago obtenidos exitosamente",
+                    Seccion.METODOS_PAGO, "todos", metodoPagoService::obtenerTodosLosMetodosPago, MetodoPagoDto::id));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
         }
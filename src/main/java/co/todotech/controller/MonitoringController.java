@@ -1,16 +1,29 @@
 package co.todotech.controller;
 
+import co.todotech.cache.ProductoCatalogCache;
+import co.todotech.exception.ordenventa.ConciliacionEnCursoException;
+import co.todotech.metricas.PresupuestoMedidores;
 import co.todotech.model.dto.MensajeDto;
+import co.todotech.model.dto.ordenventa.ConciliacionResumenDto;
+import co.todotech.model.dto.ordenventa.ResumenVentasDto;
 import co.todotech.model.enums.EstadoOrden;
+import co.todotech.service.PaymentGatewayService;
+import co.todotech.service.ResumenVentasService;
+import co.todotech.service.impl.PaymentGatewayFactory;
 import co.todotech.service.impl.OrdenServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/monitoring")
@@ -19,6 +32,10 @@ import java.util.Map;
 public class MonitoringController {
 
     private final OrdenServiceImpl ordenService;
+    private final ProductoCatalogCache catalogoCache;
+    private final PaymentGatewayFactory paymentGatewayFactory;
+    private final ResumenVentasService resumenVentasService;
+    private final PresupuestoMedidores presupuestoMedidores;
 
     /**
      * ✅ ENDPOINT PÚBLICO PARA HEALTH CHECK
@@ -238,4 +255,107 @@ public class MonitoringController {
                     .body(new MensajeDto<>(true, "Error al generar estadísticas: " + e.getMessage(), null));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * ✅ ENDPOINT PARA MÉTRICAS DE LA CACHÉ DEL CATÁLOGO
+     * URL: GET /api/monitoring/cache/catalogo
+     */
+    @GetMapping("/cache/catalogo")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<Map<String, Object>>> getMetricasCacheCatalogo() {
+        Map<String, Object> metricas = Map.of(
+                "entradas", catalogoCache.size(),
+                "hits", catalogoCache.getHits(),
+                "misses", catalogoCache.getMisses(),
+                "hitRatio", catalogoCache.getHitRatio(),
+                "evictions", catalogoCache.getEvictions(),
+                "invalidaciones", catalogoCache.getInvalidaciones()
+        );
+
+        log.info("📊 MONITORING_CACHE - Hit ratio del catálogo: {}", catalogoCache.getHitRatio());
+        return ResponseEntity.ok(new MensajeDto<>(false, "Métricas de caché obtenidas exitosamente", metricas));
+    }
+
+    /**
+     * ✅ ENDPOINT PARA ESTADO DE LAS PASARELAS DE PAGO (circuito y latencias p50/p95/p99)
+     * URL: GET /api/monitoring/pasarelas
+     */
+    @GetMapping("/pasarelas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<Map<String, Object>>> getMetricasPasarelas() {
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        for (PaymentGatewayService pasarela : paymentGatewayFactory.getPasarelas()) {
+            metricas.put(pasarela.getNombre(), pasarela.getMonitor().resumen());
+        }
+
+        log.info("📊 MONITORING_PASARELAS - {} pasarela(s) reportadas", metricas.size());
+        return ResponseEntity.ok(new MensajeDto<>(false, "Métricas de pasarelas obtenidas exitosamente", metricas));
+    }
+
+    /**
+     * ✅ ENDPOINT PARA EL PRESUPUESTO DE MEDIDORES DE MICROMETER (las series están en /actuator/prometheus)
+     * URL: GET /api/monitoring/metricas
+     */
+    @GetMapping("/metricas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<Map<String, Object>>> getPresupuestoMetricas() {
+        Map<String, Object> presupuesto = Map.of(
+                "medidores", presupuestoMedidores.getAceptados(),
+                "maximo", presupuestoMedidores.getMaximo(),
+                "rechazados", presupuestoMedidores.getRechazados()
+        );
+
+        log.info("📊 MONITORING_METRICS - {} de {} medidores", presupuestoMedidores.getAceptados(),
+                presupuestoMedidores.getMaximo());
+        return ResponseEntity.ok(new MensajeDto<>(false, "Presupuesto de métricas obtenido exitosamente", presupuesto));
+    }
+
+    /**
+     * ✅ ENDPOINT PARA RESUMEN DE VENTAS (día, vendedor, categoría y estado) desde las tablas agregadas
+     * URL: GET /api/monitoring/ventas/resumen?desde=2025-01-01&hasta=2025-01-31&estados=PAGADA,ENTREGADA
+     */
+    @GetMapping("/ventas/resumen")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR')")
+    public ResponseEntity<MensajeDto<ResumenVentasDto>> getResumenVentas(
+            @RequestParam("desde") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam("hasta") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(value = "estados", required = false) Set<EstadoOrden> estados) {
+        try {
+            ResumenVentasDto resumen = resumenVentasService.obtenerResumen(desde, hasta, estados);
+
+            log.info("📈 MONITORING_SALES_SUMMARY - {} a {}: {} órdenes, total {}",
+                    desde, hasta, resumen.general().cantidadOrdenes(), resumen.general().total());
+            return ResponseEntity.ok(new MensajeDto<>(false, "Resumen de ventas generado exitosamente", resumen));
+
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ MONITORING_API_WARN - Rango inválido: {} a {}", desde, hasta);
+            return ResponseEntity.badRequest()
+                    .body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+
+    /**
+     * ✅ ENDPOINT PARA CONCILIAR LOS RESÚMENES DE VENTAS CONTRA LAS ÓRDENES
+     * URL: POST /api/monitoring/ventas/resumen/conciliar?desde=2025-01-01&hasta=2025-01-31
+     */
+    @PostMapping("/ventas/resumen/conciliar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<ConciliacionResumenDto>> conciliarResumenVentas(
+            @RequestParam("desde") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam("hasta") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            ConciliacionResumenDto resultado = resumenVentasService.reconciliar(desde, hasta);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Resumen de ventas conciliado exitosamente", resultado));
+
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ MONITORING_API_WARN - Rango inválido: {} a {}", desde, hasta);
+            return ResponseEntity.badRequest()
+                    .body(new MensajeDto<>(true, e.getMessage(), null));
+
+        } catch (ConciliacionEnCursoException e) {
+            log.warn("⚠️ MONITORING_API_WARN - {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package co.todotech.controller;
 
 import co.todotech.model.dto.MensajeDto;
+import co.todotech.model.dto.PaginaDto;
 import co.todotech.model.dto.ordenventa.CreateOrdenDto;
 import co.todotech.model.dto.ordenventa.OrdenConDetallesDto;
 import co.todotech.model.dto.ordenventa.OrdenDto;
 import co.todotech.model.enums.EstadoOrden;
+import co.todotech.model.enums.FormatoExportacion;
+import co.todotech.service.ExportacionService;
 import co.todotech.service.OrdenService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -21,6 +30,7 @@ import java.util.List;
 public class OrdenController {
 
     private final OrdenService ordenService;
+    private final ExportacionService exportacionService;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR')")
@@ -59,15 +69,43 @@ public class OrdenController {
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<MensajeDto<List<OrdenDto>>> obtenerTodasLasOrdenes() {
+    public ResponseEntity<MensajeDto<List<OrdenDto>>> obtenerTodasLasOrdenes(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "tamano", required = false) Integer tamano) {
         try {
-            List<OrdenDto> ordenes = ordenService.obtenerTodasLasOrdenes();
-            return ResponseEntity.ok(new MensajeDto<>(false, "Órdenes obtenidas", ordenes));
+            PaginaDto<OrdenDto> pagina = ordenService.obtenerOrdenesPaginadas(cursor, tamano);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Órdenes obtenidas", pagina.contenido(), pagina.next()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
         }
     }
 
+    // La respuesta se escribe fila a fila mientras se recorre el cursor; los errores de parámetros
+    // se validan antes de empezar porque después ya no es posible cambiar el código de estado
+    @GetMapping("/exportar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportarOrdenes(
+            @RequestParam(name = "formato", defaultValue = "ndjson") String formato,
+            @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        FormatoExportacion formatoExportacion;
+        try {
+            formatoExportacion = FormatoExportacion.desde(formato);
+            if (desde != null && hasta != null && desde.isAfter(hasta)) {
+                throw new IllegalArgumentException("La fecha 'desde' no puede ser posterior a 'hasta'");
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportarOrdenes(desde, hasta, formatoExportacion, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formatoExportacion.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("ordenes." + formatoExportacion.getExtension()).build().toString())
+                .body(cuerpo);
+    }
+
     // ✅ CORREGIDO: Agregar nombre explícito al @PathVariable
     @GetMapping("/cliente/{clienteId}")
     @PreAuthorize("isAuthenticated()")
@@ -83,10 +121,13 @@ public class OrdenController {
     // ✅ CORREGIDO: Agregar nombre explícito al @PathVariable
     @GetMapping("/estado/{estado}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<MensajeDto<List<OrdenDto>>> obtenerOrdenesPorEstado(@PathVariable("estado") EstadoOrden estado) {
+    public ResponseEntity<MensajeDto<List<OrdenDto>>> obtenerOrdenesPorEstado(
+            @PathVariable("estado") EstadoOrden estado,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "tamano", required = false) Integer tamano) {
         try {
-            List<OrdenDto> ordenes = ordenService.obtenerOrdenesPorEstado(estado);
-            return ResponseEntity.ok(new MensajeDto<>(false, "Órdenes por estado obtenidas", ordenes));
+            PaginaDto<OrdenDto> pagina = ordenService.obtenerOrdenesPorEstadoPaginadas(estado, cursor, tamano);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Órdenes por estado obtenidas", pagina.contenido(), pagina.next()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
         }
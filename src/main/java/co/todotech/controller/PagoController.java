@@ -3,13 +3,19 @@ package co.todotech.controller;
 import co.todotech.model.dto.MensajeDto;
 import co.todotech.model.dto.pago.PagoDto;
 import co.todotech.model.enums.EstadoPago;
+import co.todotech.model.enums.FormatoExportacion;
+import co.todotech.service.ExportacionService;
 import co.todotech.service.PagoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,6 +26,7 @@ import java.util.List;
 public class PagoController {
 
     private final PagoService pagoService;
+    private final ExportacionService exportacionService;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'VENDEDOR')")
@@ -116,6 +123,32 @@ public class PagoController {
         }
     }
 
+    // La respuesta se escribe fila a fila mientras se recorre el cursor; los errores de parámetros
+    // se validan antes de empezar porque después ya no es posible cambiar el código de estado
+    @GetMapping("/exportar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportarPagos(
+            @RequestParam(name = "formato", defaultValue = "ndjson") String formato,
+            @RequestParam(name = "desde", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        FormatoExportacion formatoExportacion;
+        try {
+            formatoExportacion = FormatoExportacion.desde(formato);
+            if (desde != null && hasta != null && desde.isAfter(hasta)) {
+                throw new IllegalArgumentException("La fecha 'desde' no puede ser posterior a 'hasta'");
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportarPagos(desde, hasta, formatoExportacion, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formatoExportacion.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("pagos." + formatoExportacion.getExtension()).build().toString())
+                .body(cuerpo);
+    }
+
     @GetMapping("/monto-minimo/{montoMinimo}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<MensajeDto<List<PagoDto>>> obtenerPagosPorMontoMinimo(@PathVariable Double montoMinimo) {
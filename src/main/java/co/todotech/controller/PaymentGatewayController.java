@@ -1,31 +1,44 @@
 package co.todotech.controller;
 
+import co.todotech.exception.pasarela.FirmaWebhookInvalidaException;
+import co.todotech.exception.pasarela.IdempotenciaConflictoException;
+import co.todotech.exception.pasarela.PasarelaNoDisponibleException;
 import co.todotech.model.dto.MensajeDto;
 import co.todotech.model.dto.pasarela.PaymentIntentRequestDto;
 import co.todotech.model.dto.pasarela.PaymentIntentResponseDto;
 import co.todotech.model.dto.pasarela.PaymentConfirmationDto;
 import co.todotech.model.enums.TipoMetodo;
+import co.todotech.service.IdempotenciaService;
 import co.todotech.service.PaymentGatewayService;
+import co.todotech.service.WebhookPasarelaService;
 import co.todotech.service.impl.PaymentGatewayFactory;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.regex.Pattern;
+
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/payment-gateway")
 public class PaymentGatewayController {
 
+    private static final Pattern ID_TRANSACCION_WOMPI = Pattern.compile("\\d+-\\d+-\\d+");
+
     private final PaymentGatewayFactory paymentGatewayFactory;
+    private final IdempotenciaService idempotenciaService;
+    private final WebhookPasarelaService webhookPasarelaService;
 
     @PostMapping("/create-payment-intent")
     @PreAuthorize("hasAnyRole('ADMIN', 'CAJERO')")
     public ResponseEntity<MensajeDto<PaymentIntentResponseDto>> createPaymentIntent(
-            @Valid @RequestBody PaymentIntentRequestDto request) {
+            @Valid @RequestBody PaymentIntentRequestDto request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
             log.info("Creating payment intent for order: {}, amount: {}",
                     request.orderId(), request.amount());
@@ -33,7 +46,14 @@ public class PaymentGatewayController {
             PaymentGatewayService paymentService =
                     paymentGatewayFactory.getPaymentService(request.paymentMethodType());
 
-            PaymentIntentResponseDto response = paymentService.createPaymentIntent(request);
+            // Con Idempotency-Key, un reintento del cliente reutiliza la respuesta de la primera llamada.
+            // Solo se guardan las respuestas exitosas: tras un error el cliente puede reintentar con la misma clave
+            PaymentIntentResponseDto response = idempotencyKey == null
+                    ? paymentService.createPaymentIntent(request)
+                    : idempotenciaService.ejecutar(idempotencyKey, "create-payment-intent", request,
+                            PaymentIntentResponseDto.class,
+                            () -> paymentService.createPaymentIntent(request, idempotencyKey),
+                            respuesta -> respuesta.errorMessage() == null);
 
             if (response.errorMessage() != null) {
                 return ResponseEntity.badRequest()
@@ -43,6 +63,12 @@ public class PaymentGatewayController {
             return ResponseEntity.ok()
                     .body(new MensajeDto<>(false, "Payment intent created successfully", response));
 
+        } catch (IdempotenciaConflictoException e) {
+            log.warn("Idempotency-Key reutilizada con otra petición: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new MensajeDto<>(true, e.getMessage(), null));
+        } catch (PasarelaNoDisponibleException e) {
+            return pasarelaNoDisponible(e);
         } catch (Exception e) {
             log.error("Error creating payment intent: {}", e.getMessage(), e);
             return ResponseEntity.badRequest()
@@ -70,6 +96,8 @@ public class PaymentGatewayController {
             return ResponseEntity.ok()
                     .body(new MensajeDto<>(false, "Payment confirmed successfully", response));
 
+        } catch (PasarelaNoDisponibleException e) {
+            return pasarelaNoDisponible(e);
         } catch (Exception e) {
             log.error("Error confirming payment: {}", e.getMessage(), e);
             return ResponseEntity.badRequest()
@@ -92,6 +120,8 @@ public class PaymentGatewayController {
             return ResponseEntity.ok()
                     .body(new MensajeDto<>(false, "Payment status retrieved", response));
 
+        } catch (PasarelaNoDisponibleException e) {
+            return pasarelaNoDisponible(e);
         } catch (Exception e) {
             log.error("Error getting payment status: {}", e.getMessage(), e);
             return ResponseEntity.badRequest()
@@ -99,6 +129,53 @@ public class PaymentGatewayController {
         }
     }
 
+    // Webhook de Stripe - PÚBLICO (lo autentica la firma Stripe-Signature)
+    @PostMapping("/webhook/stripe")
+    public ResponseEntity<MensajeDto<String>> recibirWebhookStripe(
+            @RequestBody String payload,
+            @RequestHeader(value = "Stripe-Signature", required = false) String firma) {
+        try {
+            boolean nuevo = webhookPasarelaService.registrarEventoStripe(payload, firma);
+            return ResponseEntity.ok(new MensajeDto<>(false, nuevo ? "Evento recibido" : "Evento ya recibido"));
+
+        } catch (FirmaWebhookInvalidaException | IllegalArgumentException e) {
+            log.warn("Webhook de Stripe rechazado: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage()));
+        } catch (Exception e) {
+            // Un 5xx hace que Stripe reintente la entrega más tarde
+            log.error("Error registrando webhook de Stripe: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MensajeDto<>(true, "Error registrando el evento"));
+        }
+    }
+
+    // Circuito abierto: 503 para que el cliente reintente más tarde en lugar de esperar el timeout
+    private <T> ResponseEntity<MensajeDto<T>> pasarelaNoDisponible(PasarelaNoDisponibleException e) {
+        log.warn("⛔ {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new MensajeDto<>(true, e.getMessage(), null));
+    }
+
+    // Webhook de Wompi - PÚBLICO (lo autentica el checksum del evento)
+    @PostMapping("/webhook/wompi")
+    public ResponseEntity<MensajeDto<String>> recibirWebhookWompi(
+            @RequestBody String payload,
+            @RequestHeader(value = "X-Event-Checksum", required = false) String checksum) {
+        try {
+            boolean nuevo = webhookPasarelaService.registrarEventoWompi(payload, checksum);
+            return ResponseEntity.ok(new MensajeDto<>(false, nuevo ? "Evento recibido" : "Evento ya recibido"));
+
+        } catch (FirmaWebhookInvalidaException | IllegalArgumentException e) {
+            log.warn("Webhook de Wompi rechazado: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage()));
+        } catch (Exception e) {
+            // Wompi reintenta la entrega si no recibe un 200
+            log.error("Error registrando webhook de Wompi: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MensajeDto<>(true, "Error registrando el evento"));
+        }
+    }
+
     /**
      * ✅ MÉTODO AUXILIAR: Determina el servicio de pago basado en el ID del payment intent
      */
@@ -110,6 +187,9 @@ public class PaymentGatewayController {
                 paymentIntentId.startsWith("cs_")) {   // Stripe Checkout Session
             return paymentGatewayFactory.getPaymentService(TipoMetodo.STRIPE);
         }
+        if (ID_TRANSACCION_WOMPI.matcher(paymentIntentId).matches()) { // Wompi: 1234-1610641025-49201
+            return paymentGatewayFactory.getPaymentService(TipoMetodo.WOMPI);
+        }
 
         // Por defecto, asumimos Stripe (puedes agregar más proveedores después)
         log.warn("No se pudo determinar el proveedor para paymentIntentId: {}, usando Stripe por defecto", paymentIntentId);
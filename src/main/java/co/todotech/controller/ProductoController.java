@@ -1,18 +1,28 @@
 package co.todotech.controller;
 
+import co.todotech.cache.FragmentosJson;
+import co.todotech.cache.RespuestaJson;
+import co.todotech.cache.VersionCatalogo.Seccion;
 import co.todotech.model.dto.MensajeDto;
+import co.todotech.model.dto.inventario.MovimientoInventarioDto;
 import co.todotech.model.dto.producto.AjusteStockRequest;
 import co.todotech.model.dto.producto.CantidadRequest;
+import co.todotech.model.dto.producto.CatalogoFacetadoDto;
+import co.todotech.model.dto.producto.FiltroCatalogoDto;
 import co.todotech.model.dto.producto.ProductoDto;
 import co.todotech.model.dto.producto.StockResponse;
+import co.todotech.model.dto.producto.SugerenciaProductoDto;
 import co.todotech.model.enums.EstadoProducto;
+import co.todotech.service.InventarioService;
 import co.todotech.service.ProductoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -21,6 +31,8 @@ import java.util.List;
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final InventarioService inventarioService;
+    private final FragmentosJson fragmentosJson;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -164,30 +176,48 @@ public class ProductoController {
         return ResponseEntity.ok(new MensajeDto<>(false, "Stock consultado exitosamente", response));
     }
 
+    @GetMapping("/{id}/stock/movimientos")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VENDEDOR')")
+    public ResponseEntity<MensajeDto<List<MovimientoInventarioDto>>> obtenerMovimientosStock(@PathVariable("id") Long id) {
+        List<MovimientoInventarioDto> movimientos = inventarioService.obtenerMovimientos(id);
+        return ResponseEntity.ok(new MensajeDto<>(false, "Movimientos de stock obtenidos", movimientos));
+    }
+
+    @GetMapping("/{id}/stock/historico")
+    @PreAuthorize("hasAnyRole('ADMIN', 'VENDEDOR')")
+    public ResponseEntity<MensajeDto<Integer>> consultarStockEnFecha(
+            @PathVariable("id") Long id,
+            @RequestParam("fecha") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        Integer stock = inventarioService.consultarStockEn(id, fecha);
+        return ResponseEntity.ok(new MensajeDto<>(false, "Stock a la fecha consultado exitosamente", stock));
+    }
+
     // ===== ENDPOINTS PÚBLICOS PARA CATÁLOGO =====
+    // Los más leídos salen del JSON ya serializado por producto (FragmentosJson), sin pasar por Jackson
 
     @GetMapping("/publicos/todos")
-    public ResponseEntity<MensajeDto<List<ProductoDto>>> obtenerTodosLosProductosPublicos() {
-        List<ProductoDto> lista = productoService.obtenerTodosLosProductos();
-        return ResponseEntity.ok(new MensajeDto<>(false, "Todos los productos obtenidos", lista));
+    public ResponseEntity<RespuestaJson> obtenerTodosLosProductosPublicos() {
+        return ResponseEntity.ok(fragmentosJson.lista("Todos los productos obtenidos", Seccion.PRODUCTOS, "todos",
+                productoService::obtenerTodosLosProductos, ProductoDto::getId));
     }
 
     @GetMapping("/publicos/activos")
-    public ResponseEntity<MensajeDto<List<ProductoDto>>> obtenerProductosActivosPublicos() {
-        List<ProductoDto> lista = productoService.obtenerProductosActivos();
-        return ResponseEntity.ok(new MensajeDto<>(false, "Productos activos obtenidos", lista));
+    public ResponseEntity<RespuestaJson> obtenerProductosActivosPublicos() {
+        return ResponseEntity.ok(fragmentosJson.lista("Productos activos obtenidos", Seccion.PRODUCTOS, "activos",
+                productoService::obtenerProductosActivos, ProductoDto::getId));
     }
 
     @GetMapping("/publicos/disponibles")
-    public ResponseEntity<MensajeDto<List<ProductoDto>>> obtenerProductosDisponiblesPublicos() {
-        List<ProductoDto> lista = productoService.obtenerProductosDisponibles();
-        return ResponseEntity.ok(new MensajeDto<>(false, "Productos disponibles obtenidos", lista));
+    public ResponseEntity<RespuestaJson> obtenerProductosDisponiblesPublicos() {
+        return ResponseEntity.ok(fragmentosJson.lista("Productos disponibles obtenidos", Seccion.PRODUCTOS, "disponibles",
+                productoService::obtenerProductosDisponibles, ProductoDto::getId));
     }
 
     @GetMapping("/publicos/categoria/{categoriaId}")
-    public ResponseEntity<MensajeDto<List<ProductoDto>>> obtenerProductoPorCategoriaPublico(@PathVariable("categoriaId") Long categoriaId) {
-        List<ProductoDto> lista = productoService.obtenerProductoPorCategoriaId(categoriaId);
-        return ResponseEntity.ok(new MensajeDto<>(false, "Productos por categoría obtenidos", lista));
+    public ResponseEntity<RespuestaJson> obtenerProductoPorCategoriaPublico(@PathVariable("categoriaId") Long categoriaId) {
+        return ResponseEntity.ok(fragmentosJson.lista("Productos por categoría obtenidos", Seccion.PRODUCTOS,
+                "categoria/" + categoriaId, () -> productoService.obtenerProductoPorCategoriaId(categoriaId),
+                ProductoDto::getId));
     }
 
     @GetMapping("/publicos/buscar")
@@ -196,9 +226,33 @@ public class ProductoController {
         return ResponseEntity.ok(new MensajeDto<>(false, "Búsqueda completada", lista));
     }
 
+    @GetMapping("/publicos/sugerencias")
+    public ResponseEntity<MensajeDto<List<SugerenciaProductoDto>>> sugerirProductosPublico(
+            @RequestParam("q") String prefijo,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        List<SugerenciaProductoDto> lista = productoService.sugerirProductos(prefijo, limite);
+        return ResponseEntity.ok(new MensajeDto<>(false, "Sugerencias obtenidas", lista));
+    }
+
+    // Los parámetros repetidos (?marca=Sony&marca=LG) se combinan con O dentro de la faceta
+    @GetMapping("/publicos/facetas")
+    public ResponseEntity<MensajeDto<CatalogoFacetadoDto>> consultarCatalogoPublico(
+            @RequestParam(value = "categoria", required = false) List<Long> categorias,
+            @RequestParam(value = "marca", required = false) List<String> marcas,
+            @RequestParam(value = "precioMin", required = false) Double precioMin,
+            @RequestParam(value = "precioMax", required = false) Double precioMax,
+            @RequestParam(value = "garantia", required = false) List<Integer> garantias,
+            @RequestParam(value = "disponible", required = false) Boolean disponible,
+            @RequestParam(value = "pagina", defaultValue = "0") int pagina,
+            @RequestParam(value = "tamano", defaultValue = "20") int tamano) {
+        CatalogoFacetadoDto catalogo = productoService.consultarCatalogo(new FiltroCatalogoDto(
+                categorias, marcas, precioMin, precioMax, garantias, disponible, pagina, tamano));
+        return ResponseEntity.ok(new MensajeDto<>(false, "Catálogo filtrado obtenido", catalogo));
+    }
+
     @GetMapping("/publicos/{id}")
-    public ResponseEntity<MensajeDto<ProductoDto>> obtenerProductoPorIdPublico(@PathVariable("id") Long id) {
-        ProductoDto dto = productoService.obtenerProductoPorId(id);
-        return ResponseEntity.ok(new MensajeDto<>(false, "Producto encontrado", dto));
+    public ResponseEntity<RespuestaJson> obtenerProductoPorIdPublico(@PathVariable("id") Long id) {
+        return ResponseEntity.ok(fragmentosJson.uno("Producto encontrado", Seccion.PRODUCTOS, id,
+                () -> productoService.obtenerProductoPorId(id)));
     }
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import co.todotech.model.dto.usuario.UsuarioDto;
 import co.todotech.model.enums.TipoUsuario;
 import co.todotech.security.JwtUtil;
 import co.todotech.security.TokenBlacklistService;
+import co.todotech.service.SesionService;
 import co.todotech.service.UsuarioService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -27,6 +28,8 @@ public class UsuarioController {
 
     private final TokenBlacklistService tokenBlacklistService;
 
+    private final SesionService sesionService;
+
     private final JwtUtil jwtUtil;
 
     // Login - PÚBLICO
@@ -263,7 +266,10 @@ public class UsuarioController {
                     return ResponseEntity.ok(new MensajeDto<>(false, "Sesión ya estaba cerrada"));
                 }
 
-                tokenBlacklistService.blacklistToken(token);
+                // Se persiste la revocación: las demás instancias la ven en su próximo sondeo
+                if (!sesionService.revocarSesion(token)) {
+                    return ResponseEntity.ok(new MensajeDto<>(false, "Sesión ya estaba cerrada"));
+                }
 
                 // Limpiar el contexto de seguridad
                 SecurityContextHolder.clearContext();
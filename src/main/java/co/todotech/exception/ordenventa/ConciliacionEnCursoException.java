@@ -0,0 +1,7 @@
+package co.todotech.exception.ordenventa;
+
+public class ConciliacionEnCursoException extends RuntimeException {
+    public ConciliacionEnCursoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package co.todotech.exception.pasarela;
+
+public class FirmaWebhookInvalidaException extends RuntimeException {
+    public FirmaWebhookInvalidaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package co.todotech.exception.pasarela;
+
+public class IdempotenciaConflictoException extends RuntimeException {
+    public IdempotenciaConflictoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package co.todotech.exception.pasarela;
+
+public class PasarelaNoDisponibleException extends RuntimeException {
+    public PasarelaNoDisponibleException(String message) {
+        super(message);
+    }
+}
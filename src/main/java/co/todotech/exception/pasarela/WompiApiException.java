@@ -0,0 +1,26 @@
+package co.todotech.exception.pasarela;
+
+public class WompiApiException extends RuntimeException {
+
+    // 0 cuando no hubo respuesta HTTP (conexión rechazada, timeout)
+    private final int estadoHttp;
+
+    public WompiApiException(int estadoHttp, String message) {
+        super(message);
+        this.estadoHttp = estadoHttp;
+    }
+
+    public WompiApiException(int estadoHttp, String message, Throwable cause) {
+        super(message, cause);
+        this.estadoHttp = estadoHttp;
+    }
+
+    public int getEstadoHttp() {
+        return estadoHttp;
+    }
+
+    /** Red, timeouts, 5xx y rate limit: fallos del servicio, no de la petición. */
+    public boolean esFalloDePasarela() {
+        return estadoHttp == 0 || estadoHttp == 429 || estadoHttp >= 500;
+    }
+}
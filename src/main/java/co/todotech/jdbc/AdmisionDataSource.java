@@ -0,0 +1,170 @@
+package co.todotech.jdbc;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admisión a JDBC con un semáforo justo (FIFO) delante del pool.
+ *
+ * Con hilos virtuales no hay tope de peticiones concurrentes: miles de hilos pueden llegar a
+ * la vez a un pool de 5 conexiones. Aquí esperan en orden de llegada y con el mismo timeout
+ * que el pool, en vez de competir entre sí dentro de Hikari.
+ *
+ * Las conexiones anidadas (REQUIRES_NEW dentro de una transacción abierta) no pasan por el
+ * semáforo: el hilo ya fue admitido y, si esperara un segundo permiso mientras retiene el
+ * primero, bastarían tantos hilos como permisos para bloquearse entre todos. Por eso los
+ * permisos deben ser menos que las conexiones del pool: lo que sobra queda para las anidadas.
+ */
+public class AdmisionDataSource extends DelegatingDataSource {
+
+    private final Semaphore permisos;
+    private final int totalPermisos;
+    private final long esperaMaximaNanos;
+    // Conexiones admitidas abiertas por hilo; un hilo presente aquí ya pasó el semáforo
+    private final Map<Thread, Integer> admitidos = new ConcurrentHashMap<>();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+
+    public AdmisionDataSource(DataSource destino, int permisos, Duration esperaMaxima) {
+        super(destino);
+        if (permisos <= 0) {
+            throw new IllegalArgumentException("jdbc.admision.permisos debe ser mayor a 0");
+        }
+        this.permisos = new Semaphore(permisos, true);
+        this.totalPermisos = permisos;
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return admitir(() -> obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String usuario, String clave) throws SQLException {
+        return admitir(() -> obtainTargetDataSource().getConnection(usuario, clave));
+    }
+
+    /** Hilos esperando un permiso. */
+    public int getEnEspera() {
+        return permisos.getQueueLength();
+    }
+
+    public int getDisponibles() {
+        return permisos.availablePermits();
+    }
+
+    public int getPermisos() {
+        return totalPermisos;
+    }
+
+    /** Peticiones que agotaron la espera sin ser admitidas. */
+    public long getRechazadas() {
+        return rechazadas.sum();
+    }
+
+    public double getEsperaTotalSegundos() {
+        return esperaTotalNanos.sum() / 1e9;
+    }
+
+    private Connection admitir(Apertura apertura) throws SQLException {
+        Thread hilo = Thread.currentThread();
+        if (admitidos.containsKey(hilo)) {
+            return apertura.abrir();
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            if (!permisos.tryAcquire(esperaMaximaNanos, TimeUnit.NANOSECONDS)) {
+                rechazadas.increment();
+                throw new SQLTransientConnectionException(String.format(
+                        "Sin admisión a la base de datos tras %d ms (%d permisos, %d hilos en espera)",
+                        TimeUnit.NANOSECONDS.toMillis(esperaMaximaNanos), totalPermisos, permisos.getQueueLength()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando admisión a la base de datos", e);
+        } finally {
+            esperaTotalNanos.add(System.nanoTime() - inicio);
+        }
+
+        Connection conexion;
+        try {
+            conexion = apertura.abrir();
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+        admitidos.merge(hilo, 1, Integer::sum);
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class}, new ConexionAdmitida(conexion, hilo));
+    }
+
+    @FunctionalInterface
+    private interface Apertura {
+        Connection abrir() throws SQLException;
+    }
+
+    // Devuelve el permiso en el primer close(); los siguientes solo llegan a la conexión real
+    private final class ConexionAdmitida implements InvocationHandler {
+
+        private final Connection destino;
+        private final Thread hilo;
+        private final AtomicBoolean liberada = new AtomicBoolean(false);
+
+        ConexionAdmitida(Connection destino, Thread hilo) {
+            this.destino = destino;
+            this.hilo = hilo;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] argumentos) throws Throwable {
+            switch (metodo.getName()) {
+                case "equals":
+                    return proxy == argumentos[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Conexión admitida [" + destino + "]";
+                case "getTargetConnection":
+                    return destino;
+                case "close":
+                    try {
+                        destino.close();
+                    } finally {
+                        liberar();
+                    }
+                    return null;
+                default:
+                    try {
+                        return metodo.invoke(destino, argumentos);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+            }
+        }
+
+        private void liberar() {
+            if (liberada.compareAndSet(false, true)) {
+                admitidos.computeIfPresent(hilo, (h, abiertas) -> abiertas == 1 ? null : abiertas - 1);
+                permisos.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package co.todotech.metricas;
+
+import co.todotech.jdbc.AdmisionDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Estado del semáforo de admisión a JDBC: hilos en espera, permisos libres, rechazos por
+ * timeout y tiempo acumulado de espera. Junto a {@code hikaricp.connections.pending} muestra
+ * si la cola se forma delante del pool (lo esperado) o dentro de él.
+ */
+public class AdmisionJdbcMetricas implements MeterBinder {
+
+    private final AdmisionDataSource admision;
+
+    public AdmisionJdbcMetricas(AdmisionDataSource admision) {
+        this.admision = admision;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("todotech.jdbc.admision.espera", admision, AdmisionDataSource::getEnEspera)
+                .description("Hilos esperando admisión a la base de datos")
+                .register(registry);
+        Gauge.builder("todotech.jdbc.admision.disponibles", admision, AdmisionDataSource::getDisponibles)
+                .description("Permisos de admisión libres")
+                .register(registry);
+        FunctionCounter.builder("todotech.jdbc.admision.rechazadas", admision, AdmisionDataSource::getRechazadas)
+                .description("Peticiones que agotaron la espera sin ser admitidas")
+                .register(registry);
+        FunctionCounter.builder("todotech.jdbc.admision.espera.total", admision, AdmisionDataSource::getEsperaTotalSegundos)
+                .baseUnit("seconds")
+                .description("Tiempo acumulado esperando admisión")
+                .register(registry);
+    }
+}
@@ -0,0 +1,66 @@
+package co.todotech.metricas;
+
+import co.todotech.cache.FragmentosJson;
+import co.todotech.cache.ProductoCatalogCache;
+import co.todotech.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publica los contadores que ya llevan las cachés en memoria con los nombres estándar de
+ * Micrometer ({@code cache.gets}, {@code cache.evictions}, {@code cache.size}) más el
+ * {@code cache.hit.ratio} acumulado. Se leen en cada scrape; registrar no cuesta nada por acceso.
+ */
+public class CacheMetricas implements MeterBinder {
+
+    private final ProductoCatalogCache catalogo;
+    private final VerifiedTokenCache tokens;
+    private final FragmentosJson json;
+
+    public CacheMetricas(ProductoCatalogCache catalogo, VerifiedTokenCache tokens, FragmentosJson json) {
+        this.catalogo = catalogo;
+        this.tokens = tokens;
+        this.json = json;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registrar(registry, "catalogo", catalogo, ProductoCatalogCache::getHits, ProductoCatalogCache::getMisses,
+                ProductoCatalogCache::getEvictions, ProductoCatalogCache::size, ProductoCatalogCache::getHitRatio);
+        registrar(registry, "tokens", tokens, VerifiedTokenCache::getHits, VerifiedTokenCache::getMisses,
+                VerifiedTokenCache::getEvictions, VerifiedTokenCache::size, VerifiedTokenCache::getHitRatio);
+        registrar(registry, "json", json, FragmentosJson::getHits, FragmentosJson::getMisses,
+                FragmentosJson::getEvictions, FragmentosJson::size, FragmentosJson::getHitRatio);
+
+        FunctionCounter.builder("cache.invalidaciones", catalogo, ProductoCatalogCache::getInvalidaciones)
+                .tag("cache", "catalogo")
+                .description("Invalidaciones por cambios en el catálogo")
+                .register(registry);
+    }
+
+    private static <C> void registrar(MeterRegistry registry, String nombre, C cache,
+                                      ToDoubleFunction<C> aciertos, ToDoubleFunction<C> fallos,
+                                      ToDoubleFunction<C> desalojos, ToDoubleFunction<C> tamano,
+                                      ToDoubleFunction<C> proporcion) {
+        FunctionCounter.builder("cache.gets", cache, aciertos)
+                .tags("cache", nombre, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, fallos)
+                .tags("cache", nombre, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, desalojos)
+                .tag("cache", nombre)
+                .register(registry);
+        Gauge.builder("cache.size", cache, tamano)
+                .tag("cache", nombre)
+                .register(registry);
+        Gauge.builder("cache.hit.ratio", cache, proporcion)
+                .tag("cache", nombre)
+                .description("Aciertos sobre accesos desde el arranque")
+                .register(registry);
+    }
+}
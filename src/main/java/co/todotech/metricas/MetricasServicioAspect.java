@@ -0,0 +1,64 @@
+package co.todotech.metricas;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la duración de cada método público de los {@code *ServiceImpl} en el timer
+ * {@code todotech.servicio} (tags clase, metodo, excepcion).
+ *
+ * Los timers se resuelven una vez por método y quedan cacheados: el camino de una llamada
+ * exitosa es una lectura del mapa y un {@code record}, sin armar tags ni buscar en el registro.
+ * Las llamadas internas ({@code this.metodo()}) no pasan por el proxy y no se miden.
+ */
+@Aspect
+public class MetricasServicioAspect {
+
+    public static final String METRICA = "todotech.servicio";
+
+    private final MeterRegistry registry;
+    private final Map<Method, Timer> exitosas = new ConcurrentHashMap<>();
+    private final Map<ClaveError, Timer> fallidas = new ConcurrentHashMap<>();
+
+    public MetricasServicioAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * co.todotech.service.impl.*ServiceImpl.*(..))")
+    public Object medir(ProceedingJoinPoint joinPoint) throws Throwable {
+        long inicio = System.nanoTime();
+        Method metodo = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        try {
+            Object resultado = joinPoint.proceed();
+            exitosas.computeIfAbsent(metodo, m -> timer(joinPoint, m, "none"))
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            return resultado;
+        } catch (Throwable e) {
+            fallidas.computeIfAbsent(new ClaveError(metodo, e.getClass()),
+                            clave -> timer(joinPoint, metodo, e.getClass().getSimpleName()))
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer timer(ProceedingJoinPoint joinPoint, Method metodo, String excepcion) {
+        return Timer.builder(METRICA)
+                .description("Duración de los métodos públicos de los servicios")
+                .tag("clase", AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName())
+                .tag("metodo", metodo.getName())
+                .tag("excepcion", excepcion)
+                .register(registry);
+    }
+
+    private record ClaveError(Method metodo, Class<?> excepcion) {}
+}
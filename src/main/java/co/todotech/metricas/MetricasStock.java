@@ -0,0 +1,32 @@
+package co.todotech.metricas;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Contador {@code todotech.stock.conflictos}: un UPDATE condicional de stock que no afectó
+ * filas porque otra transacción tomó las unidades (o el producto ya no está disponible).
+ *
+ * Va sobre el registro global de Micrometer, al que Spring Boot agrega el registro de la
+ * aplicación: los servicios que lo usan se siguen construyendo sin él en los tests.
+ */
+public final class MetricasStock {
+
+    public static final String METRICA = "todotech.stock.conflictos";
+
+    private static final Map<String, Counter> CONFLICTOS = new ConcurrentHashMap<>();
+
+    private MetricasStock() {
+    }
+
+    public static void registrarConflicto(String origen) {
+        CONFLICTOS.computeIfAbsent(origen, o -> Counter.builder(METRICA)
+                        .description("UPDATE condicional de stock sin filas afectadas")
+                        .tag("origen", o)
+                        .register(Metrics.globalRegistry))
+                .increment();
+    }
+}
@@ -0,0 +1,26 @@
+package co.todotech.metricas;
+
+import co.todotech.service.PaymentGatewayService;
+import co.todotech.service.impl.PaymentGatewayFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Conecta el monitor de cada pasarela al registro: latencia por operación, fallos, llamadas
+ * rechazadas por el circuito y su estado.
+ */
+public class PasarelaMetricas implements MeterBinder {
+
+    private final PaymentGatewayFactory paymentGatewayFactory;
+
+    public PasarelaMetricas(PaymentGatewayFactory paymentGatewayFactory) {
+        this.paymentGatewayFactory = paymentGatewayFactory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (PaymentGatewayService pasarela : paymentGatewayFactory.getPasarelas()) {
+            pasarela.getMonitor().vincularMetricas(registry);
+        }
+    }
+}
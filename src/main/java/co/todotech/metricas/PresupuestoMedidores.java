@@ -0,0 +1,60 @@
+package co.todotech.metricas;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.config.MeterFilterReply;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tope de medidores del registro. Cada medidor retiene memoria hasta que se apaga la
+ * aplicación, así que una etiqueta con valores sin límite (un id, una URL cruda) no puede
+ * crecer sin freno: pasado el tope los medidores nuevos se descartan y se avisa una vez.
+ */
+@Slf4j
+public class PresupuestoMedidores implements MeterFilter {
+
+    private final int maximo;
+    private final Set<Meter.Id> aceptados = ConcurrentHashMap.newKeySet();
+    private final LongAdder rechazados = new LongAdder();
+    private final AtomicBoolean avisado = new AtomicBoolean(false);
+
+    public PresupuestoMedidores(int maximo) {
+        if (maximo <= 0) {
+            throw new IllegalArgumentException("metricas.max-medidores debe ser mayor a 0");
+        }
+        this.maximo = maximo;
+    }
+
+    @Override
+    public MeterFilterReply accept(Meter.Id id) {
+        if (aceptados.contains(id)) {
+            return MeterFilterReply.NEUTRAL;
+        }
+        if (aceptados.size() >= maximo) {
+            rechazados.increment();
+            if (avisado.compareAndSet(false, true)) {
+                log.warn("⚠️ Tope de {} medidores alcanzado, se descarta {} y los siguientes", maximo, id.getName());
+            }
+            return MeterFilterReply.DENY;
+        }
+        aceptados.add(id);
+        return MeterFilterReply.NEUTRAL;
+    }
+
+    public int getMaximo() {
+        return maximo;
+    }
+
+    public int getAceptados() {
+        return aceptados.size();
+    }
+
+    public long getRechazados() {
+        return rechazados.sum();
+    }
+}
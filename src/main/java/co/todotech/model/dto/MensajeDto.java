@@ -1,20 +1,34 @@
 package co.todotech.model.dto;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class MensajeDto<T> {
     private boolean error;
     private String mensaje;
     private T data;
 
+    // Cursor de la página siguiente en los listados paginados; se omite del JSON si no aplica
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next;
+
     public MensajeDto(boolean error, String mensaje) {
         this.error = error;
         this.mensaje = mensaje;
         this.data = null;
     }
-}
\ No newline at end of file
+
+    public MensajeDto(boolean error, String mensaje, T data) {
+        this.error = error;
+        this.mensaje = mensaje;
+        this.data = data;
+    }
+
+    public MensajeDto(boolean error, String mensaje, T data, String next) {
+        this(error, mensaje, data);
+        this.next = next;
+    }
+}
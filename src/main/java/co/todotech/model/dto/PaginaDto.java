@@ -0,0 +1,12 @@
+package co.todotech.model.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Página de un listado por cursor. {@code next} es nulo cuando no hay más resultados.
+ */
+public record PaginaDto<T>(
+        List<T> contenido,
+        String next
+) implements Serializable {}
@@ -0,0 +1,14 @@
+package co.todotech.model.dto.detalleorden;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.io.Serializable;
+import java.util.List;
+
+public record CreateDetallesOrdenDto(
+        @NotNull(message = "La lista de detalles no puede ser nula")
+        @Size(min = 1, max = 200, message = "Debe incluir entre 1 y 200 detalles")
+        List<@Valid @NotNull CreateDetalleOrdenDto> detalles
+) implements Serializable {}
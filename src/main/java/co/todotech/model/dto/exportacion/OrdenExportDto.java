@@ -0,0 +1,49 @@
+package co.todotech.model.dto.exportacion;
+
+import co.todotech.model.entities.Orden;
+import co.todotech.model.enums.EstadoOrden;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fila plana de la exportación de órdenes (una línea NDJSON o CSV por orden).
+ */
+public record OrdenExportDto(
+        Long id,
+        String numeroOrden,
+        LocalDateTime fecha,
+        EstadoOrden estado,
+        String cliente,
+        String vendedor,
+        Double subtotal,
+        Double descuento,
+        Double impuestos,
+        Double total
+) {
+
+    public static final List<String> COLUMNAS = List.of(
+            "id", "numeroOrden", "fecha", "estado", "cliente", "vendedor",
+            "subtotal", "descuento", "impuestos", "total");
+
+    public static OrdenExportDto desde(Orden orden) {
+        return new OrdenExportDto(
+                orden.getId(),
+                orden.getNumeroOrden(),
+                orden.getFecha(),
+                orden.getEstado(),
+                orden.getCliente() != null ? orden.getCliente().getNombre() : null,
+                orden.getVendedor() != null ? orden.getVendedor().getNombre() : null,
+                orden.getSubtotal(),
+                orden.getDescuento(),
+                orden.getImpuestos(),
+                orden.getTotal()
+        );
+    }
+
+    public List<Object> valores() {
+        return Arrays.asList(id, numeroOrden, fecha, estado, cliente, vendedor,
+                subtotal, descuento, impuestos, total);
+    }
+}
@@ -0,0 +1,47 @@
+package co.todotech.model.dto.exportacion;
+
+import co.todotech.model.entities.Pago;
+import co.todotech.model.enums.EstadoPago;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fila plana de la exportación de pagos (una línea NDJSON o CSV por pago).
+ */
+public record PagoExportDto(
+        Long id,
+        Long ordenVentaId,
+        String numeroOrden,
+        Double monto,
+        String metodoPago,
+        String numeroTransaccion,
+        LocalDateTime fechaPago,
+        String usuario,
+        EstadoPago estadoPago
+) {
+
+    public static final List<String> COLUMNAS = List.of(
+            "id", "ordenVentaId", "numeroOrden", "monto", "metodoPago",
+            "numeroTransaccion", "fechaPago", "usuario", "estadoPago");
+
+    public static PagoExportDto desde(Pago pago) {
+        return new PagoExportDto(
+                pago.getId(),
+                pago.getOrdenVenta() != null ? pago.getOrdenVenta().getId() : null,
+                pago.getOrdenVenta() != null ? pago.getOrdenVenta().getNumeroOrden() : null,
+                pago.getMonto(),
+                pago.getMetodoPago() != null ? String.valueOf(pago.getMetodoPago().getMetodo()) : null,
+                pago.getNumeroTransaccion(),
+                pago.getFechaPago(),
+                pago.getUsuario() != null ? pago.getUsuario().getNombre() : null,
+                pago.getEstadoPago()
+        );
+    }
+
+    public List<Object> valores() {
+        return Arrays.asList(id, ordenVentaId, numeroOrden, monto, metodoPago,
+                numeroTransaccion, fechaPago, usuario, estadoPago);
+    }
+}
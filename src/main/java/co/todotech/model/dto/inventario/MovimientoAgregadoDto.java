@@ -0,0 +1,9 @@
+package co.todotech.model.dto.inventario;
+
+/**
+ * Suma de movimientos de un producto dentro de una ventana de compactación.
+ */
+public record MovimientoAgregadoDto(
+        Long productoId,
+        Long cantidad
+) {}
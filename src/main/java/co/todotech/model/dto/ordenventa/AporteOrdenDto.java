@@ -0,0 +1,19 @@
+package co.todotech.model.dto.ordenventa;
+
+import co.todotech.model.enums.EstadoOrden;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cabecera de una orden con lo necesario para recalcular su aporte a los resúmenes de ventas.
+ */
+public record AporteOrdenDto(
+        Long ordenId,
+        LocalDateTime fecha,
+        Long vendedorId,
+        EstadoOrden estado,
+        Double subtotal,
+        Double descuento,
+        Double impuestos,
+        Double total
+) {}
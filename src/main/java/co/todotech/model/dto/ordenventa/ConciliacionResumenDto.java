@@ -0,0 +1,17 @@
+package co.todotech.model.dto.ordenventa;
+
+import java.time.LocalDate;
+
+/**
+ * Resultado de conciliar los resúmenes de ventas contra las órdenes.
+ *
+ * @param ordenesCorregidas aportes por orden que no coincidían con la orden
+ * @param filasCorregidas   filas agregadas cuyo valor no coincidía con la suma de aportes
+ */
+public record ConciliacionResumenDto(
+        LocalDate desde,
+        LocalDate hasta,
+        int dias,
+        int ordenesCorregidas,
+        int filasCorregidas
+) {}
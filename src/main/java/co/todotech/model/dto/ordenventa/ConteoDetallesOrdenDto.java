@@ -0,0 +1,9 @@
+package co.todotech.model.dto.ordenventa;
+
+/**
+ * Número de líneas de una orden, calculado en la BD sin cargar la colección.
+ */
+public record ConteoDetallesOrdenDto(
+        Long ordenId,
+        Long cantidad
+) {}
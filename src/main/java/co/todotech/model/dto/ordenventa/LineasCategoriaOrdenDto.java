@@ -0,0 +1,11 @@
+package co.todotech.model.dto.ordenventa;
+
+/**
+ * Unidades y subtotal de las líneas de una orden que pertenecen a una categoría.
+ */
+public record LineasCategoriaOrdenDto(
+        Long ordenId,
+        Long categoriaId,
+        Long unidades,
+        Double subtotal
+) {}
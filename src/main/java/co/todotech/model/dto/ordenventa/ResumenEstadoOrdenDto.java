@@ -0,0 +1,14 @@
+package co.todotech.model.dto.ordenventa;
+
+import co.todotech.model.enums.EstadoOrden;
+
+import java.io.Serializable;
+
+/**
+ * Fila agregada por estado: cuántas órdenes hay y cuánto suman sus totales.
+ */
+public record ResumenEstadoOrdenDto(
+        EstadoOrden estado,
+        Long cantidad,
+        Double total
+) implements Serializable {}
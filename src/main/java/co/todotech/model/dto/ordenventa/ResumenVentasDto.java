@@ -0,0 +1,23 @@
+package co.todotech.model.dto.ordenventa;
+
+import co.todotech.model.enums.EstadoOrden;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Resumen de ventas de un rango de días armado con las tablas agregadas.
+ *
+ * @param estados estados incluidos; vacío significa todos
+ */
+public record ResumenVentasDto(
+        LocalDate desde,
+        LocalDate hasta,
+        List<EstadoOrden> estados,
+        TotalesVentaDto general,
+        List<TotalesVentaDto> porDia,
+        List<TotalesVentaDto> porVendedor,
+        List<TotalesVentaDto> porCategoria,
+        List<TotalesVentaDto> porEstado
+) implements Serializable {}
@@ -0,0 +1,18 @@
+package co.todotech.model.dto.ordenventa;
+
+import java.io.Serializable;
+
+/**
+ * Totales de ventas de un grupo del resumen (un día, un vendedor, una categoría o un estado).
+ * {@code unidades} solo viene informado en el desglose por categoría.
+ */
+public record TotalesVentaDto(
+        String clave,
+        String nombre,
+        long cantidadOrdenes,
+        Long unidades,
+        double subtotal,
+        double descuento,
+        double impuestos,
+        double total
+) implements Serializable {}
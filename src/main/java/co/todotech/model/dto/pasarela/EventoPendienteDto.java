@@ -0,0 +1,7 @@
+package co.todotech.model.dto.pasarela;
+
+public record EventoPendienteDto(
+        String id,
+        String objetoId
+) {
+}
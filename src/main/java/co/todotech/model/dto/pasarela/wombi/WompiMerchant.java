@@ -1,8 +1,10 @@
 package co.todotech.model.dto.pasarela.wombi;// WompiMerchant.java
 
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+@JsonIgnoreProperties(ignoreUnknown = true)
 public record WompiMerchant(
         @JsonProperty("name") String name
 ) {}
\ No newline at end of file
@@ -1,8 +1,10 @@
 package co.todotech.model.dto.pasarela.wombi;// WompiPaymentMethod.java
 
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+@JsonIgnoreProperties(ignoreUnknown = true)
 public record WompiPaymentMethod(
         @JsonProperty("type") String type,
         @JsonProperty("extra") WompiPaymentMethodExtra extra
@@ -1,8 +1,10 @@
 package co.todotech.model.dto.pasarela.wombi;// WompiPaymentMethodExtra.java
 
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+@JsonIgnoreProperties(ignoreUnknown = true)
 public record WompiPaymentMethodExtra(
         @JsonProperty("name") String name,
         @JsonProperty("card_brand") String cardBrand
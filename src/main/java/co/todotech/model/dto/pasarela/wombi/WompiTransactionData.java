@@ -1,9 +1,11 @@
 package co.todotech.model.dto.pasarela.wombi;// WompiTransactionData.java
 
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
 
+@JsonIgnoreProperties(ignoreUnknown = true)
 public record WompiTransactionData(
         @JsonProperty("id") String id,
         @JsonProperty("created_at") LocalDateTime createdAt,
@@ -1,7 +1,11 @@
 package co.todotech.model.dto.pasarela.wombi;// WompiTransactionRequest.java
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.Map;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record WompiTransactionRequest(
         @JsonProperty("amount_in_cents") Long amountInCents,
         @JsonProperty("currency") String currency,
@@ -9,7 +13,10 @@ public record WompiTransactionRequest(
         @JsonProperty("description") String description,
         @JsonProperty("customer_email") String customerEmail,
         @JsonProperty("payment_method_type") String paymentMethodType,
-        @JsonProperty("redirect_url") String redirectUrl
+        @JsonProperty("redirect_url") String redirectUrl,
+        @JsonProperty("acceptance_token") String acceptanceToken,
+        @JsonProperty("signature") String signature,
+        @JsonProperty("payment_method") Map<String, Object> paymentMethod
 ) {
     public WompiTransactionRequest {
         if (paymentMethodType == null) {
@@ -1,9 +1,11 @@
 package co.todotech.model.dto.pasarela.wombi;// WompiTransactionResponse.java
 
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
 
+@JsonIgnoreProperties(ignoreUnknown = true)
 public record WompiTransactionResponse(
         @JsonProperty("data") WompiTransactionData data
 ) {}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package co.todotech.model.dto.producto;
+
+import java.util.List;
+
+/**
+ * Página de productos que cumplen los filtros y los conteos de cada faceta.
+ */
+public record CatalogoFacetadoDto(
+        List<ProductoDto> productos,
+        long total,
+        List<ConteoFacetaDto> categorias,
+        List<ConteoFacetaDto> marcas,
+        List<ConteoFacetaDto> precios,
+        List<ConteoFacetaDto> garantias,
+        List<ConteoFacetaDto> disponibilidad
+) {}
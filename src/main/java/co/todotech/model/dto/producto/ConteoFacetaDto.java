@@ -0,0 +1,10 @@
+package co.todotech.model.dto.producto;
+
+/**
+ * Un valor de faceta y cuántos productos quedarían al elegirlo con los demás filtros aplicados.
+ */
+public record ConteoFacetaDto(
+        String valor,
+        String etiqueta,
+        long cantidad
+) {}
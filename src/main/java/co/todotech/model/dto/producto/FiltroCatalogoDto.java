@@ -0,0 +1,18 @@
+package co.todotech.model.dto.producto;
+
+import java.util.List;
+
+/**
+ * Filtros de la navegación por facetas. Dentro de una faceta los valores se combinan con O
+ * (dos marcas) y entre facetas con Y (marca y categoría). Las listas vacías no filtran.
+ */
+public record FiltroCatalogoDto(
+        List<Long> categorias,
+        List<String> marcas,
+        Double precioMin,
+        Double precioMax,
+        List<Integer> garantias,
+        Boolean disponible,
+        int pagina,
+        int tamano
+) {}
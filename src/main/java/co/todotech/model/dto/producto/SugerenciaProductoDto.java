@@ -0,0 +1,11 @@
+package co.todotech.model.dto.producto;
+
+/**
+ * Lo mínimo que muestra el buscador del escaparate mientras se escribe.
+ */
+public record SugerenciaProductoDto(
+        Long id,
+        String nombre,
+        Double precio,
+        String imagenUrl
+) {}
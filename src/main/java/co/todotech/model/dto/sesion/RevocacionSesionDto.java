@@ -0,0 +1,10 @@
+package co.todotech.model.dto.sesion;
+
+import java.time.LocalDateTime;
+
+public record RevocacionSesionDto(
+        String jti,
+        LocalDateTime expiraEn,
+        Long versionRevocacion
+) {
+}
@@ -0,0 +1,32 @@
+package co.todotech.model.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+/**
+ * Parte de una orden que corresponde a una categoría, tal como se sumó a resumen_venta_categoria.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Embeddable
+public class AporteCategoria {
+
+    @Column(name = "unidades", nullable = false)
+    private long unidades;
+
+    @Column(name = "subtotal", nullable = false)
+    private double subtotal;
+
+    @Column(name = "descuento", nullable = false)
+    private double descuento;
+
+    @Column(name = "impuestos", nullable = false)
+    private double impuestos;
+
+    @Column(name = "total", nullable = false)
+    private double total;
+}
@@ -0,0 +1,31 @@
+package co.todotech.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Turno de una tarea entre instancias (una fila por tarea, id = nombre de la tarea).
+ *
+ * Quien la corre se anota como dueño hasta {@code hasta}; mientras no venza, las demás
+ * ejecuciones no la toman. Si la instancia muere a mitad, la tarea queda libre al vencer.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "bloqueo_tarea")
+public class BloqueoTarea {
+
+    @Id
+    @Column(name = "nombre", nullable = false, length = 60)
+    private String nombre;
+
+    @Column(name = "dueno", length = 120)
+    private String dueno;
+
+    @Column(name = "hasta", nullable = false)
+    private Instant hasta;
+}
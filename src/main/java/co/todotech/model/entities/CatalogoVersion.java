@@ -0,0 +1,27 @@
+package co.todotech.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Contador de cambios de una sección del catálogo, compartido por todas las instancias (una
+ * fila por sección, id = nombre de la sección).
+ *
+ * Cada instancia lo sube cuando confirmó escrituras de la sección y lo sondea para enterarse de
+ * las de las demás; el valor solo se compara, no viaja en los ETag.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "catalogo_version")
+public class CatalogoVersion {
+
+    @Id
+    @Column(name = "seccion", nullable = false, length = 20)
+    private String seccion;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+}
@@ -0,0 +1,77 @@
+package co.todotech.model.entities;
+
+import co.todotech.model.enums.EstadoCorreo;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bandeja de salida (outbox) de correos. Cada correo se persiste antes de enviarse,
+ * así sobrevive a reinicios y el envío SMTP queda fuera del hilo de la petición.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "correo_saliente", indexes = {
+        @Index(name = "idx_correo_estado_proximo", columnList = "estado, proximo_intento")
+})
+public class CorreoSaliente {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "remitente", nullable = false, length = 150)
+    private String remitente;
+
+    @Column(name = "destinatario", nullable = false, length = 150)
+    private String destinatario;
+
+    @Column(name = "asunto", nullable = false, length = 255)
+    private String asunto;
+
+    @Lob
+    @Column(name = "cuerpo_html", nullable = false)
+    private String cuerpoHtml;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    private EstadoCorreo estado;
+
+    @Column(name = "intentos", nullable = false)
+    private int intentos;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_envio")
+    private LocalDateTime fechaEnvio;
+
+    // Cuándo lo reclamó el worker que lo está enviando (estado ENVIANDO)
+    @Column(name = "reclamado_en")
+    private LocalDateTime reclamadoEn;
+
+    @PrePersist
+    public void prePersist() {
+        if (this.fechaCreacion == null) {
+            this.fechaCreacion = LocalDateTime.now();
+        }
+        if (this.proximoIntento == null) {
+            this.proximoIntento = this.fechaCreacion;
+        }
+        if (this.estado == null) {
+            this.estado = EstadoCorreo.PENDIENTE;
+        }
+    }
+}
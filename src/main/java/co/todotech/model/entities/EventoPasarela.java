@@ -0,0 +1,92 @@
+package co.todotech.model.entities;
+
+import co.todotech.model.enums.EstadoEventoPasarela;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento recibido por webhook desde la pasarela, guardado una sola vez por su id.
+ *
+ * El id lo asigna la pasarela: como {@link Persistable} nuevo, {@code save} hace un INSERT
+ * y una entrega repetida choca con la clave primaria en vez de sobrescribir la fila.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "evento_pasarela", indexes = {
+        @Index(name = "idx_evento_pasarela_estado_proximo", columnList = "estado, proximo_intento")
+})
+public class EventoPasarela implements Persistable<String> {
+
+    @Id
+    @Column(name = "id", nullable = false, length = 255)
+    private String id;
+
+    @Column(name = "tipo", nullable = false, length = 100)
+    private String tipo;
+
+    // Recurso afectado (p. ej. el PaymentIntent): sus eventos los procesa siempre el mismo worker
+    @Column(name = "objeto_id", length = 255)
+    private String objetoId;
+
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    private EstadoEventoPasarela estado;
+
+    @Column(name = "intentos", nullable = false)
+    private int intentos;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "fecha_recepcion", nullable = false)
+    private LocalDateTime fechaRecepcion;
+
+    @Column(name = "fecha_procesado")
+    private LocalDateTime fechaProcesado;
+
+    // Cuándo lo reclamó el worker que lo está procesando (estado PROCESANDO)
+    @Column(name = "reclamado_en")
+    private LocalDateTime reclamadoEn;
+
+    @Transient
+    @Builder.Default
+    private boolean nuevo = true;
+
+    @Override
+    public boolean isNew() {
+        return nuevo;
+    }
+
+    @PostLoad
+    @PostPersist
+    public void marcarPersistido() {
+        this.nuevo = false;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        if (this.fechaRecepcion == null) {
+            this.fechaRecepcion = LocalDateTime.now();
+        }
+        if (this.proximoIntento == null) {
+            this.proximoIntento = this.fechaRecepcion;
+        }
+        if (this.estado == null) {
+            this.estado = EstadoEventoPasarela.PENDIENTE;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package co.todotech.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Último estado conocido de un PaymentIntent, alimentado por los webhooks.
+ * Las consultas de estado se responden desde aquí sin llamar a la pasarela.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "intento_pago")
+public class IntentoPago {
+
+    @Id
+    @Column(name = "payment_intent_id", nullable = false, length = 100)
+    private String paymentIntentId;
+
+    @Column(name = "orden_id")
+    private Long ordenId;
+
+    // Estado tal como lo reporta la pasarela (requires_payment_method, processing, succeeded...)
+    @Column(name = "estado", nullable = false, length = 40)
+    private String estado;
+
+    @Column(name = "monto_centavos")
+    private Long montoCentavos;
+
+    @Column(name = "monto_recibido_centavos")
+    private Long montoRecibidoCentavos;
+
+    @Column(name = "moneda", length = 10)
+    private String moneda;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    // created (epoch s) del último evento aplicado: un evento más antiguo no pisa el estado
+    @Column(name = "evento_creado", nullable = false)
+    private long eventoCreado;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
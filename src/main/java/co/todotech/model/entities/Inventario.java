@@ -1,4 +1,66 @@
 package co.todotech.model.entities;
 
+import co.todotech.model.enums.TipoMovimiento;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Libro de movimientos de stock (solo inserción).
+ * Cada fila guarda la variación con signo; el stock en cualquier instante es la suma
+ * de las variaciones hasta ese instante, partiendo del último {@link InventarioSnapshot}.
+ * Lo único que cambia después es {@code compactacion}, que pone la compactación al sumarla.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Immutable
+@Table(name = "inventario", indexes = {
+        @Index(name = "idx_inventario_producto_fecha", columnList = "producto_id, fecha"),
+        @Index(name = "idx_inventario_fecha", columnList = "fecha"),
+        @Index(name = "idx_inventario_producto_compactacion", columnList = "producto_id, compactacion"),
+        @Index(name = "idx_inventario_compactacion", columnList = "compactacion")
+})
 public class Inventario {
+
+    // SEQUENCE (no IDENTITY) para que Hibernate pueda agrupar los INSERT en lotes JDBC
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventario_seq")
+    @SequenceGenerator(name = "inventario_seq", sequenceName = "inventario_seq", allocationSize = 50)
+    @Column(nullable = false)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "producto_id", nullable = false)
+    private Producto producto;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 20)
+    private TipoMovimiento tipo;
+
+    // Variación con signo: positiva para entradas, negativa para salidas
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "referencia", length = 60)
+    private String referencia;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+
+    // Número de la compactación que lo sumó a su snapshot; null mientras está pendiente
+    @Column(name = "compactacion")
+    private Long compactacion;
+
+    @PrePersist
+    public void prePersist() {
+        if (this.fecha == null) {
+            this.fecha = LocalDateTime.now();
+        }
+    }
 }
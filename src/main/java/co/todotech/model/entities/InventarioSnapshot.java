@@ -0,0 +1,31 @@
+package co.todotech.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock compactado de un producto: la suma de sus movimientos ya marcados con una compactación.
+ * Las consultas de stock parten de aquí y solo suman los movimientos aún pendientes.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "inventario_snapshot")
+public class InventarioSnapshot {
+
+    @Id
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "stock", nullable = false)
+    private Integer stock;
+
+    // Cuándo lo actualizó la última compactación
+    @Column(name = "fecha_corte", nullable = false)
+    private LocalDateTime fechaCorte;
+}
@@ -3,9 +3,12 @@ package co.todotech.model.entities;
 import co.todotech.model.enums.EstadoOrden;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.Hibernate;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Getter
@@ -14,9 +17,22 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "orden_venta")
+@Table(name = "orden_venta", indexes = {
+        // Soportan la paginación por cursor (fecha, id) del listado general y por estado
+        @Index(name = "idx_orden_fecha_id", columnList = "fecha, id"),
+        @Index(name = "idx_orden_estado_fecha_id", columnList = "estado, fecha, id")
+})
 public class Orden {
 
+    private static final double TASA_IMPUESTO = 0.02;
+
+    // Diferencia máxima aceptada entre el subtotal incremental (double) y el exacto (BigDecimal)
+    private static final BigDecimal TOLERANCIA_VERIFICACION = new BigDecimal("0.005");
+
+    // Modo verificación: tras cada cambio incremental compara contra un recálculo exacto.
+    // Cuesta O(líneas) por operación; solo para tests y solo en el hilo que lo abre
+    private static final ThreadLocal<Boolean> VERIFICACION_EXACTA = new ThreadLocal<>();
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(nullable = false)
@@ -36,7 +52,8 @@ public class Orden {
     @JoinColumn(name = "vendedor_id", nullable = false)
     private Usuario vendedor;
 
-    @OneToMany(mappedBy = "orden", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    // LAZY: las consultas que necesitan las líneas las piden con un entity graph (ver OrdenRepository)
+    @OneToMany(mappedBy = "orden", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @Builder.Default
     private List<DetalleOrden> productos = new ArrayList<>();
 
@@ -59,9 +76,36 @@ public class Orden {
     @Column(name = "observaciones", length = 1000)
     private String observaciones;
 
-    // ✅ CORREGIDO: Método para calcular los totales automáticamente
+    /** Alcance del modo verificación; al cerrarlo el hilo vuelve al modo normal. */
+    public interface VerificacionExacta extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Activa el modo verificación en el hilo actual hasta cerrar lo devuelto: en un
+     * try-with-resources o entre el setUp y el tearDown de un test, sin afectar a otros hilos.
+     */
+    public static VerificacionExacta verificarTotalesExactos() {
+        VERIFICACION_EXACTA.set(Boolean.TRUE);
+        return VERIFICACION_EXACTA::remove;
+    }
+
+    // Una orden nueva puede traer líneas armadas con el builder: se calcula todo una vez
     @PrePersist
+    void calcularTotalesAntesDeInsertar() {
+        calcularTotales();
+    }
+
+    // El subtotal ya se mantiene por deltas; solo se derivan descuento, impuestos y total (O(1))
     @PreUpdate
+    void actualizarTotalesAntesDeGuardar() {
+        actualizarTotalesDesdeSubtotal();
+        verificarTotales();
+    }
+
+    // Recálculo completo recorriendo todas las líneas. Los cambios de líneas usan los métodos
+    // incrementales de abajo; este queda para órdenes nuevas o para resincronizar
     public void calcularTotales() {
         // ✅ CORREGIDO: Asegurar que el descuento tenga valor por defecto
         if (this.descuento == null) {
@@ -78,6 +122,21 @@ public class Orden {
                 })
                 .sum();
 
+        actualizarTotalesDesdeSubtotal();
+    }
+
+    /**
+     * Deriva descuento, impuestos y total del subtotal actual sin recorrer las líneas.
+     * Basta después de cambiar el descuento.
+     */
+    public void actualizarTotalesDesdeSubtotal() {
+        if (this.subtotal == null) {
+            this.subtotal = 0.0;
+        }
+        if (this.descuento == null) {
+            this.descuento = 0.0;
+        }
+
         // ✅ CORREGIDO: Solo ajustar descuento si hay productos
         // Si no hay productos (subtotal = 0), mantener el descuento original
         if (this.subtotal > 0 && this.descuento > this.subtotal) {
@@ -89,7 +148,7 @@ public class Orden {
             baseImponible = 0.0;
         }
 
-        this.impuestos = baseImponible * 0.02;
+        this.impuestos = baseImponible * TASA_IMPUESTO;
         this.total = baseImponible + this.impuestos;
 
         if (this.total < 0) {
@@ -102,20 +161,20 @@ public class Orden {
             throw new IllegalArgumentException("El porcentaje de descuento debe estar entre 0 y 100");
         }
 
-        // Recalcular subtotal primero para asegurar que esté actualizado
-        this.calcularTotales();
+        // El subtotal está al día: se mantiene en cada cambio de líneas
+        this.actualizarTotalesDesdeSubtotal();
 
         // Calcular monto del descuento
         this.descuento = this.subtotal * (porcentajeDescuento / 100);
 
         // Recalcular totales con el nuevo descuento
-        this.calcularTotales();
+        this.actualizarTotalesDesdeSubtotal();
     }
 
     // ✅ NUEVO: Método para quitar descuento
     public void quitarDescuento() {
         this.descuento = 0.0;
-        this.calcularTotales();
+        this.actualizarTotalesDesdeSubtotal();
     }
 
     // ✅ NUEVO: Método para obtener el monto después del descuento
@@ -131,20 +190,91 @@ public class Orden {
         return (this.descuento / this.subtotal) * 100;
     }
 
+    // ========== TOTALES INCREMENTALES ==========
+    // Cada cambio de líneas ajusta el subtotal con la diferencia de esa línea y deriva el
+    // resto en O(1): armar una orden de N líneas cuesta O(N) y no O(N²)
+
     // Método helper para agregar detalle
     public void agregarDetalle(DetalleOrden detalle) {
         detalle.setOrden(this);
         this.productos.add(detalle);
-        // ✅ CORREGIDO: Recalcular totales después de agregar detalle
-        this.calcularTotales();
+        sumarAlSubtotal(subtotalDe(detalle));
+    }
+
+    // Agrega varias líneas derivando los totales una sola vez
+    public void agregarDetalles(Collection<DetalleOrden> detalles) {
+        double delta = 0.0;
+        for (DetalleOrden detalle : detalles) {
+            detalle.setOrden(this);
+            this.productos.add(detalle);
+            delta += subtotalDe(detalle);
+        }
+        sumarAlSubtotal(delta);
     }
 
     // Método helper para remover detalle
     public void removerDetalle(DetalleOrden detalle) {
         detalle.setOrden(null);
-        this.productos.remove(detalle);
-        // ✅ CORREGIDO: Recalcular totales después de remover detalle
-        this.calcularTotales();
+        // remove ya carga la colección LAZY: preguntar si quedó vacía no cuesta otra consulta
+        if (this.productos.remove(detalle)) {
+            // Sin líneas el subtotal queda exactamente en 0, sin residuos de redondeo acumulados
+            double delta = this.productos.isEmpty()
+                    ? -(this.subtotal != null ? this.subtotal : 0.0)
+                    : -(detalle.getSubtotal() != null ? detalle.getSubtotal() : 0.0);
+            sumarAlSubtotal(delta);
+        }
+    }
+
+    public void actualizarCantidadDetalle(DetalleOrden detalle, Integer nuevaCantidad) {
+        double subtotalAnterior = detalle.getSubtotal() != null ? detalle.getSubtotal() : 0.0;
+        detalle.setCantidad(nuevaCantidad);
+        registrarCambioDetalle(detalle, subtotalAnterior);
+    }
+
+    /**
+     * Aplica al subtotal de la orden el cambio de una línea ya modificada (cantidad o precio).
+     *
+     * @param subtotalAnterior subtotal de la línea antes del cambio
+     */
+    public void registrarCambioDetalle(DetalleOrden detalle, double subtotalAnterior) {
+        sumarAlSubtotal(subtotalDe(detalle) - subtotalAnterior);
+    }
+
+    // No toca las líneas: una orden con la colección sin cargar sigue sin cargarla. Un subtotal
+    // negativo aquí es un desajuste real y se deja a la vista (el modo verificación lo detecta)
+    private void sumarAlSubtotal(double delta) {
+        double actual = this.subtotal != null ? this.subtotal : 0.0;
+        this.subtotal = actual + delta;
+        actualizarTotalesDesdeSubtotal();
+        verificarTotales();
+    }
+
+    private static double subtotalDe(DetalleOrden detalle) {
+        detalle.calcularSubtotal();
+        return detalle.getSubtotal() != null ? detalle.getSubtotal() : 0.0;
+    }
+
+    // Solo en modo verificación y con las líneas cargadas: compara con el cálculo exacto en BigDecimal
+    private void verificarTotales() {
+        if (VERIFICACION_EXACTA.get() == null || !Hibernate.isInitialized(this.productos)) {
+            return;
+        }
+
+        BigDecimal exacto = BigDecimal.ZERO;
+        for (DetalleOrden detalle : this.productos) {
+            if (detalle.getPrecioUnitario() != null && detalle.getCantidad() != null) {
+                exacto = exacto.add(BigDecimal.valueOf(detalle.getPrecioUnitario())
+                        .multiply(BigDecimal.valueOf(detalle.getCantidad())));
+            } else if (detalle.getSubtotal() != null) {
+                exacto = exacto.add(BigDecimal.valueOf(detalle.getSubtotal()));
+            }
+        }
+
+        BigDecimal diferencia = exacto.subtract(BigDecimal.valueOf(this.subtotal)).abs();
+        if (diferencia.compareTo(TOLERANCIA_VERIFICACION) > 0) {
+            throw new IllegalStateException("Subtotal incremental desincronizado en la orden " + this.numeroOrden
+                    + ": incremental=" + this.subtotal + ", exacto=" + exacto.toPlainString());
+        }
     }
 
     // ✅ NUEVO: Método para validar si la orden puede ser modificada
@@ -0,0 +1,59 @@
+package co.todotech.model.entities;
+
+import co.todotech.model.enums.EstadoOrden;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Agregado de líneas de orden por día, categoría de producto y estado de la orden.
+ *
+ * Descuento, impuestos y total son de la orden completa: se reparten entre sus categorías
+ * en proporción al subtotal de cada una. Una orden cuenta una vez en cada categoría que
+ * incluye, así que sumar {@code cantidadOrdenes} entre categorías no da el total de órdenes.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "resumen_venta_categoria", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_resumen_venta_categoria", columnNames = {"dia", "categoria_id", "estado"})
+})
+public class ResumenVentaCategoria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia;
+
+    @Column(name = "categoria_id", nullable = false)
+    private Long categoriaId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 30)
+    private EstadoOrden estado;
+
+    @Column(name = "cantidad_ordenes", nullable = false)
+    private long cantidadOrdenes;
+
+    @Column(name = "unidades", nullable = false)
+    private long unidades;
+
+    @Column(name = "subtotal", nullable = false)
+    private double subtotal;
+
+    @Column(name = "descuento", nullable = false)
+    private double descuento;
+
+    @Column(name = "impuestos", nullable = false)
+    private double impuestos;
+
+    @Column(name = "total", nullable = false)
+    private double total;
+}
@@ -0,0 +1,59 @@
+package co.todotech.model.entities;
+
+import co.todotech.model.enums.EstadoOrden;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lo que una orden aporta hoy a los resúmenes de ventas.
+ *
+ * Al cambiar la orden se resta este aporte y se suma el nuevo, así que la cifra queda exacta
+ * aunque los totales de la orden hayan cambiado desde la última vez (líneas, descuentos).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "resumen_venta_orden", indexes = {
+        @Index(name = "idx_resumen_venta_orden_dia", columnList = "dia")
+})
+public class ResumenVentaOrden {
+
+    @Id
+    @Column(name = "orden_id", nullable = false)
+    private Long ordenId;
+
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia;
+
+    @Column(name = "vendedor_id", nullable = false)
+    private Long vendedorId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 30)
+    private EstadoOrden estado;
+
+    @Column(name = "subtotal", nullable = false)
+    private double subtotal;
+
+    @Column(name = "descuento", nullable = false)
+    private double descuento;
+
+    @Column(name = "impuestos", nullable = false)
+    private double impuestos;
+
+    @Column(name = "total", nullable = false)
+    private double total;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "resumen_venta_orden_categoria", joinColumns = @JoinColumn(name = "orden_id"))
+    @MapKeyColumn(name = "categoria_id")
+    @Builder.Default
+    private Map<Long, AporteCategoria> categorias = new HashMap<>();
+}
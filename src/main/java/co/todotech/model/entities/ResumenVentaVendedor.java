@@ -0,0 +1,56 @@
+package co.todotech.model.entities;
+
+import co.todotech.model.enums.EstadoOrden;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Agregado de órdenes por día (fecha de la orden), vendedor y estado.
+ *
+ * Se mantiene con sumas atómicas ({@code UPDATE ... SET x = x + :delta}) cada vez que una
+ * orden cambia; nunca se reescribe desde la entidad, así dos transacciones que tocan la
+ * misma fila no se pisan.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "resumen_venta_vendedor", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_resumen_venta_vendedor", columnNames = {"dia", "vendedor_id", "estado"})
+})
+public class ResumenVentaVendedor {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia;
+
+    @Column(name = "vendedor_id", nullable = false)
+    private Long vendedorId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 30)
+    private EstadoOrden estado;
+
+    @Column(name = "cantidad_ordenes", nullable = false)
+    private long cantidadOrdenes;
+
+    @Column(name = "subtotal", nullable = false)
+    private double subtotal;
+
+    @Column(name = "descuento", nullable = false)
+    private double descuento;
+
+    @Column(name = "impuestos", nullable = false)
+    private double impuestos;
+
+    @Column(name = "total", nullable = false)
+    private double total;
+}
@@ -1,4 +1,49 @@
 package co.todotech.model.entities;
 
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sesión emitida en el login, identificada por el jti del JWT.
+ *
+ * Al revocarse recibe la versión global de {@code sesion_version} vigente en ese cambio:
+ * cada nodo lee solo las revocaciones con versión mayor a la última que ya aplicó.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "sesion", indexes = {
+        @Index(name = "idx_sesion_version_revocacion", columnList = "version_revocacion"),
+        @Index(name = "idx_sesion_expira", columnList = "expira_en")
+})
 public class Sesion {
+
+    @Id
+    @Column(name = "jti", nullable = false, length = 64)
+    private String jti;
+
+    // Opcional: un token anterior a esta tabla se revoca sin sesión registrada
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id")
+    private Usuario usuario;
+
+    @Column(name = "emitida_en", nullable = false)
+    private LocalDateTime emitidaEn;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    @Column(name = "revocada", nullable = false)
+    private boolean revocada;
+
+    @Column(name = "revocada_en")
+    private LocalDateTime revocadaEn;
+
+    @Column(name = "version_revocacion")
+    private Long versionRevocacion;
 }
@@ -0,0 +1,29 @@
+package co.todotech.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Contador global de cambios sobre las sesiones (una sola fila, id = 1).
+ *
+ * Cada revocación lo incrementa dentro de su transacción; el bloqueo de la fila ordena
+ * las revocaciones, así que una versión leída ya confirmada implica que todas las
+ * anteriores también lo están.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "sesion_version")
+public class SesionVersion {
+
+    public static final int ID_UNICO = 1;
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private Integer id;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+}
@@ -0,0 +1,43 @@
+package co.todotech.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Respuesta guardada para una {@code Idempotency-Key}: un reintento con la misma clave
+ * recibe esta respuesta en lugar de repetir la operación.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "solicitud_idempotente", indexes = {
+        @Index(name = "idx_solicitud_idempotente_expira", columnList = "expira_en")
+})
+public class SolicitudIdempotente {
+
+    @Id
+    @Column(name = "clave", nullable = false, length = 255)
+    private String clave;
+
+    @Column(name = "operacion", nullable = false, length = 60)
+    private String operacion;
+
+    // SHA-256 (hex) de la operación y del cuerpo: detecta la misma clave con otra petición
+    @Column(name = "huella", nullable = false, length = 64)
+    private String huella;
+
+    @Lob
+    @Column(name = "respuesta", nullable = false)
+    private String respuesta;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+}
@@ -0,0 +1,8 @@
+package co.todotech.model.enums;
+
+public enum EstadoCorreo {
+    PENDIENTE,
+    ENVIANDO,
+    ENVIADO,
+    FALLIDO
+}
@@ -0,0 +1,8 @@
+package co.todotech.model.enums;
+
+public enum EstadoEventoPasarela {
+    PENDIENTE,
+    PROCESANDO,
+    PROCESADO,
+    FALLIDO
+}
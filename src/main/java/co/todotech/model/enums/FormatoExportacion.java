@@ -0,0 +1,31 @@
+package co.todotech.model.enums;
+
+public enum FormatoExportacion {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    FormatoExportacion(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static FormatoExportacion desde(String valor) {
+        for (FormatoExportacion formato : values()) {
+            if (formato.name().equalsIgnoreCase(valor) || formato.extension.equalsIgnoreCase(valor)) {
+                return formato;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportación no soportado: " + valor + " (use ndjson o csv)");
+    }
+}
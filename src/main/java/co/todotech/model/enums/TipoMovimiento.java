@@ -1,4 +1,10 @@
 package co.todotech.model.enums;
 
 public enum TipoMovimiento {
+    INICIAL,     // Stock de partida de un producto (creación o siembra del libro)
+    ENTRADA,     // Incremento manual de stock
+    SALIDA,      // Decremento manual de stock
+    AJUSTE,      // Stock establecido directamente (se registra la diferencia)
+    VENTA,       // Unidades reservadas por una línea de orden
+    DEVOLUCION   // Unidades liberadas al reducir o eliminar una línea de orden
 }
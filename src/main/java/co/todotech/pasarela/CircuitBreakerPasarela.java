@@ -0,0 +1,133 @@
+package co.todotech.pasarela;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Circuit breaker por conteo sobre las últimas {@code ventana} llamadas a una pasarela.
+ *
+ * CERRADO: todo pasa; si en la ventana hay al menos {@code minimoLlamadas} y la proporción de
+ * fallos alcanza el umbral, se abre. ABIERTO: se rechaza sin llamar durante
+ * {@code duracionAbierto}. SEMIABIERTO: pasa una sola llamada de prueba; si funciona se
+ * cierra con la ventana limpia, si falla vuelve a abrirse.
+ */
+public class CircuitBreakerPasarela {
+
+    public enum Estado {
+        CERRADO,
+        ABIERTO,
+        SEMIABIERTO
+    }
+
+    private final boolean[] resultados;
+    private final int minimoLlamadas;
+    private final double umbralFallos;
+    private final Duration duracionAbierto;
+    private final Clock clock;
+
+    // Con el lock del objeto: la llamada a la pasarela cuesta órdenes de magnitud más que esto
+    private Estado estado = Estado.CERRADO;
+    private int posicion;
+    private int llamadas;
+    private int fallos;
+    private Instant abiertoHasta = Instant.MIN;
+    private boolean pruebaEnCurso;
+
+    public CircuitBreakerPasarela(int ventana, int minimoLlamadas, double umbralFallos, Duration duracionAbierto) {
+        this(ventana, minimoLlamadas, umbralFallos, duracionAbierto, Clock.systemUTC());
+    }
+
+    CircuitBreakerPasarela(int ventana, int minimoLlamadas, double umbralFallos, Duration duracionAbierto, Clock clock) {
+        if (ventana <= 0 || minimoLlamadas <= 0 || minimoLlamadas > ventana) {
+            throw new IllegalArgumentException("La ventana y el mínimo de llamadas deben ser positivos y mínimo <= ventana");
+        }
+        if (umbralFallos <= 0.0 || umbralFallos > 1.0) {
+            throw new IllegalArgumentException("El umbral de fallos debe estar en (0, 1]");
+        }
+        this.resultados = new boolean[ventana];
+        this.minimoLlamadas = minimoLlamadas;
+        this.umbralFallos = umbralFallos;
+        this.duracionAbierto = duracionAbierto;
+        this.clock = clock;
+    }
+
+    /**
+     * @return {@code false} si la llamada debe rechazarse sin ir a la pasarela
+     */
+    public synchronized boolean permitirLlamada() {
+        switch (estado) {
+            case CERRADO:
+                return true;
+            case ABIERTO:
+                if (clock.instant().isBefore(abiertoHasta)) {
+                    return false;
+                }
+                estado = Estado.SEMIABIERTO;
+                pruebaEnCurso = true;
+                return true;
+            default:
+                if (pruebaEnCurso) {
+                    return false;
+                }
+                pruebaEnCurso = true;
+                return true;
+        }
+    }
+
+    public synchronized void registrarExito() {
+        if (estado == Estado.SEMIABIERTO) {
+            cerrar();
+            return;
+        }
+        registrar(false);
+    }
+
+    public synchronized void registrarFallo() {
+        if (estado == Estado.SEMIABIERTO) {
+            abrir();
+            return;
+        }
+        registrar(true);
+        if (llamadas >= minimoLlamadas && (double) fallos / llamadas >= umbralFallos) {
+            abrir();
+        }
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    public synchronized double getProporcionFallos() {
+        return llamadas == 0 ? 0.0 : (double) fallos / llamadas;
+    }
+
+    private void registrar(boolean fallo) {
+        if (llamadas == resultados.length) {
+            if (resultados[posicion]) {
+                fallos--;
+            }
+        } else {
+            llamadas++;
+        }
+        resultados[posicion] = fallo;
+        if (fallo) {
+            fallos++;
+        }
+        posicion = (posicion + 1) % resultados.length;
+    }
+
+    private void abrir() {
+        estado = Estado.ABIERTO;
+        abiertoHasta = clock.instant().plus(duracionAbierto);
+        pruebaEnCurso = false;
+    }
+
+    private void cerrar() {
+        estado = Estado.CERRADO;
+        pruebaEnCurso = false;
+        posicion = 0;
+        llamadas = 0;
+        fallos = 0;
+    }
+}
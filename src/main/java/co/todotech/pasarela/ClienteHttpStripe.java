@@ -0,0 +1,98 @@
+package co.todotech.pasarela;
+
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.net.HttpClient;
+import com.stripe.net.HttpContent;
+import com.stripe.net.HttpHeaders;
+import com.stripe.net.StripeRequest;
+import com.stripe.net.StripeResponse;
+import com.stripe.net.StripeResponseStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Transporte HTTP del SDK de Stripe sobre {@link java.net.http.HttpClient}.
+ *
+ * El cliente por defecto del SDK abre un {@code HttpURLConnection} por petición y depende del
+ * keep-alive global de la JVM. Aquí cada pasarela tiene su propio cliente: un pool de
+ * conexiones persistentes (HTTP/2 cuando el servidor lo ofrece), timeouts de conexión y de
+ * respuesta explícitos, y hilos propios que no compiten con los de otras pasarelas.
+ */
+public class ClienteHttpStripe extends HttpClient {
+
+    private final java.net.http.HttpClient http;
+    private final Duration timeoutRespuesta;
+
+    public ClienteHttpStripe(Duration timeoutConexion, Duration timeoutRespuesta, int hilos) {
+        ExecutorService executor = Executors.newFixedThreadPool(hilos, Thread.ofPlatform()
+                .name("stripe-http-", 0)
+                .daemon(true)
+                .factory());
+        this.http = java.net.http.HttpClient.newBuilder()
+                .connectTimeout(timeoutConexion)
+                .executor(executor)
+                .build();
+        this.timeoutRespuesta = timeoutRespuesta;
+    }
+
+    @Override
+    public StripeResponse request(StripeRequest request) throws ApiConnectionException {
+        try {
+            HttpResponse<String> respuesta = http.send(construir(request), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            return new StripeResponse(respuesta.statusCode(), HttpHeaders.of(respuesta.headers().map()), respuesta.body());
+        } catch (IOException e) {
+            throw errorDeConexion(request, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw errorDeConexion(request, e);
+        }
+    }
+
+    @Override
+    public StripeResponseStream requestStream(StripeRequest request) throws ApiConnectionException {
+        try {
+            HttpResponse<InputStream> respuesta = http.send(construir(request), HttpResponse.BodyHandlers.ofInputStream());
+            return new StripeResponseStream(respuesta.statusCode(), HttpHeaders.of(respuesta.headers().map()), respuesta.body());
+        } catch (IOException e) {
+            throw errorDeConexion(request, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw errorDeConexion(request, e);
+        }
+    }
+
+    private HttpRequest construir(StripeRequest request) throws ApiConnectionException {
+        HttpRequest.Builder builder;
+        try {
+            builder = HttpRequest.newBuilder(request.url().toURI()).timeout(timeoutRespuesta);
+        } catch (URISyntaxException e) {
+            throw errorDeConexion(request, e);
+        }
+
+        request.headers().map().forEach((nombre, valores) -> valores.forEach(valor -> builder.header(nombre, valor)));
+        builder.header("User-Agent", buildUserAgentString());
+        builder.header("X-Stripe-Client-User-Agent", buildXStripeClientUserAgentString());
+
+        HttpContent contenido = request.content();
+        if (contenido == null) {
+            builder.method(request.method().name(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            builder.header("Content-Type", contenido.contentType());
+            builder.method(request.method().name(), HttpRequest.BodyPublishers.ofByteArray(contenido.byteArrayContent()));
+        }
+        return builder.build();
+    }
+
+    private static ApiConnectionException errorDeConexion(StripeRequest request, Exception causa) {
+        return new ApiConnectionException(String.format(
+                "Error de comunicación con Stripe (%s %s): %s", request.method(), request.url(), causa.getMessage()), causa);
+    }
+}
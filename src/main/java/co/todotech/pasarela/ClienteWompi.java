@@ -0,0 +1,166 @@
+package co.todotech.pasarela;
+
+import co.todotech.exception.pasarela.WompiApiException;
+import co.todotech.model.dto.pasarela.wombi.WompiTransactionData;
+import co.todotech.model.dto.pasarela.wombi.WompiTransactionRequest;
+import co.todotech.model.dto.pasarela.wombi.WompiTransactionResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cliente asíncrono de la API REST de Wompi sobre {@link HttpClient}.
+ *
+ * Se pide HTTP/2: contra la API real todas las peticiones se multiplexan sobre una misma
+ * conexión TLS; si el servidor solo habla HTTP/1.1, el cliente mantiene un pool keep-alive.
+ * Ninguna llamada bloquea a quien la hace: todo devuelve un {@link CompletableFuture} que
+ * se completa en los hilos propios del cliente.
+ */
+public class ClienteWompi {
+
+    private final HttpClient http;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper;
+    private final String apiBase;
+    private final String llavePublica;
+    private final String llavePrivada;
+    private final Duration timeoutRespuesta;
+
+    public ClienteWompi(String apiBase, String llavePublica, String llavePrivada, ObjectMapper objectMapper,
+                        Duration timeoutConexion, Duration timeoutRespuesta, int hilos) {
+        this.executor = Executors.newFixedThreadPool(hilos, Thread.ofPlatform()
+                .name("wompi-http-", 0)
+                .daemon(true)
+                .factory());
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(timeoutConexion)
+                .executor(executor)
+                .build();
+        this.objectMapper = objectMapper;
+        this.apiBase = apiBase.endsWith("/") ? apiBase.substring(0, apiBase.length() - 1) : apiBase;
+        this.llavePublica = llavePublica;
+        this.llavePrivada = llavePrivada;
+        this.timeoutRespuesta = timeoutRespuesta;
+    }
+
+    /** POST /transactions, autenticado con la llave privada. */
+    public CompletableFuture<WompiTransactionData> crearTransaccion(WompiTransactionRequest solicitud) {
+        String cuerpo;
+        try {
+            cuerpo = objectMapper.writeValueAsString(solicitud);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Transacción de Wompi no serializable", e));
+        }
+        HttpRequest request = peticion("/transactions", llavePrivada)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo, StandardCharsets.UTF_8))
+                .build();
+        return enviar(request).thenApply(this::leerTransaccion);
+    }
+
+    /** GET /transactions/{id}: basta la llave pública. */
+    public CompletableFuture<WompiTransactionData> consultarTransaccion(String transaccionId) {
+        HttpRequest request = peticion("/transactions/" + URLEncoder.encode(transaccionId, StandardCharsets.UTF_8), llavePublica)
+                .GET()
+                .build();
+        return enviar(request).thenApply(this::leerTransaccion);
+    }
+
+    /**
+     * Token de aceptación prefirmado del comercio (GET /merchants/{llave pública}), obligatorio
+     * al crear una transacción desde el servidor.
+     */
+    public CompletableFuture<String> obtenerTokenAceptacion() {
+        HttpRequest request = peticion("/merchants/" + URLEncoder.encode(llavePublica, StandardCharsets.UTF_8), null)
+                .GET()
+                .build();
+        return enviar(request).thenApply(cuerpo -> {
+            String token = leerArbol(cuerpo).path("data").path("presigned_acceptance").path("acceptance_token").asText(null);
+            if (token == null) {
+                throw new WompiApiException(502, "Wompi no devolvió presigned_acceptance.acceptance_token");
+            }
+            return token;
+        });
+    }
+
+    /** Hilos del cliente, para encadenar trabajo diferido (p. ej. el sondeo) sin usar el pool común. */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    private HttpRequest.Builder peticion(String ruta, String llave) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(apiBase + ruta))
+                .timeout(timeoutRespuesta)
+                .header("Accept", "application/json");
+        if (llave != null && !llave.isBlank()) {
+            builder.header("Authorization", "Bearer " + llave);
+        }
+        return builder;
+    }
+
+    private CompletableFuture<String> enviar(HttpRequest request) {
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .handle((respuesta, error) -> {
+                    if (error != null) {
+                        Throwable causa = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        throw new WompiApiException(0, String.format("Error de comunicación con Wompi (%s %s): %s",
+                                request.method(), request.uri().getPath(), causa), causa);
+                    }
+                    if (respuesta.statusCode() / 100 != 2) {
+                        throw new WompiApiException(respuesta.statusCode(), String.format("Wompi respondió %d en %s %s: %s",
+                                respuesta.statusCode(), request.method(), request.uri().getPath(), motivo(respuesta.body())));
+                    }
+                    return respuesta.body();
+                });
+    }
+
+    private WompiTransactionData leerTransaccion(String cuerpo) {
+        try {
+            WompiTransactionResponse respuesta = objectMapper.readValue(cuerpo, WompiTransactionResponse.class);
+            if (respuesta.data() == null || respuesta.data().id() == null) {
+                throw new WompiApiException(502, "Respuesta de Wompi sin data.id");
+            }
+            return respuesta.data();
+        } catch (JsonProcessingException e) {
+            throw new WompiApiException(502, "Respuesta de Wompi ilegible: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private JsonNode leerArbol(String cuerpo) {
+        try {
+            return objectMapper.readTree(cuerpo);
+        } catch (JsonProcessingException e) {
+            throw new WompiApiException(502, "Respuesta de Wompi ilegible: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    // Wompi responde los errores como {"error": {"type": ..., "reason" | "messages": ...}}
+    private String motivo(String cuerpo) {
+        try {
+            JsonNode error = objectMapper.readTree(cuerpo).path("error");
+            if (error.hasNonNull("reason")) {
+                return error.get("reason").asText();
+            }
+            if (error.has("messages")) {
+                return error.get("messages").toString();
+            }
+            return error.path("type").asText(cuerpo);
+        } catch (JsonProcessingException e) {
+            return cuerpo;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package co.todotech.pasarela;
+
+/**
+ * Estados de una transacción de Wompi y su equivalente en el vocabulario que ya usan las
+ * respuestas de pago (el de los PaymentIntent de Stripe).
+ */
+public enum EstadoTransaccionWompi {
+    PENDING("processing"),
+    APPROVED("succeeded"),
+    DECLINED("failed"),
+    ERROR("failed"),
+    VOIDED("canceled");
+
+    private final String estadoPago;
+
+    EstadoTransaccionWompi(String estadoPago) {
+        this.estadoPago = estadoPago;
+    }
+
+    public String getEstadoPago() {
+        return estadoPago;
+    }
+
+    public boolean esFinal() {
+        return this != PENDING;
+    }
+
+    /** Un estado desconocido o ausente se trata como PENDING: se sigue esperando. */
+    public static EstadoTransaccionWompi desde(String estado) {
+        if (estado != null) {
+            for (EstadoTransaccionWompi valor : values()) {
+                if (valor.name().equalsIgnoreCase(estado)) {
+                    return valor;
+                }
+            }
+        }
+        return PENDING;
+    }
+}
@@ -0,0 +1,61 @@
+package co.todotech.pasarela;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Firmas SHA-256 de Wompi: la de integridad que acompaña a cada transacción y el checksum
+ * con el que Wompi firma los eventos que envía.
+ */
+public final class FirmaWompi {
+
+    private FirmaWompi() {
+    }
+
+    /** SHA-256 de referencia + monto en centavos + moneda + secreto de integridad. */
+    public static String integridad(String referencia, long montoCentavos, String moneda, String secretoIntegridad) {
+        return sha256(referencia + montoCentavos + moneda + secretoIntegridad);
+    }
+
+    /**
+     * SHA-256 de los valores de {@code signature.properties} (rutas dentro de {@code data}, en
+     * el orden en que vienen), seguidos de {@code timestamp} y del secreto de eventos.
+     */
+    public static String checksumEvento(JsonNode evento, String secretoEventos) {
+        JsonNode datos = evento.path("data");
+        StringBuilder concatenado = new StringBuilder();
+        for (JsonNode propiedad : evento.path("signature").path("properties")) {
+            JsonNode valor = datos;
+            for (String parte : propiedad.asText().split("\\.")) {
+                valor = valor.path(parte);
+            }
+            concatenado.append(valor.isValueNode() ? valor.asText() : "");
+        }
+        concatenado.append(evento.path("timestamp").asText()).append(secretoEventos);
+        return sha256(concatenado.toString());
+    }
+
+    /** Compara en tiempo constante e ignorando mayúsculas (Wompi envía el hex en mayúsculas). */
+    public static boolean coincide(String esperado, String recibido) {
+        if (esperado == null || recibido == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                esperado.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII),
+                recibido.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String sha256(String valor) {
+        try {
+            byte[] resumen = MessageDigest.getInstance("SHA-256").digest(valor.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(resumen);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
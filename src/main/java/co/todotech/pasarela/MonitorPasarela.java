@@ -0,0 +1,187 @@
+package co.todotech.pasarela;
+
+import co.todotech.exception.pasarela.PasarelaNoDisponibleException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Envuelve cada llamada saliente a una pasarela: la rechaza de inmediato si el circuito está
+ * abierto y, si no, mide su latencia en un {@link Timer} por operación.
+ *
+ * Solo los fallos de la pasarela (red, timeouts, 5xx, rate limit) cuentan para el circuito;
+ * una tarjeta rechazada o una petición inválida es una respuesta normal de un servicio sano.
+ */
+@Slf4j
+public class MonitorPasarela {
+
+    @FunctionalInterface
+    public interface LlamadaPasarela<T, E extends Exception> {
+        T ejecutar() throws E;
+    }
+
+    private final String pasarela;
+    private final CircuitBreakerPasarela circuito;
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    // Hasta vincularMetricas los timers viven en un registro propio, solo para resumen()
+    private volatile MeterRegistry registry = new SimpleMeterRegistry();
+
+    public MonitorPasarela(String pasarela, CircuitBreakerPasarela circuito) {
+        this.pasarela = pasarela;
+        this.circuito = circuito;
+    }
+
+    public <T, E extends Exception> T ejecutar(String operacion, LlamadaPasarela<T, E> llamada,
+                                               Predicate<Exception> esFalloDePasarela) throws E {
+        verificarCircuito();
+
+        long inicio = System.nanoTime();
+        try {
+            T resultado = llamada.ejecutar();
+            circuito.registrarExito();
+            return resultado;
+        } catch (Exception e) {
+            registrarError(operacion, e, esFalloDePasarela);
+            throw e;
+        } finally {
+            registrarLatencia(operacion, inicio);
+        }
+    }
+
+    /**
+     * Igual que {@link #ejecutar}, para clientes que devuelven un {@link CompletableFuture}: el
+     * circuito y la latencia se registran cuando la llamada termina, sin bloquear a quien llama.
+     */
+    public <T> CompletableFuture<T> ejecutarAsync(String operacion, Supplier<CompletableFuture<T>> llamada,
+                                                  Predicate<Exception> esFalloDePasarela) {
+        try {
+            verificarCircuito();
+        } catch (PasarelaNoDisponibleException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long inicio = System.nanoTime();
+        return llamada.get().whenComplete((resultado, error) -> {
+            registrarLatencia(operacion, inicio);
+            if (error == null) {
+                circuito.registrarExito();
+                return;
+            }
+            Throwable causa = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (causa instanceof Exception e) {
+                registrarError(operacion, e, esFalloDePasarela);
+            }
+        });
+    }
+
+    private void verificarCircuito() {
+        if (!circuito.permitirLlamada()) {
+            rechazadas.increment();
+            throw new PasarelaNoDisponibleException(
+                    "Pasarela " + pasarela + " no disponible temporalmente, intente de nuevo en unos segundos");
+        }
+    }
+
+    private void registrarError(String operacion, Exception e, Predicate<Exception> esFalloDePasarela) {
+        if (esFalloDePasarela.test(e)) {
+            fallos.increment();
+            circuito.registrarFallo();
+            if (circuito.getEstado() == CircuitBreakerPasarela.Estado.ABIERTO) {
+                log.warn("⚡ Circuito de {} abierto tras fallo en {}: {}", pasarela, operacion, e.getMessage());
+            }
+        } else {
+            circuito.registrarExito();
+        }
+    }
+
+    private void registrarLatencia(String operacion, long inicio) {
+        long nanos = System.nanoTime() - inicio;
+        timers.computeIfAbsent(operacion, o -> Timer.builder("todotech.pasarela.llamadas")
+                        .description("Latencia de las llamadas salientes a la pasarela")
+                        .tag("pasarela", pasarela)
+                        .tag("operacion", o)
+                        // Calculados en la instancia: los lee resumen() y salen como quantile en el scrape
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Publica en el registro la latencia de cada operación (lo medido antes de vincular se descarta), los
+     * fallos, las llamadas rechazadas por el circuito y su estado (0 cerrado, 1 abierto, 2 semiabierto).
+     */
+    public void vincularMetricas(MeterRegistry registry) {
+        FunctionCounter.builder("todotech.pasarela.fallos", fallos, LongAdder::sum)
+                .tag("pasarela", pasarela)
+                .register(registry);
+        FunctionCounter.builder("todotech.pasarela.rechazadas", rechazadas, LongAdder::sum)
+                .tag("pasarela", pasarela)
+                .description("Llamadas rechazadas sin salir porque el circuito estaba abierto")
+                .register(registry);
+        Gauge.builder("todotech.pasarela.circuito", circuito, c -> c.getEstado().ordinal())
+                .tag("pasarela", pasarela)
+                .register(registry);
+        this.registry = registry;
+        timers.clear();
+    }
+
+    public String getPasarela() {
+        return pasarela;
+    }
+
+    public CircuitBreakerPasarela.Estado getEstadoCircuito() {
+        return circuito.getEstado();
+    }
+
+    public Timer getLatencia(String operacion) {
+        return timers.get(operacion);
+    }
+
+    /** Llamadas y media desde el arranque; percentiles y máximo de la ventana reciente del timer (~2 min). */
+    public Map<String, Object> resumen() {
+        Map<String, Object> porOperacion = new LinkedHashMap<>();
+        timers.forEach((operacion, timer) -> porOperacion.put(operacion, resumenDe(timer)));
+
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("circuito", circuito.getEstado());
+        resumen.put("proporcionFallos", circuito.getProporcionFallos());
+        resumen.put("fallos", fallos.sum());
+        resumen.put("rechazadasPorCircuito", rechazadas.sum());
+        resumen.put("latencias", porOperacion);
+        return resumen;
+    }
+
+    private static Map<String, Object> resumenDe(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("llamadas", snapshot.count());
+        resumen.put("mediaMs", redondear(snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentil : snapshot.percentileValues()) {
+            resumen.put("p" + Math.round(percentil.percentile() * 100) + "Ms",
+                    redondear(percentil.value(TimeUnit.MILLISECONDS)));
+        }
+        resumen.put("maximoMs", redondear(snapshot.max(TimeUnit.MILLISECONDS)));
+        return resumen;
+    }
+
+    private static double redondear(double ms) {
+        return Math.round(ms * 100) / 100.0;
+    }
+}
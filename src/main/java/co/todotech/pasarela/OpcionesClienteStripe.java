@@ -0,0 +1,79 @@
+package co.todotech.pasarela;
+
+import com.stripe.Stripe;
+import com.stripe.net.StripeResponseGetterOptions;
+
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+
+/**
+ * Configuración de un {@link com.stripe.StripeClient} propio, en lugar de los valores
+ * globales estáticos de {@link Stripe}.
+ */
+public class OpcionesClienteStripe extends StripeResponseGetterOptions {
+
+    private final String apiKey;
+    private final String apiBase;
+    private final int timeoutConexionMs;
+    private final int timeoutLecturaMs;
+    private final int reintentosDeRed;
+
+    public OpcionesClienteStripe(String apiKey, String apiBase, int timeoutConexionMs, int timeoutLecturaMs,
+                                 int reintentosDeRed) {
+        this.apiKey = apiKey;
+        this.apiBase = apiBase == null || apiBase.isBlank() ? Stripe.LIVE_API_BASE : apiBase;
+        this.timeoutConexionMs = timeoutConexionMs;
+        this.timeoutLecturaMs = timeoutLecturaMs;
+        this.reintentosDeRed = reintentosDeRed;
+    }
+
+    @Override
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    @Override
+    public String getClientId() {
+        return null;
+    }
+
+    @Override
+    public int getConnectTimeout() {
+        return timeoutConexionMs;
+    }
+
+    @Override
+    public Proxy getConnectionProxy() {
+        return null;
+    }
+
+    @Override
+    public int getMaxNetworkRetries() {
+        return reintentosDeRed;
+    }
+
+    @Override
+    public PasswordAuthentication getProxyCredential() {
+        return null;
+    }
+
+    @Override
+    public String getApiBase() {
+        return apiBase;
+    }
+
+    @Override
+    public String getFilesBase() {
+        return Stripe.UPLOAD_API_BASE;
+    }
+
+    @Override
+    public String getConnectBase() {
+        return Stripe.CONNECT_API_BASE;
+    }
+
+    @Override
+    public int getReadTimeout() {
+        return timeoutLecturaMs;
+    }
+}
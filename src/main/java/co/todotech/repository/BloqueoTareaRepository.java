@@ -0,0 +1,27 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.BloqueoTarea;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface BloqueoTareaRepository extends JpaRepository<BloqueoTarea, String> {
+
+    // 1 = la tarea queda a nombre de :dueno hasta :hasta; 0 = otro la tiene o la fila aún no existe
+    @Modifying
+    @Query("UPDATE BloqueoTarea b SET b.dueno = :dueno, b.hasta = :hasta WHERE b.nombre = :nombre AND b.hasta <= :ahora")
+    int tomar(@Param("nombre") String nombre,
+              @Param("dueno") String dueno,
+              @Param("ahora") Instant ahora,
+              @Param("hasta") Instant hasta);
+
+    // Solo la suelta su dueño: si el plazo venció y otro la tomó, no se toca
+    @Modifying
+    @Query("UPDATE BloqueoTarea b SET b.hasta = :ahora WHERE b.nombre = :nombre AND b.dueno = :dueno")
+    int liberar(@Param("nombre") String nombre,
+                @Param("dueno") String dueno,
+                @Param("ahora") Instant ahora);
+}
@@ -0,0 +1,20 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.CatalogoVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface CatalogoVersionRepository extends JpaRepository<CatalogoVersion, String> {
+
+    // Toma el bloqueo de la fila hasta el fin de la transacción (0 = la fila aún no existe)
+    @Modifying
+    @Query("UPDATE CatalogoVersion v SET v.version = v.version + 1 WHERE v.seccion = :seccion")
+    int incrementar(@Param("seccion") String seccion);
+
+    @Query("SELECT v.version FROM CatalogoVersion v WHERE v.seccion = :seccion")
+    Optional<Long> findVersion(@Param("seccion") String seccion);
+}
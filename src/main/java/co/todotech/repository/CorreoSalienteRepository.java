@@ -0,0 +1,52 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.CorreoSaliente;
+import co.todotech.model.enums.EstadoCorreo;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CorreoSalienteRepository extends JpaRepository<CorreoSaliente, Long> {
+
+    // Correos listos para (re)intentar, los más antiguos primero
+    @Query("SELECT c.id FROM CorreoSaliente c WHERE c.estado = co.todotech.model.enums.EstadoCorreo.PENDIENTE " +
+            "AND c.proximoIntento <= :ahora ORDER BY c.id")
+    List<Long> findIdsPendientes(@Param("ahora") LocalDateTime ahora, Limit limit);
+
+    long countByEstado(EstadoCorreo estado);
+
+    // Reclamo atómico: solo un worker pasa el correo de PENDIENTE a ENVIANDO (1 = reclamado)
+    @Transactional
+    @Modifying
+    @Query("UPDATE CorreoSaliente c SET c.estado = co.todotech.model.enums.EstadoCorreo.ENVIANDO, c.reclamadoEn = :ahora " +
+            "WHERE c.id = :id AND c.estado = co.todotech.model.enums.EstadoCorreo.PENDIENTE")
+    int reclamar(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE CorreoSaliente c SET c.estado = co.todotech.model.enums.EstadoCorreo.ENVIADO, " +
+            "c.fechaEnvio = :fecha, c.ultimoError = NULL WHERE c.id IN :ids")
+    int marcarEnviados(@Param("ids") List<Long> ids, @Param("fecha") LocalDateTime fecha);
+
+    // Devuelve a PENDIENTE los correos de ese reclamo que siguen en ENVIANDO
+    @Transactional
+    @Modifying
+    @Query("UPDATE CorreoSaliente c SET c.estado = co.todotech.model.enums.EstadoCorreo.PENDIENTE, c.reclamadoEn = NULL " +
+            "WHERE c.id IN :ids AND c.estado = co.todotech.model.enums.EstadoCorreo.ENVIANDO AND c.reclamadoEn = :reclamadoEn")
+    int liberar(@Param("ids") List<Long> ids, @Param("reclamadoEn") LocalDateTime reclamadoEn);
+
+    // Reclamos anteriores a :limite: el worker que los tenía murió a mitad (caída, reinicio).
+    // Los vigentes no se tocan, pueden ser de otra instancia que los está enviando ahora
+    @Transactional
+    @Modifying
+    @Query("UPDATE CorreoSaliente c SET c.estado = co.todotech.model.enums.EstadoCorreo.PENDIENTE, c.reclamadoEn = NULL " +
+            "WHERE c.estado = co.todotech.model.enums.EstadoCorreo.ENVIANDO " +
+            "AND (c.reclamadoEn IS NULL OR c.reclamadoEn < :limite)")
+    int liberarVencidos(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,47 @@
+package co.todotech.repository;
+
+import co.todotech.model.dto.pasarela.EventoPendienteDto;
+import co.todotech.model.entities.EventoPasarela;
+import co.todotech.model.enums.EstadoEventoPasarela;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EventoPasarelaRepository extends JpaRepository<EventoPasarela, String> {
+
+    // Eventos listos para (re)procesar, en orden de llegada
+    @Query("SELECT new co.todotech.model.dto.pasarela.EventoPendienteDto(e.id, e.objetoId) FROM EventoPasarela e WHERE e.estado = co.todotech.model.enums.EstadoEventoPasarela.PENDIENTE " +
+            "AND e.proximoIntento <= :ahora ORDER BY e.fechaRecepcion")
+    List<EventoPendienteDto> findPendientes(@Param("ahora") LocalDateTime ahora, Limit limit);
+
+    long countByEstado(EstadoEventoPasarela estado);
+
+    // Reclamo atómico: solo un worker pasa el evento de PENDIENTE a PROCESANDO (1 = reclamado)
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventoPasarela e SET e.estado = co.todotech.model.enums.EstadoEventoPasarela.PROCESANDO, e.reclamadoEn = :ahora " +
+            "WHERE e.id = :id AND e.estado = co.todotech.model.enums.EstadoEventoPasarela.PENDIENTE")
+    int reclamar(@Param("id") String id, @Param("ahora") LocalDateTime ahora);
+
+    // Devuelve a PENDIENTE los eventos de ese reclamo que siguen en PROCESANDO
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventoPasarela e SET e.estado = co.todotech.model.enums.EstadoEventoPasarela.PENDIENTE, e.reclamadoEn = NULL " +
+            "WHERE e.id IN :ids AND e.estado = co.todotech.model.enums.EstadoEventoPasarela.PROCESANDO AND e.reclamadoEn = :reclamadoEn")
+    int liberar(@Param("ids") List<String> ids, @Param("reclamadoEn") LocalDateTime reclamadoEn);
+
+    // Reclamos anteriores a :limite: el worker que los tenía murió a mitad (caída, reinicio).
+    // Los vigentes no se tocan, pueden ser de otra instancia que los está procesando ahora
+    @Transactional
+    @Modifying
+    @Query("UPDATE EventoPasarela e SET e.estado = co.todotech.model.enums.EstadoEventoPasarela.PENDIENTE, e.reclamadoEn = NULL " +
+            "WHERE e.estado = co.todotech.model.enums.EstadoEventoPasarela.PROCESANDO " +
+            "AND (e.reclamadoEn IS NULL OR e.reclamadoEn < :limite)")
+    int liberarVencidos(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,7 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.IntentoPago;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface IntentoPagoRepository extends JpaRepository<IntentoPago, String> {
+}
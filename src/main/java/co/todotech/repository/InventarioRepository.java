@@ -0,0 +1,76 @@
+package co.todotech.repository;
+
+import co.todotech.model.dto.inventario.MovimientoAgregadoDto;
+import co.todotech.model.entities.Inventario;
+import co.todotech.model.enums.TipoMovimiento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface InventarioRepository extends JpaRepository<Inventario, Long> {
+
+    List<Inventario> findByProductoIdOrderByFechaDescIdDesc(Long productoId);
+
+    boolean existsByProductoId(Long productoId);
+
+    /**
+     * Suma las variaciones de un producto aún sin compactar hasta la fecha indicada (inclusive).
+     */
+    @Query("SELECT COALESCE(SUM(m.cantidad), 0) FROM Inventario m " +
+            "WHERE m.producto.id = :productoId AND m.compactacion IS NULL AND m.fecha <= :hasta")
+    long sumarPendienteHasta(@Param("productoId") Long productoId,
+                             @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Suma las variaciones de un producto ya compactadas posteriores a la fecha indicada.
+     */
+    @Query("SELECT COALESCE(SUM(m.cantidad), 0) FROM Inventario m " +
+            "WHERE m.producto.id = :productoId AND m.compactacion IS NOT NULL AND m.fecha > :desde")
+    long sumarCompactadoDesde(@Param("productoId") Long productoId,
+                              @Param("desde") LocalDateTime desde);
+
+    /**
+     * Suma todas las variaciones de un producto hasta la fecha indicada (inclusive).
+     * Solo se usa mientras el producto aún no tiene snapshot.
+     */
+    @Query("SELECT COALESCE(SUM(m.cantidad), 0) FROM Inventario m " +
+            "WHERE m.producto.id = :productoId AND m.fecha <= :hasta")
+    long sumarCantidadHasta(@Param("productoId") Long productoId,
+                            @Param("hasta") LocalDateTime hasta);
+
+    @Query("SELECT MAX(m.compactacion) FROM Inventario m")
+    Optional<Long> findUltimaCompactacion();
+
+    /**
+     * Marca con el número de compactación los movimientos pendientes ya confirmados. Los de
+     * transacciones todavía abiertas no son visibles aquí y quedan para la siguiente, sin
+     * importar su fecha ni su id. Nativa: la entidad es inmutable para Hibernate.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE inventario SET compactacion = :compactacion WHERE compactacion IS NULL", nativeQuery = true)
+    int marcarCompactacion(@Param("compactacion") long compactacion);
+
+    /**
+     * Agrega por producto los movimientos marcados por una compactación en una sola consulta.
+     */
+    @Query("SELECT new co.todotech.model.dto.inventario.MovimientoAgregadoDto(m.producto.id, SUM(m.cantidad)) " +
+            "FROM Inventario m WHERE m.compactacion = :compactacion GROUP BY m.producto.id")
+    List<MovimientoAgregadoDto> agregarPorCompactacion(@Param("compactacion") long compactacion);
+
+    /**
+     * Suma por producto los movimientos de los tipos indicados posteriores a {@code desde}.
+     */
+    @Query("SELECT new co.todotech.model.dto.inventario.MovimientoAgregadoDto(m.producto.id, SUM(m.cantidad)) " +
+            "FROM Inventario m WHERE m.tipo IN :tipos AND m.fecha > :desde GROUP BY m.producto.id")
+    List<MovimientoAgregadoDto> agregarPorProductoDesde(@Param("tipos") Collection<TipoMovimiento> tipos,
+                                                        @Param("desde") LocalDateTime desde);
+
+    @Query("SELECT p.id FROM Producto p WHERE NOT EXISTS (SELECT 1 FROM Inventario m WHERE m.producto = p)")
+    List<Long> findProductoIdsSinMovimientos();
+}
@@ -0,0 +1,7 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.InventarioSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface InventarioSnapshotRepository extends JpaRepository<InventarioSnapshot, Long> {
+}
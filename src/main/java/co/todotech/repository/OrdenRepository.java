@@ -1,15 +1,24 @@
 package co.todotech.repository;
 
+import co.todotech.model.dto.ordenventa.AporteOrdenDto;
+import co.todotech.model.dto.ordenventa.ConteoDetallesOrdenDto;
+import co.todotech.model.dto.ordenventa.LineasCategoriaOrdenDto;
 import co.todotech.model.entities.Orden;
 import co.todotech.model.enums.EstadoOrden;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrdenRepository extends JpaRepository<Orden, Long> {
@@ -18,24 +27,60 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
 
     boolean existsByNumeroOrden(String numeroOrden);
 
+    // Los listados solo mapean cliente y vendedor: se traen en el mismo SELECT y las líneas quedan sin cargar
+    @Override
+    @EntityGraph(attributePaths = {"cliente", "vendedor"})
+    List<Orden> findAll();
+
+    @EntityGraph(attributePaths = {"cliente", "vendedor"})
     List<Orden> findByClienteId(Long clienteId);
 
+    @EntityGraph(attributePaths = {"cliente", "vendedor"})
     List<Orden> findByVendedorId(Long vendedorId);
 
+    @EntityGraph(attributePaths = {"cliente", "vendedor"})
     List<Orden> findByEstado(EstadoOrden estado);
 
-    // Método para cargar la orden con sus detalles (productos) usando JOIN FETCH
-    @Query("SELECT o FROM Orden o LEFT JOIN FETCH o.productos WHERE o.id = :id")
+    // Método para cargar la orden con sus detalles (productos, con su categoría) en una sola consulta
+    @EntityGraph(attributePaths = {"cliente", "vendedor", "productos", "productos.producto", "productos.producto.categoria"})
+    @Query("SELECT o FROM Orden o WHERE o.id = :id")
     Optional<Orden> findByIdWithDetalles(@Param("id") Long id);
 
     // Método para cargar orden con detalles y relaciones completas
-    @Query("SELECT o FROM Orden o " +
-            "LEFT JOIN FETCH o.productos " +
-            "LEFT JOIN FETCH o.cliente " +
-            "LEFT JOIN FETCH o.vendedor " +
-            "WHERE o.id = :id")
+    @EntityGraph(attributePaths = {"cliente", "vendedor", "productos", "productos.producto", "productos.producto.categoria"})
+    @Query("SELECT o FROM Orden o WHERE o.id = :id")
     Optional<Orden> findByIdWithDetallesCompletos(@Param("id") Long id);
 
+    // ===== PAGINACIÓN POR CURSOR (fecha, id) =====
+    // Cada página lee solo `limit` filas del índice, sin OFFSET: las páginas profundas cuestan lo mismo
+
+    @EntityGraph(attributePaths = {"cliente", "vendedor"})
+    @Query("SELECT o FROM Orden o ORDER BY o.fecha DESC, o.id DESC")
+    List<Orden> findPrimeraPagina(Limit limit);
+
+    @EntityGraph(attributePaths = {"cliente", "vendedor"})
+    @Query("SELECT o FROM Orden o WHERE (o.fecha, o.id) < (:fecha, :id) ORDER BY o.fecha DESC, o.id DESC")
+    List<Orden> findPaginaDespuesDe(@Param("fecha") LocalDateTime fecha,
+                                    @Param("id") Long id,
+                                    Limit limit);
+
+    @EntityGraph(attributePaths = {"cliente", "vendedor"})
+    @Query("SELECT o FROM Orden o WHERE o.estado = :estado ORDER BY o.fecha DESC, o.id DESC")
+    List<Orden> findPrimeraPaginaPorEstado(@Param("estado") EstadoOrden estado, Limit limit);
+
+    @EntityGraph(attributePaths = {"cliente", "vendedor"})
+    @Query("SELECT o FROM Orden o WHERE o.estado = :estado AND (o.fecha, o.id) < (:fecha, :id) " +
+            "ORDER BY o.fecha DESC, o.id DESC")
+    List<Orden> findPaginaPorEstadoDespuesDe(@Param("estado") EstadoOrden estado,
+                                             @Param("fecha") LocalDateTime fecha,
+                                             @Param("id") Long id,
+                                             Limit limit);
+
+    // Número de líneas por orden sin inicializar las colecciones (evita N+1 en monitoreo)
+    @Query("SELECT new co.todotech.model.dto.ordenventa.ConteoDetallesOrdenDto(d.orden.id, COUNT(d)) " +
+            "FROM DetalleOrden d WHERE d.orden.estado = :estado GROUP BY d.orden.id")
+    List<ConteoDetallesOrdenDto> contarDetallesPorEstado(@Param("estado") EstadoOrden estado);
+
     // Método para verificar si existe una orden con estado específico para un cliente
     boolean existsByClienteIdAndEstado(Long clienteId, EstadoOrden estado);
 
@@ -43,9 +88,37 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
     long countByEstado(EstadoOrden estado);
 
     // Método para buscar órdenes por rango de fechas
+    @EntityGraph(attributePaths = {"cliente", "vendedor"})
     @Query("SELECT o FROM Orden o WHERE o.fecha BETWEEN :fechaInicio AND :fechaFin")
     List<Orden> findByFechaBetween(@Param("fechaInicio") LocalDateTime fechaInicio,
                                    @Param("fechaFin") LocalDateTime fechaFin);
 
+    // Variante en streaming (cursor JDBC) para exportaciones: consumir dentro de una transacción y cerrar
+    @EntityGraph(attributePaths = {"cliente", "vendedor"})
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM Orden o WHERE o.fecha BETWEEN :fechaInicio AND :fechaFin ORDER BY o.fecha, o.id")
+    Stream<Orden> streamByFechaBetween(@Param("fechaInicio") LocalDateTime fechaInicio,
+                                       @Param("fechaFin") LocalDateTime fechaFin);
+
+    // ===== RESÚMENES DE VENTAS: datos para recalcular los aportes de un rango sin cargar entidades =====
+
+    @Query("SELECT new co.todotech.model.dto.ordenventa.AporteOrdenDto(o.id, o.fecha, o.vendedor.id, o.estado, " +
+            "o.subtotal, o.descuento, o.impuestos, o.total) " +
+            "FROM Orden o WHERE o.fecha >= :desde AND o.fecha < :hasta")
+    List<AporteOrdenDto> buscarAportesEntre(@Param("desde") LocalDateTime desde,
+                                           @Param("hasta") LocalDateTime hasta);
+
+    @Query("SELECT new co.todotech.model.dto.ordenventa.LineasCategoriaOrdenDto(d.orden.id, d.producto.categoria.id, " +
+            "SUM(d.cantidad), SUM(d.subtotal)) " +
+            "FROM DetalleOrden d WHERE d.orden.fecha >= :desde AND d.orden.fecha < :hasta " +
+            "GROUP BY d.orden.id, d.producto.categoria.id")
+    List<LineasCategoriaOrdenDto> sumarLineasPorCategoriaEntre(@Param("desde") LocalDateTime desde,
+                                                               @Param("hasta") LocalDateTime hasta);
+
+    @Query("SELECT MIN(o.fecha) FROM Orden o")
+    Optional<LocalDateTime> buscarFechaMinima();
 
 }
\ No newline at end of file
@@ -2,13 +2,18 @@ package co.todotech.repository;
 
 import co.todotech.model.entities.Pago;
 import co.todotech.model.enums.EstadoPago;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repositorio de acceso a datos para la entidad {@link Pago}.
@@ -121,4 +126,24 @@ public interface PagoRepository extends JpaRepository<Pago, Long> {
      */
     @Query("SELECT p FROM Pago p ORDER BY p.fechaPago DESC")
     List<Pago> findAllOrderByFechaPagoDesc();
+
+    /**
+     * Recorre con un cursor JDBC los pagos realizados entre dos fechas, con su orden,
+     * método de pago y usuario en la misma consulta. Variante en streaming de
+     * {@link #findByFechaPagoBetween(LocalDateTime, LocalDateTime)} para exportaciones.
+     *
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     *
+     * @param fechaInicio Fecha inicial (inclusive).
+     * @param fechaFin Fecha final (inclusive).
+     * @return Stream de pagos ordenado por fecha de pago e id.
+     */
+    @EntityGraph(attributePaths = {"ordenVenta", "ordenVenta.cliente", "ordenVenta.vendedor", "metodoPago", "usuario"})
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Pago p WHERE p.fechaPago BETWEEN :fechaInicio AND :fechaFin ORDER BY p.fechaPago, p.id")
+    Stream<Pago> streamByFechaPagoBetween(@Param("fechaInicio") LocalDateTime fechaInicio,
+                                          @Param("fechaFin") LocalDateTime fechaFin);
 }
\ No newline at end of file
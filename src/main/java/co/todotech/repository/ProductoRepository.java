@@ -3,13 +3,15 @@ package co.todotech.repository;
 import co.todotech.model.entities.Producto;
 import co.todotech.model.enums.EstadoProducto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoStockLoteRepository {
 
     Optional<Producto> findByCodigo(String codigo);
     Optional<Producto> findFirstByNombreIgnoreCase(String nombre);
@@ -38,4 +40,29 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
             @Param("stockCritico") int stockCritico,
             @Param("estado") EstadoProducto estado);
 
+    // ========== OPERACIONES ATÓMICAS DE STOCK ==========
+    // Un solo UPDATE condicional: sin lectura previa de la entidad y sin carrera de
+    // "lost update" entre checkouts concurrentes. Devuelven el número de filas
+    // afectadas (0 = producto inexistente, estado no permitido o stock insuficiente).
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad, " +
+            "p.estado = CASE WHEN p.estado = co.todotech.model.enums.EstadoProducto.ACTIVO " +
+            "AND p.stock - :cantidad <= 0 " +
+            "THEN co.todotech.model.enums.EstadoProducto.AGOTADO ELSE p.estado END " +
+            "WHERE p.id = :id AND p.stock >= :cantidad AND p.estado IN :estados")
+    int decrementarStockSiDisponible(@Param("id") Long id,
+                                     @Param("cantidad") int cantidad,
+                                     @Param("estados") Collection<EstadoProducto> estados);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = p.stock + :cantidad, " +
+            "p.estado = CASE WHEN p.estado = co.todotech.model.enums.EstadoProducto.AGOTADO " +
+            "AND p.stock + :cantidad > 0 " +
+            "THEN co.todotech.model.enums.EstadoProducto.ACTIVO ELSE p.estado END " +
+            "WHERE p.id = :id AND p.estado IN :estados")
+    int incrementarStockAtomico(@Param("id") Long id,
+                                @Param("cantidad") int cantidad,
+                                @Param("estados") Collection<EstadoProducto> estados);
+
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package co.todotech.repository;
+
+import java.util.List;
+
+/**
+ * Operaciones de stock por lotes que no se pueden expresar como un único JPQL.
+ */
+public interface ProductoStockLoteRepository {
+
+    /**
+     * Mismo UPDATE condicional que {@link ProductoRepository#decrementarStockSiDisponible},
+     * enviado como un único lote JDBC para todos los productos.
+     *
+     * @return filas afectadas por cada posición (0 = inexistente, no vendible o sin stock suficiente)
+     */
+    int[] decrementarStockEnLote(List<Long> productoIds, List<Integer> cantidades);
+}
@@ -0,0 +1,49 @@
+package co.todotech.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+@RequiredArgsConstructor
+class ProductoStockLoteRepositoryImpl implements ProductoStockLoteRepository {
+
+    // Solo productos ACTIVO (los vendibles); el que llega a 0 pasa a AGOTADO en la misma sentencia
+    private static final String DECREMENTAR_STOCK =
+            "UPDATE producto SET stock = stock - ?, " +
+            "estado = CASE WHEN stock - ? <= 0 THEN 'AGOTADO' ELSE estado END " +
+            "WHERE id = ? AND stock >= ? AND estado = 'ACTIVO'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    public int[] decrementarStockEnLote(List<Long> productoIds, List<Integer> cantidades) {
+        if (productoIds.size() != cantidades.size()) {
+            throw new IllegalArgumentException("Debe haber una cantidad por cada producto");
+        }
+
+        // SQL nativo: los cambios pendientes del persistence context deben llegar antes a la base
+        entityManager.flush();
+
+        return jdbcTemplate.batchUpdate(DECREMENTAR_STOCK, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                int cantidad = cantidades.get(i);
+                ps.setInt(1, cantidad);
+                ps.setInt(2, cantidad);
+                ps.setLong(3, productoIds.get(i));
+                ps.setInt(4, cantidad);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return productoIds.size();
+            }
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.ResumenVentaCategoria;
+import co.todotech.model.enums.EstadoOrden;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ResumenVentaCategoriaRepository extends JpaRepository<ResumenVentaCategoria, Long> {
+
+    boolean existsByDiaAndCategoriaIdAndEstado(LocalDate dia, Long categoriaId, EstadoOrden estado);
+
+    List<ResumenVentaCategoria> findByDiaBetween(LocalDate desde, LocalDate hasta);
+
+    List<ResumenVentaCategoria> findByDia(LocalDate dia);
+
+    @Modifying
+    @Query("UPDATE ResumenVentaCategoria r SET r.cantidadOrdenes = r.cantidadOrdenes + :ordenes, " +
+            "r.unidades = r.unidades + :unidades, r.subtotal = r.subtotal + :subtotal, " +
+            "r.descuento = r.descuento + :descuento, r.impuestos = r.impuestos + :impuestos, r.total = r.total + :total " +
+            "WHERE r.dia = :dia AND r.categoriaId = :categoriaId AND r.estado = :estado")
+    int sumar(@Param("dia") LocalDate dia,
+              @Param("categoriaId") Long categoriaId,
+              @Param("estado") EstadoOrden estado,
+              @Param("ordenes") long ordenes,
+              @Param("unidades") long unidades,
+              @Param("subtotal") double subtotal,
+              @Param("descuento") double descuento,
+              @Param("impuestos") double impuestos,
+              @Param("total") double total);
+
+    // Conciliación: deja la fila (ya bloqueada) en los valores recalculados; 1 si estaba desviada
+    @Modifying
+    @Query("UPDATE ResumenVentaCategoria r SET r.cantidadOrdenes = :ordenes, r.unidades = :unidades, " +
+            "r.subtotal = :subtotal, r.descuento = :descuento, r.impuestos = :impuestos, r.total = :total " +
+            "WHERE r.dia = :dia AND r.categoriaId = :categoriaId AND r.estado = :estado " +
+            "AND (r.cantidadOrdenes <> :ordenes OR r.unidades <> :unidades " +
+            "OR ABS(r.subtotal - :subtotal) > :tolerancia OR ABS(r.descuento - :descuento) > :tolerancia " +
+            "OR ABS(r.impuestos - :impuestos) > :tolerancia OR ABS(r.total - :total) > :tolerancia)")
+    int fijar(@Param("dia") LocalDate dia,
+              @Param("categoriaId") Long categoriaId,
+              @Param("estado") EstadoOrden estado,
+              @Param("ordenes") long ordenes,
+              @Param("unidades") long unidades,
+              @Param("subtotal") double subtotal,
+              @Param("descuento") double descuento,
+              @Param("impuestos") double impuestos,
+              @Param("total") double total,
+              @Param("tolerancia") double tolerancia);
+}
@@ -0,0 +1,33 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.ResumenVentaOrden;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ResumenVentaOrdenRepository extends JpaRepository<ResumenVentaOrden, Long> {
+
+    // Las categorías en el mismo SELECT: la conciliación recorre todos los aportes del día
+    @EntityGraph(attributePaths = "categorias")
+    List<ResumenVentaOrden> findByDia(LocalDate dia);
+
+    // El aporte de la orden queda bloqueado hasta el fin de la transacción: la conciliación y otro
+    // cambio de la misma orden esperan en lugar de restar un aporte que ya no está
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ResumenVentaOrden r WHERE r.ordenId = :ordenId")
+    Optional<ResumenVentaOrden> bloquear(@Param("ordenId") Long ordenId);
+
+    // Bloquea los aportes del día en orden de id, sin cargarlos
+    @Query(value = "SELECT orden_id FROM resumen_venta_orden WHERE dia = :dia ORDER BY orden_id FOR UPDATE",
+            nativeQuery = true)
+    List<Long> bloquearDia(@Param("dia") LocalDate dia);
+}
@@ -0,0 +1,61 @@
+package co.todotech.repository;
+
+import co.todotech.model.dto.ordenventa.ResumenEstadoOrdenDto;
+import co.todotech.model.entities.ResumenVentaVendedor;
+import co.todotech.model.enums.EstadoOrden;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ResumenVentaVendedorRepository extends JpaRepository<ResumenVentaVendedor, Long> {
+
+    boolean existsByDiaAndVendedorIdAndEstado(LocalDate dia, Long vendedorId, EstadoOrden estado);
+
+    List<ResumenVentaVendedor> findByDiaBetween(LocalDate desde, LocalDate hasta);
+
+    List<ResumenVentaVendedor> findByDia(LocalDate dia);
+
+    // Suma atómica en la fila: transacciones concurrentes sobre la misma clave no pierden aportes
+    @Modifying
+    @Query("UPDATE ResumenVentaVendedor r SET r.cantidadOrdenes = r.cantidadOrdenes + :ordenes, " +
+            "r.subtotal = r.subtotal + :subtotal, r.descuento = r.descuento + :descuento, " +
+            "r.impuestos = r.impuestos + :impuestos, r.total = r.total + :total " +
+            "WHERE r.dia = :dia AND r.vendedorId = :vendedorId AND r.estado = :estado")
+    int sumar(@Param("dia") LocalDate dia,
+              @Param("vendedorId") Long vendedorId,
+              @Param("estado") EstadoOrden estado,
+              @Param("ordenes") long ordenes,
+              @Param("subtotal") double subtotal,
+              @Param("descuento") double descuento,
+              @Param("impuestos") double impuestos,
+              @Param("total") double total);
+
+    // Conciliación: deja la fila (ya bloqueada) en los valores recalculados; 1 si estaba desviada
+    @Modifying
+    @Query("UPDATE ResumenVentaVendedor r SET r.cantidadOrdenes = :ordenes, r.subtotal = :subtotal, " +
+            "r.descuento = :descuento, r.impuestos = :impuestos, r.total = :total " +
+            "WHERE r.dia = :dia AND r.vendedorId = :vendedorId AND r.estado = :estado " +
+            "AND (r.cantidadOrdenes <> :ordenes OR ABS(r.subtotal - :subtotal) > :tolerancia " +
+            "OR ABS(r.descuento - :descuento) > :tolerancia OR ABS(r.impuestos - :impuestos) > :tolerancia " +
+            "OR ABS(r.total - :total) > :tolerancia)")
+    int fijar(@Param("dia") LocalDate dia,
+              @Param("vendedorId") Long vendedorId,
+              @Param("estado") EstadoOrden estado,
+              @Param("ordenes") long ordenes,
+              @Param("subtotal") double subtotal,
+              @Param("descuento") double descuento,
+              @Param("impuestos") double impuestos,
+              @Param("total") double total,
+              @Param("tolerancia") double tolerancia);
+
+    // Totales históricos por estado leyendo solo filas agregadas (días × vendedores × estados)
+    @Query("SELECT new co.todotech.model.dto.ordenventa.ResumenEstadoOrdenDto(r.estado, SUM(r.cantidadOrdenes), COALESCE(SUM(r.total), 0.0)) " +
+            "FROM ResumenVentaVendedor r GROUP BY r.estado HAVING SUM(r.cantidadOrdenes) > 0")
+    List<ResumenEstadoOrdenDto> resumirPorEstado();
+}
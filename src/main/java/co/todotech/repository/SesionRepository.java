@@ -0,0 +1,30 @@
+package co.todotech.repository;
+
+import co.todotech.model.dto.sesion.RevocacionSesionDto;
+import co.todotech.model.entities.Sesion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SesionRepository extends JpaRepository<Sesion, String> {
+
+    // Revocaciones confirmadas después de la última versión que aplicó este nodo
+    @Query("SELECT new co.todotech.model.dto.sesion.RevocacionSesionDto(s.jti, s.expiraEn, s.versionRevocacion) " +
+            "FROM Sesion s WHERE s.versionRevocacion > :version")
+    List<RevocacionSesionDto> findRevocacionesDesde(@Param("version") long version);
+
+    // Al arrancar: todo lo revocado que todavía no expiró
+    @Query("SELECT new co.todotech.model.dto.sesion.RevocacionSesionDto(s.jti, s.expiraEn, s.versionRevocacion) " +
+            "FROM Sesion s WHERE s.revocada = true AND s.expiraEn > :ahora")
+    List<RevocacionSesionDto> findRevocacionesVigentes(@Param("ahora") LocalDateTime ahora);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Sesion s WHERE s.expiraEn < :limite")
+    int eliminarExpiradas(@Param("limite") LocalDateTime limite);
+}
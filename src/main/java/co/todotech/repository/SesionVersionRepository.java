@@ -0,0 +1,19 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.SesionVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface SesionVersionRepository extends JpaRepository<SesionVersion, Integer> {
+
+    // Toma el bloqueo de la fila hasta el fin de la transacción (0 = la fila aún no existe)
+    @Modifying
+    @Query("UPDATE SesionVersion v SET v.version = v.version + 1 WHERE v.id = 1")
+    int incrementar();
+
+    @Query("SELECT v.version FROM SesionVersion v WHERE v.id = 1")
+    Optional<Long> findVersionActual();
+}
@@ -0,0 +1,18 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.SolicitudIdempotente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface SolicitudIdempotenteRepository extends JpaRepository<SolicitudIdempotente, String> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM SolicitudIdempotente s WHERE s.expiraEn < :ahora")
+    int eliminarExpiradas(@Param("ahora") LocalDateTime ahora);
+}
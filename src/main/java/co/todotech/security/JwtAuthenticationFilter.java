@@ -16,10 +16,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final TokenBlacklistService tokenBlacklistService;
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, TokenBlacklistService tokenBlacklistService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil,
+                                   TokenBlacklistService tokenBlacklistService,
+                                   VerifiedTokenCache verifiedTokenCache) {
         this.jwtUtil = jwtUtil;
         this.tokenBlacklistService = tokenBlacklistService;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @Override
@@ -42,24 +46,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = header.substring(7);
 
             try {
-                // Verificar si el token está en la blacklist PRIMERO
-                if (tokenBlacklistService.isTokenBlacklisted(token)) {
+                // Validar el token JWT (una sola verificación, o ninguna si ya está en caché)
+                JwtPrincipal principal = resolvePrincipal(token);
+
+                // Luego la blacklist, por el jti ya decodificado; el filtro de Bloom descarta casi todos los tokens
+                if (principal != null && tokenBlacklistService.isRevoked(principal, token)) {
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                     response.getWriter().write("{\"error\": true, \"mensaje\": \"Token invalidado - Sesión cerrada\"}");
                     return;
                 }
 
-                // Luego validar el token JWT
-                if (jwtUtil.validateToken(token)) {
-                    String username = jwtUtil.getUsernameFromToken(token);
-                    Long userId = jwtUtil.getUserIdFromToken(token);
-                    String role = jwtUtil.getRoleFromToken(token);
-
+                if (principal != null) {
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
-                                    username,
+                                    principal.username(),
                                     null,
-                                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
+                                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.role()))
                             );
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -85,6 +87,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private JwtPrincipal resolvePrincipal(String token) {
+        JwtPrincipal cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        JwtPrincipal principal = jwtUtil.verifyToken(token).orElse(null);
+        if (principal != null) {
+            verifiedTokenCache.put(token, principal);
+        }
+        return principal;
+    }
+
     // ✅ NUEVO MÉTODO: VERIFICAR SI ES URL PÚBLICA
     private boolean isPublicUrl(String requestURI) {
         return requestURI.equals("/usuarios/login") ||
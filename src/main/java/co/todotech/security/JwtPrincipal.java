@@ -0,0 +1,20 @@
+package co.todotech.security;
+
+import java.time.Instant;
+
+/**
+ * Resultado inmutable de verificar un JWT una sola vez: los claims que usa el filtro
+ * de autenticación quedan decodificados y no hace falta volver a leer el token.
+ */
+public record JwtPrincipal(
+        String username,
+        Long userId,
+        String role,
+        String jwtId,
+        Instant expiresAt
+) {
+
+    public boolean isExpired(Instant now) {
+        return expiresAt == null || !expiresAt.isAfter(now);
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.stereotype.Component;
 import jakarta.annotation.PostConstruct;
 
 import java.util.Date;
+import java.util.Optional;
 
 @Slf4j
 @Component
@@ -19,6 +20,7 @@ public class JwtUtil {
 
     private final Environment env;
     private Algorithm algorithm;
+    private JWTVerifier verifier;
 
     @Value("${jwt.secret:default_jwt_secret_muy_largo_y_seguro_minimo_32_caracteres}")
     private String jwtSecret;
@@ -65,6 +67,10 @@ public class JwtUtil {
 
         try {
             this.algorithm = Algorithm.HMAC256(jwtSecret);
+            // El verificador es inmutable y thread-safe: se construye una sola vez
+            this.verifier = JWT.require(algorithm)
+                    .withIssuer(issuer)
+                    .build();
             log.info("✅ JWT algorithm initialized successfully");
         } catch (Exception e) {
             log.error("❌ Failed to initialize JWT algorithm: {}", e.getMessage());
@@ -106,10 +112,6 @@ public class JwtUtil {
         }
 
         try {
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .withIssuer(issuer)
-                    .build();
-
             DecodedJWT jwt = verifier.verify(token);
 
             // Validación adicional de expiración
@@ -133,6 +135,53 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Verifica la firma y decodifica el token en una sola pasada.
+     * Reemplaza la secuencia validateToken + getUsername/getUserId/getRole,
+     * que verificaba y decodificaba el mismo token cuatro veces.
+     *
+     * @return el principal con los claims del token, o vacío si el token no es válido
+     */
+    public Optional<JwtPrincipal> verifyToken(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            log.warn("⚠️ Attempt to verify null/empty token");
+            return Optional.empty();
+        }
+
+        try {
+            DecodedJWT jwt = verifier.verify(token);
+
+            if (jwt.getExpiresAt() == null || jwt.getExpiresAt().before(new Date())) {
+                log.debug("⌛ Token expired for user: {}", jwt.getSubject());
+                return Optional.empty();
+            }
+
+            if (jwt.getSubject() == null || jwt.getSubject().trim().isEmpty()
+                    || jwt.getClaim("userId").isNull() || jwt.getClaim("role").isNull()) {
+                log.warn("⚠️ Token without required claims (sub, userId, role)");
+                return Optional.empty();
+            }
+
+            return Optional.of(new JwtPrincipal(
+                    jwt.getSubject(),
+                    jwt.getClaim("userId").asLong(),
+                    jwt.getClaim("role").asString(),
+                    jwt.getId(),
+                    jwt.getExpiresAt().toInstant()
+            ));
+
+        } catch (TokenExpiredException e) {
+            log.debug("⌛ Token expired: {}", e.getMessage());
+            return Optional.empty();
+        } catch (JWTVerificationException e) {
+            log.warn("⚠️ Token verification failed: {}", e.getMessage());
+            return Optional.empty();
+        } catch (Exception e) {
+            log.error("❌ Unexpected token verification error: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
     public String getUsernameFromToken(String token) {
         return safelyDecodeToken(token).getSubject();
     }
@@ -241,9 +290,6 @@ public class JwtUtil {
      */
     public DecodedJWT verifyAndGetDecodedToken(String token) {
         try {
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .withIssuer(issuer)
-                    .build();
             return verifier.verify(token);
         } catch (JWTVerificationException e) {
             log.error("❌ Token verification failed: {}", e.getMessage());
@@ -1,39 +1,202 @@
 package co.todotech.security;
 
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.util.Map;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Tokens revocados (logout) hasta que expiran por sí solos.
+ *
+ * Cada token se identifica por un resumen de 128 bits de su jti (o del token completo si no
+ * trae jti) y se guarda solo hasta su propio {@code exp}: pasado ese instante el JWT ya no
+ * verifica y no hace falta recordarlo. Delante del conjunto hay un filtro de Bloom: la consulta
+ * de un token no revocado, que es casi siempre el caso, termina en unas pocas lecturas de bits.
+ *
+ * La expiración usa cubetas de tiempo (una por intervalo de {@code jwt.blacklist.cubeta-segundos}):
+ * el barrido solo visita las cubetas ya vencidas, no todas las entradas.
+ */
+@Slf4j
 @Service
 public class TokenBlacklistService {
 
-    private final Map<String, LocalDateTime> blacklistedTokens = new ConcurrentHashMap<>();
-    private static final long TOKEN_EXPIRATION_HOURS = 24; // Limpiar tokens después de 24h
+    private static final double FALSOS_POSITIVOS = 0.01;
+    // Sin exp legible se conserva el plazo anterior de la blacklist
+    private static final Duration EXPIRACION_POR_DEFECTO = Duration.ofHours(24);
 
+    // El exp de cada clave solo hace falta para ubicarla en su cubeta: el conjunto no lo guarda
+    private final Set<TokenDigest> revocados = ConcurrentHashMap.newKeySet();
+    // Cubeta (fin del intervalo, en segundos epoch) -> tokens que expiran dentro de ella
+    private final NavigableMap<Long, List<TokenDigest>> cubetas = new TreeMap<>();
+    private final Object escritura = new Object();
+
+    private final int capacidadEsperada;
+    private final long segundosPorCubeta;
+    private final Clock clock;
+
+    private volatile TokenBloomFilter filtro;
+
+    @Autowired
+    public TokenBlacklistService(@Value("${jwt.blacklist.capacidad-esperada:100000}") int capacidadEsperada,
+                                 @Value("${jwt.blacklist.cubeta-segundos:60}") long segundosPorCubeta) {
+        this(capacidadEsperada, segundosPorCubeta, Clock.systemUTC());
+    }
+
+    TokenBlacklistService(int capacidadEsperada, long segundosPorCubeta, Clock clock) {
+        if (capacidadEsperada <= 0 || segundosPorCubeta <= 0) {
+            throw new IllegalArgumentException("jwt.blacklist.capacidad-esperada y jwt.blacklist.cubeta-segundos deben ser mayores a 0");
+        }
+        this.capacidadEsperada = capacidadEsperada;
+        this.segundosPorCubeta = segundosPorCubeta;
+        this.clock = clock;
+        this.filtro = TokenBloomFilter.paraCapacidad(capacidadEsperada, FALSOS_POSITIVOS);
+    }
+
+    /**
+     * Revoca un token ya validado por el llamador. El jti y el exp se leen sin volver
+     * a verificar la firma.
+     */
     public void blacklistToken(String token) {
-        if (token != null && !token.trim().isEmpty()) {
-            blacklistedTokens.put(token, LocalDateTime.now());
+        if (token == null || token.trim().isEmpty()) {
+            return;
+        }
+
+        String jwtId = null;
+        Instant expiresAt = null;
+        try {
+            DecodedJWT jwt = JWT.decode(token);
+            jwtId = jwt.getId();
+            expiresAt = jwt.getExpiresAt() != null ? jwt.getExpiresAt().toInstant() : null;
+        } catch (JWTDecodeException e) {
+            log.warn("⚠️ Token no decodificable revocado por resumen completo: {}", e.getMessage());
         }
+
+        revocar(claveDe(jwtId, token),
+                expiresAt != null ? expiresAt : clock.instant().plus(EXPIRACION_POR_DEFECTO));
     }
 
     public boolean isTokenBlacklisted(String token) {
         if (token == null || token.trim().isEmpty()) {
             return false;
         }
-        return blacklistedTokens.containsKey(token);
+
+        String jwtId;
+        try {
+            jwtId = JWT.decode(token).getId();
+        } catch (JWTDecodeException e) {
+            jwtId = null;
+        }
+        return contiene(claveDe(jwtId, token));
+    }
+
+    /**
+     * Revoca por jti, p. ej. una revocación hecha en otro nodo y leída de la tabla de sesiones.
+     */
+    public void blacklistJwtId(String jwtId, Instant expiresAt) {
+        if (jwtId == null || expiresAt == null) {
+            return;
+        }
+        revocar(TokenDigest.rapido(jwtId), expiresAt);
     }
 
-    @Scheduled(fixedRate = 3600000) // Ejecutar cada hora
+    /**
+     * Camino del filtro de autenticación: el jti ya viene decodificado en el principal.
+     */
+    public boolean isRevoked(JwtPrincipal principal, String token) {
+        return contiene(claveDe(principal.jwtId(), token));
+    }
+
+    // Cada minuto: solo se recorren las cubetas vencidas
+    @Scheduled(fixedRate = 60000)
     public void cleanExpiredTokens() {
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(TOKEN_EXPIRATION_HOURS);
+        long cubetaActual = cubetaDe(clock.instant());
+        int eliminados = 0;
+
+        synchronized (escritura) {
+            Iterator<List<TokenDigest>> vencidas = cubetas.headMap(cubetaActual, false).values().iterator();
+            while (vencidas.hasNext()) {
+                for (TokenDigest clave : vencidas.next()) {
+                    if (revocados.remove(clave)) {
+                        eliminados++;
+                    }
+                }
+                vencidas.remove();
+            }
 
-        blacklistedTokens.entrySet().removeIf(entry ->
-                entry.getValue().isBefore(cutoff)
-        );
+            if (eliminados > 0) {
+                reconstruirFiltro();
+            }
+        }
+
+        if (eliminados > 0) {
+            log.info("🧹 Blacklist de tokens: {} expirados eliminados, {} activos", eliminados, revocados.size());
+        }
+    }
+
+    public int size() {
+        return revocados.size();
+    }
+
+    private void revocar(TokenDigest clave, Instant expiresAt) {
+        if (!expiresAt.isAfter(clock.instant())) {
+            return; // Ya expiró: el JWT no va a verificar de todos modos
+        }
+
+        synchronized (escritura) {
+            if (!revocados.add(clave)) {
+                return;
+            }
+            cubetas.computeIfAbsent(cubetaDe(expiresAt), c -> new ArrayList<>()).add(clave);
+
+            // Muy por encima de la capacidad prevista, el filtro pierde eficacia: se redimensiona
+            if (revocados.size() > 2 * capacidadEsperadaActual()) {
+                reconstruirFiltro();
+            } else {
+                filtro.agregar(clave);
+            }
+        }
+    }
+
+    private boolean contiene(TokenDigest clave) {
+        return filtro.podriaContener(clave) && revocados.contains(clave);
+    }
+
+    // Con el lock de escritura: el filtro nuevo parte solo de las claves vivas
+    private void reconstruirFiltro() {
+        TokenBloomFilter nuevo = TokenBloomFilter.paraCapacidad(
+                Math.max(capacidadEsperada, revocados.size() * 2), FALSOS_POSITIVOS);
+        revocados.forEach(nuevo::agregar);
+        filtro = nuevo;
+    }
+
+    private int capacidadEsperadaActual() {
+        // Inversa de paraCapacidad: n = m·ln(2)² / -ln(p)
+        return (int) (filtro.getNumeroBits() * Math.log(2) * Math.log(2) / -Math.log(FALSOS_POSITIVOS));
+    }
+
+    // Una cubeta cubre [inicio, inicio + segundosPorCubeta); se barre cuando termina entera
+    private long cubetaDe(Instant instante) {
+        long segundos = instante.getEpochSecond();
+        return segundos - Math.floorMod(segundos, segundosPorCubeta) + segundosPorCubeta;
+    }
 
-        System.out.println("Limpieza de tokens blacklist completada. Tokens activos: " + blacklistedTokens.size());
+    // El jti lo generó y firmó el servidor: alcanza con el hash rápido
+    private static TokenDigest claveDe(String jwtId, String token) {
+        return jwtId != null ? TokenDigest.rapido(jwtId) : TokenDigest.of(token);
     }
-}
\ No newline at end of file
+}
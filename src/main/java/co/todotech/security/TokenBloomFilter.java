@@ -0,0 +1,71 @@
+package co.todotech.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre {@link TokenDigest}. Un "no" es definitivo; un "quizá" hay que
+ * confirmarlo en la estructura exacta. Los índices salen de las dos mitades del resumen
+ * (doble hashing: h1 + i·h2), así que no se vuelve a hashear nada en la consulta.
+ *
+ * Los bits solo se encienden: para olvidar entradas se construye un filtro nuevo.
+ */
+final class TokenBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long numeroBits;
+    private final int numeroHashes;
+
+    private TokenBloomFilter(long numeroBits, int numeroHashes) {
+        int palabras = (int) Math.max(1, (numeroBits + 63) >>> 6);
+        this.bits = new AtomicLongArray(palabras);
+        this.numeroBits = (long) palabras << 6;
+        this.numeroHashes = numeroHashes;
+    }
+
+    /**
+     * Dimensiona el filtro con las fórmulas clásicas: m = -n·ln(p)/ln(2)², k = m/n·ln(2).
+     */
+    static TokenBloomFilter paraCapacidad(int capacidadEsperada, double falsosPositivos) {
+        int n = Math.max(1, capacidadEsperada);
+        long m = (long) Math.ceil(-n * Math.log(falsosPositivos) / (Math.log(2) * Math.log(2)));
+        int k = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        return new TokenBloomFilter(m, k);
+    }
+
+    void agregar(TokenDigest digest) {
+        long combinado = digest.high();
+        for (int i = 0; i < numeroHashes; i++) {
+            long indice = Math.floorMod(combinado, numeroBits);
+            long mascara = 1L << indice;
+            int palabra = (int) (indice >>> 6);
+            long actual;
+            do {
+                actual = bits.get(palabra);
+                if ((actual & mascara) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(palabra, actual, actual | mascara));
+            combinado += digest.low();
+        }
+    }
+
+    boolean podriaContener(TokenDigest digest) {
+        long combinado = digest.high();
+        for (int i = 0; i < numeroHashes; i++) {
+            long indice = Math.floorMod(combinado, numeroBits);
+            if ((bits.get((int) (indice >>> 6)) & (1L << indice)) == 0) {
+                return false;
+            }
+            combinado += digest.low();
+        }
+        return true;
+    }
+
+    long getNumeroBits() {
+        return numeroBits;
+    }
+
+    int getNumeroHashes() {
+        return numeroHashes;
+    }
+}
@@ -0,0 +1,62 @@
+package co.todotech.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Resumen de 128 bits de un token o de su jti.
+ * Identifica el token sin guardar la cadena completa y sirve de clave en las
+ * estructuras en memoria de seguridad.
+ */
+record TokenDigest(long high, long low) {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    });
+
+    // Mitad de un SHA-256: para valores que todavía no se verificaron (el token tal como llega)
+    static TokenDigest of(String value) {
+        byte[] hash = SHA256.get().digest(value.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.wrap(hash);
+        return new TokenDigest(buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * Hash no criptográfico de 128 bits (dos carriles de 64 bits con el finalizador de
+     * MurmurHash3). Solo para valores que emitió y firmó el servidor, como el jti de un token
+     * ya verificado: nadie puede elegirlos para provocar colisiones y cuesta unos pocos ns.
+     */
+    static TokenDigest rapido(String value) {
+        long h1 = 0x9E3779B97F4A7C15L;
+        long h2 = 0xC2B2AE3D27D4EB4FL;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            h1 = (h1 ^ c) * 0x100000001B3L;
+            h2 = Long.rotateLeft(h2 + c, 31) * 0x87C37B91114253D5L;
+        }
+        h1 ^= value.length();
+        h2 ^= value.length();
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        return new TokenDigest(h1, h2);
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,130 @@
+package co.todotech.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché acotada de tokens ya verificados.
+ *
+ * La clave es un resumen SHA-256 (128 bits) del token, no el token en sí, y cada entrada
+ * vive como máximo hasta el {@code exp} del propio JWT. Un acierto evita volver a verificar
+ * la firma HMAC en peticiones repetidas con el mismo bearer token.
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    private final Map<TokenDigest, JwtPrincipal> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final int maxSize;
+    private final Clock clock;
+
+    @Autowired
+    public VerifiedTokenCache(@Value("${jwt.cache.max-size:10000}") int maxSize) {
+        this(maxSize, Clock.systemUTC());
+    }
+
+    VerifiedTokenCache(int maxSize, Clock clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("jwt.cache.max-size debe ser mayor a 0");
+        }
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    /**
+     * @return el principal cacheado, o {@code null} si no existe o ya expiró
+     */
+    public JwtPrincipal get(String token) {
+        TokenDigest key = TokenDigest.of(token);
+        JwtPrincipal principal = entries.get(key);
+
+        if (principal == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (principal.isExpired(clock.instant())) {
+            entries.remove(key, principal);
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return principal;
+    }
+
+    public void put(String token, JwtPrincipal principal) {
+        if (principal.isExpired(clock.instant())) {
+            return;
+        }
+
+        if (entries.size() >= maxSize) {
+            makeRoom();
+        }
+        entries.put(TokenDigest.of(token), principal);
+    }
+
+    public void invalidate(String token) {
+        entries.remove(TokenDigest.of(token));
+    }
+
+    @Scheduled(fixedRate = 300000) // Cada 5 minutos
+    public void purgeExpired() {
+        Instant now = clock.instant();
+        int before = entries.size();
+        entries.values().removeIf(principal -> principal.isExpired(now));
+        log.debug("Caché de tokens verificados purgada: {} -> {} entradas", before, entries.size());
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Primero descarta los expirados; si la caché sigue llena, libera ~10% de las entradas
+    private void makeRoom() {
+        purgeExpired();
+        if (entries.size() < maxSize) {
+            return;
+        }
+
+        int toEvict = Math.max(1, maxSize / 10);
+        Iterator<TokenDigest> it = entries.keySet().iterator();
+        while (toEvict-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+}
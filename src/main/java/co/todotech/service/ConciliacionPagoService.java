@@ -0,0 +1,10 @@
+package co.todotech.service;
+
+public interface ConciliacionPagoService {
+
+    /**
+     * Aplica un evento ya guardado al pago, a la orden y al estado local del PaymentIntent,
+     * y lo marca como procesado, todo en una misma transacción.
+     */
+    void procesarEvento(String eventoId);
+}
@@ -1,6 +1,7 @@
 package co.todotech.service;
 
 import co.todotech.model.dto.detalleorden.CreateDetalleOrdenDto;
+import co.todotech.model.dto.detalleorden.CreateDetallesOrdenDto;
 import co.todotech.model.dto.detalleorden.DetalleOrdenDto;
 import co.todotech.model.dto.detalleorden.EliminarDetalleRequest;
 import co.todotech.model.dto.detalleorden.validacion.BulkStockValidationRequest;
@@ -14,6 +15,8 @@ public interface DetalleOrdenService {
 
     DetalleOrdenDto crearDetalleOrden(CreateDetalleOrdenDto createDetalleOrdenDto, Long ordenId);
 
+    List<DetalleOrdenDto> crearDetallesOrden(CreateDetallesOrdenDto createDetallesOrdenDto, Long ordenId);
+
     DetalleOrdenDto obtenerDetalleOrden(Long id);
 
     List<DetalleOrdenDto> obtenerDetallesPorOrden(Long ordenId);
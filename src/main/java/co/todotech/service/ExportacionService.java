@@ -0,0 +1,16 @@
+package co.todotech.service;
+
+import co.todotech.model.enums.FormatoExportacion;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+public interface ExportacionService {
+
+    // Sin desde/hasta se exporta todo el histórico hasta el momento de la llamada.
+    // Escriben las filas a medida que llegan del cursor JDBC; devuelven cuántas se exportaron
+    long exportarOrdenes(LocalDateTime desde, LocalDateTime hasta, FormatoExportacion formato, OutputStream salida) throws IOException;
+
+    long exportarPagos(LocalDateTime desde, LocalDateTime hasta, FormatoExportacion formato, OutputStream salida) throws IOException;
+}
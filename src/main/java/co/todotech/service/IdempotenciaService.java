@@ -0,0 +1,19 @@
+package co.todotech.service;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+public interface IdempotenciaService {
+
+    /**
+     * Ejecuta {@code accion} una sola vez por clave. Un reintento con la misma clave recibe la
+     * respuesta guardada y un duplicado concurrente espera el resultado de la primera llamada.
+     *
+     * @param esDefinitiva decide si la respuesta se guarda; las que no (p. ej. un fallo de red)
+     *                     se comparten con quien esperaba pero el siguiente reintento vuelve a ejecutar
+     * @throws co.todotech.exception.pasarela.IdempotenciaConflictoException si la clave ya se usó
+     *         con otra operación u otro cuerpo
+     */
+    <T> T ejecutar(String clave, String operacion, Object solicitud, Class<T> tipoRespuesta,
+                   Supplier<T> accion, Predicate<T> esDefinitiva);
+}
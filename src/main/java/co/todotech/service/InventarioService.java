@@ -0,0 +1,24 @@
+package co.todotech.service;
+
+import co.todotech.model.dto.inventario.MovimientoInventarioDto;
+import co.todotech.model.enums.TipoMovimiento;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface InventarioService {
+
+    // cantidad con signo: positiva para entradas, negativa para salidas
+    void registrarMovimiento(Long productoId, TipoMovimiento tipo, int cantidad, String referencia);
+
+    List<MovimientoInventarioDto> obtenerMovimientos(Long productoId);
+
+    Integer consultarStockSegunLibro(Long productoId);
+    Integer consultarStockEn(Long productoId, LocalDateTime fecha);
+
+    int compactarSnapshots();
+
+    // Unidades netas vendidas por producto (ventas menos devoluciones) desde la fecha indicada
+    Map<Long, Long> unidadesVendidasDesde(LocalDateTime desde);
+}
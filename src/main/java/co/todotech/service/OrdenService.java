@@ -1,5 +1,6 @@
 package co.todotech.service;
 
+import co.todotech.model.dto.PaginaDto;
 import co.todotech.model.dto.ordenventa.CreateOrdenDto;
 import co.todotech.model.dto.ordenventa.OrdenConDetallesDto;
 import co.todotech.model.dto.ordenventa.OrdenDto;
@@ -19,6 +20,11 @@ public interface OrdenService {
 
     List<OrdenDto> obtenerTodasLasOrdenes();
 
+    // Listados paginados por cursor: cursor nulo = primera página
+    PaginaDto<OrdenDto> obtenerOrdenesPaginadas(String cursor, Integer tamano);
+
+    PaginaDto<OrdenDto> obtenerOrdenesPorEstadoPaginadas(EstadoOrden estado, String cursor, Integer tamano);
+
     List<OrdenDto> obtenerOrdenesPorCliente(Long clienteId);
 
     List<OrdenDto> obtenerOrdenesPorEstado(EstadoOrden estado);
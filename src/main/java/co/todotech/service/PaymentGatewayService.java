@@ -4,11 +4,27 @@ import co.todotech.model.dto.pasarela.PaymentIntentRequestDto;
 import co.todotech.model.dto.pasarela.PaymentIntentResponseDto;
 import co.todotech.model.dto.pasarela.PaymentConfirmationDto;
 import co.todotech.model.enums.TipoMetodo;
+import co.todotech.pasarela.MonitorPasarela;
 
 public interface PaymentGatewayService {
     PaymentIntentResponseDto createPaymentIntent(PaymentIntentRequestDto request);
+
+    /**
+     * Igual que {@link #createPaymentIntent(PaymentIntentRequestDto)}, reenviando la
+     * Idempotency-Key a la pasarela cuando esta la soporta.
+     */
+    default PaymentIntentResponseDto createPaymentIntent(PaymentIntentRequestDto request, String idempotencyKey) {
+        return createPaymentIntent(request);
+    }
+
     PaymentIntentResponseDto confirmPayment(PaymentConfirmationDto confirmation);
     PaymentIntentResponseDto getPaymentStatus(String paymentIntentId);
 
     boolean supports(TipoMetodo paymentMethodType);
+
+    /** Nombre corto de la pasarela, usado en logs y métricas (p. ej. "stripe"). */
+    String getNombre();
+
+    /** Circuit breaker y latencias de las llamadas salientes a la pasarela. */
+    MonitorPasarela getMonitor();
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package co.todotech.service;
 
+import co.todotech.model.dto.producto.CatalogoFacetadoDto;
+import co.todotech.model.dto.producto.FiltroCatalogoDto;
 import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.model.dto.producto.SugerenciaProductoDto;
 import co.todotech.model.enums.EstadoProducto;
+import co.todotech.model.enums.TipoMovimiento;
 
 import java.util.List;
 
@@ -27,10 +31,20 @@ public interface ProductoService {
     // Método para obtener todos los productos (NUEVO)
     List<ProductoDto> obtenerTodosLosProductos();
 
+    // Autocompletado del buscador: limite null usa el valor por defecto
+    List<SugerenciaProductoDto> sugerirProductos(String prefijo, Integer limite);
+
+    // Navegación por facetas: productos filtrados y conteos por valor de cada faceta
+    CatalogoFacetadoDto consultarCatalogo(FiltroCatalogoDto filtro);
+
     // En ProductoService.java - Agrega este método
     void ajustarStockProducto(Long id, Integer cantidad, String operacion);
     void incrementarStock(Long id, Integer cantidad);
     void decrementarStock(Long id, Integer cantidad);
+
+    // Variantes que dejan constancia del origen del movimiento en el libro de inventario
+    void incrementarStock(Long id, Integer cantidad, TipoMovimiento tipo, String referencia);
+    void decrementarStock(Long id, Integer cantidad, TipoMovimiento tipo, String referencia);
     void establecerStock(Long id, Integer nuevoStock);
     Integer consultarStock(Long id);
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package co.todotech.service;
+
+import co.todotech.model.dto.ordenventa.ConciliacionResumenDto;
+import co.todotech.model.dto.ordenventa.ResumenEstadoOrdenDto;
+import co.todotech.model.dto.ordenventa.ResumenVentasDto;
+import co.todotech.model.entities.Orden;
+import co.todotech.model.enums.EstadoOrden;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+public interface ResumenVentasService {
+
+    /**
+     * Lleva a los resúmenes el estado actual de la orden. Debe llamarse dentro de la misma
+     * transacción que la modifica, para que el resumen no cambie si la orden hace rollback.
+     */
+    void registrarOrden(Orden orden);
+
+    void eliminarOrden(Long ordenId);
+
+    /**
+     * @param estados estados a incluir; {@code null} o vacío incluye todos
+     */
+    ResumenVentasDto obtenerResumen(LocalDate desde, LocalDate hasta, Set<EstadoOrden> estados);
+
+    List<ResumenEstadoOrdenDto> resumirPorEstado();
+
+    /**
+     * Recalcula los aportes de las órdenes del rango y corrige las filas agregadas que no coincidan.
+     *
+     * @throws co.todotech.exception.ordenventa.ConciliacionEnCursoException si ya hay una
+     *         conciliación corriendo, en esta u otra instancia
+     */
+    ConciliacionResumenDto reconciliar(LocalDate desde, LocalDate hasta);
+}
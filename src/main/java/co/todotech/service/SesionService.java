@@ -0,0 +1,15 @@
+package co.todotech.service;
+
+import co.todotech.model.entities.Usuario;
+
+public interface SesionService {
+
+    void registrarSesion(String token, Usuario usuario);
+
+    /**
+     * @return {@code false} si la sesión ya estaba revocada
+     */
+    boolean revocarSesion(String token);
+
+    void sincronizarRevocaciones();
+}
@@ -0,0 +1,18 @@
+package co.todotech.service;
+
+public interface WebhookPasarelaService {
+
+    /**
+     * Verifica la firma del evento, lo guarda una sola vez y lo deja en cola para conciliar.
+     *
+     * @return {@code false} si el evento ya se había recibido (reentrega de la pasarela)
+     * @throws co.todotech.exception.pasarela.FirmaWebhookInvalidaException si la firma no es válida
+     */
+    boolean registrarEventoStripe(String payload, String firma);
+
+    /**
+     * Igual que {@link #registrarEventoStripe}, para los eventos transaction.updated de Wompi,
+     * firmados con el checksum de {@code signature} (y opcionalmente X-Event-Checksum).
+     */
+    boolean registrarEventoWompi(String payload, String checksum);
+}
@@ -1,5 +1,8 @@
 package co.todotech.service.impl;
 
+import co.todotech.cache.ProductoCatalogCache;
+import co.todotech.cache.VersionCatalogo;
+import co.todotech.cache.VersionCatalogo.Seccion;
 import co.todotech.mapper.CategoriaMapper;
 import co.todotech.model.dto.categoria.CategoriaDto;
 import co.todotech.model.entities.Categoria;
@@ -20,6 +23,8 @@ public class CategoriaServiceImpl implements CategoriaService {
 
     private final CategoriaMapper categoriaMapper;
     private final CategoriaRepository categoriaRepository;
+    private final ProductoCatalogCache catalogoCache;
+    private final VersionCatalogo versionCatalogo;
 
     @Override
     @Transactional
@@ -38,6 +43,8 @@ public class CategoriaServiceImpl implements CategoriaService {
 
         Categoria categoria = categoriaMapper.toEntity(dto);
         categoria = categoriaRepository.save(categoria);
+        // Alta: cambian las listas, ninguna categoría ya servida
+        versionCatalogo.incrementar(Seccion.CATEGORIAS, List.of());
 
         log.info("Categoría creada exitosamente: id={}, nombre={}", categoria.getId(), categoria.getNombre());
         return categoriaMapper.toDto(categoria);
@@ -67,6 +74,11 @@ public class CategoriaServiceImpl implements CategoriaService {
         categoriaMapper.updateCategoriaFromDto(dto, categoria);
         categoria = categoriaRepository.save(categoria);
 
+        // Los productos cacheados incluyen la categoría: el nombre nuevo invalida todo el catálogo
+        catalogoCache.invalidarTodo();
+        versionCatalogo.incrementar(Seccion.CATEGORIAS, id);
+        versionCatalogo.incrementar(Seccion.PRODUCTOS);
+
         log.info("Categoría actualizada: id={}, nombre={}", categoria.getId(), categoria.getNombre());
         return categoriaMapper.toDto(categoria);
     }
@@ -86,6 +98,7 @@ public class CategoriaServiceImpl implements CategoriaService {
         }
 
         categoriaRepository.delete(categoria);
+        versionCatalogo.incrementar(Seccion.CATEGORIAS, id);
         log.info("Categoría eliminada: id={}, nombre={}", id, categoria.getNombre());
     }
 
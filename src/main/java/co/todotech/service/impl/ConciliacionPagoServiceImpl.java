@@ -0,0 +1,226 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.entities.EventoPasarela;
+import co.todotech.model.entities.IntentoPago;
+import co.todotech.model.entities.Orden;
+import co.todotech.model.entities.Pago;
+import co.todotech.model.enums.EstadoEventoPasarela;
+import co.todotech.model.enums.EstadoOrden;
+import co.todotech.model.enums.EstadoPago;
+import co.todotech.pasarela.EstadoTransaccionWompi;
+import co.todotech.repository.EventoPasarelaRepository;
+import co.todotech.repository.IntentoPagoRepository;
+import co.todotech.repository.OrdenRepository;
+import co.todotech.repository.PagoRepository;
+import co.todotech.service.ConciliacionPagoService;
+import co.todotech.service.OrdenService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Concilia pagos y órdenes a partir de los eventos payment_intent.* de Stripe y
+ * transaction.updated de Wompi.
+ *
+ * El payload se lee con Jackson en lugar de deserializarlo con el SDK: así no depende de que
+ * la versión de API del endpoint coincida con la del SDK. Los eventos pueden llegar
+ * desordenados; uno más antiguo que el último aplicado al PaymentIntent se descarta.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConciliacionPagoServiceImpl implements ConciliacionPagoService {
+
+    private static final String PREFIJO_PAYMENT_INTENT = "payment_intent.";
+    private static final String EVENTO_TRANSACCION_WOMPI = "transaction.updated";
+    private static final int LONGITUD_MAXIMA_ERROR = 500;
+    // Un PaymentIntent en estos estados ya no cambia
+    private static final Set<String> ESTADOS_FINALES_STRIPE = Set.of("succeeded", "canceled");
+
+    private final EventoPasarelaRepository eventoRepository;
+    private final IntentoPagoRepository intentoPagoRepository;
+    private final PagoRepository pagoRepository;
+    private final OrdenRepository ordenRepository;
+    private final OrdenService ordenService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional
+    public void procesarEvento(String eventoId) {
+        EventoPasarela evento = eventoRepository.findById(eventoId)
+                .orElseThrow(() -> new IllegalArgumentException("Evento de pasarela no encontrado: " + eventoId));
+
+        if (evento.getTipo().startsWith(PREFIJO_PAYMENT_INTENT)) {
+            aplicarPaymentIntent(leer(evento.getPayload()));
+        } else if (EVENTO_TRANSACCION_WOMPI.equals(evento.getTipo())) {
+            aplicarTransaccionWompi(leer(evento.getPayload()));
+        } else {
+            log.debug("Evento {} de tipo {} sin conciliación asociada", evento.getId(), evento.getTipo());
+        }
+
+        evento.setEstado(EstadoEventoPasarela.PROCESADO);
+        evento.setFechaProcesado(LocalDateTime.now());
+        evento.setUltimoError(null);
+    }
+
+    private void aplicarPaymentIntent(JsonNode evento) {
+        String tipo = evento.path("type").asText();
+        long creado = evento.path("created").asLong();
+        JsonNode objeto = evento.path("data").path("object");
+
+        String paymentIntentId = objeto.path("id").asText(null);
+        if (paymentIntentId == null) {
+            throw new IllegalArgumentException("Evento " + tipo + " sin data.object.id");
+        }
+
+        String estado = objeto.path("status").asText("desconocido");
+
+        IntentoPago intento = intentoPagoRepository.findById(paymentIntentId)
+                .orElseGet(() -> IntentoPago.builder().paymentIntentId(paymentIntentId).build());
+        if (intento.getFechaActualizacion() != null) {
+            // created de Stripe es en segundos: a igual segundo, un estado intermedio no pisa uno final
+            boolean yaFinal = ESTADOS_FINALES_STRIPE.contains(intento.getEstado());
+            if (creado < intento.getEventoCreado() || (yaFinal && !ESTADOS_FINALES_STRIPE.contains(estado))) {
+                log.info("⏭️ Evento {} de {} más antiguo que el último aplicado, se descarta", tipo, paymentIntentId);
+                return;
+            }
+        }
+
+        Pago pago = pagoRepository.findByNumeroTransaccion(paymentIntentId).orElse(null);
+        Long ordenId = pago != null ? pago.getOrdenVenta().getId() : ordenDeMetadata(objeto);
+
+        intento.setOrdenId(ordenId);
+        intento.setEstado(estado);
+        intento.setMontoCentavos(objeto.hasNonNull("amount") ? objeto.get("amount").asLong() : null);
+        intento.setMontoRecibidoCentavos(objeto.hasNonNull("amount_received") ? objeto.get("amount_received").asLong() : null);
+        intento.setMoneda(objeto.path("currency").asText(null));
+        intento.setUltimoError(truncar(objeto.path("last_payment_error").path("message").asText(null)));
+        intento.setEventoCreado(creado);
+        intento.setFechaActualizacion(LocalDateTime.now());
+        intentoPagoRepository.save(intento);
+
+        switch (tipo) {
+            case "payment_intent.succeeded" -> {
+                actualizarPago(pago, EstadoPago.APROBADO);
+                marcarOrdenPagada(ordenId, paymentIntentId);
+            }
+            case "payment_intent.payment_failed", "payment_intent.canceled" -> {
+                if (pago != null && pago.getEstadoPago() != EstadoPago.APROBADO) {
+                    actualizarPago(pago, EstadoPago.RECHAZADO);
+                }
+            }
+            default -> log.debug("PaymentIntent {} en estado {}", paymentIntentId, intento.getEstado());
+        }
+    }
+
+    private void aplicarTransaccionWompi(JsonNode evento) {
+        long timestamp = evento.path("timestamp").asLong();
+        JsonNode transaccion = evento.path("data").path("transaction");
+        String transaccionId = transaccion.path("id").asText(null);
+        if (transaccionId == null) {
+            throw new IllegalArgumentException("Evento de Wompi sin data.transaction.id");
+        }
+        EstadoTransaccionWompi estado = EstadoTransaccionWompi.desde(transaccion.path("status").asText(null));
+
+        IntentoPago intento = intentoPagoRepository.findById(transaccionId)
+                .orElseGet(() -> IntentoPago.builder().paymentIntentId(transaccionId).build());
+        if (intento.getFechaActualizacion() != null) {
+            // El timestamp de Wompi es en segundos: a igual segundo, un PENDING no pisa un estado final
+            boolean yaFinal = !EstadoTransaccionWompi.PENDING.getEstadoPago().equals(intento.getEstado());
+            if (timestamp < intento.getEventoCreado() || (yaFinal && !estado.esFinal())) {
+                log.info("⏭️ Evento de Wompi {} para {} más antiguo que el último aplicado, se descarta", estado, transaccionId);
+                return;
+            }
+        }
+
+        Pago pago = pagoRepository.findByNumeroTransaccion(transaccionId).orElse(null);
+        Long ordenId = pago != null
+                ? pago.getOrdenVenta().getId()
+                : WompiPaymentService.ordenDeReferencia(transaccion.path("reference").asText(null));
+
+        intento.setOrdenId(ordenId);
+        intento.setEstado(estado.getEstadoPago());
+        intento.setMontoCentavos(transaccion.hasNonNull("amount_in_cents") ? transaccion.get("amount_in_cents").asLong() : null);
+        intento.setMontoRecibidoCentavos(estado == EstadoTransaccionWompi.APPROVED ? intento.getMontoCentavos() : null);
+        intento.setMoneda(transaccion.path("currency").asText(null));
+        intento.setUltimoError(truncar(transaccion.path("status_message").asText(null)));
+        intento.setEventoCreado(timestamp);
+        intento.setFechaActualizacion(LocalDateTime.now());
+        intentoPagoRepository.save(intento);
+
+        switch (estado) {
+            case APPROVED -> {
+                actualizarPago(pago, EstadoPago.APROBADO);
+                marcarOrdenPagada(ordenId, transaccionId);
+            }
+            case DECLINED, ERROR, VOIDED -> {
+                if (pago != null && pago.getEstadoPago() != EstadoPago.APROBADO) {
+                    actualizarPago(pago, EstadoPago.RECHAZADO);
+                }
+            }
+            default -> log.debug("Transacción Wompi {} en estado {}", transaccionId, estado);
+        }
+    }
+
+    private void actualizarPago(Pago pago, EstadoPago estado) {
+        if (pago == null || pago.getEstadoPago() == estado) {
+            return;
+        }
+        log.info("💳 Pago {} ({}) pasa de {} a {}", pago.getId(), pago.getNumeroTransaccion(), pago.getEstadoPago(), estado);
+        pago.setEstadoPago(estado);
+    }
+
+    // marcarComoPagada lanza si la orden no está DISPONIBLEPARAPAGO, y eso dejaría la transacción
+    // marcada para rollback: el estado se revisa antes de llamarla
+    private void marcarOrdenPagada(Long ordenId, String paymentIntentId) {
+        if (ordenId == null) {
+            log.warn("⚠️ PaymentIntent {} cobrado sin orden asociada", paymentIntentId);
+            return;
+        }
+
+        Orden orden = ordenRepository.findById(ordenId).orElse(null);
+        if (orden == null) {
+            log.warn("⚠️ PaymentIntent {} cobrado para la orden {} que no existe", paymentIntentId, ordenId);
+        } else if (orden.getEstado() == EstadoOrden.DISPONIBLEPARAPAGO) {
+            ordenService.marcarComoPagada(ordenId);
+        } else if (orden.getEstado() != EstadoOrden.PAGADA) {
+            log.warn("⚠️ PaymentIntent {} cobrado para la orden {} en estado {}: requiere revisión manual",
+                    paymentIntentId, ordenId, orden.getEstado());
+        }
+    }
+
+    private static Long ordenDeMetadata(JsonNode objeto) {
+        String ordenId = objeto.path("metadata").path("order_id").asText(null);
+        if (ordenId == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(ordenId);
+        } catch (NumberFormatException e) {
+            log.warn("⚠️ metadata.order_id no numérico en PaymentIntent: {}", ordenId);
+            return null;
+        }
+    }
+
+    private JsonNode leer(String payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Payload de evento ilegible: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static String truncar(String mensaje) {
+        if (mensaje == null || mensaje.length() <= LONGITUD_MAXIMA_ERROR) {
+            return mensaje;
+        }
+        return mensaje.substring(0, LONGITUD_MAXIMA_ERROR);
+    }
+}
@@ -1,10 +1,16 @@
 package co.todotech.service.impl;
 
+import co.todotech.busqueda.FacetasCatalogo;
+import co.todotech.cache.ProductoCatalogCache;
+import co.todotech.cache.VersionCatalogo;
+import co.todotech.cache.VersionCatalogo.Seccion;
 import co.todotech.exception.detalleorden.*;
 import co.todotech.exception.ordenventa.OrdenNotFoundException;
 import co.todotech.exception.producto.ProductoNotFoundException;
 import co.todotech.mapper.DetalleOrdenMapper;
+import co.todotech.metricas.MetricasStock;
 import co.todotech.model.dto.detalleorden.CreateDetalleOrdenDto;
+import co.todotech.model.dto.detalleorden.CreateDetallesOrdenDto;
 import co.todotech.model.dto.detalleorden.DetalleOrdenDto;
 import co.todotech.model.dto.detalleorden.EliminarDetalleRequest;
 import co.todotech.model.dto.detalleorden.validacion.BulkStockValidationRequest;
@@ -16,18 +22,25 @@ import co.todotech.model.entities.Orden;
 import co.todotech.model.entities.Producto;
 import co.todotech.model.enums.EstadoOrden;
 import co.todotech.model.enums.EstadoProducto;
+import co.todotech.model.enums.TipoMovimiento;
 import co.todotech.repository.DetalleOrdenRepository;
 import co.todotech.repository.OrdenRepository;
 import co.todotech.repository.ProductoRepository;
 import co.todotech.service.DetalleOrdenService;
+import co.todotech.service.InventarioService;
 import co.todotech.service.ProductoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -40,40 +53,56 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
     private final ProductoRepository productoRepository;
     private final DetalleOrdenMapper detalleOrdenMapper;
     private final ProductoService productoService;
+    private final InventarioService inventarioService;
+    private final ProductoCatalogCache catalogoCache;
+    private final FacetasCatalogo facetasCatalogo;
+    private final VersionCatalogo versionCatalogo;
 
     // Constantes para stock crítico
     private static final int STOCK_CRITICO = 3;
     private static final int STOCK_MINIMO_CREACION = 1;
     private static final int STOCK_MINIMO_ACTUALIZACION = 1;
 
+    // Solo los productos ACTIVOS pueden agregarse a una orden
+    private static final Set<EstadoProducto> ESTADOS_VENDIBLES = EnumSet.of(EstadoProducto.ACTIVO);
+
     @Override
     @Transactional
     public DetalleOrdenDto crearDetalleOrden(CreateDetalleOrdenDto createDetalleOrdenDto, Long ordenId) {
         log.info("Creando detalle de orden para orden ID: {} y producto ID: {}",
                 ordenId, createDetalleOrdenDto.productoId());
 
-        // Validar que la orden existe y está en estado permitido
-        Orden orden = ordenRepository.findById(ordenId)
+        // Validar que la orden existe y está en estado permitido (con sus líneas: se recalculan los totales)
+        Orden orden = ordenRepository.findByIdWithDetalles(ordenId)
                 .orElseThrow(() -> new OrdenNotFoundException(ordenId));
 
         validarEstadoOrdenParaModificacion(orden);
 
-        // Validar que el producto existe
-        Producto producto = productoRepository.findById(createDetalleOrdenDto.productoId())
-                .orElseThrow(() -> new ProductoNotFoundException(createDetalleOrdenDto.productoId()));
+        // Verificar si ya existe un detalle para este producto en la orden
+        if (detalleOrdenRepository.existsByOrdenIdAndProductoId(ordenId, createDetalleOrdenDto.productoId())) {
+            throw new DetalleOrdenDuplicateException(ordenId, createDetalleOrdenDto.productoId());
+        }
 
-        // 🔥 CORREGIDO: Usar validación que considera contexto
-        validarStockMinimoParaCreacion(producto, createDetalleOrdenDto.cantidad());
-        validarStockDisponible(producto, createDetalleOrdenDto.cantidad(), null);
+        // 🔥 ACTUALIZAR STOCK: UPDATE condicional (stock >= cantidad y producto ACTIVO).
+        // Es la única barrera contra sobreventa: dos checkouts concurrentes no pueden
+        // reservar las mismas unidades
+        int filas = productoRepository.decrementarStockSiDisponible(
+                createDetalleOrdenDto.productoId(), createDetalleOrdenDto.cantidad(), ESTADOS_VENDIBLES);
 
-        // Verificar si ya existe un detalle para este producto en la orden
-        detalleOrdenRepository.findByOrdenIdAndProductoId(ordenId, createDetalleOrdenDto.productoId())
-                .ifPresent(existingDetail -> {
-                    throw new DetalleOrdenDuplicateException(ordenId, createDetalleOrdenDto.productoId());
-                });
+        if (filas == 0) {
+            MetricasStock.registrarConflicto("detalle");
+            lanzarErrorDeStock(createDetalleOrdenDto.productoId(), createDetalleOrdenDto.cantidad());
+        }
 
-        // 🔥 ACTUALIZAR STOCK: Decrementar el stock del producto
-        productoService.decrementarStock(producto.getId(), createDetalleOrdenDto.cantidad());
+        inventarioService.registrarMovimiento(createDetalleOrdenDto.productoId(), TipoMovimiento.VENTA,
+                -createDetalleOrdenDto.cantidad(), referenciaOrden(ordenId));
+        catalogoCache.invalidarProducto(createDetalleOrdenDto.productoId());
+        facetasCatalogo.ajustarStock(createDetalleOrdenDto.productoId(), -createDetalleOrdenDto.cantidad());
+        versionCatalogo.incrementar(Seccion.PRODUCTOS, createDetalleOrdenDto.productoId());
+
+        // El producto se lee después del UPDATE, así el stock ya refleja la reserva
+        Producto producto = productoRepository.findById(createDetalleOrdenDto.productoId())
+                .orElseThrow(() -> new ProductoNotFoundException(createDetalleOrdenDto.productoId()));
 
         // Crear el detalle de orden
         DetalleOrden detalleOrden = DetalleOrden.builder()
@@ -86,17 +115,104 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
 
         DetalleOrden detalleGuardado = detalleOrdenRepository.save(detalleOrden);
 
-        // Agregar el detalle a la orden para mantener la relación bidireccional
+        // Agregar el detalle a la orden: mantiene la relación bidireccional y ajusta los totales por delta
         orden.agregarDetalle(detalleGuardado);
-
-        // Recalcular totales de la orden
-        orden.calcularTotales();
         ordenRepository.save(orden);
 
         log.info("Detalle de orden creado exitosamente con ID: {}. Stock del producto actualizado.", detalleGuardado.getId());
         return detalleOrdenMapper.toDto(detalleGuardado);
     }
 
+    /**
+     * Agrega varias líneas a la orden en una sola transacción y con un número fijo de
+     * sentencias: un lote JDBC de UPDATE condicionales de stock, una consulta IN para los
+     * productos y un único recálculo de totales. Si una línea falla no se aplica ninguna.
+     */
+    @Override
+    @Transactional
+    public List<DetalleOrdenDto> crearDetallesOrden(CreateDetallesOrdenDto createDetallesOrdenDto, Long ordenId) {
+        List<CreateDetalleOrdenDto> lineas = createDetallesOrdenDto.detalles();
+        log.info("Creando {} detalles para orden ID: {}", lineas.size(), ordenId);
+
+        Orden orden = ordenRepository.findByIdWithDetalles(ordenId)
+                .orElseThrow(() -> new OrdenNotFoundException(ordenId));
+
+        validarEstadoOrdenParaModificacion(orden);
+
+        // Duplicados contra las líneas ya cargadas de la orden y dentro de la propia petición
+        Set<Long> productosEnOrden = orden.getProductos().stream()
+                .map(detalle -> detalle.getProducto().getId())
+                .collect(Collectors.toCollection(HashSet::new));
+        for (CreateDetalleOrdenDto linea : lineas) {
+            if (!productosEnOrden.add(linea.productoId())) {
+                throw new DetalleOrdenDuplicateException(ordenId, linea.productoId());
+            }
+        }
+
+        List<Long> productoIds = lineas.stream().map(CreateDetalleOrdenDto::productoId).toList();
+        List<Integer> cantidades = lineas.stream().map(CreateDetalleOrdenDto::cantidad).toList();
+
+        // 🔥 ACTUALIZAR STOCK: los mismos UPDATE condicionales que el alta individual, en un solo lote
+        int[] filas = productoRepository.decrementarStockEnLote(productoIds, cantidades);
+        for (int i = 0; i < filas.length; i++) {
+            if (filas[i] == 0) {
+                MetricasStock.registrarConflicto("detalle_lote");
+                // La excepción revierte también los decrementos ya aplicados del lote
+                lanzarErrorDeStock(productoIds.get(i), cantidades.get(i));
+            }
+        }
+
+        // Los productos se leen después del UPDATE, así el stock ya refleja la reserva
+        Map<Long, Producto> productos = productoRepository.findAllById(productoIds).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+        String referencia = referenciaOrden(ordenId);
+        List<DetalleOrden> detalles = new ArrayList<>(lineas.size());
+        for (CreateDetalleOrdenDto linea : lineas) {
+            Producto producto = productos.get(linea.productoId());
+
+            inventarioService.registrarMovimiento(producto.getId(), TipoMovimiento.VENTA, -linea.cantidad(), referencia);
+            catalogoCache.invalidarProducto(producto.getId());
+            facetasCatalogo.ajustarStock(producto.getId(), -linea.cantidad());
+
+            DetalleOrden detalle = DetalleOrden.builder()
+                    .orden(orden)
+                    .producto(producto)
+                    .cantidad(linea.cantidad())
+                    .precioUnitario(producto.getPrecio())
+                    .subtotal(0.0)
+                    .build();
+            detalle.calcularSubtotal();
+            detalles.add(detalle);
+        }
+
+        // Una sola versión nueva del catálogo para todo el lote
+        versionCatalogo.incrementar(Seccion.PRODUCTOS, productoIds);
+        List<DetalleOrden> detallesGuardados = detalleOrdenRepository.saveAll(detalles);
+
+        // Un solo ajuste de totales para todo el lote
+        orden.agregarDetalles(detallesGuardados);
+        ordenRepository.save(orden);
+
+        log.info("{} detalles creados para la orden ID: {}. Stock de los productos actualizado.",
+                detallesGuardados.size(), ordenId);
+        return detallesGuardados.stream()
+                .map(detalleOrdenMapper::toDto)
+                .collect(Collectors.toList());
+    }
+
+    // Diagnóstico del UPDATE condicional fallido: misma precedencia de errores que la validación previa
+    private void lanzarErrorDeStock(Long productoId, Integer cantidad) {
+        Producto producto = productoRepository.findById(productoId)
+                .orElseThrow(() -> new ProductoNotFoundException(productoId));
+
+        validarStockMinimoParaCreacion(producto, cantidad);
+        validarStockDisponible(producto, cantidad, null);
+
+        // Las validaciones pasan pero el UPDATE no: otro checkout tomó las unidades entre medias
+        throw new StockInsufficientException(producto.getNombre(), producto.getStock(), cantidad);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public DetalleOrdenDto obtenerDetalleOrden(Long id) {
@@ -163,21 +279,20 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
             // 🔥 ACTUALIZAR STOCK: Ajustar según la diferencia
             if (diferencia > 0) {
                 // Si se aumenta la cantidad, decrementar stock
-                productoService.decrementarStock(producto.getId(), diferencia);
+                productoService.decrementarStock(producto.getId(), diferencia,
+                        TipoMovimiento.VENTA, referenciaOrden(detalleOrden.getOrden().getId()));
             } else {
                 // Si se disminuye la cantidad, incrementar stock
-                productoService.incrementarStock(producto.getId(), Math.abs(diferencia));
+                productoService.incrementarStock(producto.getId(), Math.abs(diferencia),
+                        TipoMovimiento.DEVOLUCION, referenciaOrden(detalleOrden.getOrden().getId()));
             }
         }
 
-        // Actualizar cantidad
-        detalleOrden.setCantidad(nuevaCantidad);
+        // Actualizar cantidad y ajustar los totales de la orden con la diferencia de esta línea
+        Orden orden = detalleOrden.getOrden();
+        orden.actualizarCantidadDetalle(detalleOrden, nuevaCantidad);
 
         DetalleOrden detalleActualizado = detalleOrdenRepository.save(detalleOrden);
-
-        // Recalcular totales de la orden
-        Orden orden = detalleOrden.getOrden();
-        orden.calcularTotales();
         ordenRepository.save(orden);
 
         log.info("Cantidad actualizada exitosamente para detalle ID: {}. Stock del producto ajustado.", detalleId);
@@ -216,21 +331,23 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
 
                 // 🔥 ACTUALIZAR STOCK: Ajustar según la diferencia
                 if (diferencia > 0) {
-                    productoService.decrementarStock(producto.getId(), diferencia);
+                    productoService.decrementarStock(producto.getId(), diferencia,
+                            TipoMovimiento.VENTA, referenciaOrden(detalleExistente.getOrden().getId()));
                 } else {
-                    productoService.incrementarStock(producto.getId(), Math.abs(diferencia));
+                    productoService.incrementarStock(producto.getId(), Math.abs(diferencia),
+                            TipoMovimiento.DEVOLUCION, referenciaOrden(detalleExistente.getOrden().getId()));
                 }
             }
         }
 
-        // Actualizar campos permitidos
+        // Actualizar campos permitidos y ajustar los totales de la orden con la diferencia de esta línea
+        double subtotalAnterior = detalleExistente.getSubtotal() != null ? detalleExistente.getSubtotal() : 0.0;
         detalleOrdenMapper.updateDetalleOrdenFromDto(detalleOrdenDto, detalleExistente);
 
-        DetalleOrden detalleActualizado = detalleOrdenRepository.save(detalleExistente);
-
-        // Recalcular totales de la orden
         Orden orden = detalleExistente.getOrden();
-        orden.calcularTotales();
+        orden.registrarCambioDetalle(detalleExistente, subtotalAnterior);
+
+        DetalleOrden detalleActualizado = detalleOrdenRepository.save(detalleExistente);
         ordenRepository.save(orden);
 
         log.info("Detalle de orden actualizado exitosamente con ID: {}. Stock del producto ajustado si fue necesario.", id);
@@ -254,16 +371,14 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
         Orden orden = detalleOrden.getOrden();
 
         // 🔥 ACTUALIZAR STOCK: Incrementar el stock al eliminar el detalle
-        productoService.incrementarStock(producto.getId(), cantidad);
+        productoService.incrementarStock(producto.getId(), cantidad,
+                TipoMovimiento.DEVOLUCION, referenciaOrden(orden.getId()));
 
-        // Remover el detalle de la orden
+        // Remover el detalle de la orden (resta su subtotal de los totales)
         orden.removerDetalle(detalleOrden);
 
         // Eliminar el detalle
         detalleOrdenRepository.delete(detalleOrden);
-
-        // Recalcular totales de la orden
-        orden.calcularTotales();
         ordenRepository.save(orden);
 
         log.info("Detalle de orden eliminado exitosamente con ID: {}. Stock del producto restaurado.", id);
@@ -499,6 +614,10 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
         }
     }
 
+    private static String referenciaOrden(Long ordenId) {
+        return "ORDEN-" + ordenId;
+    }
+
     // 🔥 NUEVO: Validar estado de orden para modificación
     private void validarEstadoOrdenParaModificacion(Orden orden) {
         if (orden.getEstado() != EstadoOrden.PENDIENTE && orden.getEstado() != EstadoOrden.AGREGANDOPRODUCTOS) {
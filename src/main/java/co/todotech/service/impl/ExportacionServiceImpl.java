@@ -0,0 +1,139 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.exportacion.OrdenExportDto;
+import co.todotech.model.dto.exportacion.PagoExportDto;
+import co.todotech.model.entities.Orden;
+import co.todotech.model.entities.Pago;
+import co.todotech.model.enums.FormatoExportacion;
+import co.todotech.repository.OrdenRepository;
+import co.todotech.repository.PagoRepository;
+import co.todotech.service.ExportacionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de órdenes y pagos en NDJSON o CSV.
+ *
+ * Las filas se leen con un cursor JDBC y se escriben directamente en la respuesta;
+ * cada cierto número de filas se vacía el persistence context, así la memoria usada
+ * no depende de cuántas filas tenga el rango exportado.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportacionServiceImpl implements ExportacionService {
+
+    // Filas entre cada limpieza del persistence context y cada flush de la salida
+    private static final int FILAS_POR_LOTE = 500;
+    private static final LocalDateTime DESDE_POR_DEFECTO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final OrdenRepository ordenRepository;
+    private final PagoRepository pagoRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportarOrdenes(LocalDateTime desde, LocalDateTime hasta, FormatoExportacion formato,
+                                OutputStream salida) throws IOException {
+        log.info("📤 Exportando órdenes {} - desde: {}, hasta: {}", formato, desde, hasta);
+
+        try (Stream<Orden> ordenes = ordenRepository.streamByFechaBetween(inicio(desde), fin(hasta))) {
+            long filas = escribir(ordenes.iterator(), OrdenExportDto::desde, OrdenExportDto.COLUMNAS,
+                    OrdenExportDto::valores, formato, salida);
+            log.info("✅ Exportación de órdenes completada: {} filas", filas);
+            return filas;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportarPagos(LocalDateTime desde, LocalDateTime hasta, FormatoExportacion formato,
+                              OutputStream salida) throws IOException {
+        log.info("📤 Exportando pagos {} - desde: {}, hasta: {}", formato, desde, hasta);
+
+        try (Stream<Pago> pagos = pagoRepository.streamByFechaPagoBetween(inicio(desde), fin(hasta))) {
+            long filas = escribir(pagos.iterator(), PagoExportDto::desde, PagoExportDto.COLUMNAS,
+                    PagoExportDto::valores, formato, salida);
+            log.info("✅ Exportación de pagos completada: {} filas", filas);
+            return filas;
+        }
+    }
+
+    private static LocalDateTime inicio(LocalDateTime desde) {
+        return desde != null ? desde : DESDE_POR_DEFECTO;
+    }
+
+    private static LocalDateTime fin(LocalDateTime hasta) {
+        return hasta != null ? hasta : LocalDateTime.now();
+    }
+
+    private <E, R> long escribir(Iterator<E> entidades, Function<E, R> aFila, List<String> columnas,
+                                 Function<R, List<Object>> valores, FormatoExportacion formato,
+                                 OutputStream salida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+
+        if (formato == FormatoExportacion.CSV) {
+            escribirLineaCsv(writer, columnas);
+        }
+
+        long filas = 0;
+        while (entidades.hasNext()) {
+            R fila = aFila.apply(entidades.next());
+
+            if (formato == FormatoExportacion.CSV) {
+                escribirLineaCsv(writer, valores.apply(fila));
+            } else {
+                writer.write(objectMapper.writeValueAsString(fila));
+                writer.write('\n');
+            }
+
+            if (++filas % FILAS_POR_LOTE == 0) {
+                // Las entidades ya escritas no se vuelven a usar: se sueltan para que el GC las recoja
+                entityManager.clear();
+                writer.flush();
+            }
+        }
+
+        writer.flush();
+        return filas;
+    }
+
+    private void escribirLineaCsv(Writer writer, List<?> valores) throws IOException {
+        for (int i = 0; i < valores.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escaparCsv(valores.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180: entre comillas si contiene separador, comillas o saltos de línea
+    private static String escaparCsv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor.toString();
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,233 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.pasarela.IdempotenciaConflictoException;
+import co.todotech.model.entities.SolicitudIdempotente;
+import co.todotech.repository.SolicitudIdempotenteRepository;
+import co.todotech.service.IdempotenciaService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Claves de idempotencia con dos niveles: un mapa en memoria y la tabla
+ * {@code solicitud_idempotente}.
+ *
+ * El mapa guarda un futuro por clave desde que empieza la primera llamada, así un duplicado
+ * concurrente en este nodo espera ese mismo resultado en lugar de repetir la operación. Las
+ * respuestas definitivas se persisten para los reintentos que lleguen después de un reinicio
+ * o a otra instancia; entre instancias, la pasarela recibe además la misma clave y deduplica
+ * por su cuenta lo que llegue en paralelo.
+ */
+@Slf4j
+@Service
+@Lazy(false)
+public class IdempotenciaServiceImpl implements IdempotenciaService {
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    private final SolicitudIdempotenteRepository solicitudRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration vigencia;
+    private final int maxEntradas;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    public IdempotenciaServiceImpl(SolicitudIdempotenteRepository solicitudRepository,
+                                   ObjectMapper objectMapper,
+                                   @Value("${idempotencia.vigencia-horas:24}") long vigenciaHoras,
+                                   @Value("${idempotencia.cache.max-size:10000}") int maxEntradas) {
+        if (vigenciaHoras <= 0 || maxEntradas <= 0) {
+            throw new IllegalArgumentException("idempotencia.vigencia-horas e idempotencia.cache.max-size deben ser mayores a 0");
+        }
+        this.solicitudRepository = solicitudRepository;
+        this.objectMapper = objectMapper;
+        this.vigencia = Duration.ofHours(vigenciaHoras);
+        this.maxEntradas = maxEntradas;
+    }
+
+    @Override
+    public <T> T ejecutar(String clave, String operacion, Object solicitud, Class<T> tipoRespuesta,
+                          Supplier<T> accion, Predicate<T> esDefinitiva) {
+        validarClave(clave);
+        String huella = huellaDe(operacion, solicitud);
+
+        while (true) {
+            Entrada nueva = new Entrada(huella, new CompletableFuture<>(), Instant.now().plus(vigencia));
+            Entrada existente = entradas.putIfAbsent(clave, nueva);
+
+            if (existente == null) {
+                return ejecutarPrimera(clave, operacion, nueva, tipoRespuesta, accion, esDefinitiva);
+            }
+
+            if (existente.vencida(Instant.now())) {
+                entradas.remove(clave, existente);
+                continue;
+            }
+
+            verificarHuella(clave, existente.huella(), huella);
+            log.info("🔁 Idempotency-Key {} repetida: se reutiliza la respuesta de la primera llamada", clave);
+            return tipoRespuesta.cast(esperar(existente.resultado()));
+        }
+    }
+
+    @Scheduled(fixedRate = 3600000) // Cada hora
+    public void eliminarExpiradas() {
+        Instant ahora = Instant.now();
+        entradas.values().removeIf(entrada -> entrada.vencida(ahora));
+
+        int eliminadas = solicitudRepository.eliminarExpiradas(LocalDateTime.now());
+        if (eliminadas > 0) {
+            log.info("🧹 {} claves de idempotencia expiradas eliminadas", eliminadas);
+        }
+    }
+
+    private <T> T ejecutarPrimera(String clave, String operacion, Entrada entrada, Class<T> tipoRespuesta,
+                                  Supplier<T> accion, Predicate<T> esDefinitiva) {
+        try {
+            Optional<T> guardada = buscarGuardada(clave, entrada.huella(), tipoRespuesta);
+            if (guardada.isPresent()) {
+                log.info("🔁 Idempotency-Key {} ya procesada: se devuelve la respuesta guardada", clave);
+                entrada.resultado().complete(guardada.get());
+                hacerEspacio();
+                return guardada.get();
+            }
+
+            T respuesta = accion.get();
+            if (esDefinitiva.test(respuesta)) {
+                guardar(clave, operacion, entrada.huella(), respuesta);
+                entrada.resultado().complete(respuesta);
+                hacerEspacio();
+            } else {
+                // Quien ya esperaba recibe el mismo resultado; el próximo reintento vuelve a ejecutar
+                entrada.resultado().complete(respuesta);
+                entradas.remove(clave, entrada);
+            }
+            return respuesta;
+
+        } catch (RuntimeException e) {
+            entrada.resultado().completeExceptionally(e);
+            entradas.remove(clave, entrada);
+            throw e;
+        }
+    }
+
+    private <T> Optional<T> buscarGuardada(String clave, String huella, Class<T> tipoRespuesta) {
+        return solicitudRepository.findById(clave)
+                .filter(solicitud -> solicitud.getExpiraEn().isAfter(LocalDateTime.now()))
+                .map(solicitud -> {
+                    verificarHuella(clave, solicitud.getHuella(), huella);
+                    try {
+                        return objectMapper.readValue(solicitud.getRespuesta(), tipoRespuesta);
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalStateException("Respuesta idempotente ilegible para la clave " + clave, e);
+                    }
+                });
+    }
+
+    private void guardar(String clave, String operacion, String huella, Object respuesta) {
+        LocalDateTime ahora = LocalDateTime.now();
+        try {
+            solicitudRepository.save(SolicitudIdempotente.builder()
+                    .clave(clave)
+                    .operacion(operacion)
+                    .huella(huella)
+                    .respuesta(objectMapper.writeValueAsString(respuesta))
+                    .fechaCreacion(ahora)
+                    .expiraEn(ahora.plus(vigencia))
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta idempotente", e);
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia la guardó primero con la misma clave: la pasarela ya devolvió lo mismo
+            log.debug("Idempotency-Key {} guardada por otra instancia", clave);
+        }
+    }
+
+    // Primero los vencidos; si sigue lleno, se descarta ~10% de las respuestas ya terminadas
+    private void hacerEspacio() {
+        if (entradas.size() <= maxEntradas) {
+            return;
+        }
+
+        Instant ahora = Instant.now();
+        entradas.values().removeIf(entrada -> entrada.vencida(ahora));
+
+        int aDescartar = entradas.size() - maxEntradas + Math.max(1, maxEntradas / 10);
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (aDescartar > 0 && it.hasNext()) {
+            if (it.next().resultado().isDone()) {
+                it.remove();
+                aDescartar--;
+            }
+        }
+    }
+
+    private static Object esperar(CompletableFuture<Object> resultado) {
+        try {
+            return resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    private static void validarClave(String clave) {
+        if (clave == null || clave.isBlank()) {
+            throw new IllegalArgumentException("La Idempotency-Key no puede estar vacía");
+        }
+        if (clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new IllegalArgumentException("La Idempotency-Key no puede superar " + LONGITUD_MAXIMA_CLAVE + " caracteres");
+        }
+    }
+
+    private static void verificarHuella(String clave, String esperada, String recibida) {
+        if (!esperada.equals(recibida)) {
+            throw new IdempotenciaConflictoException(
+                    "La Idempotency-Key " + clave + " ya se usó con una petición distinta");
+        }
+    }
+
+    private String huellaDe(String operacion, Object solicitud) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(operacion.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) '\n');
+            sha256.update(objectMapper.writeValueAsBytes(solicitud));
+            return HexFormat.of().formatHex(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo serializar la petición idempotente", e);
+        }
+    }
+
+    private record Entrada(String huella, CompletableFuture<Object> resultado, Instant expiraEn) {
+
+        boolean vencida(Instant ahora) {
+            return resultado.isDone() && !expiraEn.isAfter(ahora);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.producto.ProductoBusinessException;
+import co.todotech.exception.producto.ProductoNotFoundException;
+import co.todotech.model.dto.inventario.MovimientoAgregadoDto;
+import co.todotech.model.dto.inventario.MovimientoInventarioDto;
+import co.todotech.model.entities.Inventario;
+import co.todotech.model.entities.InventarioSnapshot;
+import co.todotech.model.enums.TipoMovimiento;
+import co.todotech.repository.InventarioRepository;
+import co.todotech.repository.InventarioSnapshotRepository;
+import co.todotech.repository.ProductoRepository;
+import co.todotech.service.InventarioService;
+import co.todotech.utils.BloqueoTareas;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Libro de movimientos de stock.
+ *
+ * Los movimientos solo se insertan (en lotes JDBC al hacer flush) y nunca se modifican.
+ * Un job periódico marca con un número de compactación los movimientos pendientes ya
+ * confirmados y los suma en {@link InventarioSnapshot}, en la misma transacción; las
+ * consultas de stock leen el snapshot más los movimientos aún pendientes, sin recorrer todo
+ * el historial. No se corta por fecha ni por id: ninguno de los dos sigue el orden de commit,
+ * y un movimiento confirmado tarde caería detrás de una ventana ya cerrada.
+ */
+@Slf4j
+@Service
+@Lazy(false) // El job de compactación debe programarse aunque nadie inyecte el servicio
+@RequiredArgsConstructor
+public class InventarioServiceImpl implements InventarioService {
+
+    // Una compactación a la vez entre todas las instancias
+    private static final String TAREA_COMPACTACION = "inventario-compactacion";
+    private static final Duration PLAZO_COMPACTACION = Duration.ofMinutes(30);
+
+    // Las ventas se registran en negativo y las devoluciones en positivo
+    private static final EnumSet<TipoMovimiento> MOVIMIENTOS_DE_VENTA =
+            EnumSet.of(TipoMovimiento.VENTA, TipoMovimiento.DEVOLUCION);
+
+    private final InventarioRepository inventarioRepository;
+    private final InventarioSnapshotRepository snapshotRepository;
+    private final ProductoRepository productoRepository;
+    private final BloqueoTareas bloqueoTareas;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    @Transactional
+    public void registrarMovimiento(Long productoId, TipoMovimiento tipo, int cantidad, String referencia) {
+        if (cantidad == 0) {
+            return;
+        }
+
+        // getReferenceById no consulta el producto: solo se necesita la FK
+        Inventario movimiento = Inventario.builder()
+                .producto(productoRepository.getReferenceById(productoId))
+                .tipo(tipo)
+                .cantidad(cantidad)
+                .referencia(referencia)
+                .build();
+
+        inventarioRepository.save(movimiento);
+        log.debug("Movimiento de inventario registrado: producto id={}, {} {}", productoId, tipo, cantidad);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MovimientoInventarioDto> obtenerMovimientos(Long productoId) {
+        validarProductoExiste(productoId);
+
+        return inventarioRepository.findByProductoIdOrderByFechaDescIdDesc(productoId).stream()
+                .map(m -> new MovimientoInventarioDto(
+                        m.getId(), productoId, m.getTipo(), m.getCantidad(), m.getReferencia(), m.getFecha()))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Integer consultarStockSegunLibro(Long productoId) {
+        return consultarStockEn(productoId, LocalDateTime.now());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Integer consultarStockEn(Long productoId, LocalDateTime fecha) {
+        validarProductoExiste(productoId);
+
+        if (fecha == null) {
+            throw new ProductoBusinessException("La fecha de consulta no puede ser nula");
+        }
+
+        Optional<InventarioSnapshot> snapshot = snapshotRepository.findById(productoId);
+
+        if (snapshot.isEmpty()) {
+            // Producto aún sin compactar: su historial es corto por definición
+            return Math.toIntExact(inventarioRepository.sumarCantidadHasta(productoId, fecha));
+        }
+
+        // El snapshot suma todo lo compactado: se quita lo compactado posterior a la fecha y se
+        // agrega lo pendiente hasta ella. Para el stock actual el primer término es vacío
+        long stock = snapshot.get().getStock()
+                - inventarioRepository.sumarCompactadoDesde(productoId, fecha)
+                + inventarioRepository.sumarPendienteHasta(productoId, fecha);
+
+        return Math.toIntExact(stock);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${inventario.compactacion.intervalo-ms:600000}")
+    public int compactarSnapshots() {
+        Optional<Integer> compactados = bloqueoTareas.ejecutar(TAREA_COMPACTACION, PLAZO_COMPACTACION,
+                () -> new TransactionTemplate(transactionManager).execute(estado -> compactar()));
+        if (compactados.isEmpty()) {
+            log.debug("Compactación de inventario en curso en otra instancia, se omite");
+        }
+        return compactados.orElse(0);
+    }
+
+    private int compactar() {
+        long compactacion = inventarioRepository.findUltimaCompactacion().orElse(0L) + 1;
+        if (inventarioRepository.marcarCompactacion(compactacion) == 0) {
+            return 0;
+        }
+
+        List<MovimientoAgregadoDto> agregados = inventarioRepository.agregarPorCompactacion(compactacion);
+        LocalDateTime corte = LocalDateTime.now();
+
+        Map<Long, InventarioSnapshot> existentes = snapshotRepository
+                .findAllById(agregados.stream().map(MovimientoAgregadoDto::productoId).toList())
+                .stream()
+                .collect(Collectors.toMap(InventarioSnapshot::getProductoId, Function.identity()));
+
+        List<InventarioSnapshot> actualizados = new ArrayList<>(agregados.size());
+        for (MovimientoAgregadoDto agregado : agregados) {
+            InventarioSnapshot snapshot = existentes.getOrDefault(agregado.productoId(),
+                    InventarioSnapshot.builder().productoId(agregado.productoId()).stock(0).build());
+
+            snapshot.setStock(Math.toIntExact(snapshot.getStock() + agregado.cantidad()));
+            snapshot.setFechaCorte(corte);
+            actualizados.add(snapshot);
+        }
+
+        snapshotRepository.saveAll(actualizados);
+        log.info("📦 Inventario compactado (compactación {}): {} productos", compactacion, actualizados.size());
+        return actualizados.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Long> unidadesVendidasDesde(LocalDateTime desde) {
+        return inventarioRepository.agregarPorProductoDesde(MOVIMIENTOS_DE_VENTA, desde).stream()
+                .filter(agregado -> agregado.cantidad() < 0)
+                .collect(Collectors.toMap(MovimientoAgregadoDto::productoId, agregado -> -agregado.cantidad()));
+    }
+
+    /**
+     * Los productos creados antes de existir el libro no tienen movimientos:
+     * se siembra un movimiento INICIAL con su stock actual para que libro y producto coincidan.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void sembrarStockInicial() {
+        List<Long> sinMovimientos = inventarioRepository.findProductoIdsSinMovimientos();
+        if (sinMovimientos.isEmpty()) {
+            return;
+        }
+
+        productoRepository.findAllById(sinMovimientos).stream()
+                .filter(producto -> producto.getStock() != null)
+                .forEach(producto ->
+                        registrarMovimiento(producto.getId(), TipoMovimiento.INICIAL, producto.getStock(), null));
+
+        log.info("📦 Libro de inventario sembrado para {} productos", sinMovimientos.size());
+    }
+
+    private void validarProductoExiste(Long productoId) {
+        if (productoId == null) {
+            throw new ProductoBusinessException("El ID del producto no puede ser nulo");
+        }
+        if (!productoRepository.existsById(productoId)) {
+            throw new ProductoNotFoundException(productoId);
+        }
+    }
+}
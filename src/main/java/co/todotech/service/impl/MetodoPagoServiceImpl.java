@@ -1,5 +1,7 @@
 package co.todotech.service.impl;
 
+import co.todotech.cache.VersionCatalogo;
+import co.todotech.cache.VersionCatalogo.Seccion;
 import co.todotech.mapper.MetodoPagoMapper;
 import co.todotech.model.dto.metodopago.MetodoPagoDto;
 import co.todotech.model.entities.MetodoPago;
@@ -41,6 +43,9 @@ public class MetodoPagoServiceImpl implements MetodoPagoService {
     /** Repositorio que proporciona acceso a los datos persistentes de métodos de pago. */
     private final MetodoPagoRepository metodoPagoRepository;
 
+    /** Versión de los métodos de pago con la que se validan las respuestas HTTP en caché. */
+    private final VersionCatalogo versionCatalogo;
+
     /**
      * Crea un nuevo método de pago en el sistema.
      *
@@ -61,6 +66,8 @@ public class MetodoPagoServiceImpl implements MetodoPagoService {
         // Convertir el DTO a entidad y guardarla en la base de datos
         MetodoPago metodoPago = metodoPagoMapper.toEntity(dto);
         metodoPagoRepository.save(metodoPago);
+        // Alta: cambian las listas, ningún método ya servido
+        versionCatalogo.incrementar(Seccion.METODOS_PAGO, List.of());
 
         log.info("Método de pago creado exitosamente: id={}, metodo={}",
                 metodoPago.getId(), metodoPago.getMetodo());
@@ -93,6 +100,7 @@ public class MetodoPagoServiceImpl implements MetodoPagoService {
         // Actualizar los campos del método usando el mapper
         metodoPagoMapper.updateMetodoPagoFromDto(dto, metodoPago);
         metodoPagoRepository.save(metodoPago);
+        versionCatalogo.incrementar(Seccion.METODOS_PAGO, id);
 
         log.info("Método de pago actualizado: id={}, metodo={}",
                 metodoPago.getId(), metodoPago.getMetodo());
@@ -115,6 +123,7 @@ public class MetodoPagoServiceImpl implements MetodoPagoService {
         // por ejemplo: verificar si el método está asociado a pagos existentes.
 
         metodoPagoRepository.delete(metodoPago);
+        versionCatalogo.incrementar(Seccion.METODOS_PAGO, id);
         log.info("Método de pago eliminado: {}", id);
     }
 
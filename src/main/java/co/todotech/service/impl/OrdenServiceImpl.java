@@ -6,9 +6,13 @@ import co.todotech.mapper.OrdenMapper;
 import co.todotech.mapper.UsuarioMapper;
 import co.todotech.model.dto.cliente.ClienteDto;
 import co.todotech.model.dto.detalleorden.DetalleOrdenDto;
+import co.todotech.model.dto.PaginaDto;
+import co.todotech.model.dto.ordenventa.ConteoDetallesOrdenDto;
 import co.todotech.model.dto.ordenventa.CreateOrdenDto;
+import co.todotech.model.dto.ordenventa.CursorOrdenDto;
 import co.todotech.model.dto.ordenventa.OrdenConDetallesDto;
 import co.todotech.model.dto.ordenventa.OrdenDto;
+import co.todotech.model.dto.ordenventa.ResumenEstadoOrdenDto;
 import co.todotech.model.dto.usuario.UsuarioDto;
 import co.todotech.model.entities.Cliente;
 import co.todotech.model.entities.Orden;
@@ -18,8 +22,10 @@ import co.todotech.repository.ClienteRepository;
 import co.todotech.repository.OrdenRepository;
 import co.todotech.repository.UsuarioRepository;
 import co.todotech.service.OrdenService;
+import co.todotech.service.ResumenVentasService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -40,7 +46,11 @@ public class OrdenServiceImpl implements OrdenService {
     private final DetalleOrdenMapper detalleOrdenMapper;
     private final ClienteMapper clienteMapper;
     private final UsuarioMapper usuarioMapper;
+    private final ResumenVentasService resumenVentasService;
 
+    // Tamaño de página de los listados por cursor
+    private static final int TAMANO_PAGINA_DEFECTO = 20;
+    private static final int TAMANO_PAGINA_MAXIMO = 100;
 
     @Override
     @Transactional
@@ -81,6 +91,7 @@ public class OrdenServiceImpl implements OrdenService {
         log.info("Orden antes de guardar - Descuento: {}", orden.getDescuento());
 
         Orden ordenGuardada = ordenRepository.save(orden);
+        resumenVentasService.registrarOrden(ordenGuardada);
 
         log.info("Orden guardada en BD - ID: {}, Descuento: {}",
                 ordenGuardada.getId(), ordenGuardada.getDescuento());
@@ -121,6 +132,45 @@ public class OrdenServiceImpl implements OrdenService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaDto<OrdenDto> obtenerOrdenesPaginadas(String cursor, Integer tamano) {
+        log.info("Obteniendo página de órdenes - cursor: {}, tamaño: {}", cursor, tamano);
+
+        int limite = resolverTamanoPagina(tamano);
+        // Se pide una fila extra: si llega, existe página siguiente
+        Limit limit = Limit.of(limite + 1);
+
+        List<Orden> ordenes;
+        if (cursor == null || cursor.isBlank()) {
+            ordenes = ordenRepository.findPrimeraPagina(limit);
+        } else {
+            CursorOrdenDto posicion = CursorOrdenDto.decodificar(cursor);
+            ordenes = ordenRepository.findPaginaDespuesDe(posicion.fecha(), posicion.id(), limit);
+        }
+
+        return armarPagina(ordenes, limite);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaDto<OrdenDto> obtenerOrdenesPorEstadoPaginadas(EstadoOrden estado, String cursor, Integer tamano) {
+        log.info("Obteniendo página de órdenes por estado: {} - cursor: {}, tamaño: {}", estado, cursor, tamano);
+
+        int limite = resolverTamanoPagina(tamano);
+        Limit limit = Limit.of(limite + 1);
+
+        List<Orden> ordenes;
+        if (cursor == null || cursor.isBlank()) {
+            ordenes = ordenRepository.findPrimeraPaginaPorEstado(estado, limit);
+        } else {
+            CursorOrdenDto posicion = CursorOrdenDto.decodificar(cursor);
+            ordenes = ordenRepository.findPaginaPorEstadoDespuesDe(estado, posicion.fecha(), posicion.id(), limit);
+        }
+
+        return armarPagina(ordenes, limite);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<OrdenDto> obtenerOrdenesPorCliente(Long clienteId) {
@@ -154,10 +204,11 @@ public class OrdenServiceImpl implements OrdenService {
         // ✅ CORREGIDO: Usar mapper que NO ignora el descuento
         ordenMapper.updateOrdenFromDto(ordenDto, ordenExistente);
 
-        // Recalcular totales automáticamente
-        ordenExistente.calcularTotales();
+        // Solo cambió la cabecera (descuento): el subtotal de las líneas sigue vigente
+        ordenExistente.actualizarTotalesDesdeSubtotal();
 
         Orden ordenActualizada = ordenRepository.save(ordenExistente);
+        resumenVentasService.registrarOrden(ordenActualizada);
         log.info("Orden actualizada exitosamente con ID: {}, Descuento: {}, Total: {}",
                 ordenActualizada.getId(), ordenActualizada.getDescuento(), ordenActualizada.getTotal());
 
@@ -185,6 +236,7 @@ public class OrdenServiceImpl implements OrdenService {
         }
 
         Orden ordenActualizada = ordenRepository.save(orden);
+        resumenVentasService.registrarOrden(ordenActualizada);
 
         log.info("Estado de orden actualizado exitosamente. Orden ID: {}, Nuevo estado: {}", id, nuevoEstado);
         return ordenMapper.toDto(ordenActualizada);
@@ -202,6 +254,7 @@ public class OrdenServiceImpl implements OrdenService {
             throw new RuntimeException("Solo se pueden eliminar órdenes en estado PENDIENTE. Estado actual: " + orden.getEstado());
         }
 
+        resumenVentasService.eliminarOrden(id);
         ordenRepository.delete(orden);
         log.info("Orden eliminada exitosamente con ID: {}", id);
     }
@@ -233,6 +286,7 @@ public class OrdenServiceImpl implements OrdenService {
         }
 
         Orden ordenActualizada = ordenRepository.save(orden);
+        resumenVentasService.registrarOrden(ordenActualizada);
 
         // ✅ NUEVO: Log detallado con información completa
         log.info("Descuento aplicado exitosamente. Orden ID: {}, Porcentaje: {}%, " +
@@ -263,6 +317,7 @@ public class OrdenServiceImpl implements OrdenService {
         orden.quitarDescuento();
 
         Orden ordenActualizada = ordenRepository.save(orden);
+        resumenVentasService.registrarOrden(ordenActualizada);
 
         // ✅ NUEVO: Log detallado
         log.info("Descuento quitado exitosamente. Orden ID: {}, " +
@@ -301,6 +356,33 @@ public class OrdenServiceImpl implements OrdenService {
         return actualizarEstadoOrden(id, EstadoOrden.CERRADA);
     }
 
+    private int resolverTamanoPagina(Integer tamano) {
+        if (tamano == null) {
+            return TAMANO_PAGINA_DEFECTO;
+        }
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a 0");
+        }
+        return Math.min(tamano, TAMANO_PAGINA_MAXIMO);
+    }
+
+    private PaginaDto<OrdenDto> armarPagina(List<Orden> ordenes, int limite) {
+        boolean hayMas = ordenes.size() > limite;
+        List<Orden> pagina = hayMas ? ordenes.subList(0, limite) : ordenes;
+
+        String next = null;
+        if (hayMas) {
+            Orden ultima = pagina.get(pagina.size() - 1);
+            next = new CursorOrdenDto(ultima.getFecha(), ultima.getId()).codificar();
+        }
+
+        List<OrdenDto> contenido = pagina.stream()
+                .map(ordenMapper::toDto)
+                .collect(Collectors.toList());
+
+        return new PaginaDto<>(contenido, next);
+    }
+
     private String generarNumeroOrden() {
         String fecha = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
         String uuid = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
@@ -423,6 +505,7 @@ public class OrdenServiceImpl implements OrdenService {
         // o simplemente actualizar el total directamente según tus necesidades
 
         Orden ordenActualizada = ordenRepository.save(orden);
+        resumenVentasService.registrarOrden(ordenActualizada);
 
         log.info("Total de orden actualizado exitosamente. Orden ID: {}, Nuevo total: {}",
                 ordenId, nuevoTotal);
@@ -485,22 +568,26 @@ public class OrdenServiceImpl implements OrdenService {
     public Map<String, Object> getOrdenesSummaryForMonitoring() {
         log.info("MONITORING_ORDERS_SUMMARY - action: GENERATE_REPORT");
 
-        List<Orden> ordenes = ordenRepository.findAll();
+        // Sale de las tablas agregadas: el costo no depende del número de órdenes
+        List<ResumenEstadoOrdenDto> resumen = resumenVentasService.resumirPorEstado();
 
-        Map<EstadoOrden, Long> conteoPorEstado = ordenes.stream()
-                .collect(Collectors.groupingBy(Orden::getEstado, Collectors.counting()));
+        Map<EstadoOrden, Long> conteoPorEstado = new EnumMap<>(EstadoOrden.class);
+        long totalOrdenes = 0;
+        long totalPagadas = 0;
+        double totalVentas = 0.0;
 
-        long totalPagadas = ordenes.stream()
-                .filter(orden -> orden.getEstado().equals(EstadoOrden.PAGADA))
-                .count();
+        for (ResumenEstadoOrdenDto fila : resumen) {
+            conteoPorEstado.put(fila.estado(), fila.cantidad());
+            totalOrdenes += fila.cantidad();
 
-        double totalVentas = ordenes.stream()
-                .filter(orden -> orden.getEstado().equals(EstadoOrden.PAGADA))
-                .mapToDouble(Orden::getTotal)
-                .sum();
+            if (fila.estado() == EstadoOrden.PAGADA) {
+                totalPagadas = fila.cantidad();
+                totalVentas = fila.total();
+            }
+        }
 
         Map<String, Object> summary = new HashMap<>();
-        summary.put("totalOrdenes", ordenes.size());
+        summary.put("totalOrdenes", totalOrdenes);
         summary.put("totalPagadas", totalPagadas);
         summary.put("totalVentas", totalVentas);
         summary.put("conteoPorEstado", conteoPorEstado);
@@ -508,7 +595,7 @@ public class OrdenServiceImpl implements OrdenService {
 
         // ✅ LOG ESTRUCTURADO PARA DASHBOARD
         log.info("MONITORING_ORDERS_SUMMARY - totalOrdenes: {}, totalPagadas: {}, totalVentas: {}, estados: {}",
-                ordenes.size(), totalPagadas, totalVentas, conteoPorEstado);
+                totalOrdenes, totalPagadas, totalVentas, conteoPorEstado);
 
         return summary;
     }
@@ -535,6 +622,7 @@ public class OrdenServiceImpl implements OrdenService {
             // Cambiar estado
             orden.setEstado(EstadoOrden.PAGADA);
             Orden ordenActualizada = ordenRepository.save(orden);
+            resumenVentasService.registrarOrden(ordenActualizada);
 
             // ✅ LOG ESTRUCTURADO PARA MONITOREO
             log.info("MONITORING_PAYMENT_EVENT - action: PAYMENT_SUCCESS, orderId: {}, numeroOrden: {}, amount: {}, customer: {}, vendedor: {}",
@@ -556,6 +644,9 @@ public class OrdenServiceImpl implements OrdenService {
     public List<Map<String, Object>> getOrdenesPorEstadoForMonitoring(EstadoOrden estado) {
         log.info("MONITORING_ORDERS_BY_STATUS - action: QUERY, status: {}", estado);
 
+        Map<Long, Long> detallesPorOrden = ordenRepository.contarDetallesPorEstado(estado).stream()
+                .collect(Collectors.toMap(ConteoDetallesOrdenDto::ordenId, ConteoDetallesOrdenDto::cantidad));
+
         return ordenRepository.findByEstado(estado)
                 .stream()
                 .map(orden -> {
@@ -566,7 +657,7 @@ public class OrdenServiceImpl implements OrdenService {
                     orderInfo.put("total", orden.getTotal());
                     orderInfo.put("fecha", orden.getFecha().toString());
                     orderInfo.put("cliente", orden.getCliente().getNombre());
-                    orderInfo.put("productosCount", orden.getProductos().size());
+                    orderInfo.put("productosCount", detallesPorOrden.getOrDefault(orden.getId(), 0L).intValue());
                     return orderInfo;
                 })
                 .collect(Collectors.toList());
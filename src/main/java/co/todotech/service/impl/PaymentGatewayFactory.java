@@ -2,23 +2,49 @@ package co.todotech.service.impl;
 
 import co.todotech.model.enums.TipoMetodo;
 import co.todotech.service.PaymentGatewayService;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class PaymentGatewayFactory {
 
-    private final List<PaymentGatewayService> paymentServices;
+    // Se resuelve una sola vez al arrancar: cada petición es un acceso O(1) por ordinal
+    private final Map<TipoMetodo, PaymentGatewayService> serviciosPorMetodo;
+    private final Collection<PaymentGatewayService> pasarelas;
+
+    public PaymentGatewayFactory(List<PaymentGatewayService> paymentServices) {
+        EnumMap<TipoMetodo, PaymentGatewayService> registro = new EnumMap<>(TipoMetodo.class);
+        for (TipoMetodo metodo : TipoMetodo.values()) {
+            // Igual que antes: gana el primer servicio (en orden de Spring) que soporte el método
+            paymentServices.stream()
+                    .filter(service -> service.supports(metodo))
+                    .findFirst()
+                    .ifPresent(service -> registro.put(metodo, service));
+        }
+        this.serviciosPorMetodo = registro;
+        this.pasarelas = Collections.unmodifiableCollection(new LinkedHashSet<>(paymentServices));
+
+        registro.forEach((metodo, service) ->
+                log.info("💳 Método de pago {} -> pasarela {}", metodo, service.getNombre()));
+    }
 
     public PaymentGatewayService getPaymentService(TipoMetodo paymentMethodType) {
-        return paymentServices.stream()
-                .filter(service -> service.supports(paymentMethodType))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "No payment service found for method: " + paymentMethodType
-                ));
+        PaymentGatewayService service = paymentMethodType == null ? null : serviciosPorMetodo.get(paymentMethodType);
+        if (service == null) {
+            throw new IllegalArgumentException("No payment service found for method: " + paymentMethodType);
+        }
+        return service;
+    }
+
+    public Collection<PaymentGatewayService> getPasarelas() {
+        return pasarelas;
     }
-}
\ No newline at end of file
+}
@@ -1,28 +1,74 @@
 package co.todotech.service.impl;
 
+import co.todotech.busqueda.FacetasCatalogo;
+import co.todotech.busqueda.IndiceProductos;
+import co.todotech.busqueda.SugerenciasProductos;
+import co.todotech.cache.CambioExternoCatalogo;
+import co.todotech.cache.ProductoCatalogCache;
+import co.todotech.cache.ProductoCatalogCache.Clave;
+import co.todotech.cache.VersionCatalogo;
+import co.todotech.cache.VersionCatalogo.Seccion;
 import co.todotech.exception.producto.ProductoBusinessException;
 import co.todotech.exception.producto.ProductoDuplicateException;
 import co.todotech.exception.producto.ProductoNotFoundException;
 import co.todotech.mapper.ProductoMapper;
+import co.todotech.metricas.MetricasStock;
+import co.todotech.model.dto.producto.CatalogoFacetadoDto;
+import co.todotech.model.dto.producto.FiltroCatalogoDto;
 import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.model.dto.producto.SugerenciaProductoDto;
 import co.todotech.model.entities.Producto;
 import co.todotech.model.enums.EstadoProducto;
+import co.todotech.model.enums.TipoMovimiento;
 import co.todotech.repository.ProductoRepository;
+import co.todotech.service.InventarioService;
 import co.todotech.service.ProductoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
+@Lazy(false) // El refresco de popularidad de las sugerencias debe programarse desde el arranque
 @RequiredArgsConstructor
 public class ProductoServiceImpl implements ProductoService {
 
     private final ProductoMapper productoMapper;
     private final ProductoRepository productoRepository;
+    private final InventarioService inventarioService;
+    private final ProductoCatalogCache catalogoCache;
+    private final IndiceProductos indiceProductos;
+    private final SugerenciasProductos sugerenciasProductos;
+    private final FacetasCatalogo facetasCatalogo;
+    private final VersionCatalogo versionCatalogo;
+
+    @Value("${sugerencias.popularidad.dias:30}")
+    private int diasPopularidad;
+
+    // Lo que dejó la última reconstrucción de los índices; null si la popularidad cambió después
+    private volatile FotoIndices fotoIndices;
+
+    private static final int LIMITE_SUGERENCIAS = 8;
+    private static final int TAMANO_MAXIMO_PAGINA = 100;
+
+    // Estados sobre los que se permite mover stock (todos excepto INACTIVO)
+    private static final Set<EstadoProducto> ESTADOS_AJUSTABLES =
+            EnumSet.complementOf(EnumSet.of(EstadoProducto.INACTIVO));
 
     @Override
     @Transactional
@@ -35,6 +81,11 @@ public class ProductoServiceImpl implements ProductoService {
         establecerEstadoAutomatico(producto);
 
         productoRepository.save(producto);
+
+        if (producto.getStock() != null) {
+            inventarioService.registrarMovimiento(producto.getId(), TipoMovimiento.INICIAL, producto.getStock(), null);
+        }
+        publicarProducto(producto.getId(), productoMapper.toDto(producto));
         log.info("Producto creado exitosamente: id={}, codigo={}", producto.getId(), producto.getCodigo());
     }
 
@@ -45,11 +96,14 @@ public class ProductoServiceImpl implements ProductoService {
 
         Producto producto = obtenerProductoPorIdSeguro(id);
         validarDatosActualizacion(id, dto, producto);
+        Integer stockAnterior = producto.getStock();
 
         productoMapper.updateProductoFromDto(dto, producto);
         ajustarEstadoSegunStock(producto, dto.getEstado());
 
         productoRepository.save(producto);
+        registrarAjuste(id, stockAnterior, producto.getStock());
+        publicarProducto(id, productoMapper.toDto(producto));
         log.info("Producto actualizado: id={}, codigo={}", producto.getId(), producto.getCodigo());
     }
 
@@ -66,6 +120,7 @@ public class ProductoServiceImpl implements ProductoService {
         // }
 
         productoRepository.delete(producto);
+        retirarProducto(id);
         log.info("Producto eliminado físicamente: id={}", id);
     }
 
@@ -79,17 +134,24 @@ public class ProductoServiceImpl implements ProductoService {
 
         producto.setEstado(nuevoEstado);
         productoRepository.save(producto);
+        publicarProducto(id, productoMapper.toDto(producto));
 
         log.info("Estado del producto {} cambiado de {} a {}", id, producto.getEstado(), nuevoEstado);
     }
 
+    // Las lecturas del catálogo no abren transacción: un acierto en caché no debe tomar
+    // una conexión del pool. Los fallos consultan vía repositorio (transacción propia) y
+    // Producto no tiene asociaciones LAZY, así que el mapeo fuera de transacción es seguro.
     @Override
-    @Transactional(readOnly = true)
     public ProductoDto obtenerProductoPorId(Long id) {
         log.debug("Buscando producto por ID: {}", id);
 
-        Producto producto = obtenerProductoPorIdSeguro(id);
-        return productoMapper.toDto(producto);
+        if (id == null) {
+            throw new ProductoBusinessException("El ID del producto no puede ser nulo");
+        }
+
+        return catalogoCache.obtener(Clave.producto(id),
+                () -> productoMapper.toDto(obtenerProductoPorIdSeguro(id)));
     }
 
     @Override
@@ -123,7 +185,6 @@ public class ProductoServiceImpl implements ProductoService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<ProductoDto> obtenerProductoPorEstado(EstadoProducto estado) {
         log.debug("Buscando productos por estado: {}", estado);
 
@@ -131,13 +192,13 @@ public class ProductoServiceImpl implements ProductoService {
             throw new ProductoBusinessException("El estado no puede ser nulo");
         }
 
-        return productoRepository.findAllByEstado(estado).stream()
-                .map(productoMapper::toDto)
-                .toList();
+        return catalogoCache.obtener(Clave.estado(estado), () ->
+                productoRepository.findAllByEstado(estado).stream()
+                        .map(productoMapper::toDto)
+                        .toList());
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<ProductoDto> obtenerProductoPorCategoriaId(Long categoriaId) {
         log.debug("Buscando productos por categoría ID: {}", categoriaId);
 
@@ -145,18 +206,20 @@ public class ProductoServiceImpl implements ProductoService {
             throw new ProductoBusinessException("El ID de categoría no puede ser nulo");
         }
 
-        return productoRepository.findAllByCategoriaId(categoriaId).stream()
-                .map(productoMapper::toDto)
-                .toList();
+        return catalogoCache.obtener(Clave.categoria(categoriaId), () ->
+                productoRepository.findAllByCategoriaId(categoriaId).stream()
+                        .map(productoMapper::toDto)
+                        .toList());
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<ProductoDto> obtenerProductosActivos() {
         log.debug("Obteniendo productos activos");
         return obtenerProductoPorEstado(EstadoProducto.ACTIVO);
     }
 
+    // El índice en memoria resuelve la consulta y ordena por relevancia; la BD solo entrega
+    // por clave primaria los productos de la página de resultados
     @Override
     @Transactional(readOnly = true)
     public List<ProductoDto> buscarProductosPorNombre(String nombre) {
@@ -166,29 +229,105 @@ public class ProductoServiceImpl implements ProductoService {
             throw new ProductoBusinessException("El término de búsqueda no puede estar vacío");
         }
 
-        return productoRepository.findByNombreContainingIgnoreCase(nombre.trim()).stream()
+        List<Long> ids = indiceProductos.buscar(nombre.trim());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Producto> encontrados = productoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        return ids.stream()
+                .map(encontrados::get)
+                .filter(Objects::nonNull)
                 .map(productoMapper::toDto)
                 .toList();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<ProductoDto> obtenerProductosDisponibles() {
         log.debug("Obteniendo productos disponibles (activos y con stock)");
 
-        return productoRepository.findProductosDisponibles().stream()
-                .map(productoMapper::toDto)
-                .toList();
+        return catalogoCache.obtener(Clave.disponibles(), () ->
+                productoRepository.findProductosDisponibles().stream()
+                        .map(productoMapper::toDto)
+                        .toList());
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<ProductoDto> obtenerTodosLosProductos() {
         log.debug("Obteniendo todos los productos");
 
-        return productoRepository.findAll().stream()
-                .map(productoMapper::toDto)
-                .toList();
+        return catalogoCache.obtener(Clave.todos(), () ->
+                productoRepository.findAll().stream()
+                        .map(productoMapper::toDto)
+                        .toList());
+    }
+
+    @Override
+    public List<SugerenciaProductoDto> sugerirProductos(String prefijo, Integer limite) {
+        if (prefijo == null || prefijo.isBlank()) {
+            return List.of();
+        }
+        if (limite != null && limite <= 0) {
+            throw new ProductoBusinessException("El límite de sugerencias debe ser mayor a 0");
+        }
+        return sugerenciasProductos.sugerir(prefijo, limite != null ? limite : LIMITE_SUGERENCIAS);
+    }
+
+    @Override
+    public CatalogoFacetadoDto consultarCatalogo(FiltroCatalogoDto filtro) {
+        if (filtro.pagina() < 0) {
+            throw new ProductoBusinessException("La página no puede ser negativa");
+        }
+        if (filtro.tamano() <= 0 || filtro.tamano() > TAMANO_MAXIMO_PAGINA) {
+            throw new ProductoBusinessException("El tamaño de página debe estar entre 1 y " + TAMANO_MAXIMO_PAGINA);
+        }
+        if (filtro.pagina() > Integer.MAX_VALUE / filtro.tamano()) {
+            throw new ProductoBusinessException("La página solicitada está fuera de rango");
+        }
+        if (filtro.precioMin() != null && filtro.precioMax() != null && filtro.precioMin() > filtro.precioMax()) {
+            throw new ProductoBusinessException("El precio mínimo no puede ser mayor al precio máximo");
+        }
+        return facetasCatalogo.consultar(filtro);
+    }
+
+    /**
+     * El índice de búsqueda, las sugerencias y las facetas viven en memoria: se construyen desde la BD al
+     * arrancar y luego los mantienen al día las escrituras de este servicio. Las de otras instancias
+     * llegan por {@link #aplicarCambioExterno(CambioExternoCatalogo)}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void construirIndicesCatalogo() {
+        reconstruirIndices();
+    }
+
+    /**
+     * Otra instancia escribió productos: la caché y los índices de esta tienen datos viejos. Corre
+     * antes de que suba aquí la versión de la sección, así lo que se recargue con la versión nueva
+     * ya sale de la BD. Si los índices rehechos quedan igual que antes, la versión no sube.
+     */
+    @EventListener
+    @Transactional(readOnly = true)
+    public void aplicarCambioExterno(CambioExternoCatalogo cambio) {
+        if (cambio.seccion() != Seccion.PRODUCTOS) {
+            return;
+        }
+        catalogoCache.invalidarTodo();
+        if (!reconstruirIndices()) {
+            cambio.sinDiferencias();
+        }
+    }
+
+    // Las ventas cambian el orden de las sugerencias, pero no hace falta seguirlas al instante
+    @Scheduled(initialDelayString = "${sugerencias.popularidad.intervalo-ms:3600000}",
+            fixedDelayString = "${sugerencias.popularidad.intervalo-ms:3600000}")
+    public void refrescarPopularidadSugerencias() {
+        sugerenciasProductos.actualizarPopularidad(unidadesVendidasRecientes());
+        fotoIndices = null;
+        // Cambia el orden de las sugerencias, no los productos: las listas ya no valen, cada producto sí.
+        // Cada instancia calcula su popularidad, no hay nada que avisar a las demás
+        versionCatalogo.incrementarLocal(Seccion.PRODUCTOS, List.of());
     }
 
     // ========== NUEVOS MÉTODOS PARA AJUSTAR STOCK ==========
@@ -201,35 +340,35 @@ public class ProductoServiceImpl implements ProductoService {
         // Validaciones básicas
         validarParametrosStock(id, cantidad, operacion);
 
-        // Obtener el producto
-        Producto producto = obtenerProductoPorIdSeguro(id);
-
-        // Validar que el producto esté activo para operaciones de stock
-        if (producto.getEstado() == EstadoProducto.INACTIVO) {
-            throw new ProductoBusinessException("No se puede ajustar el stock de un producto inactivo");
-        }
-
-        // Realizar la operación correspondiente
+        // INCREMENTAR y DECREMENTAR se resuelven con un UPDATE condicional en la BD:
+        // no hay lectura previa de la entidad ni carrera entre peticiones concurrentes
         switch (operacion.toUpperCase()) {
             case "INCREMENTAR":
-                incrementarStock(producto, cantidad);
+                incrementarStockAtomico(id, cantidad);
+                inventarioService.registrarMovimiento(id, TipoMovimiento.ENTRADA, cantidad, null);
                 break;
             case "DECREMENTAR":
-                decrementarStock(producto, cantidad);
+                decrementarStockAtomico(id, cantidad);
+                inventarioService.registrarMovimiento(id, TipoMovimiento.SALIDA, -cantidad, null);
                 break;
             case "AJUSTAR":
+                Producto producto = obtenerProductoPorIdSeguro(id);
+                validarProductoNoInactivo(producto);
+                Integer stockAnterior = producto.getStock();
                 establecerStockDirecto(producto, cantidad);
+
+                // Actualizar estado automáticamente según el stock
+                actualizarEstadoSegunStock(producto);
+                productoRepository.save(producto);
+                registrarAjuste(id, stockAnterior, cantidad);
+                publicarProducto(id, productoMapper.toDto(producto));
                 break;
             default:
                 throw new ProductoBusinessException("Operación no válida. Use: INCREMENTAR, DECREMENTAR o AJUSTAR");
         }
 
-        // Actualizar estado automáticamente según el stock
-        actualizarEstadoSegunStock(producto);
-
-        productoRepository.save(producto);
-        log.info("Stock ajustado exitosamente - Producto: {}, Stock final: {}, Operación: {}",
-                producto.getNombre(), producto.getStock(), operacion);
+        log.info("Stock ajustado exitosamente - Producto id={}, Operación: {}, Cantidad: {}",
+                id, operacion, cantidad);
     }
 
     @Override
@@ -246,6 +385,26 @@ public class ProductoServiceImpl implements ProductoService {
         ajustarStockProducto(id, cantidad, "DECREMENTAR");
     }
 
+    @Override
+    @Transactional
+    public void incrementarStock(Long id, Integer cantidad, TipoMovimiento tipo, String referencia) {
+        log.info("Incrementando stock del producto id={}, cantidad: {}, movimiento: {} {}", id, cantidad, tipo, referencia);
+        validarParametrosStock(id, cantidad, tipo.name());
+
+        incrementarStockAtomico(id, cantidad);
+        inventarioService.registrarMovimiento(id, tipo, cantidad, referencia);
+    }
+
+    @Override
+    @Transactional
+    public void decrementarStock(Long id, Integer cantidad, TipoMovimiento tipo, String referencia) {
+        log.info("Decrementando stock del producto id={}, cantidad: {}, movimiento: {} {}", id, cantidad, tipo, referencia);
+        validarParametrosStock(id, cantidad, tipo.name());
+
+        decrementarStockAtomico(id, cantidad);
+        inventarioService.registrarMovimiento(id, tipo, -cantidad, referencia);
+    }
+
     @Override
     @Transactional
     public void establecerStock(Long id, Integer nuevoStock) {
@@ -286,25 +445,53 @@ public class ProductoServiceImpl implements ProductoService {
         }
     }
 
-    private void incrementarStock(Producto producto, Integer cantidad) {
-        int nuevoStock = producto.getStock() + cantidad;
-        producto.setStock(nuevoStock);
-        log.debug("Stock incrementado: {} + {} = {}", producto.getStock() - cantidad, cantidad, nuevoStock);
+    private void incrementarStockAtomico(Long id, Integer cantidad) {
+        int filas = productoRepository.incrementarStockAtomico(id, cantidad, ESTADOS_AJUSTABLES);
+
+        if (filas == 0) {
+            // Diagnóstico solo en el camino de error: producto inexistente o inactivo
+            validarProductoNoInactivo(obtenerProductoPorIdSeguro(id));
+            throw new ProductoBusinessException("No se pudo incrementar el stock del producto id=" + id);
+        }
+        catalogoCache.invalidarProducto(id);
+        facetasCatalogo.ajustarStock(id, cantidad);
+        versionCatalogo.incrementar(Seccion.PRODUCTOS, id);
+        log.debug("Stock incrementado atómicamente: producto id={}, +{}", id, cantidad);
     }
 
-    private void decrementarStock(Producto producto, Integer cantidad) {
-        int stockActual = producto.getStock();
+    private void decrementarStockAtomico(Long id, Integer cantidad) {
+        int filas = productoRepository.decrementarStockSiDisponible(id, cantidad, ESTADOS_AJUSTABLES);
 
-        if (stockActual < cantidad) {
+        if (filas == 0) {
+            MetricasStock.registrarConflicto("producto");
+            // Diagnóstico solo en el camino de error: inexistente, inactivo o stock insuficiente
+            Producto producto = obtenerProductoPorIdSeguro(id);
+            validarProductoNoInactivo(producto);
             throw new ProductoBusinessException(
                     String.format("Stock insuficiente. Stock actual: %d, cantidad a decrementar: %d",
-                            stockActual, cantidad)
+                            producto.getStock(), cantidad)
             );
         }
+        catalogoCache.invalidarProducto(id);
+        facetasCatalogo.ajustarStock(id, -cantidad);
+        versionCatalogo.incrementar(Seccion.PRODUCTOS, id);
+        log.debug("Stock decrementado atómicamente: producto id={}, -{}", id, cantidad);
+    }
 
-        int nuevoStock = stockActual - cantidad;
-        producto.setStock(nuevoStock);
-        log.debug("Stock decrementado: {} - {} = {}", stockActual, cantidad, nuevoStock);
+    // El libro guarda la diferencia, no el valor absoluto establecido
+    private void registrarAjuste(Long id, Integer stockAnterior, Integer stockNuevo) {
+        if (stockNuevo == null) {
+            return;
+        }
+        int anterior = stockAnterior != null ? stockAnterior : 0;
+        inventarioService.registrarMovimiento(id, TipoMovimiento.AJUSTE, stockNuevo - anterior, null);
+    }
+
+    private void validarProductoNoInactivo(Producto producto) {
+        // Validar que el producto esté activo para operaciones de stock
+        if (producto.getEstado() == EstadoProducto.INACTIVO) {
+            throw new ProductoBusinessException("No se puede ajustar el stock de un producto inactivo");
+        }
     }
 
     private void establecerStockDirecto(Producto producto, Integer nuevoStock) {
@@ -331,6 +518,48 @@ public class ProductoServiceImpl implements ProductoService {
 
     // ========== MÉTODOS PRIVADOS DE APOYO EXISTENTES ==========
 
+    // Caché, índice de búsqueda, sugerencias y facetas reciben el producto tal como quedó en la transacción
+    private void publicarProducto(Long id, ProductoDto dto) {
+        catalogoCache.refrescarProducto(id, dto);
+        indiceProductos.actualizar(dto);
+        sugerenciasProductos.actualizar(dto);
+        facetasCatalogo.actualizar(dto);
+        versionCatalogo.incrementar(Seccion.PRODUCTOS, id);
+    }
+
+    private void retirarProducto(Long id) {
+        catalogoCache.invalidarProducto(id);
+        indiceProductos.eliminar(id);
+        sugerenciasProductos.eliminar(id);
+        facetasCatalogo.eliminar(id);
+        versionCatalogo.incrementar(Seccion.PRODUCTOS, id);
+    }
+
+    /**
+     * Rehace los índices desde la BD y dice si cambió algo respecto de la reconstrucción anterior.
+     * Las escrituras confirmadas aquí entre medio ya movieron los índices sin pasar por la foto:
+     * si las hubo, se da por cambiado.
+     */
+    private boolean reconstruirIndices() {
+        long cambios = versionCatalogo.cambiosLocales(Seccion.PRODUCTOS);
+        List<ProductoDto> productos = productoRepository.findAll().stream()
+                .map(productoMapper::toDto)
+                .toList();
+        Map<Long, Long> vendidas = unidadesVendidasRecientes();
+        indiceProductos.reconstruir(productos);
+        sugerenciasProductos.reconstruir(productos, vendidas);
+        facetasCatalogo.reconstruir(productos);
+
+        FotoIndices nueva = new FotoIndices(productos.stream().map(HuellaProducto::de).toList(), vendidas, cambios);
+        boolean distinta = !nueva.equals(fotoIndices);
+        fotoIndices = nueva;
+        return distinta;
+    }
+
+    private Map<Long, Long> unidadesVendidasRecientes() {
+        return inventarioService.unidadesVendidasDesde(LocalDateTime.now().minusDays(diasPopularidad));
+    }
+
     private Producto obtenerProductoPorIdSeguro(Long id) {
         if (id == null) {
             throw new ProductoBusinessException("El ID del producto no puede ser nulo");
@@ -403,4 +632,21 @@ public class ProductoServiceImpl implements ProductoService {
                 ? EstadoProducto.INACTIVO
                 : EstadoProducto.ACTIVO;
     }
-}
\ No newline at end of file
+
+    private record FotoIndices(List<HuellaProducto> productos, Map<Long, Long> vendidas, long cambiosLocales) {
+    }
+
+    // ProductoDto compara la categoría (una entidad) por referencia: se usan su id y su nombre
+    private record HuellaProducto(Long id, String nombre, String codigo, String descripcion,
+                                  Long categoriaId, String categoria, Double precio, Integer stock,
+                                  String imagenUrl, String marca, Integer garantia, EstadoProducto estado) {
+
+        static HuellaProducto de(ProductoDto dto) {
+            return new HuellaProducto(dto.getId(), dto.getNombre(), dto.getCodigo(), dto.getDescripcion(),
+                    dto.getCategoria() != null ? dto.getCategoria().getId() : null,
+                    dto.getCategoria() != null ? dto.getCategoria().getNombre() : null,
+                    dto.getPrecio(), dto.getStock(), dto.getImagenUrl(), dto.getMarca(), dto.getGarantia(),
+                    dto.getEstado());
+        }
+    }
+}
@@ -0,0 +1,580 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.ordenventa.ConciliacionEnCursoException;
+import co.todotech.model.dto.ordenventa.AporteOrdenDto;
+import co.todotech.model.dto.ordenventa.ConciliacionResumenDto;
+import co.todotech.model.dto.ordenventa.LineasCategoriaOrdenDto;
+import co.todotech.model.dto.ordenventa.ResumenEstadoOrdenDto;
+import co.todotech.model.dto.ordenventa.ResumenVentasDto;
+import co.todotech.model.dto.ordenventa.TotalesVentaDto;
+import co.todotech.model.entities.AporteCategoria;
+import co.todotech.model.entities.Categoria;
+import co.todotech.model.entities.DetalleOrden;
+import co.todotech.model.entities.Orden;
+import co.todotech.model.entities.ResumenVentaCategoria;
+import co.todotech.model.entities.ResumenVentaOrden;
+import co.todotech.model.entities.ResumenVentaVendedor;
+import co.todotech.model.entities.Usuario;
+import co.todotech.model.enums.EstadoOrden;
+import co.todotech.repository.CategoriaRepository;
+import co.todotech.repository.OrdenRepository;
+import co.todotech.repository.ResumenVentaCategoriaRepository;
+import co.todotech.repository.ResumenVentaOrdenRepository;
+import co.todotech.repository.ResumenVentaVendedorRepository;
+import co.todotech.repository.UsuarioRepository;
+import co.todotech.service.ResumenVentasService;
+import co.todotech.utils.BloqueoTareas;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Resúmenes de ventas precalculados por día, vendedor, categoría y estado.
+ *
+ * Cada orden guarda en {@code resumen_venta_orden} lo que aportó a las tablas agregadas; al
+ * cambiar se resta ese aporte y se suma el nuevo con {@code UPDATE ... SET x = x + :delta}, en
+ * la misma transacción que la orden. Los tableros leen unas pocas filas por día en lugar de
+ * recorrer órdenes y líneas.
+ *
+ * Los cambios que no pasan por {@link OrdenServiceImpl} (líneas editadas desde el servicio de
+ * detalles, escrituras directas en la base) se recogen en la siguiente transición de la orden o
+ * en la conciliación programada, que recalcula los aportes desde las órdenes y corrige las filas
+ * que se hayan desviado. La conciliación corre en una sola instancia a la vez ({@link BloqueoTareas}).
+ */
+@Slf4j
+@Service
+@Lazy(false)
+public class ResumenVentasServiceImpl implements ResumenVentasService {
+
+    private static final double TOLERANCIA = 0.005;
+    private static final int MAX_FILAS_CONOCIDAS = 10000;
+    private static final String TAREA_CONCILIACION = "resumen-ventas-conciliacion";
+    // Reconstruir todo el histórico puede tardar: vencido el plazo, otra instancia podría empezar
+    private static final Duration PLAZO_CONCILIACION = Duration.ofHours(1);
+
+    private final OrdenRepository ordenRepository;
+    private final ResumenVentaOrdenRepository resumenOrdenRepository;
+    private final ResumenVentaVendedorRepository resumenVendedorRepository;
+    private final ResumenVentaCategoriaRepository resumenCategoriaRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final BloqueoTareas bloqueoTareas;
+    private final TransactionTemplate transaccionNueva;
+    private final int diasConciliacion;
+
+    // Claves cuya fila agregada ya existe: evita consultar su existencia en cada cambio
+    private final Set<Object> filasConocidas = ConcurrentHashMap.newKeySet();
+
+    public ResumenVentasServiceImpl(OrdenRepository ordenRepository,
+                                    ResumenVentaOrdenRepository resumenOrdenRepository,
+                                    ResumenVentaVendedorRepository resumenVendedorRepository,
+                                    ResumenVentaCategoriaRepository resumenCategoriaRepository,
+                                    UsuarioRepository usuarioRepository,
+                                    CategoriaRepository categoriaRepository,
+                                    BloqueoTareas bloqueoTareas,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${resumen.ventas.conciliacion.dias:7}") int diasConciliacion) {
+        if (diasConciliacion <= 0) {
+            throw new IllegalArgumentException("resumen.ventas.conciliacion.dias debe ser mayor a 0");
+        }
+        this.ordenRepository = ordenRepository;
+        this.resumenOrdenRepository = resumenOrdenRepository;
+        this.resumenVendedorRepository = resumenVendedorRepository;
+        this.resumenCategoriaRepository = resumenCategoriaRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.bloqueoTareas = bloqueoTareas;
+        this.diasConciliacion = diasConciliacion;
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    @Transactional
+    public void registrarOrden(Orden orden) {
+        if (orden.getId() == null) {
+            return;
+        }
+
+        // Descuento, impuestos y total se derivan en @PreUpdate: se vuelca antes de leerlos
+        ordenRepository.flush();
+
+        ResumenVentaOrden nuevo = aporteDe(orden);
+        ResumenVentaOrden anterior = resumenOrdenRepository.bloquear(orden.getId()).orElse(null);
+        if (anterior != null && coincide(anterior, nuevo)) {
+            return;
+        }
+
+        aplicarCambio(anterior, nuevo);
+        resumenOrdenRepository.save(nuevo);
+    }
+
+    @Override
+    @Transactional
+    public void eliminarOrden(Long ordenId) {
+        resumenOrdenRepository.bloquear(ordenId).ifPresent(anterior -> {
+            aplicarCambio(anterior, null);
+            resumenOrdenRepository.delete(anterior);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ResumenVentasDto obtenerResumen(LocalDate desde, LocalDate hasta, Set<EstadoOrden> estados) {
+        if (desde == null || hasta == null || desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("El rango de fechas del resumen no es válido");
+        }
+        Predicate<EstadoOrden> incluido = estados == null || estados.isEmpty() ? estado -> true : estados::contains;
+
+        Totales general = Totales.CERO;
+        Map<LocalDate, Totales> porDia = new TreeMap<>();
+        Map<Long, Totales> porVendedor = new HashMap<>();
+        Map<EstadoOrden, Totales> porEstado = new EnumMap<>(EstadoOrden.class);
+        for (ResumenVentaVendedor fila : resumenVendedorRepository.findByDiaBetween(desde, hasta)) {
+            if (!incluido.test(fila.getEstado())) {
+                continue;
+            }
+            Totales totales = new Totales(fila.getCantidadOrdenes(), 0, fila.getSubtotal(), fila.getDescuento(),
+                    fila.getImpuestos(), fila.getTotal());
+            general = general.mas(totales);
+            porDia.merge(fila.getDia(), totales, Totales::mas);
+            porVendedor.merge(fila.getVendedorId(), totales, Totales::mas);
+            porEstado.merge(fila.getEstado(), totales, Totales::mas);
+        }
+
+        Map<Long, Totales> porCategoria = new HashMap<>();
+        for (ResumenVentaCategoria fila : resumenCategoriaRepository.findByDiaBetween(desde, hasta)) {
+            if (incluido.test(fila.getEstado())) {
+                porCategoria.merge(fila.getCategoriaId(), new Totales(fila.getCantidadOrdenes(), fila.getUnidades(),
+                        fila.getSubtotal(), fila.getDescuento(), fila.getImpuestos(), fila.getTotal()), Totales::mas);
+            }
+        }
+
+        Map<Long, String> vendedores = usuarioRepository.findAllById(porVendedor.keySet()).stream()
+                .collect(Collectors.toMap(Usuario::getId, Usuario::getNombre));
+        Map<Long, String> categorias = categoriaRepository.findAllById(porCategoria.keySet()).stream()
+                .collect(Collectors.toMap(Categoria::getId, Categoria::getNombre));
+
+        List<EstadoOrden> estadosIncluidos = estados == null ? List.of() : estados.stream().sorted().toList();
+        return new ResumenVentasDto(
+                desde,
+                hasta,
+                estadosIncluidos,
+                general.aDto("general", null, false),
+                aDtos(porDia, LocalDate::toString, dia -> null, false, Comparator.comparing(TotalesVentaDto::clave)),
+                aDtos(porVendedor, String::valueOf, vendedores::get, false, POR_TOTAL_DESC),
+                aDtos(porCategoria, String::valueOf, categorias::get, true, POR_TOTAL_DESC),
+                aDtos(porEstado, EstadoOrden::name, estado -> null, false,
+                        Comparator.comparing(dto -> EstadoOrden.valueOf(dto.clave()))));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ResumenEstadoOrdenDto> resumirPorEstado() {
+        return resumenVendedorRepository.resumirPorEstado();
+    }
+
+    @Override
+    public ConciliacionResumenDto reconciliar(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("El rango de fechas de la conciliación no es válido");
+        }
+        return bloqueoTareas.ejecutar(TAREA_CONCILIACION, PLAZO_CONCILIACION, () -> conciliarRango(desde, hasta))
+                .orElseThrow(() -> new ConciliacionEnCursoException(
+                        "Ya hay una conciliación de los resúmenes de ventas en curso"));
+    }
+
+    @Scheduled(cron = "${resumen.ventas.conciliacion.cron:0 30 3 * * *}")
+    public void reconciliarRecientes() {
+        LocalDate hoy = LocalDate.now();
+        try {
+            reconciliar(hoy.minusDays(diasConciliacion - 1L), hoy);
+        } catch (ConciliacionEnCursoException e) {
+            log.info("📊 Conciliación programada omitida: otra instancia la está corriendo");
+        }
+    }
+
+    /**
+     * Las órdenes creadas antes de existir los resúmenes no tienen aporte:
+     * con el libro vacío se reconstruye todo el histórico una vez.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirSiFalta() {
+        if (resumenOrdenRepository.count() > 0) {
+            return;
+        }
+        ordenRepository.buscarFechaMinima().ifPresent(primera -> {
+            log.info("📊 Construyendo resúmenes de ventas desde {}", primera.toLocalDate());
+            try {
+                reconciliar(primera.toLocalDate(), LocalDate.now());
+            } catch (ConciliacionEnCursoException e) {
+                log.info("📊 Otra instancia ya está construyendo los resúmenes de ventas");
+            }
+        });
+    }
+
+    private ConciliacionResumenDto conciliarRango(LocalDate desde, LocalDate hasta) {
+        int dias = 0;
+        int ordenesCorregidas = 0;
+        int filasCorregidas = 0;
+        // Un día por transacción: los bloqueos sobre las filas agregadas duran poco
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            LocalDate actual = dia;
+            int[] correcciones = transaccionNueva.execute(estado -> conciliarDia(actual));
+            ordenesCorregidas += correcciones[0];
+            filasCorregidas += correcciones[1];
+            dias++;
+        }
+
+        if (ordenesCorregidas > 0 || filasCorregidas > 0) {
+            log.warn("⚠️ Resúmenes de ventas conciliados {} a {}: {} aportes y {} filas corregidas",
+                    desde, hasta, ordenesCorregidas, filasCorregidas);
+        } else {
+            log.info("📊 Resúmenes de ventas {} a {} sin desviaciones", desde, hasta);
+        }
+        return new ConciliacionResumenDto(desde, hasta, dias, ordenesCorregidas, filasCorregidas);
+    }
+
+    /**
+     * Recalcula los aportes del día desde las órdenes y deja cada fila agregada en su suma.
+     *
+     * Bloquea en el mismo orden que {@link #registrarOrden}: primero los aportes, después las filas
+     * agregadas. Las órdenes se leen con todo ya bloqueado: un cambio concurrente confirmó antes y
+     * entra en el recálculo, o espera a que termine la conciliación y suma su diferencia sobre lo
+     * corregido. En ningún caso se cuenta dos veces ni se deshace.
+     */
+    private int[] conciliarDia(LocalDate dia) {
+        resumenOrdenRepository.bloquearDia(dia);
+
+        Set<ClaveVendedor> vendedoresPendientes = new TreeSet<>();
+        Set<ClaveCategoria> categoriasPendientes = new TreeSet<>();
+        resumenVendedorRepository.findByDia(dia).forEach(fila ->
+                vendedoresPendientes.add(new ClaveVendedor(fila.getDia(), fila.getVendedorId(), fila.getEstado())));
+        resumenCategoriaRepository.findByDia(dia).forEach(fila ->
+                categoriasPendientes.add(new ClaveCategoria(fila.getDia(), fila.getCategoriaId(), fila.getEstado())));
+
+        Set<ClaveVendedor> vendedoresBloqueados = new TreeSet<>();
+        Set<ClaveCategoria> categoriasBloqueadas = new TreeSet<>();
+        Map<ClaveVendedor, Totales> porVendedor = new TreeMap<>();
+        Map<ClaveCategoria, Totales> porCategoria = new TreeMap<>();
+        List<ResumenVentaOrden> esperados = aportesEsperados(dia);
+        boolean leidosConFilasBloqueadas = false;
+        while (true) {
+            porVendedor.clear();
+            porCategoria.clear();
+            esperados.forEach(aporte -> acumular(aporte, 1, porVendedor, porCategoria));
+            porVendedor.keySet().stream().filter(clave -> !vendedoresBloqueados.contains(clave))
+                    .forEach(vendedoresPendientes::add);
+            porCategoria.keySet().stream().filter(clave -> !categoriasBloqueadas.contains(clave))
+                    .forEach(categoriasPendientes::add);
+            if (leidosConFilasBloqueadas && vendedoresPendientes.isEmpty() && categoriasPendientes.isEmpty()) {
+                break;
+            }
+            // Una clave nueva a esta altura es de una orden confirmada entre medio: se bloquea y se relee
+            vendedoresPendientes.forEach(clave -> sumarVendedor(clave, Totales.CERO));
+            categoriasPendientes.forEach(clave -> sumarCategoria(clave, Totales.CERO));
+            vendedoresBloqueados.addAll(vendedoresPendientes);
+            categoriasBloqueadas.addAll(categoriasPendientes);
+            vendedoresPendientes.clear();
+            categoriasPendientes.clear();
+            esperados = aportesEsperados(dia);
+            leidosConFilasBloqueadas = true;
+        }
+
+        Map<Long, ResumenVentaOrden> registrados = resumenOrdenRepository.findByDia(dia).stream()
+                .collect(Collectors.toMap(ResumenVentaOrden::getOrdenId, Function.identity()));
+
+        int ordenesCorregidas = 0;
+        for (ResumenVentaOrden esperado : esperados) {
+            ResumenVentaOrden registrado = registrados.remove(esperado.getOrdenId());
+            if (registrado == null || !coincide(registrado, esperado)) {
+                resumenOrdenRepository.save(esperado);
+                ordenesCorregidas++;
+            }
+        }
+        // Aportes de órdenes que ya no existen
+        resumenOrdenRepository.deleteAll(registrados.values());
+        ordenesCorregidas += registrados.size();
+
+        // Valores absolutos: con las filas bloqueadas, nadie más suma en ellas hasta el commit
+        int filasCorregidas = 0;
+        for (ClaveVendedor clave : vendedoresBloqueados) {
+            Totales totales = porVendedor.getOrDefault(clave, Totales.CERO);
+            filasCorregidas += resumenVendedorRepository.fijar(clave.dia(), clave.vendedorId(), clave.estado(),
+                    totales.ordenes(), totales.subtotal(), totales.descuento(), totales.impuestos(), totales.total(),
+                    TOLERANCIA);
+        }
+        for (ClaveCategoria clave : categoriasBloqueadas) {
+            Totales totales = porCategoria.getOrDefault(clave, Totales.CERO);
+            filasCorregidas += resumenCategoriaRepository.fijar(clave.dia(), clave.categoriaId(), clave.estado(),
+                    totales.ordenes(), totales.unidades(), totales.subtotal(), totales.descuento(),
+                    totales.impuestos(), totales.total(), TOLERANCIA);
+        }
+
+        return new int[]{ordenesCorregidas, filasCorregidas};
+    }
+
+    private List<ResumenVentaOrden> aportesEsperados(LocalDate dia) {
+        LocalDateTime inicio = dia.atStartOfDay();
+        LocalDateTime fin = dia.plusDays(1).atStartOfDay();
+
+        Map<Long, Map<Long, Lineas>> lineasPorOrden = new HashMap<>();
+        for (LineasCategoriaOrdenDto fila : ordenRepository.sumarLineasPorCategoriaEntre(inicio, fin)) {
+            lineasPorOrden.computeIfAbsent(fila.ordenId(), id -> new HashMap<>())
+                    .put(fila.categoriaId(), new Lineas(entero(fila.unidades()), valor(fila.subtotal())));
+        }
+
+        return ordenRepository.buscarAportesEntre(inicio, fin).stream()
+                .map(orden -> construirAporte(orden, lineasPorOrden.getOrDefault(orden.ordenId(), Map.of())))
+                .toList();
+    }
+
+    // Resta el aporte anterior y suma el nuevo; las claves van ordenadas para bloquear siempre en el mismo orden
+    private void aplicarCambio(ResumenVentaOrden anterior, ResumenVentaOrden nuevo) {
+        Map<ClaveVendedor, Totales> porVendedor = new TreeMap<>();
+        Map<ClaveCategoria, Totales> porCategoria = new TreeMap<>();
+        if (anterior != null) {
+            acumular(anterior, -1, porVendedor, porCategoria);
+        }
+        if (nuevo != null) {
+            acumular(nuevo, 1, porVendedor, porCategoria);
+        }
+
+        porVendedor.forEach((clave, delta) -> {
+            if (!delta.esDespreciable(0.0)) {
+                sumarVendedor(clave, delta);
+            }
+        });
+        porCategoria.forEach((clave, delta) -> {
+            if (!delta.esDespreciable(0.0)) {
+                sumarCategoria(clave, delta);
+            }
+        });
+    }
+
+    private static void acumular(ResumenVentaOrden aporte, int signo,
+                                 Map<ClaveVendedor, Totales> porVendedor,
+                                 Map<ClaveCategoria, Totales> porCategoria) {
+        porVendedor.merge(new ClaveVendedor(aporte.getDia(), aporte.getVendedorId(), aporte.getEstado()),
+                new Totales(signo, 0, signo * aporte.getSubtotal(), signo * aporte.getDescuento(),
+                        signo * aporte.getImpuestos(), signo * aporte.getTotal()), Totales::mas);
+        aporte.getCategorias().forEach((categoriaId, parte) ->
+                porCategoria.merge(new ClaveCategoria(aporte.getDia(), categoriaId, aporte.getEstado()),
+                        new Totales(signo, signo * parte.getUnidades(), signo * parte.getSubtotal(),
+                                signo * parte.getDescuento(), signo * parte.getImpuestos(), signo * parte.getTotal()),
+                        Totales::mas));
+    }
+
+    private void sumarVendedor(ClaveVendedor clave, Totales delta) {
+        sumarEnFila(clave,
+                () -> resumenVendedorRepository.existsByDiaAndVendedorIdAndEstado(clave.dia(), clave.vendedorId(), clave.estado()),
+                () -> resumenVendedorRepository.saveAndFlush(ResumenVentaVendedor.builder()
+                        .dia(clave.dia())
+                        .vendedorId(clave.vendedorId())
+                        .estado(clave.estado())
+                        .build()),
+                () -> resumenVendedorRepository.sumar(clave.dia(), clave.vendedorId(), clave.estado(),
+                        delta.ordenes(), delta.subtotal(), delta.descuento(), delta.impuestos(), delta.total()));
+    }
+
+    private void sumarCategoria(ClaveCategoria clave, Totales delta) {
+        sumarEnFila(clave,
+                () -> resumenCategoriaRepository.existsByDiaAndCategoriaIdAndEstado(clave.dia(), clave.categoriaId(), clave.estado()),
+                () -> resumenCategoriaRepository.saveAndFlush(ResumenVentaCategoria.builder()
+                        .dia(clave.dia())
+                        .categoriaId(clave.categoriaId())
+                        .estado(clave.estado())
+                        .build()),
+                () -> resumenCategoriaRepository.sumar(clave.dia(), clave.categoriaId(), clave.estado(),
+                        delta.ordenes(), delta.unidades(), delta.subtotal(), delta.descuento(), delta.impuestos(),
+                        delta.total()));
+    }
+
+    /**
+     * La fila se crea en una transacción propia para que sea visible de inmediato a otras
+     * transacciones; si dos la crean a la vez, la que pierde ignora la clave duplicada y suma
+     * sobre la que ya existe.
+     */
+    private void sumarEnFila(Object clave, BooleanSupplier existe, Runnable crear, IntSupplier sumar) {
+        if (filasConocidas.contains(clave) && sumar.getAsInt() > 0) {
+            return;
+        }
+
+        try {
+            transaccionNueva.executeWithoutResult(estado -> {
+                if (!existe.getAsBoolean()) {
+                    crear.run();
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("La fila de resumen {} ya fue creada por otra transacción", clave);
+        }
+
+        if (sumar.getAsInt() == 0) {
+            throw new IllegalStateException("No existe la fila de resumen " + clave);
+        }
+        if (filasConocidas.size() >= MAX_FILAS_CONOCIDAS) {
+            filasConocidas.clear();
+        }
+        filasConocidas.add(clave);
+    }
+
+    private static ResumenVentaOrden aporteDe(Orden orden) {
+        Map<Long, Lineas> lineas = new HashMap<>();
+        for (DetalleOrden detalle : orden.getProductos()) {
+            if (detalle.getProducto() != null && detalle.getProducto().getCategoria() != null) {
+                lineas.merge(detalle.getProducto().getCategoria().getId(),
+                        new Lineas(entero(detalle.getCantidad()), valor(detalle.getSubtotal())), Lineas::mas);
+            }
+        }
+        return construirAporte(new AporteOrdenDto(orden.getId(), orden.getFecha(), orden.getVendedor().getId(),
+                orden.getEstado(), orden.getSubtotal(), orden.getDescuento(), orden.getImpuestos(), orden.getTotal()), lineas);
+    }
+
+    // Descuento, impuestos y total se reparten entre categorías según el subtotal de sus líneas
+    private static ResumenVentaOrden construirAporte(AporteOrdenDto orden, Map<Long, Lineas> lineasPorCategoria) {
+        double descuento = valor(orden.descuento());
+        double impuestos = valor(orden.impuestos());
+        double total = valor(orden.total());
+        double subtotalLineas = lineasPorCategoria.values().stream().mapToDouble(Lineas::subtotal).sum();
+
+        Map<Long, AporteCategoria> categorias = new HashMap<>();
+        lineasPorCategoria.forEach((categoriaId, lineas) -> {
+            double proporcion = subtotalLineas > 0 ? lineas.subtotal() / subtotalLineas : 0.0;
+            categorias.put(categoriaId, AporteCategoria.builder()
+                    .unidades(lineas.unidades())
+                    .subtotal(lineas.subtotal())
+                    .descuento(descuento * proporcion)
+                    .impuestos(impuestos * proporcion)
+                    .total(total * proporcion)
+                    .build());
+        });
+
+        return ResumenVentaOrden.builder()
+                .ordenId(orden.ordenId())
+                .dia(orden.fecha().toLocalDate())
+                .vendedorId(orden.vendedorId())
+                .estado(orden.estado())
+                .subtotal(valor(orden.subtotal()))
+                .descuento(descuento)
+                .impuestos(impuestos)
+                .total(total)
+                .categorias(categorias)
+                .build();
+    }
+
+    private static boolean coincide(ResumenVentaOrden a, ResumenVentaOrden b) {
+        if (!a.getDia().equals(b.getDia()) || !a.getVendedorId().equals(b.getVendedorId())
+                || a.getEstado() != b.getEstado()
+                || !cerca(a.getSubtotal(), b.getSubtotal()) || !cerca(a.getDescuento(), b.getDescuento())
+                || !cerca(a.getImpuestos(), b.getImpuestos()) || !cerca(a.getTotal(), b.getTotal())
+                || a.getCategorias().size() != b.getCategorias().size()) {
+            return false;
+        }
+        for (Map.Entry<Long, AporteCategoria> entrada : a.getCategorias().entrySet()) {
+            AporteCategoria x = entrada.getValue();
+            AporteCategoria y = b.getCategorias().get(entrada.getKey());
+            if (y == null || x.getUnidades() != y.getUnidades() || !cerca(x.getSubtotal(), y.getSubtotal())
+                    || !cerca(x.getDescuento(), y.getDescuento()) || !cerca(x.getImpuestos(), y.getImpuestos())
+                    || !cerca(x.getTotal(), y.getTotal())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final Comparator<TotalesVentaDto> POR_TOTAL_DESC =
+            Comparator.comparingDouble(TotalesVentaDto::total).reversed().thenComparing(TotalesVentaDto::clave);
+
+    // Los grupos que quedaron en cero tras mover sus órdenes a otro estado no se muestran
+    private static <K> List<TotalesVentaDto> aDtos(Map<K, Totales> grupos, Function<K, String> clave,
+                                                   Function<K, String> nombre, boolean conUnidades,
+                                                   Comparator<TotalesVentaDto> orden) {
+        return grupos.entrySet().stream()
+                .filter(entrada -> entrada.getValue().ordenes() > 0)
+                .map(entrada -> entrada.getValue().aDto(clave.apply(entrada.getKey()), nombre.apply(entrada.getKey()), conUnidades))
+                .sorted(orden)
+                .toList();
+    }
+
+    private static boolean cerca(double a, double b) {
+        return Math.abs(a - b) < TOLERANCIA;
+    }
+
+    private static double valor(Double numero) {
+        return numero != null ? numero : 0.0;
+    }
+
+    private static long entero(Number numero) {
+        return numero != null ? numero.longValue() : 0L;
+    }
+
+    private record Lineas(long unidades, double subtotal) {
+        Lineas mas(Lineas otras) {
+            return new Lineas(unidades + otras.unidades, subtotal + otras.subtotal);
+        }
+    }
+
+    private record Totales(long ordenes, long unidades, double subtotal, double descuento, double impuestos, double total) {
+
+        static final Totales CERO = new Totales(0, 0, 0.0, 0.0, 0.0, 0.0);
+
+        Totales mas(Totales otros) {
+            return new Totales(ordenes + otros.ordenes, unidades + otros.unidades, subtotal + otros.subtotal,
+                    descuento + otros.descuento, impuestos + otros.impuestos, total + otros.total);
+        }
+
+        boolean esDespreciable(double tolerancia) {
+            return ordenes == 0 && unidades == 0
+                    && Math.abs(subtotal) <= tolerancia && Math.abs(descuento) <= tolerancia
+                    && Math.abs(impuestos) <= tolerancia && Math.abs(total) <= tolerancia;
+        }
+
+        TotalesVentaDto aDto(String clave, String nombre, boolean conUnidades) {
+            return new TotalesVentaDto(clave, nombre, ordenes, conUnidades ? unidades : null,
+                    subtotal, descuento, impuestos, total);
+        }
+    }
+
+    private record ClaveVendedor(LocalDate dia, Long vendedorId, EstadoOrden estado) implements Comparable<ClaveVendedor> {
+        private static final Comparator<ClaveVendedor> ORDEN = Comparator.comparing(ClaveVendedor::dia)
+                .thenComparing(ClaveVendedor::vendedorId)
+                .thenComparing(ClaveVendedor::estado);
+
+        @Override
+        public int compareTo(ClaveVendedor otra) {
+            return ORDEN.compare(this, otra);
+        }
+    }
+
+    private record ClaveCategoria(LocalDate dia, Long categoriaId, EstadoOrden estado) implements Comparable<ClaveCategoria> {
+        private static final Comparator<ClaveCategoria> ORDEN = Comparator.comparing(ClaveCategoria::dia)
+                .thenComparing(ClaveCategoria::categoriaId)
+                .thenComparing(ClaveCategoria::estado);
+
+        @Override
+        public int compareTo(ClaveCategoria otra) {
+            return ORDEN.compare(this, otra);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.sesion.RevocacionSesionDto;
+import co.todotech.model.entities.Sesion;
+import co.todotech.model.entities.SesionVersion;
+import co.todotech.model.entities.Usuario;
+import co.todotech.repository.SesionRepository;
+import co.todotech.repository.SesionVersionRepository;
+import co.todotech.security.TokenBlacklistService;
+import co.todotech.service.SesionService;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sesiones persistidas y revocación compartida entre instancias.
+ *
+ * La tabla {@code sesion} es la fuente de verdad; la blacklist en memoria de cada nodo es
+ * su réplica local y la única que consulta el filtro de autenticación, sin ir a la base.
+ * Cada pocos segundos el nodo lee la versión de {@code sesion_version} (una fila por clave
+ * primaria) y, solo si cambió, trae las revocaciones nuevas. Un logout en otra instancia
+ * se ve aquí como máximo un intervalo de sondeo después, y al arrancar se cargan las
+ * revocaciones vigentes, así que sobreviven a los reinicios.
+ */
+@Slf4j
+@Service
+@Lazy(false)
+public class SesionServiceImpl implements SesionService {
+
+    // Mismo plazo que usa la blacklist para tokens sin exp legible
+    private static final Duration EXPIRACION_POR_DEFECTO = Duration.ofHours(24);
+    private static final Duration RETENCION_EXPIRADAS = Duration.ofHours(1);
+
+    private final SesionRepository sesionRepository;
+    private final SesionVersionRepository versionRepository;
+    private final TokenBlacklistService tokenBlacklistService;
+    private final TransactionTemplate transaccionNueva;
+
+    private final AtomicBoolean iniciado = new AtomicBoolean(false);
+    private volatile long ultimaVersion;
+
+    public SesionServiceImpl(SesionRepository sesionRepository,
+                             SesionVersionRepository versionRepository,
+                             TokenBlacklistService tokenBlacklistService,
+                             PlatformTransactionManager transactionManager) {
+        this.sesionRepository = sesionRepository;
+        this.versionRepository = versionRepository;
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    @Transactional
+    public void registrarSesion(String token, Usuario usuario) {
+        DecodedJWT jwt = JWT.decode(token);
+        if (jwt.getId() == null) {
+            log.warn("⚠️ Token sin jti, la sesión de {} no se registra", usuario.getNombreUsuario());
+            return;
+        }
+
+        sesionRepository.save(Sesion.builder()
+                .jti(jwt.getId())
+                .usuario(usuario)
+                .emitidaEn(jwt.getIssuedAt() != null ? aLocal(jwt.getIssuedAt()) : LocalDateTime.now())
+                .expiraEn(expiracionDe(jwt))
+                .revocada(false)
+                .build());
+    }
+
+    @Override
+    @Transactional
+    public boolean revocarSesion(String token) {
+        DecodedJWT jwt = JWT.decode(token);
+        String jti = jwt.getId();
+        if (jti == null) {
+            // Sin jti no hay fila que compartir: la revocación queda solo en este nodo
+            tokenBlacklistService.blacklistToken(token);
+            return true;
+        }
+
+        Sesion sesion = sesionRepository.findById(jti).orElse(null);
+        if (sesion != null && sesion.isRevocada()) {
+            tokenBlacklistService.blacklistJwtId(jti, aInstant(sesion.getExpiraEn()));
+            return false;
+        }
+
+        long version = siguienteVersion();
+
+        if (sesion == null) {
+            sesion = Sesion.builder()
+                    .jti(jti)
+                    .emitidaEn(jwt.getIssuedAt() != null ? aLocal(jwt.getIssuedAt()) : LocalDateTime.now())
+                    .expiraEn(expiracionDe(jwt))
+                    .build();
+        }
+        sesion.setRevocada(true);
+        sesion.setRevocadaEn(LocalDateTime.now());
+        sesion.setVersionRevocacion(version);
+        sesionRepository.save(sesion);
+
+        tokenBlacklistService.blacklistJwtId(jti, aInstant(sesion.getExpiraEn()));
+        log.info("🔒 Sesión {} revocada (versión {})", jti, version);
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarRevocaciones() {
+        inicializarVersion();
+
+        // La versión se lee antes que las filas: lo que se revoque en medio llega repetido, no se pierde
+        long version = versionRepository.findVersionActual().orElse(0L);
+        List<RevocacionSesionDto> vigentes = sesionRepository.findRevocacionesVigentes(LocalDateTime.now());
+        vigentes.forEach(this::aplicar);
+
+        ultimaVersion = version;
+        iniciado.set(true);
+        log.info("🔐 {} sesiones revocadas cargadas (versión {})", vigentes.size(), version);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${sesion.sincronizacion.intervalo-ms:2000}",
+            initialDelayString = "${sesion.sincronizacion.intervalo-ms:2000}")
+    public void sincronizarRevocaciones() {
+        if (!iniciado.get()) {
+            return;
+        }
+
+        long version = versionRepository.findVersionActual().orElse(0L);
+        if (version <= ultimaVersion) {
+            return;
+        }
+
+        List<RevocacionSesionDto> nuevas = sesionRepository.findRevocacionesDesde(ultimaVersion);
+        long maxima = version;
+        for (RevocacionSesionDto revocacion : nuevas) {
+            aplicar(revocacion);
+            maxima = Math.max(maxima, revocacion.versionRevocacion());
+        }
+        ultimaVersion = maxima;
+        log.debug("Revocaciones sincronizadas: {} nuevas, versión {}", nuevas.size(), maxima);
+    }
+
+    @Scheduled(fixedRate = 3600000) // Cada hora
+    public void eliminarSesionesExpiradas() {
+        int eliminadas = sesionRepository.eliminarExpiradas(LocalDateTime.now().minus(RETENCION_EXPIRADAS));
+        if (eliminadas > 0) {
+            log.info("🧹 {} sesiones expiradas eliminadas", eliminadas);
+        }
+    }
+
+    long getUltimaVersion() {
+        return ultimaVersion;
+    }
+
+    // Con la fila de versión bloqueada hasta el commit, las versiones se confirman en orden
+    private long siguienteVersion() {
+        if (versionRepository.incrementar() == 0) {
+            inicializarVersion();
+            versionRepository.incrementar();
+        }
+        return versionRepository.findVersionActual()
+                .orElseThrow(() -> new IllegalStateException("No existe la fila de sesion_version"));
+    }
+
+    // Varias instancias pueden arrancar a la vez: la que pierde la carrera ignora la clave duplicada
+    private void inicializarVersion() {
+        try {
+            transaccionNueva.executeWithoutResult(estado -> {
+                if (!versionRepository.existsById(SesionVersion.ID_UNICO)) {
+                    versionRepository.saveAndFlush(new SesionVersion(SesionVersion.ID_UNICO, 0L));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("La fila de sesion_version ya fue creada por otra instancia");
+        }
+    }
+
+    private void aplicar(RevocacionSesionDto revocacion) {
+        tokenBlacklistService.blacklistJwtId(revocacion.jti(), aInstant(revocacion.expiraEn()));
+    }
+
+    private static LocalDateTime expiracionDe(DecodedJWT jwt) {
+        return jwt.getExpiresAt() != null
+                ? aLocal(jwt.getExpiresAt())
+                : LocalDateTime.now().plus(EXPIRACION_POR_DEFECTO);
+    }
+
+    private static LocalDateTime aLocal(Date fecha) {
+        return LocalDateTime.ofInstant(fecha.toInstant(), ZoneId.systemDefault());
+    }
+
+    private static Instant aInstant(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -4,39 +4,109 @@ package co.todotech.service.impl;
 import co.todotech.model.dto.pasarela.PaymentIntentRequestDto;
 import co.todotech.model.dto.pasarela.PaymentIntentResponseDto;
 import co.todotech.model.dto.pasarela.PaymentConfirmationDto;
+import co.todotech.model.entities.IntentoPago;
 import co.todotech.model.enums.TipoMetodo;
+import co.todotech.pasarela.CircuitBreakerPasarela;
+import co.todotech.pasarela.ClienteHttpStripe;
+import co.todotech.pasarela.MonitorPasarela;
+import co.todotech.pasarela.OpcionesClienteStripe;
+import co.todotech.repository.IntentoPagoRepository;
 import co.todotech.service.PaymentGatewayService;
-import com.stripe.Stripe;
+import com.stripe.StripeClient;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.RateLimitException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.model.Charge;
+import com.stripe.net.LiveStripeResponseGetter;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentCreateParams;
 import com.stripe.param.PaymentIntentConfirmParams;
 import com.stripe.param.ChargeListParams;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
+import java.util.Optional;
 import java.util.ArrayList;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class StripePaymentService implements PaymentGatewayService {
 
+    private final IntentoPagoRepository intentoPagoRepository;
+
     @Value("${stripe.secret-key}")
     private String stripeSecretKey;
 
+    // Solo para apuntar a un stub local de la API en pruebas; vacío = API real de Stripe
+    @Value("${stripe.api-base:}")
+    private String stripeApiBase;
+
+    @Value("${pasarela.stripe.http.timeout-conexion-ms:3000}")
+    private int timeoutConexionMs;
+
+    @Value("${pasarela.stripe.http.timeout-lectura-ms:20000}")
+    private int timeoutLecturaMs;
+
+    @Value("${pasarela.stripe.http.hilos:4}")
+    private int hilosHttp;
+
+    @Value("${pasarela.stripe.http.reintentos-red:1}")
+    private int reintentosDeRed;
+
+    @Value("${pasarela.stripe.circuito.ventana:20}")
+    private int ventanaCircuito;
+
+    @Value("${pasarela.stripe.circuito.minimo-llamadas:10}")
+    private int minimoLlamadasCircuito;
+
+    @Value("${pasarela.stripe.circuito.umbral-fallos:0.5}")
+    private double umbralFallosCircuito;
+
+    @Value("${pasarela.stripe.circuito.abierto-segundos:30}")
+    private long abiertoSegundosCircuito;
+
+    // Cliente propio (no el Stripe.apiKey global) con su pool de conexiones y timeouts
+    private StripeClient stripeClient;
+    private MonitorPasarela monitor;
+
     @PostConstruct
     public void init() {
-        Stripe.apiKey = stripeSecretKey;
+        OpcionesClienteStripe opciones = new OpcionesClienteStripe(
+                stripeSecretKey, stripeApiBase, timeoutConexionMs, timeoutLecturaMs, reintentosDeRed);
+        ClienteHttpStripe http = new ClienteHttpStripe(
+                Duration.ofMillis(timeoutConexionMs), Duration.ofMillis(timeoutLecturaMs), hilosHttp);
+        this.stripeClient = new StripeClient(new LiveStripeResponseGetter(opciones, http));
+
+        this.monitor = new MonitorPasarela("stripe", new CircuitBreakerPasarela(
+                ventanaCircuito, minimoLlamadasCircuito, umbralFallosCircuito, Duration.ofSeconds(abiertoSegundosCircuito)));
+    }
+
+    @Override
+    public String getNombre() {
+        return "stripe";
+    }
+
+    @Override
+    public MonitorPasarela getMonitor() {
+        return monitor;
     }
 
     @Override
     public PaymentIntentResponseDto createPaymentIntent(PaymentIntentRequestDto request) {
+        return createPaymentIntent(request, null);
+    }
+
+    @Override
+    public PaymentIntentResponseDto createPaymentIntent(PaymentIntentRequestDto request, String idempotencyKey) {
         try {
             // Convertir a centavos (Stripe trabaja en la unidad más pequeña de la moneda)
             Long amountInCents = Math.round(request.amount() * 100);
@@ -61,7 +131,14 @@ public class StripePaymentService implements PaymentGatewayService {
                     .putAllMetadata(initialMetadata)
                     .build();
 
-            PaymentIntent paymentIntent = PaymentIntent.create(params);
+            // Con la misma clave, Stripe devuelve el PaymentIntent ya creado en vez de otro nuevo
+            RequestOptions options = RequestOptions.builder()
+                    .setIdempotencyKey(idempotencyKey)
+                    .build();
+
+            PaymentIntent paymentIntent = monitor.ejecutar("create_payment_intent",
+                    () -> stripeClient.paymentIntents().create(params, options),
+                    StripePaymentService::esFalloDePasarela);
 
             // CORREGIDO: Usar HashMap en lugar de Map.of() para manejar valores nulos
             Map<String, Object> additionalData = new HashMap<>();
@@ -90,13 +167,17 @@ public class StripePaymentService implements PaymentGatewayService {
     @Override
     public PaymentIntentResponseDto confirmPayment(PaymentConfirmationDto confirmation) {
         try {
-            PaymentIntent paymentIntent = PaymentIntent.retrieve(confirmation.paymentIntentId());
-
+            PaymentIntent paymentIntent;
             if (confirmation.paymentMethodId() != null) {
                 PaymentIntentConfirmParams params = PaymentIntentConfirmParams.builder()
                         .setPaymentMethod(confirmation.paymentMethodId())
                         .build();
-                paymentIntent = paymentIntent.confirm(params);
+                // confirm ya devuelve el PaymentIntent actualizado: no hace falta recuperarlo antes
+                paymentIntent = monitor.ejecutar("confirm_payment_intent",
+                        () -> stripeClient.paymentIntents().confirm(confirmation.paymentIntentId(), params),
+                        StripePaymentService::esFalloDePasarela);
+            } else {
+                paymentIntent = recuperar(confirmation.paymentIntentId());
             }
 
             // Obtener los cargos asociados al payment intent
@@ -131,8 +212,14 @@ public class StripePaymentService implements PaymentGatewayService {
 
     @Override
     public PaymentIntentResponseDto getPaymentStatus(String paymentIntentId) {
+        // Si los webhooks ya reportaron este PaymentIntent, se responde sin llamar a Stripe
+        Optional<IntentoPago> local = intentoPagoRepository.findById(paymentIntentId);
+        if (local.isPresent()) {
+            return desdeEstadoLocal(local.get());
+        }
+
         try {
-            PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
+            PaymentIntent paymentIntent = recuperar(paymentIntentId);
 
             // Obtener los cargos asociados al payment intent
             List<Map<String, Object>> chargesData = getChargesData(paymentIntentId);
@@ -167,6 +254,42 @@ public class StripePaymentService implements PaymentGatewayService {
         }
     }
 
+    private PaymentIntentResponseDto desdeEstadoLocal(IntentoPago intento) {
+        Map<String, Object> additionalData = new HashMap<>();
+        additionalData.put("amount", intento.getMontoCentavos());
+        additionalData.put("amount_received", intento.getMontoRecibidoCentavos());
+        additionalData.put("currency", intento.getMoneda());
+        additionalData.put("order_id", intento.getOrdenId());
+        additionalData.put("last_payment_error", intento.getUltimoError());
+        additionalData.put("updated_at", intento.getFechaActualizacion());
+        additionalData.put("source", "webhook");
+
+        return new PaymentIntentResponseDto(
+                null,
+                intento.getPaymentIntentId(),
+                intento.getEstado(),
+                "requires_action".equals(intento.getEstado()),
+                null,
+                null,
+                additionalData
+        );
+    }
+
+    private PaymentIntent recuperar(String paymentIntentId) throws StripeException {
+        return monitor.ejecutar("retrieve_payment_intent",
+                () -> stripeClient.paymentIntents().retrieve(paymentIntentId),
+                StripePaymentService::esFalloDePasarela);
+    }
+
+    // Red, timeouts, 5xx y rate limit abren el circuito; un 4xx (tarjeta rechazada, petición inválida) no
+    private static boolean esFalloDePasarela(Exception e) {
+        if (e instanceof ApiConnectionException || e instanceof RateLimitException) {
+            return true;
+        }
+        return e instanceof StripeException stripe
+                && stripe.getStatusCode() != null && stripe.getStatusCode() >= 500;
+    }
+
     /**
      * Método auxiliar para obtener los cargos asociados a un PaymentIntent
      */
@@ -176,7 +299,9 @@ public class StripePaymentService implements PaymentGatewayService {
                     .setPaymentIntent(paymentIntentId)
                     .build();
 
-            List<Charge> charges = Charge.list(params).getData();
+            List<Charge> charges = monitor.ejecutar("list_charges",
+                    () -> stripeClient.charges().list(params),
+                    StripePaymentService::esFalloDePasarela).getData();
             List<Map<String, Object>> chargesData = new ArrayList<>();
 
             for (Charge charge : charges) {
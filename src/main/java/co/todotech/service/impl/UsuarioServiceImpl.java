@@ -9,6 +9,7 @@ import co.todotech.model.enums.TipoUsuario;
 import co.todotech.repository.UsuarioRepository;
 import co.todotech.security.JwtUtil;
 import co.todotech.security.TokenBlacklistService;
+import co.todotech.service.SesionService;
 import co.todotech.service.UsuarioService;
 import co.todotech.utils.EmailService;
 import lombok.RequiredArgsConstructor;
@@ -35,6 +36,7 @@ public class UsuarioServiceImpl implements UsuarioService {
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
     private final TokenBlacklistService tokenBlacklistService;
+    private final SesionService sesionService;
 
     @Override
     public LoginResponse login(String nombreUsuario, String contrasena) {
@@ -59,6 +61,7 @@ public class UsuarioServiceImpl implements UsuarioService {
                 usuario.getId(),
                 usuario.getTipoUsuario().name()
         );
+        sesionService.registrarSesion(token, usuario);
 
         if (usuario.getTipoUsuario().name().equals("ADMIN")) {
             log.info("Usuario es ADMIN - enviando notificación SOLO a: {}", usuario.getCorreo());
@@ -113,7 +116,7 @@ public class UsuarioServiceImpl implements UsuarioService {
                     "Por razones de seguridad, contacte al administrador para restablecer su contraseña"
             );
 
-            log.info("Recordatorio enviado exitosamente SOLO a: {}", usuario.getCorreo());
+            log.info("Recordatorio encolado SOLO para: {}", usuario.getCorreo());
             log.info("=== FIN RECORDATORIO CONTRASEÑA ===");
 
         } catch (Exception e) {
@@ -147,7 +150,8 @@ public class UsuarioServiceImpl implements UsuarioService {
                     fechaHora
             );
 
-            log.info("Notificación de ingreso enviada al admin: {}", admin.getNombreUsuario());
+            // Solo se encola: el envío SMTP ocurre fuera del login
+            log.info("Notificación de ingreso encolada para el admin: {}", admin.getNombreUsuario());
         } catch (Exception e) {
             log.error("Error al enviar notificación de ingreso al admin {}: {}",
                     admin.getNombreUsuario(), e.getMessage());
@@ -0,0 +1,246 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.pasarela.FirmaWebhookInvalidaException;
+import co.todotech.model.entities.EventoPasarela;
+import co.todotech.model.enums.EstadoEventoPasarela;
+import co.todotech.pasarela.FirmaWompi;
+import co.todotech.repository.EventoPasarelaRepository;
+import co.todotech.service.ConciliacionPagoService;
+import co.todotech.service.WebhookPasarelaService;
+import co.todotech.utils.ProcesadorBandeja;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.net.Webhook;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Recepción de webhooks de Stripe y conciliación asíncrona.
+ *
+ * La petición solo verifica la firma, guarda el evento (una vez por id: las reentregas de
+ * Stripe se descartan) y deja el id en una cola acotada; así se responde 200 en pocos
+ * milisegundos. Hay una cola por worker y cada evento va a la de su recurso (el PaymentIntent):
+ * los eventos de un mismo pago se concilian en orden y sin competir por las mismas filas.
+ * Colas, workers y reclamos son los de {@link ProcesadorBandeja}, como en los correos: si un
+ * evento falla, vuelve a PENDIENTE con backoff y lo recoge el barrido periódico, igual que lo que
+ * no cupo en la cola y los reclamos de más de {@code pasarela.webhook.reclamo.plazo-segundos}.
+ */
+@Slf4j
+@Service
+@Lazy(false)
+public class WebhookPasarelaServiceImpl implements WebhookPasarelaService {
+
+    private final EventoPasarelaRepository eventoRepository;
+    private final ConciliacionPagoService conciliacionPagoService;
+    private final ObjectMapper objectMapper;
+    private final String secretoWebhook;
+    private final String secretoEventosWompi;
+    private final long toleranciaSegundos;
+    private final ProcesadorBandeja<String> bandeja;
+
+    public WebhookPasarelaServiceImpl(EventoPasarelaRepository eventoRepository,
+                                    ConciliacionPagoService conciliacionPagoService,
+                                    ObjectMapper objectMapper,
+                                    @Value("${stripe.webhook-secret:}") String secretoWebhook,
+                                    @Value("${stripe.webhook.tolerancia-segundos:300}") long toleranciaSegundos,
+                                    @Value("${wompi.events-secret:}") String secretoEventosWompi,
+                                    @Value("${pasarela.webhook.cola.capacidad:10000}") int capacidadCola,
+                                    @Value("${pasarela.webhook.workers:2}") int numeroWorkers,
+                                    @Value("${pasarela.webhook.max-intentos:8}") int maxIntentos,
+                                    @Value("${pasarela.webhook.reintento.base-segundos:30}") long esperaBaseSegundos,
+                                    @Value("${pasarela.webhook.reclamo.plazo-segundos:300}") long plazoReclamoSegundos) {
+        this.eventoRepository = eventoRepository;
+        this.conciliacionPagoService = conciliacionPagoService;
+        this.objectMapper = objectMapper;
+        this.secretoWebhook = secretoWebhook;
+        this.toleranciaSegundos = toleranciaSegundos;
+        this.secretoEventosWompi = secretoEventosWompi;
+        // Lotes de uno: cada evento se concilia en su propia transacción
+        this.bandeja = new ProcesadorBandeja<>(
+                new ProcesadorBandeja.Opciones("webhook-pasarela", numeroWorkers, capacidadCola, 1, maxIntentos,
+                        Duration.ofSeconds(esperaBaseSegundos), Duration.ofSeconds(plazoReclamoSegundos)),
+                new AlmacenEventos(),
+                lote -> lote.forEach(this::conciliar));
+    }
+
+    @Override
+    public boolean registrarEventoStripe(String payload, String firma) {
+        verificarFirma(payload, firma);
+
+        JsonNode evento = leer(payload);
+        String id = evento.path("id").asText(null);
+        String tipo = evento.path("type").asText(null);
+        String objetoId = evento.path("data").path("object").path("id").asText(null);
+        if (id == null || tipo == null) {
+            throw new IllegalArgumentException("El evento de Stripe no trae id o type");
+        }
+
+        return guardarYEncolar(id, tipo, objetoId, payload);
+    }
+
+    @Override
+    public boolean registrarEventoWompi(String payload, String checksum) {
+        JsonNode evento = leer(payload);
+        verificarChecksumWompi(evento, checksum);
+
+        String tipo = evento.path("event").asText(null);
+        JsonNode transaccion = evento.path("data").path("transaction");
+        String transaccionId = transaccion.path("id").asText(null);
+        if (tipo == null || transaccionId == null) {
+            throw new IllegalArgumentException("El evento de Wompi no trae event o data.transaction.id");
+        }
+
+        // Wompi no asigna id a sus eventos: una reentrega repite transacción, estado y timestamp
+        String id = "wompi_" + transaccionId + "_" + transaccion.path("status").asText() + "_" + evento.path("timestamp").asText();
+        return guardarYEncolar(id, tipo, transaccionId, payload);
+    }
+
+    private boolean guardarYEncolar(String id, String tipo, String objetoId, String payload) {
+        // Camino rápido para las reentregas; la clave primaria cubre la carrera entre dos entregas
+        if (eventoRepository.existsById(id)) {
+            log.debug("Evento {} ya recibido, se ignora la reentrega", id);
+            return false;
+        }
+        try {
+            eventoRepository.saveAndFlush(EventoPasarela.builder()
+                    .id(id)
+                    .tipo(tipo)
+                    .objetoId(objetoId)
+                    .payload(payload)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Evento {} ya recibido (entrega concurrente)", id);
+            return false;
+        }
+
+        if (!bandeja.encolar(id, objetoId)) {
+            log.warn("⚠️ Cola de eventos de pasarela llena, el evento {} se procesará en el próximo barrido", id);
+        }
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        bandeja.iniciar();
+    }
+
+    @PreDestroy
+    public void detener() {
+        bandeja.detener();
+    }
+
+    @Scheduled(fixedDelayString = "${pasarela.webhook.reencolar.intervalo-ms:30000}")
+    public void reencolarPendientes() {
+        bandeja.reencolarPendientes();
+    }
+
+    public int getTamanoCola() {
+        return bandeja.getTamanoCola();
+    }
+
+    private void conciliar(String id) {
+        try {
+            conciliacionPagoService.procesarEvento(id);
+        } catch (Exception e) {
+            registrarFallo(id, e);
+        }
+    }
+
+    private void registrarFallo(String id, Exception error) {
+        EventoPasarela evento = eventoRepository.findById(id).orElse(null);
+        if (evento == null) {
+            return;
+        }
+
+        int intentos = evento.getIntentos() + 1;
+        evento.setIntentos(intentos);
+        evento.setUltimoError(ProcesadorBandeja.truncarError(error.getMessage()));
+
+        if (bandeja.agotado(intentos)) {
+            evento.setEstado(EstadoEventoPasarela.FALLIDO);
+            log.error("❌ Evento {} ({}) marcado como FALLIDO tras {} intentos: {}", id, evento.getTipo(), intentos, error.getMessage());
+        } else {
+            Duration espera = bandeja.esperaTras(intentos);
+            evento.setEstado(EstadoEventoPasarela.PENDIENTE);
+            evento.setProximoIntento(LocalDateTime.now().plus(espera));
+            log.warn("⚠️ Evento {} reprogramado en {} s (intento {}/{}): {}", id, espera.toSeconds(), intentos, bandeja.getMaxIntentos(), error.getMessage());
+        }
+        eventoRepository.save(evento);
+    }
+
+    private void verificarFirma(String payload, String firma) {
+        if (secretoWebhook == null || secretoWebhook.isBlank()) {
+            log.error("❌ Webhook de Stripe recibido sin stripe.webhook-secret configurado");
+            throw new FirmaWebhookInvalidaException("Webhook de Stripe no configurado");
+        }
+        if (firma == null || firma.isBlank()) {
+            throw new FirmaWebhookInvalidaException("Falta el encabezado Stripe-Signature");
+        }
+        try {
+            Webhook.Signature.verifyHeader(payload, firma, secretoWebhook, toleranciaSegundos);
+        } catch (SignatureVerificationException e) {
+            throw new FirmaWebhookInvalidaException("Firma de Stripe inválida: " + e.getMessage());
+        }
+    }
+
+    private void verificarChecksumWompi(JsonNode evento, String checksumEncabezado) {
+        if (secretoEventosWompi == null || secretoEventosWompi.isBlank()) {
+            log.error("❌ Evento de Wompi recibido sin wompi.events-secret configurado");
+            throw new FirmaWebhookInvalidaException("Eventos de Wompi no configurados");
+        }
+        String esperado = FirmaWompi.checksumEvento(evento, secretoEventosWompi);
+        if (!FirmaWompi.coincide(esperado, evento.path("signature").path("checksum").asText(null))) {
+            throw new FirmaWebhookInvalidaException("Checksum de Wompi inválido");
+        }
+        if (checksumEncabezado != null && !FirmaWompi.coincide(esperado, checksumEncabezado)) {
+            throw new FirmaWebhookInvalidaException("X-Event-Checksum no coincide con el del evento");
+        }
+    }
+
+    private JsonNode leer(String payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Payload de webhook ilegible: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private class AlmacenEventos implements ProcesadorBandeja.Almacen<String> {
+
+        @Override
+        public List<ProcesadorBandeja.Pendiente<String>> pendientes(LocalDateTime ahora, Limit limite) {
+            return eventoRepository.findPendientes(ahora, limite).stream()
+                    .map(pendiente -> new ProcesadorBandeja.Pendiente<>(pendiente.id(), pendiente.objetoId()))
+                    .toList();
+        }
+
+        @Override
+        public int reclamar(String id, LocalDateTime reclamo) {
+            return eventoRepository.reclamar(id, reclamo);
+        }
+
+        @Override
+        public int liberar(List<String> ids, LocalDateTime reclamo) {
+            return eventoRepository.liberar(ids, reclamo);
+        }
+
+        @Override
+        public int liberarVencidos(LocalDateTime limite) {
+            return eventoRepository.liberarVencidos(limite);
+        }
+    }
+}
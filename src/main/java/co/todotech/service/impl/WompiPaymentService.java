@@ -0,0 +1,376 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.pasarela.WompiApiException;
+import co.todotech.model.dto.pasarela.PaymentConfirmationDto;
+import co.todotech.model.dto.pasarela.PaymentIntentRequestDto;
+import co.todotech.model.dto.pasarela.PaymentIntentResponseDto;
+import co.todotech.model.dto.pasarela.wombi.WompiTransactionData;
+import co.todotech.model.dto.pasarela.wombi.WompiTransactionRequest;
+import co.todotech.model.entities.IntentoPago;
+import co.todotech.model.enums.TipoMetodo;
+import co.todotech.pasarela.CircuitBreakerPasarela;
+import co.todotech.pasarela.ClienteWompi;
+import co.todotech.pasarela.EstadoTransaccionWompi;
+import co.todotech.pasarela.FirmaWompi;
+import co.todotech.pasarela.MonitorPasarela;
+import co.todotech.repository.IntentoPagoRepository;
+import co.todotech.service.PaymentGatewayService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pasarela Wompi (Colombia, solo COP).
+ *
+ * Wompi no tiene paso de confirmación: una transacción queda PENDING y pasa sola a un estado
+ * final. confirmPayment sondea ese estado con backoff exponencial y jitter, sin hilos dormidos
+ * (cada consulta se programa con {@link CompletableFuture#delayedExecutor}); el evento
+ * transaction.updated que envía Wompi llega por el webhook y concilia pago y orden.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WompiPaymentService implements PaymentGatewayService {
+
+    private static final String MONEDA = "COP";
+    private static final String PREFIJO_REFERENCIA = "TT-";
+
+    private final IntentoPagoRepository intentoPagoRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${wompi.api-base:https://sandbox.wompi.co/v1}")
+    private String apiBase;
+
+    @Value("${wompi.public-key:}")
+    private String llavePublica;
+
+    @Value("${wompi.private-key:}")
+    private String llavePrivada;
+
+    @Value("${wompi.integrity-secret:}")
+    private String secretoIntegridad;
+
+    @Value("${pasarela.wompi.http.timeout-conexion-ms:3000}")
+    private int timeoutConexionMs;
+
+    @Value("${pasarela.wompi.http.timeout-lectura-ms:15000}")
+    private int timeoutLecturaMs;
+
+    @Value("${pasarela.wompi.http.hilos:4}")
+    private int hilosHttp;
+
+    @Value("${pasarela.wompi.circuito.ventana:20}")
+    private int ventanaCircuito;
+
+    @Value("${pasarela.wompi.circuito.minimo-llamadas:10}")
+    private int minimoLlamadasCircuito;
+
+    @Value("${pasarela.wompi.circuito.umbral-fallos:0.5}")
+    private double umbralFallosCircuito;
+
+    @Value("${pasarela.wompi.circuito.abierto-segundos:30}")
+    private long abiertoSegundosCircuito;
+
+    @Value("${pasarela.wompi.sondeo.espera-inicial-ms:500}")
+    private long esperaInicialSondeoMs;
+
+    @Value("${pasarela.wompi.sondeo.espera-maxima-ms:8000}")
+    private long esperaMaximaSondeoMs;
+
+    @Value("${pasarela.wompi.sondeo.tiempo-maximo-ms:20000}")
+    private long tiempoMaximoSondeoMs;
+
+    private ClienteWompi cliente;
+    private MonitorPasarela monitor;
+
+    @PostConstruct
+    public void init() {
+        this.cliente = new ClienteWompi(apiBase, llavePublica, llavePrivada, objectMapper,
+                Duration.ofMillis(timeoutConexionMs), Duration.ofMillis(timeoutLecturaMs), hilosHttp);
+        this.monitor = new MonitorPasarela("wompi", new CircuitBreakerPasarela(
+                ventanaCircuito, minimoLlamadasCircuito, umbralFallosCircuito, Duration.ofSeconds(abiertoSegundosCircuito)));
+    }
+
+    @Override
+    public String getNombre() {
+        return "wompi";
+    }
+
+    @Override
+    public MonitorPasarela getMonitor() {
+        return monitor;
+    }
+
+    @Override
+    public PaymentIntentResponseDto createPaymentIntent(PaymentIntentRequestDto request) {
+        return createPaymentIntent(request, null);
+    }
+
+    /**
+     * Con {@code metadata.payment_method_token} (tokenizado en el navegador con la llave pública)
+     * crea la transacción desde el servidor. Sin él, devuelve la referencia y la firma de
+     * integridad para que el frontend abra el widget de Wompi.
+     *
+     * La referencia se deriva de la Idempotency-Key: Wompi rechaza una referencia repetida,
+     * así que un reintento nunca produce un segundo cobro.
+     */
+    @Override
+    public PaymentIntentResponseDto createPaymentIntent(PaymentIntentRequestDto request, String idempotencyKey) {
+        if (!MONEDA.equalsIgnoreCase(request.currency())) {
+            return error("Wompi solo procesa pagos en " + MONEDA);
+        }
+
+        long amountInCents = Math.round(request.amount() * 100);
+        String referencia = referenciaPara(request.orderId(), idempotencyKey);
+        String firma = FirmaWompi.integridad(referencia, amountInCents, MONEDA, secretoIntegridad);
+        Map<String, String> metadata = request.metadata() != null ? request.metadata() : Map.of();
+
+        String tokenMetodo = metadata.get("payment_method_token");
+        if (tokenMetodo == null) {
+            return datosCheckout(referencia, amountInCents, firma);
+        }
+        if (request.customerEmail() == null) {
+            return error("Wompi requiere el correo del cliente (customerEmail)");
+        }
+
+        Map<String, Object> metodoPago = new HashMap<>();
+        metodoPago.put("type", metadata.getOrDefault("payment_method_type", "CARD"));
+        metodoPago.put("token", tokenMetodo);
+        metodoPago.put("installments", Integer.parseInt(metadata.getOrDefault("installments", "1")));
+
+        CompletableFuture<String> aceptacion = metadata.containsKey("acceptance_token")
+                ? CompletableFuture.completedFuture(metadata.get("acceptance_token"))
+                : monitor.ejecutarAsync("acceptance_token", cliente::obtenerTokenAceptacion, WompiPaymentService::esFalloDePasarela);
+
+        CompletableFuture<WompiTransactionData> transaccion = aceptacion.thenCompose(token ->
+                monitor.ejecutarAsync("create_transaction", () -> cliente.crearTransaccion(new WompiTransactionRequest(
+                        amountInCents,
+                        MONEDA,
+                        referencia,
+                        null,
+                        request.customerEmail(),
+                        (String) metodoPago.get("type"),
+                        metadata.get("redirect_url"),
+                        token,
+                        firma,
+                        metodoPago
+                )), WompiPaymentService::esFalloDePasarela));
+
+        try {
+            WompiTransactionData data = esperar(transaccion);
+            log.info("💳 Transacción Wompi {} creada para la orden {} ({})", data.id(), request.orderId(), data.status());
+            return aRespuesta(data);
+        } catch (WompiApiException e) {
+            log.error("Error creating Wompi transaction: {}", e.getMessage(), e);
+            return error(e.getMessage());
+        }
+    }
+
+    @Override
+    public PaymentIntentResponseDto confirmPayment(PaymentConfirmationDto confirmation) {
+        try {
+            return aRespuesta(esperar(esperarEstadoFinal(confirmation.paymentIntentId())));
+        } catch (WompiApiException e) {
+            log.error("Error confirming Wompi payment: {}", e.getMessage(), e);
+            return error(e.getMessage());
+        }
+    }
+
+    @Override
+    public PaymentIntentResponseDto getPaymentStatus(String paymentIntentId) {
+        // Si el webhook ya reportó la transacción, se responde sin llamar a Wompi
+        Optional<IntentoPago> local = intentoPagoRepository.findById(paymentIntentId);
+        if (local.isPresent()) {
+            return desdeEstadoLocal(local.get());
+        }
+
+        try {
+            return aRespuesta(esperar(consultar(paymentIntentId)));
+        } catch (WompiApiException e) {
+            log.error("Error getting Wompi payment status: {}", e.getMessage(), e);
+            return error(e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean supports(TipoMetodo paymentMethodType) {
+        return paymentMethodType == TipoMetodo.WOMPI;
+    }
+
+    /**
+     * Consulta la transacción hasta que llegue a un estado final o se agote
+     * {@code pasarela.wompi.sondeo.tiempo-maximo-ms}; en ese caso se devuelve el último estado
+     * visto (PENDING) y el webhook terminará la conciliación.
+     */
+    CompletableFuture<WompiTransactionData> esperarEstadoFinal(String transaccionId) {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(tiempoMaximoSondeoMs);
+        return sondear(transaccionId, 0, limite, null);
+    }
+
+    private CompletableFuture<WompiTransactionData> sondear(String transaccionId, int intento, long limite,
+                                                            WompiTransactionData ultimo) {
+        return consultar(transaccionId)
+                .thenApply(Optional::of)
+                .exceptionally(error -> {
+                    // Un fallo transitorio de Wompi no corta el sondeo; el circuito abierto o un 4xx sí
+                    if (causa(error) instanceof WompiApiException e && e.esFalloDePasarela()) {
+                        log.warn("⚠️ Sondeo de la transacción Wompi {} falló (intento {}): {}", transaccionId, intento + 1, e.getMessage());
+                        return Optional.empty();
+                    }
+                    throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+                })
+                .thenCompose(consulta -> {
+                    WompiTransactionData actual = consulta.orElse(ultimo);
+                    if (actual != null && EstadoTransaccionWompi.desde(actual.status()).esFinal()) {
+                        return CompletableFuture.completedFuture(actual);
+                    }
+
+                    long espera = esperaConJitter(intento);
+                    if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(espera) > limite) {
+                        return actual != null
+                                ? CompletableFuture.completedFuture(actual)
+                                : CompletableFuture.failedFuture(new WompiApiException(0,
+                                "Wompi no respondió el estado de la transacción " + transaccionId));
+                    }
+
+                    Executor diferido = CompletableFuture.delayedExecutor(espera, TimeUnit.MILLISECONDS, cliente.getExecutor());
+                    return CompletableFuture.runAsync(() -> { }, diferido)
+                            .thenCompose(nada -> sondear(transaccionId, intento + 1, limite, actual));
+                });
+    }
+
+    // Backoff exponencial con "equal jitter": la mitad fija y la otra mitad aleatoria, para que
+    // varias confirmaciones simultáneas no consulten a Wompi al mismo tiempo
+    long esperaConJitter(int intento) {
+        long base = Math.min(esperaMaximaSondeoMs, esperaInicialSondeoMs << Math.min(intento, 20));
+        long mitad = base / 2;
+        return mitad + ThreadLocalRandom.current().nextLong(base - mitad + 1);
+    }
+
+    private CompletableFuture<WompiTransactionData> consultar(String transaccionId) {
+        return monitor.ejecutarAsync("get_transaction",
+                () -> cliente.consultarTransaccion(transaccionId),
+                WompiPaymentService::esFalloDePasarela);
+    }
+
+    // Solo aquí se espera el resultado: la interfaz PaymentGatewayService es síncrona
+    private static <T> T esperar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (causa(e) instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new WompiApiException(0, causa(e).getMessage(), causa(e));
+        }
+    }
+
+    private static Throwable causa(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static boolean esFalloDePasarela(Exception e) {
+        return e instanceof WompiApiException wompi && wompi.esFalloDePasarela();
+    }
+
+    private static String referenciaPara(Long ordenId, String idempotencyKey) {
+        UUID sufijo = idempotencyKey != null
+                ? UUID.nameUUIDFromBytes(idempotencyKey.getBytes(StandardCharsets.UTF_8))
+                : UUID.randomUUID();
+        return PREFIJO_REFERENCIA + ordenId + "-" + sufijo.toString().replace("-", "");
+    }
+
+    /** Orden a la que pertenece una referencia generada por {@link #referenciaPara}, o null. */
+    public static Long ordenDeReferencia(String referencia) {
+        if (referencia == null || !referencia.startsWith(PREFIJO_REFERENCIA)) {
+            return null;
+        }
+        int fin = referencia.indexOf('-', PREFIJO_REFERENCIA.length());
+        try {
+            return Long.valueOf(referencia.substring(PREFIJO_REFERENCIA.length(), fin < 0 ? referencia.length() : fin));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private PaymentIntentResponseDto datosCheckout(String referencia, long amountInCents, String firma) {
+        Map<String, Object> additionalData = new HashMap<>();
+        additionalData.put("reference", referencia);
+        additionalData.put("amount_in_cents", amountInCents);
+        additionalData.put("currency", MONEDA);
+        additionalData.put("public_key", llavePublica);
+        additionalData.put("signature_integrity", firma);
+
+        return new PaymentIntentResponseDto(
+                null,
+                null,
+                "requires_payment_method",
+                true,
+                "wompi_widget",
+                null,
+                additionalData
+        );
+    }
+
+    private static PaymentIntentResponseDto aRespuesta(WompiTransactionData data) {
+        EstadoTransaccionWompi estado = EstadoTransaccionWompi.desde(data.status());
+
+        Map<String, Object> additionalData = new HashMap<>();
+        additionalData.put("wompi_status", data.status());
+        additionalData.put("status_message", data.statusMessage());
+        additionalData.put("reference", data.reference());
+        additionalData.put("amount_in_cents", data.amountInCents());
+        additionalData.put("currency", data.currency());
+        additionalData.put("payment_method_type", data.paymentMethodType());
+        additionalData.put("created", data.createdAt());
+
+        return new PaymentIntentResponseDto(
+                null,
+                data.id(),
+                estado.getEstadoPago(),
+                false,
+                null,
+                null,
+                additionalData
+        );
+    }
+
+    private static PaymentIntentResponseDto desdeEstadoLocal(IntentoPago intento) {
+        Map<String, Object> additionalData = new HashMap<>();
+        additionalData.put("amount_in_cents", intento.getMontoCentavos());
+        additionalData.put("currency", intento.getMoneda());
+        additionalData.put("order_id", intento.getOrdenId());
+        additionalData.put("status_message", intento.getUltimoError());
+        additionalData.put("updated_at", intento.getFechaActualizacion());
+        additionalData.put("source", "webhook");
+
+        return new PaymentIntentResponseDto(
+                null,
+                intento.getPaymentIntentId(),
+                intento.getEstado(),
+                false,
+                null,
+                null,
+                additionalData
+        );
+    }
+
+    private static PaymentIntentResponseDto error(String mensaje) {
+        return new PaymentIntentResponseDto(null, null, "failed", false, null, mensaje, null);
+    }
+}
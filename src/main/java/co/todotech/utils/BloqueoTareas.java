@@ -0,0 +1,111 @@
+package co.todotech.utils;
+
+import co.todotech.model.entities.BloqueoTarea;
+import co.todotech.repository.BloqueoTareaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Tareas que debe correr una sola ejecución a la vez entre todas las instancias (conciliaciones,
+ * compactaciones): quien la corre toma su fila de {@code bloqueo_tarea} por un plazo y la suelta
+ * al terminar. Tomarla y soltarla son transacciones propias, no la del trabajo.
+ *
+ * El plazo debe cubrir con holgura lo que tarda el trabajo: vencido, otra ejecución puede
+ * empezar aunque esta no haya terminado.
+ */
+@Slf4j
+@Component
+public class BloqueoTareas {
+
+    private final BloqueoTareaRepository repository;
+    private final TransactionTemplate transaccion;
+    private final Clock clock;
+    // pid@host: en la fila queda qué instancia tiene la tarea
+    private final String instancia = ManagementFactory.getRuntimeMXBean().getName();
+
+    @Autowired
+    public BloqueoTareas(BloqueoTareaRepository repository, PlatformTransactionManager transactionManager) {
+        this(repository, transactionManager, Clock.systemUTC());
+    }
+
+    BloqueoTareas(BloqueoTareaRepository repository, PlatformTransactionManager transactionManager, Clock clock) {
+        this.repository = repository;
+        this.clock = clock;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /** Corre el trabajo si nadie más tiene la tarea; si otro la tiene, devuelve vacío sin correrlo. */
+    public <T> Optional<T> ejecutar(String tarea, Duration plazo, Supplier<T> trabajo) {
+        // Un dueño por ejecución: dos hilos de la misma instancia tampoco se pisan
+        String dueno = instancia + "/" + UUID.randomUUID();
+        if (!tomar(tarea, dueno, plazo)) {
+            log.debug("La tarea {} ya está en curso en otra ejecución", tarea);
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(trabajo.get());
+        } finally {
+            liberar(tarea, dueno);
+        }
+    }
+
+    public boolean ejecutar(String tarea, Duration plazo, Runnable trabajo) {
+        return ejecutar(tarea, plazo, () -> {
+            trabajo.run();
+            return Boolean.TRUE;
+        }).isPresent();
+    }
+
+    private boolean tomar(String tarea, String dueno, Duration plazo) {
+        if (intentarTomar(tarea, dueno, plazo)) {
+            return true;
+        }
+        return crearFila(tarea) && intentarTomar(tarea, dueno, plazo);
+    }
+
+    private boolean intentarTomar(String tarea, String dueno, Duration plazo) {
+        Instant ahora = clock.instant();
+        Integer tomadas = transaccion.execute(estado -> repository.tomar(tarea, dueno, ahora, ahora.plus(plazo)));
+        return tomadas != null && tomadas > 0;
+    }
+
+    // Varias instancias pueden crearla a la vez: la que pierde la carrera ignora la clave duplicada
+    private boolean crearFila(String tarea) {
+        try {
+            return Boolean.TRUE.equals(transaccion.execute(estado -> {
+                if (repository.existsById(tarea)) {
+                    return false;
+                }
+                repository.saveAndFlush(new BloqueoTarea(tarea, null, Instant.EPOCH));
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("La fila de bloqueo_tarea de {} ya fue creada por otra instancia", tarea);
+            return true;
+        }
+    }
+
+    // Si falla, la tarea queda tomada hasta que venza el plazo
+    private void liberar(String tarea, String dueno) {
+        try {
+            transaccion.executeWithoutResult(estado -> repository.liberar(tarea, dueno, clock.instant()));
+        } catch (DataAccessException e) {
+            log.warn("⚠️ No se pudo liberar la tarea {}: {}", tarea, e.getMessage());
+        }
+    }
+}
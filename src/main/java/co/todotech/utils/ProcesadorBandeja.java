@@ -0,0 +1,231 @@
+package co.todotech.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Procesamiento asíncrono de una bandeja persistente (correo_saliente, evento_pasarela).
+ *
+ * La tabla es la fuente de verdad; la cola en memoria solo evita esperar al barrido. Hay una
+ * cola acotada por worker y cada elemento va a la de su clave: los de una misma clave se
+ * procesan en orden y por el mismo hilo. Cada worker vacía su cola por lotes.
+ *
+ * Antes de procesar un lote, el worker reclama sus filas anotando el momento del reclamo. Si el
+ * trabajo termina con una excepción, lo que siga reclamado vuelve a pendiente en el acto. Si la
+ * instancia muere a mitad, el barrido lo devuelve cuando vence {@link Opciones#plazoReclamo()};
+ * los reclamos vigentes no se tocan, pueden ser de otra instancia que los está procesando.
+ *
+ * El barrido ({@link #reencolarPendientes()}) recoge además lo que no cupo en la cola y los
+ * reintentos diferidos con {@link #esperaTras(int)}.
+ */
+@Slf4j
+public class ProcesadorBandeja<K> {
+
+    private static final int LONGITUD_MAXIMA_ERROR = 500;
+
+    /** Acceso a la tabla de la bandeja; cada método es su propia transacción. */
+    public interface Almacen<K> {
+
+        // Listos para (re)intentar, en el orden en que deben procesarse
+        List<Pendiente<K>> pendientes(LocalDateTime ahora, Limit limite);
+
+        // Pasa la fila de pendiente a en curso a nombre de este reclamo (1 = reclamada)
+        int reclamar(K id, LocalDateTime reclamo);
+
+        // Devuelve a pendiente las filas de ese reclamo que siguen en curso
+        int liberar(List<K> ids, LocalDateTime reclamo);
+
+        // Devuelve a pendiente los reclamos anteriores a :limite
+        int liberarVencidos(LocalDateTime limite);
+    }
+
+    /** Elemento pendiente y la clave que elige su cola. */
+    public record Pendiente<K>(K id, Object clave) {
+    }
+
+    /**
+     * @param nombre        para los hilos y los logs
+     * @param plazoReclamo  debe cubrir con holgura lo que tarda un lote, reintentos incluidos
+     */
+    public record Opciones(String nombre,
+                           int workers,
+                           int capacidadCola,
+                           int lote,
+                           int maxIntentos,
+                           Duration esperaBaseReintento,
+                           Duration plazoReclamo) {
+
+        public Opciones {
+            if (workers <= 0 || capacidadCola <= 0 || lote <= 0) {
+                throw new IllegalArgumentException("La bandeja " + nombre + " necesita workers, capacidad de cola y lote mayores a 0");
+            }
+        }
+    }
+
+    private final Opciones opciones;
+    private final Almacen<K> almacen;
+    private final Consumer<List<K>> trabajo;
+    private final List<BlockingQueue<K>> colas;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicBoolean activo = new AtomicBoolean(false);
+
+    /**
+     * @param trabajo procesa un lote ya reclamado; debe dejar cada fila resuelta (hecha, pendiente
+     *                con su próximo intento o fallida). Lo que quede en curso tras una excepción
+     *                se libera.
+     */
+    public ProcesadorBandeja(Opciones opciones, Almacen<K> almacen, Consumer<List<K>> trabajo) {
+        this.opciones = opciones;
+        this.almacen = almacen;
+        this.trabajo = trabajo;
+        int capacidadPorWorker = Math.max(1, opciones.capacidadCola() / opciones.workers());
+        this.colas = new ArrayList<>(opciones.workers());
+        for (int i = 0; i < opciones.workers(); i++) {
+            this.colas.add(new ArrayBlockingQueue<>(capacidadPorWorker));
+        }
+    }
+
+    /** {@code false} si la cola estaba llena: el elemento espera al próximo barrido. */
+    public boolean encolar(K id, Object clave) {
+        return colaDe(clave).offer(id);
+    }
+
+    public void iniciar() {
+        if (!activo.compareAndSet(false, true)) {
+            return;
+        }
+        for (int i = 0; i < colas.size(); i++) {
+            BlockingQueue<K> cola = colas.get(i);
+            workers.add(Thread.ofPlatform()
+                    .name(opciones.nombre() + "-worker-" + i)
+                    .daemon(true)
+                    .start(() -> trabajar(cola)));
+        }
+        log.info("📬 Bandeja {} iniciada con {} workers", opciones.nombre(), colas.size());
+
+        reencolarPendientes();
+    }
+
+    public void detener() {
+        if (!activo.compareAndSet(true, false)) {
+            return;
+        }
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+    }
+
+    public void reencolarPendientes() {
+        if (!activo.get()) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        int liberados = almacen.liberarVencidos(ahora.minus(opciones.plazoReclamo()));
+        if (liberados > 0) {
+            log.info("🔁 {} elementos de {} que quedaron a medio procesar vuelven a pendiente", liberados, opciones.nombre());
+        }
+
+        int espacio = colas.stream().mapToInt(BlockingQueue::remainingCapacity).sum();
+        if (espacio == 0) {
+            return;
+        }
+        int reencolados = 0;
+        for (Pendiente<K> pendiente : almacen.pendientes(ahora, Limit.of(espacio))) {
+            BlockingQueue<K> cola = colaDe(pendiente.clave());
+            if (!cola.contains(pendiente.id()) && cola.offer(pendiente.id())) {
+                reencolados++;
+            }
+        }
+        if (reencolados > 0) {
+            log.info("📨 {} elementos pendientes de {} reencolados", reencolados, opciones.nombre());
+        }
+    }
+
+    public int getTamanoCola() {
+        return colas.stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    /** Reclama los ids que sigan pendientes y pasa esos al trabajo. */
+    public void procesarLote(List<K> ids) {
+        // Al milisegundo: la BD guarda menos decimales que LocalDateTime.now() y liberar compara por igualdad
+        LocalDateTime reclamo = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<K> reclamados = ids.stream()
+                .filter(id -> almacen.reclamar(id, reclamo) == 1)
+                .toList();
+        if (reclamados.isEmpty()) {
+            return;
+        }
+
+        boolean resuelto = false;
+        try {
+            trabajo.accept(reclamados);
+            resuelto = true;
+        } finally {
+            if (!resuelto) {
+                // Lo que quedó sin resolver no espera al plazo del reclamo
+                int liberados = almacen.liberar(reclamados, reclamo);
+                log.warn("⚠️ Lote {} de {} interrumpido, {} vuelven a pendiente", reclamados, opciones.nombre(), liberados);
+            }
+        }
+    }
+
+    /** Con {@code intentos} fallidos ya no se reintenta. */
+    public boolean agotado(int intentos) {
+        return intentos >= opciones.maxIntentos();
+    }
+
+    /** Backoff exponencial entre barridos tras {@code intentos} fallos: base, 2*base, 4*base... */
+    public Duration esperaTras(int intentos) {
+        return opciones.esperaBaseReintento().multipliedBy(1L << Math.min(Math.max(intentos, 1) - 1, 10));
+    }
+
+    public int getMaxIntentos() {
+        return opciones.maxIntentos();
+    }
+
+    /** Recorta el mensaje de error al largo de la columna {@code ultimo_error}. */
+    public static String truncarError(String mensaje) {
+        if (mensaje == null || mensaje.length() <= LONGITUD_MAXIMA_ERROR) {
+            return mensaje;
+        }
+        return mensaje.substring(0, LONGITUD_MAXIMA_ERROR);
+    }
+
+    private BlockingQueue<K> colaDe(Object clave) {
+        return colas.get(clave == null ? 0 : Math.floorMod(clave.hashCode(), colas.size()));
+    }
+
+    private void trabajar(BlockingQueue<K> cola) {
+        List<K> lote = new ArrayList<>(opciones.lote());
+        while (activo.get()) {
+            try {
+                K primero = cola.poll(1, TimeUnit.SECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, opciones.lote() - 1);
+                procesarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Un lote fallido no debe matar al worker; sus filas siguen en la tabla
+                log.error("❌ Error inesperado procesando el lote {} de {}: {}", lote, opciones.nombre(), e.getMessage(), e);
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package co.todotech.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Las estructuras en memoria (índices, cachés, versiones del catálogo) solo reflejan datos ya
+ * confirmados: dentro de una transacción el cambio espera al commit (y se pierde con un
+ * rollback); sin transacción (arranque, pruebas) se aplica de inmediato.
+ */
+public final class TrasCommit {
+
+    private TrasCommit() {
+    }
+
+    public static void ejecutar(Runnable accion) {
+        if (!registrar(accion)) {
+            accion.run();
+        }
+    }
+
+    /** Deja la acción para después del commit; {@code false} si no hay transacción en curso. */
+    public static boolean registrar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+        return true;
+    }
+}
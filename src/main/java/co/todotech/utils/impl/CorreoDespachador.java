@@ -0,0 +1,233 @@
+package co.todotech.utils.impl;
+
+import co.todotech.model.entities.CorreoSaliente;
+import co.todotech.model.enums.EstadoCorreo;
+import co.todotech.repository.CorreoSalienteRepository;
+import co.todotech.utils.ProcesadorBandeja;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Envío asíncrono de correos a partir de la tabla {@code correo_saliente}.
+ *
+ * Quien pide un correo solo inserta la fila y deja su id en la cola de un
+ * {@link ProcesadorBandeja}, cuyos workers reclaman los correos por lotes; cada lote sale por
+ * una única conexión SMTP. Los fallos transitorios se reintentan en el momento con backoff
+ * exponencial (spring-retry); si persisten, el correo vuelve a PENDIENTE con un próximo intento
+ * diferido y lo recoge el barrido periódico, igual que lo que no cupo en la cola y los reclamos
+ * de más de {@code correo.reclamo.plazo-segundos} (su instancia murió a mitad del envío).
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class CorreoDespachador {
+
+    private final CorreoSalienteRepository correoRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transaccionNueva;
+    private final RetryTemplate retryTemplate;
+    private final ProcesadorBandeja<Long> bandeja;
+
+    public CorreoDespachador(CorreoSalienteRepository correoRepository,
+                             JavaMailSender mailSender,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${correo.cola.capacidad:1000}") int capacidadCola,
+                             @Value("${correo.workers:2}") int numeroWorkers,
+                             @Value("${correo.lote:20}") int tamanoLote,
+                             @Value("${correo.reintento.intentos:3}") int intentosInmediatos,
+                             @Value("${correo.reintento.espera-inicial-ms:1000}") long esperaInicialMs,
+                             @Value("${correo.reintento.espera-maxima-ms:10000}") long esperaMaximaMs,
+                             @Value("${correo.max-intentos:5}") int maxIntentos,
+                             @Value("${correo.reintento.base-segundos:60}") long esperaBaseSegundos,
+                             @Value("${correo.reclamo.plazo-segundos:600}") long plazoReclamoSegundos) {
+        this.correoRepository = correoRepository;
+        this.mailSender = mailSender;
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.retryTemplate = RetryTemplate.builder()
+                .maxAttempts(intentosInmediatos)
+                .exponentialBackoff(esperaInicialMs, 2.0, esperaMaximaMs)
+                .retryOn(MailSendException.class)
+                .build();
+        this.bandeja = new ProcesadorBandeja<>(
+                new ProcesadorBandeja.Opciones("correo", numeroWorkers, capacidadCola, tamanoLote, maxIntentos,
+                        Duration.ofSeconds(esperaBaseSegundos), Duration.ofSeconds(plazoReclamoSegundos)),
+                new AlmacenCorreos(),
+                this::enviarLote);
+    }
+
+    /**
+     * Persiste el correo en la bandeja de salida y lo deja en la cola de envío.
+     * Usa su propia transacción: funciona igual dentro de una transacción de solo lectura
+     * (p. ej. el login) y el correo queda guardado aunque la cola esté llena.
+     */
+    public Long encolar(String remitente, String destinatario, String asunto, String cuerpoHtml) {
+        CorreoSaliente correo = transaccionNueva.execute(estado -> correoRepository.save(CorreoSaliente.builder()
+                .remitente(remitente)
+                .destinatario(destinatario)
+                .asunto(asunto)
+                .cuerpoHtml(cuerpoHtml)
+                .build()));
+
+        if (!bandeja.encolar(correo.getId(), correo.getId())) {
+            log.warn("⚠️ Cola de correos llena, el correo {} se enviará en el próximo barrido", correo.getId());
+        }
+        return correo.getId();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        bandeja.iniciar();
+    }
+
+    @PreDestroy
+    public void detener() {
+        bandeja.detener();
+    }
+
+    // Recoge lo que no cupo en la cola, los reintentos diferidos y lo que quedó a medio enviar
+    @Scheduled(fixedDelayString = "${correo.reencolar.intervalo-ms:30000}")
+    public void reencolarPendientes() {
+        bandeja.reencolarPendientes();
+    }
+
+    public int getTamanoCola() {
+        return bandeja.getTamanoCola();
+    }
+
+    void procesarLote(List<Long> ids) {
+        bandeja.procesarLote(ids);
+    }
+
+    private void enviarLote(List<Long> reclamados) {
+        // MimeMessage no redefine equals/hashCode: la clave es la propia instancia
+        Map<MimeMessage, CorreoSaliente> pendientes = new LinkedHashMap<>();
+        for (CorreoSaliente correo : correoRepository.findAllById(reclamados)) {
+            try {
+                pendientes.put(construirMensaje(correo), correo);
+            } catch (MessagingException e) {
+                registrarFallo(correo, e, true);
+            }
+        }
+
+        List<Long> enviados = new ArrayList<>();
+        try {
+            retryTemplate.execute(contexto -> {
+                if (contexto.getRetryCount() > 0) {
+                    log.info("🔁 Reintento {} de envío para {} correos", contexto.getRetryCount(), pendientes.size());
+                }
+                enviar(pendientes, enviados);
+                return null;
+            });
+        } catch (MailException e) {
+            log.error("❌ No se pudieron enviar {} correos: {}", pendientes.size(), e.getMessage());
+            pendientes.values().forEach(correo -> registrarFallo(correo, e, false));
+        }
+
+        if (!enviados.isEmpty()) {
+            correoRepository.marcarEnviados(enviados, LocalDateTime.now());
+            log.info("✅ {} correos enviados en un lote", enviados.size());
+        }
+    }
+
+    // Una sola llamada = una sola conexión SMTP para todos los mensajes del lote
+    private void enviar(Map<MimeMessage, CorreoSaliente> pendientes, List<Long> enviados) {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        try {
+            mailSender.send(pendientes.keySet().toArray(MimeMessage[]::new));
+            pendientes.values().forEach(correo -> enviados.add(correo.getId()));
+            pendientes.clear();
+        } catch (MailSendException e) {
+            // Los que no figuran como fallidos ya salieron: no se reenvían en el reintento
+            Map<Object, Exception> fallidos = e.getFailedMessages();
+            pendientes.entrySet().removeIf(entrada -> {
+                if (fallidos.containsKey(entrada.getKey())) {
+                    return false;
+                }
+                enviados.add(entrada.getValue().getId());
+                return true;
+            });
+            if (!pendientes.isEmpty()) {
+                throw e;
+            }
+        }
+    }
+
+    private MimeMessage construirMensaje(CorreoSaliente correo) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(correo.getRemitente());
+        helper.setTo(correo.getDestinatario());
+        helper.setSubject(correo.getAsunto());
+        helper.setText(correo.getCuerpoHtml(), true);
+        return message;
+    }
+
+    private void registrarFallo(CorreoSaliente correo, Exception error, boolean definitivo) {
+        int intentos = correo.getIntentos() + 1;
+        correo.setIntentos(intentos);
+        correo.setUltimoError(ProcesadorBandeja.truncarError(error.getMessage()));
+
+        if (definitivo || bandeja.agotado(intentos)) {
+            correo.setEstado(EstadoCorreo.FALLIDO);
+            log.error("❌ Correo {} a {} marcado como FALLIDO tras {} intentos", correo.getId(), correo.getDestinatario(), intentos);
+        } else {
+            Duration espera = bandeja.esperaTras(intentos);
+            correo.setEstado(EstadoCorreo.PENDIENTE);
+            correo.setProximoIntento(LocalDateTime.now().plus(espera));
+            log.warn("⚠️ Correo {} reprogramado en {} s (intento {}/{})", correo.getId(), espera.toSeconds(), intentos, bandeja.getMaxIntentos());
+        }
+        correoRepository.save(correo);
+    }
+
+    private class AlmacenCorreos implements ProcesadorBandeja.Almacen<Long> {
+
+        @Override
+        public List<ProcesadorBandeja.Pendiente<Long>> pendientes(LocalDateTime ahora, Limit limite) {
+            return correoRepository.findIdsPendientes(ahora, limite).stream()
+                    .map(id -> new ProcesadorBandeja.Pendiente<>(id, id))
+                    .toList();
+        }
+
+        @Override
+        public int reclamar(Long id, LocalDateTime reclamo) {
+            return correoRepository.reclamar(id, reclamo);
+        }
+
+        @Override
+        public int liberar(List<Long> ids, LocalDateTime reclamo) {
+            return correoRepository.liberar(ids, reclamo);
+        }
+
+        @Override
+        public int liberarVencidos(LocalDateTime limite) {
+            return correoRepository.liberarVencidos(limite);
+        }
+    }
+}
@@ -1,23 +1,24 @@
 package co.todotech.utils.impl;
 
 import co.todotech.utils.EmailService;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 
 import java.util.regex.Pattern;
 
+/**
+ * Los correos no se envían en el hilo de la petición: se validan, se guardan en la bandeja
+ * de salida y {@link CorreoDespachador} los entrega en segundo plano.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
-    private final JavaMailSender mailSender;
+    private final CorreoDespachador correoDespachador;
 
     @Value("${app.email.from}")
     private String fromEmail;
@@ -39,26 +40,13 @@ public class EmailServiceImpl implements EmailService {
         validateSingleEmail(email);
 
         try {
-            log.info("=== ENVIANDO NOTIFICACIÓN ADMIN A: {} ===", email);
-
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            // Configuración simple y directa
-            helper.setFrom(fromEmail);
-            helper.setTo(email.trim()); // SOLO un destinatario
-            helper.setSubject(adminSubject);
-
             String htmlContent = buildAdminLoginNotificationHtml(nombre, fechaHora);
-            helper.setText(htmlContent, true);
+            Long id = correoDespachador.encolar(fromEmail, email.trim(), adminSubject, htmlContent); // SOLO un destinatario
 
-            // Enviar mensaje
-            mailSender.send(message);
-
-            log.info("✅ Notificación admin enviada EXITOSAMENTE a: {}", email);
+            log.info("📥 Notificación admin {} encolada para: {}", id, email);
 
         } catch (Exception e) {
-            log.error("❌ ERROR al enviar notificación admin a {}: {}", email, e.getMessage(), e);
+            log.error("❌ ERROR al encolar notificación admin a {}: {}", email, e.getMessage(), e);
             throw new Exception("Error al enviar notificación por correo: " + e.getMessage());
         }
     }
@@ -69,51 +57,20 @@ public class EmailServiceImpl implements EmailService {
         validateSingleEmail(email);
 
         try {
-            log.info("=== INICIANDO ENVÍO DE RECORDATORIO ===");
+            log.info("=== ENCOLANDO RECORDATORIO ===");
             log.info("📧 Destinatario: {}", email);
-            log.info("👤 Nombre: {}", nombre);
             log.info("👤 Nombre de usuario: {}", nombreUsuario);
             log.info("🔒 Contraseña: [PROTEGIDA]"); // No loggear contraseñas reales por seguridad
 
-            long startTime = System.currentTimeMillis();
-
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            // Configuración simple y directa
-            helper.setFrom(fromEmail);
-            log.debug("📨 Remitente configurado: {}", fromEmail);
-
-            helper.setTo(email.trim()); // SOLO un destinatario
-            log.debug("✅ Destinatario configurado: {}", email.trim());
-
-            helper.setSubject(passwordReminderSubject);
-            log.debug("📝 Asunto configurado: {}", passwordReminderSubject);
-
             String htmlContent = buildPasswordReminderHtml(nombre, nombreUsuario, contrasena);
             log.debug("📄 Contenido HTML generado (tamaño aprox.): {} caracteres", htmlContent.length());
 
-            helper.setText(htmlContent, true);
-            log.debug("✅ Contenido del email configurado");
+            Long id = correoDespachador.encolar(fromEmail, email.trim(), passwordReminderSubject, htmlContent); // SOLO un destinatario
 
-            // Enviar mensaje
-            log.info("🚀 Enviando email...");
-            mailSender.send(message);
-
-            long endTime = System.currentTimeMillis();
-            long duration = endTime - startTime;
-
-            log.info("✅ Recordatorio enviado EXITOSAMENTE a: {}", email);
-            log.info("⏰ Tiempo de ejecución: {} ms", duration);
-            log.info("=== ENVÍO COMPLETADO ===\n");
+            log.info("📥 Recordatorio {} encolado para: {}", id, email);
 
         } catch (Exception e) {
-            log.error("❌ ERROR CRÍTICO al enviar recordatorio");
-            log.error("📧 Destinatario fallido: {}", email);
-            log.error("🔍 Mensaje de error: {}", e.getMessage());
-            log.error("📋 Stack trace completo:", e);
-            log.error("=== ENVÍO FALLIDO ===");
-
+            log.error("❌ ERROR al encolar recordatorio para {}: {}", email, e.getMessage(), e);
             throw new Exception("Error al enviar recordatorio por correo: " + e.getMessage());
         }
     }
@@ -0,0 +1,154 @@
+package co.todotech.busqueda;
+
+import co.todotech.model.dto.producto.CatalogoFacetadoDto;
+import co.todotech.model.dto.producto.ConteoFacetaDto;
+import co.todotech.model.dto.producto.FiltroCatalogoDto;
+import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.model.entities.Categoria;
+import co.todotech.model.enums.EstadoProducto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetasCatalogoTest {
+
+    private static final Categoria PORTATILES = Categoria.builder().id(1L).nombre("Portátiles").build();
+    private static final Categoria AUDIO = Categoria.builder().id(2L).nombre("Audio").build();
+
+    private FacetasCatalogo facetas;
+
+    @BeforeEach
+    void setUp() {
+        facetas = new FacetasCatalogo(new double[]{1000, 3000});
+        facetas.reconstruir(List.of(
+                producto(4L, AUDIO, "SONY", 250.0, 5, 6, EstadoProducto.ACTIVO),
+                producto(1L, PORTATILES, "Lenovo", 2500.0, 3, 12, EstadoProducto.ACTIVO),
+                producto(2L, PORTATILES, "Asus", 4200.0, 0, 24, EstadoProducto.AGOTADO),
+                producto(3L, AUDIO, "Sony", 90.0, 10, 6, EstadoProducto.ACTIVO),
+                producto(5L, AUDIO, "JBL", 120.0, 8, 12, EstadoProducto.INACTIVO)));
+    }
+
+    @Test
+    @DisplayName("Sin filtros debería devolver los visibles en orden de id con todos los conteos")
+    void testSinFiltros() {
+        CatalogoFacetadoDto catalogo = facetas.consultar(filtro(null, null, null, null, null, null));
+
+        assertEquals(4, catalogo.total());
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(catalogo));
+        assertEquals(List.of(new ConteoFacetaDto("2", "Audio", 2), new ConteoFacetaDto("1", "Portátiles", 2)),
+                catalogo.categorias());
+        assertEquals(List.of(new ConteoFacetaDto("Sony", "Sony", 2), new ConteoFacetaDto("Asus", "Asus", 1),
+                new ConteoFacetaDto("Lenovo", "Lenovo", 1)), catalogo.marcas());
+        assertEquals(List.of(new ConteoFacetaDto("-1000", "Menos de 1000", 2),
+                new ConteoFacetaDto("1000-3000", "1000 a 3000", 1),
+                new ConteoFacetaDto("3000-", "3000 o más", 1)), catalogo.precios());
+        assertEquals(List.of("6", "12", "24"), valores(catalogo.garantias()));
+        assertEquals(List.of(new ConteoFacetaDto("true", "Con stock", 3), new ConteoFacetaDto("false", "Agotado", 1)),
+                catalogo.disponibilidad());
+    }
+
+    @Test
+    @DisplayName("Debería combinar facetas con Y y valores de una faceta con O")
+    void testCombinarFiltros() {
+        assertEquals(List.of(1L, 2L), ids(facetas.consultar(filtro(List.of(1L), null, null, null, null, null))));
+        assertEquals(List.of(2L, 3L, 4L), ids(facetas.consultar(filtro(null, List.of("sony", "ASUS"), null, null, null, null))));
+        assertEquals(List.of(1L), ids(facetas.consultar(filtro(List.of(1L), null, null, null, List.of(12), true))));
+        assertEquals(List.of(2L), ids(facetas.consultar(filtro(null, null, null, null, null, false))));
+        assertEquals(List.of(1L, 4L), ids(facetas.consultar(filtro(null, null, 200.0, 2500.0, null, null))));
+        assertEquals(0, facetas.consultar(filtro(List.of(99L), null, null, null, null, null)).total());
+    }
+
+    @Test
+    @DisplayName("Cada faceta debería contarse sin su propio filtro pero con los demás")
+    void testConteosDisyuntivos() {
+        CatalogoFacetadoDto catalogo = facetas.consultar(filtro(List.of(2L), List.of("Sony"), null, null, null, null));
+
+        assertEquals(2, catalogo.total());
+        // Las categorías se cuentan solo con el filtro de marca: Sony no tiene portátiles
+        assertEquals(List.of(new ConteoFacetaDto("2", "Audio", 2)), catalogo.categorias());
+        // Las marcas se cuentan solo con el filtro de categoría
+        assertEquals(List.of(new ConteoFacetaDto("Sony", "Sony", 2)), catalogo.marcas());
+        assertEquals(List.of(new ConteoFacetaDto("-1000", "Menos de 1000", 2)), catalogo.precios());
+    }
+
+    @Test
+    @DisplayName("Debería paginar sobre el resultado completo")
+    void testPaginacion() {
+        CatalogoFacetadoDto segunda = facetas.consultar(new FiltroCatalogoDto(null, null, null, null, null, null, 1, 3));
+
+        assertEquals(4, segunda.total());
+        assertEquals(List.of(4L), ids(segunda));
+
+        // pagina * tamano no cabe en un int: no debería dar la vuelta y devolver la primera página
+        CatalogoFacetadoDto lejana = facetas.consultar(
+                new FiltroCatalogoDto(null, null, null, null, null, null, Integer.MAX_VALUE / 2, 3));
+        assertEquals(4, lejana.total());
+        assertTrue(lejana.productos().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Debería seguir altas, cambios y retiros del catálogo")
+    void testActualizarYEliminar() {
+        facetas.actualizar(producto(1L, AUDIO, "Lenovo", 2500.0, 3, 12, EstadoProducto.ACTIVO));
+        facetas.actualizar(producto(5L, AUDIO, "JBL", 120.0, 8, 12, EstadoProducto.ACTIVO));
+        facetas.eliminar(2L);
+
+        CatalogoFacetadoDto catalogo = facetas.consultar(filtro(List.of(1L), null, null, null, null, null));
+        assertEquals(0, catalogo.total());
+        assertEquals(List.of(new ConteoFacetaDto("2", "Audio", 4)), catalogo.categorias());
+        assertEquals(List.of(1L, 3L, 4L, 5L), ids(facetas.consultar(filtro(null, null, null, null, null, null))));
+        assertFalse(valores(catalogo.marcas()).contains("Asus"));
+        assertEquals(List.of(4L, 5L), ids(facetas.consultar(filtro(null, null, 100.0, 300.0, null, null))));
+        assertEquals(0, facetas.consultar(filtro(null, null, 4000.0, null, null, null)).total());
+        assertEquals(4, facetas.size());
+    }
+
+    @Test
+    @DisplayName("Un movimiento de stock debería aplicar la regla de ACTIVO y AGOTADO")
+    void testAjustarStock() {
+        facetas.ajustarStock(1L, -3);
+        facetas.ajustarStock(2L, 5);
+
+        CatalogoFacetadoDto catalogo = facetas.consultar(filtro(List.of(1L), null, null, null, null, true));
+        assertEquals(List.of(2L), ids(catalogo));
+        assertEquals(EstadoProducto.ACTIVO, catalogo.productos().get(0).getEstado());
+        assertEquals(5, catalogo.productos().get(0).getStock());
+        assertEquals(List.of(1L), ids(facetas.consultar(filtro(List.of(1L), null, null, null, null, false))));
+
+        // Los productos no visibles no están en las facetas
+        facetas.ajustarStock(5L, 10);
+        assertEquals(4, facetas.size());
+    }
+
+    private static FiltroCatalogoDto filtro(List<Long> categorias, List<String> marcas, Double precioMin,
+                                            Double precioMax, List<Integer> garantias, Boolean disponible) {
+        return new FiltroCatalogoDto(categorias, marcas, precioMin, precioMax, garantias, disponible, 0, 20);
+    }
+
+    private static List<Long> ids(CatalogoFacetadoDto catalogo) {
+        return catalogo.productos().stream().map(ProductoDto::getId).toList();
+    }
+
+    private static List<String> valores(List<ConteoFacetaDto> conteos) {
+        return conteos.stream().map(ConteoFacetaDto::valor).toList();
+    }
+
+    private static ProductoDto producto(Long id, Categoria categoria, String marca, Double precio, Integer stock,
+                                        Integer garantia, EstadoProducto estado) {
+        ProductoDto dto = new ProductoDto();
+        dto.setId(id);
+        dto.setNombre("Producto " + id);
+        dto.setCodigo("PRD-" + id);
+        dto.setCategoria(categoria);
+        dto.setMarca(marca);
+        dto.setPrecio(precio);
+        dto.setStock(stock);
+        dto.setGarantia(garantia);
+        dto.setEstado(estado);
+        return dto;
+    }
+}
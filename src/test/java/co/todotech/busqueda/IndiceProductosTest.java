@@ -0,0 +1,137 @@
+package co.todotech.busqueda;
+
+import co.todotech.model.dto.producto.ProductoDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceProductosTest {
+
+    private IndiceProductos indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceProductos(10);
+        indice.reconstruir(List.of(
+                producto(1L, "Cámara Réflex EOS", "CAM-001", "Canon", "Cámara digital de 24 MP"),
+                producto(2L, "Portátil Gamer", "LAP-001", "Asus", "Portátil con pantalla de 15 pulgadas"),
+                producto(3L, "Audífonos Inalámbricos", "AUD-010", "Sony", "Cancelación de ruido"),
+                producto(4L, "Funda para cámara", "ACC-100", "Genérica", "Protege tu cámara Canon")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Debería ignorar tildes y mayúsculas en consultas e índice")
+    void testPlegadoDeTildes() {
+        assertEquals(List.of(3L), indice.buscar("AUDIFONOS"));
+        assertEquals(List.of(2L), indice.buscar("portátil"));
+        assertEquals(List.of(2L), indice.buscar("portatil"));
+    }
+
+    @Test
+    @DisplayName("Debería ordenar por relevancia: el nombre pesa más que la descripción")
+    void testRelevancia() {
+        List<Long> resultados = indice.buscar("camara");
+
+        assertEquals(List.of(1L, 4L), resultados);
+    }
+
+    @Test
+    @DisplayName("Debería exigir todos los términos de la consulta")
+    void testTodosLosTerminos() {
+        assertEquals(List.of(4L), indice.buscar("camara funda"));
+        assertEquals(List.of(), indice.buscar("camara sony"));
+    }
+
+    @Test
+    @DisplayName("Debería encontrar por prefijo y por código con o sin separadores")
+    void testPrefijoYCodigo() {
+        assertEquals(List.of(3L), indice.buscar("inalam"));
+        assertEquals(List.of(2L), indice.buscar("LAP-001"));
+        assertEquals(List.of(2L), indice.buscar("lap001"));
+    }
+
+    @Test
+    @DisplayName("Debería tolerar un error de tipeo desde cuatro letras")
+    void testErroresDeTipeo() {
+        assertEquals(List.of(2L), indice.buscar("protatil"));   // transposición
+        assertEquals(List.of(2L), indice.buscar("portatl"));    // omisión
+        assertEquals(List.of(3L), indice.buscar("audifomos"));  // sustitución
+        assertEquals(List.of(2L), indice.buscar("gamerr"));     // inserción
+        assertEquals(List.of(3L), indice.buscar("sonu"));
+        assertEquals(List.of(), indice.buscar("sny"), "con menos de cuatro letras no hay tolerancia");
+    }
+
+    @Test
+    @DisplayName("Una coincidencia exacta debería ir antes que una tolerante")
+    void testExactoAntesQueTolerante() {
+        indice.actualizar(producto(5L, "Canon", "CAN-1", null, null));
+        indice.actualizar(producto(6L, "Cañon", "CAN-2", null, null));
+        indice.actualizar(producto(7L, "Caton", "CAN-3", null, null));
+
+        List<Long> resultados = indice.buscar("caton");
+
+        assertEquals(7L, resultados.get(0));
+        assertTrue(resultados.containsAll(List.of(5L, 6L)));
+    }
+
+    @Test
+    @DisplayName("Debería reindexar un producto actualizado y olvidar sus términos anteriores")
+    void testActualizarYEliminar() {
+        indice.actualizar(producto(2L, "Monitor Curvo", "MON-001", "LG", null));
+
+        assertEquals(List.of(), indice.buscar("portatil"));
+        assertEquals(List.of(2L), indice.buscar("monitor"));
+
+        indice.eliminar(2L);
+
+        assertEquals(List.of(), indice.buscar("monitor"));
+        assertEquals(3, indice.size());
+    }
+
+    @Test
+    @DisplayName("Dentro de una transacción los cambios solo deberían verse tras el commit")
+    void testAplicaTrasCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        indice.actualizar(producto(8L, "Teclado Mecánico", "TEC-001", "Logitech", null));
+
+        assertEquals(List.of(), indice.buscar("teclado"));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of(8L), indice.buscar("teclado"));
+    }
+
+    @Test
+    @DisplayName("Debería respetar el límite de resultados")
+    void testLimite() {
+        for (long id = 10; id < 40; id++) {
+            indice.actualizar(producto(id, "Cable USB " + id, "USB-" + id, "Genérica", null));
+        }
+
+        assertEquals(10, indice.buscar("cable").size());
+        assertEquals(3, indice.buscar("cable", 3).size());
+    }
+
+    private static ProductoDto producto(Long id, String nombre, String codigo, String marca, String descripcion) {
+        ProductoDto dto = new ProductoDto();
+        dto.setId(id);
+        dto.setNombre(nombre);
+        dto.setCodigo(codigo);
+        dto.setMarca(marca);
+        dto.setDescripcion(descripcion);
+        return dto;
+    }
+}
@@ -0,0 +1,121 @@
+package co.todotech.busqueda;
+
+import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.model.dto.producto.SugerenciaProductoDto;
+import co.todotech.model.enums.EstadoProducto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SugerenciasProductosTest {
+
+    private SugerenciasProductos sugerencias;
+
+    @BeforeEach
+    void setUp() {
+        sugerencias = new SugerenciasProductos(5);
+        sugerencias.reconstruir(List.of(
+                producto(1L, "Cámara Réflex EOS", "Canon", 2500.0, EstadoProducto.ACTIVO),
+                producto(2L, "Portátil Gamer", "Asus", 4200.0, EstadoProducto.ACTIVO),
+                producto(3L, "Cargador Portátil", "Xiaomi", 90.0, EstadoProducto.AGOTADO),
+                producto(4L, "Cable HDMI", "Genérica", 20.0, EstadoProducto.INACTIVO)),
+                Map.of(3L, 40L, 2L, 10L));
+    }
+
+    @Test
+    @DisplayName("Debería sugerir por el inicio de cualquiera de las primeras palabras, sin tildes")
+    void testPrefijoDePalabra() {
+        assertEquals(List.of(1L), ids(sugerencias.sugerir("cam", 5)));
+        assertEquals(List.of(3L, 2L), ids(sugerencias.sugerir("PORTÁ", 5)));
+        assertEquals(List.of(2L), ids(sugerencias.sugerir("portatil ga", 5)));
+    }
+
+    @Test
+    @DisplayName("Debería sugerir por marca")
+    void testPorMarca() {
+        assertEquals(List.of(3L), ids(sugerencias.sugerir("xiao", 5)));
+        assertEquals(List.of(1L), ids(sugerencias.sugerir("canon cam", 5)));
+    }
+
+    @Test
+    @DisplayName("Debería devolver solo id, nombre, precio e imagen")
+    void testCargaMinima() {
+        SugerenciaProductoDto sugerencia = sugerencias.sugerir("reflex", 5).get(0);
+
+        assertEquals(new SugerenciaProductoDto(1L, "Cámara Réflex EOS", 2500.0, "http://img/1.jpg"), sugerencia);
+    }
+
+    @Test
+    @DisplayName("Los más vendidos deberían ir primero y los inactivos no aparecer")
+    void testPopularidadYEstado() {
+        assertEquals(List.of(3L, 1L), ids(sugerencias.sugerir("ca", 5)));
+        assertTrue(sugerencias.sugerir("hdmi", 5).isEmpty());
+
+        sugerencias.actualizarPopularidad(Map.of(1L, 100L));
+
+        assertEquals(List.of(1L, 3L), ids(sugerencias.sugerir("ca", 5)));
+    }
+
+    @Test
+    @DisplayName("Debería retirar el producto al desactivarlo o eliminarlo")
+    void testActualizarYEliminar() {
+        sugerencias.actualizar(producto(2L, "Portátil Gamer", "Asus", 4200.0, EstadoProducto.INACTIVO));
+        assertEquals(List.of(3L), ids(sugerencias.sugerir("portatil", 5)));
+
+        sugerencias.eliminar(3L);
+        assertTrue(sugerencias.sugerir("portatil", 5).isEmpty());
+        assertEquals(1, sugerencias.size());
+    }
+
+    @Test
+    @DisplayName("Un cambio de nombre debería descartar los prefijos guardados de sus claves")
+    void testDescartePorPrefijo() {
+        List<ProductoDto> cables = new ArrayList<>();
+        for (long id = 10; id < 10 + SugerenciasProductos.UMBRAL_MEMORIA + 50; id++) {
+            cables.add(producto(id, "Cable USB " + id, "Genérica", 15.0, EstadoProducto.ACTIVO));
+        }
+        sugerencias.reconstruir(cables, Map.of(42L, 500L));
+        assertEquals(42L, sugerencias.sugerir("cab", 3).get(0).id());
+
+        sugerencias.actualizar(producto(42L, "Monitor Curvo", "LG", 900.0, EstadoProducto.ACTIVO));
+
+        assertFalse(ids(sugerencias.sugerir("cab", 3)).contains(42L));
+        assertEquals(List.of(42L), ids(sugerencias.sugerir("moni", 3)));
+    }
+
+    @Test
+    @DisplayName("Un cambio de precio debería verse sin recalcular el ranking")
+    void testCambioDePrecio() {
+        sugerencias.actualizar(producto(2L, "Portátil Gamer", "Asus", 3999.0, EstadoProducto.ACTIVO));
+
+        assertEquals(3999.0, sugerencias.sugerir("gamer", 5).get(0).precio());
+    }
+
+    @Test
+    @DisplayName("Debería respetar el límite pedido y el tope configurado")
+    void testLimite() {
+        assertEquals(1, sugerencias.sugerir("ca", 1).size());
+        assertTrue(sugerencias.sugerir("", 5).isEmpty());
+    }
+
+    private static List<Long> ids(List<SugerenciaProductoDto> lista) {
+        return lista.stream().map(SugerenciaProductoDto::id).toList();
+    }
+
+    private static ProductoDto producto(Long id, String nombre, String marca, Double precio, EstadoProducto estado) {
+        ProductoDto dto = new ProductoDto();
+        dto.setId(id);
+        dto.setNombre(nombre);
+        dto.setMarca(marca);
+        dto.setPrecio(precio);
+        dto.setImagenUrl("http://img/" + id + ".jpg");
+        dto.setEstado(estado);
+        return dto;
+    }
+}
@@ -0,0 +1,194 @@
+package co.todotech.cache;
+
+import co.todotech.cache.VersionCatalogo.Seccion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogoCondicionalFilterTest {
+
+    private VersionCatalogo versionCatalogo;
+    private CatalogoCondicionalFilter filtro;
+    private AtomicInteger llamadas;
+    private int estadoControlador;
+
+    @BeforeEach
+    void setUp() {
+        versionCatalogo = new VersionCatalogo(Clock.fixed(Instant.parse("2025-01-01T10:00:00Z"), ZoneOffset.UTC));
+        filtro = new CatalogoCondicionalFilter(versionCatalogo, 30, 2);
+        llamadas = new AtomicInteger();
+        estadoControlador = 200;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("La primera respuesta debería llevar ETag, Last-Modified y Cache-Control")
+    void testCabecerasEnRespuestaCompleta() throws Exception {
+        MockHttpServletResponse respuesta = ejecutar(get("/productos/publicos/todos"));
+
+        assertEquals(200, respuesta.getStatus());
+        assertEquals("{\"llamada\":1}", respuesta.getContentAsString());
+        assertEquals("\"P" + versionCatalogo.version(Seccion.PRODUCTOS) + "\"", respuesta.getHeader("ETag"));
+        assertEquals("public, max-age=30", respuesta.getHeader("Cache-Control"));
+        assertEquals(Instant.parse("2025-01-01T10:00:00Z").toEpochMilli(), respuesta.getDateHeader("Last-Modified"));
+    }
+
+    @Test
+    @DisplayName("Un If-None-Match vigente debería responder 304 sin llegar al controlador")
+    void testNoModificado() throws Exception {
+        String etag = ejecutar(get("/categorias")).getHeader("ETag");
+
+        MockHttpServletRequest condicional = get("/categorias");
+        condicional.addHeader("If-None-Match", "\"otro\", W/" + etag);
+        MockHttpServletResponse respuesta = ejecutar(condicional);
+
+        assertEquals(304, respuesta.getStatus());
+        assertEquals(0, respuesta.getContentLength());
+        assertEquals(etag, respuesta.getHeader("ETag"));
+        assertEquals("private, no-cache", respuesta.getHeader("Cache-Control"));
+        assertEquals(1, llamadas.get());
+        assertEquals(1, filtro.getNoModificadas());
+    }
+
+    @Test
+    @DisplayName("If-Modified-Since solo debería valer cuando terminó el segundo de la última escritura")
+    void testIfModifiedSinceEnElMismoSegundo() throws Exception {
+        Instant escritura = Instant.parse("2025-01-01T10:00:00.200Z");
+        versionCatalogo = new VersionCatalogo(Clock.fixed(escritura, ZoneOffset.UTC));
+
+        // Otra escritura puede caer aún en el mismo segundo: ni Last-Modified ni 304 por fecha
+        filtro = new CatalogoCondicionalFilter(versionCatalogo, 30, 2,
+                Clock.fixed(escritura.plusMillis(500), ZoneOffset.UTC));
+        assertNull(ejecutar(get("/categorias")).getHeader("Last-Modified"));
+        MockHttpServletRequest condicional = get("/categorias");
+        condicional.addHeader("If-Modified-Since", "Wed, 01 Jan 2025 10:00:00 GMT");
+        assertEquals(200, ejecutar(condicional).getStatus());
+
+        filtro = new CatalogoCondicionalFilter(versionCatalogo, 30, 2,
+                Clock.fixed(escritura.plusSeconds(1), ZoneOffset.UTC));
+        MockHttpServletResponse respuesta = ejecutar(condicional);
+        assertEquals(304, respuesta.getStatus());
+        assertEquals(Instant.parse("2025-01-01T10:00:00Z").toEpochMilli(), respuesta.getDateHeader("Last-Modified"));
+        assertEquals(1, llamadas.get());
+    }
+
+    @Test
+    @DisplayName("Sin ETag del cliente debería reenviar los bytes guardados de la misma versión")
+    void testBytesPorVersion() throws Exception {
+        ejecutar(get("/metodos-pago"));
+        MockHttpServletResponse segunda = ejecutar(get("/metodos-pago"));
+
+        assertEquals("{\"llamada\":1}", segunda.getContentAsString());
+        assertEquals("application/json", segunda.getContentType());
+        assertEquals(1, llamadas.get());
+        assertEquals(1, filtro.getDesdeMemoria());
+
+        // Otra consulta es otra respuesta
+        ejecutar(get("/metodos-pago", "tipo=EFECTIVO"));
+        assertEquals(2, llamadas.get());
+    }
+
+    @Test
+    @DisplayName("Una escritura confirmada debería cambiar el ETag y descartar los bytes guardados")
+    void testEscrituraCambiaVersion() throws Exception {
+        String etag = ejecutar(get("/productos/publicos/1")).getHeader("ETag");
+
+        TransactionSynchronizationManager.initSynchronization();
+        versionCatalogo.incrementar(Seccion.PRODUCTOS);
+        // Antes del commit la versión no cambia
+        assertEquals(etag, ejecutar(get("/productos/publicos/1")).getHeader("ETag"));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        MockHttpServletRequest condicional = get("/productos/publicos/1");
+        condicional.addHeader("If-None-Match", etag);
+        MockHttpServletResponse respuesta = ejecutar(condicional);
+
+        assertEquals(200, respuesta.getStatus());
+        assertNotEquals(etag, respuesta.getHeader("ETag"));
+        assertEquals("{\"llamada\":2}", respuesta.getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Las categorías con productos deberían depender también de la versión de productos")
+    void testRecursoConVariasSecciones() throws Exception {
+        String etag = ejecutar(get("/categorias/con-productos")).getHeader("ETag");
+        String etagCategorias = ejecutar(get("/categorias")).getHeader("ETag");
+
+        versionCatalogo.incrementar(Seccion.PRODUCTOS);
+
+        assertNotEquals(etag, ejecutar(get("/categorias/con-productos")).getHeader("ETag"));
+        assertEquals(etagCategorias, ejecutar(get("/categorias")).getHeader("ETag"));
+    }
+
+    @Test
+    @DisplayName("Los errores, otros métodos y otras rutas no deberían pasar por la caché")
+    void testFueraDeAlcance() throws Exception {
+        estadoControlador = 400;
+        MockHttpServletResponse error = ejecutar(get("/categorias/99"));
+        assertNull(error.getHeader("ETag"));
+        ejecutar(get("/categorias/99"));
+        assertEquals(2, llamadas.get());
+
+        MockHttpServletRequest post = new MockHttpServletRequest("POST", "/categorias");
+        estadoControlador = 200;
+        assertNull(ejecutar(post).getHeader("ETag"));
+        assertNull(ejecutar(get("/ordenes")).getHeader("ETag"));
+    }
+
+    @Test
+    @DisplayName("Debería respetar el tope de respuestas guardadas")
+    void testTopeDeRespuestas() throws Exception {
+        ejecutar(get("/metodos-pago/1"));
+        ejecutar(get("/metodos-pago/2"));
+        ejecutar(get("/metodos-pago/3"));
+        ejecutar(get("/metodos-pago/3"));
+
+        assertEquals(4, llamadas.get());
+        assertEquals(0, filtro.getDesdeMemoria());
+    }
+
+    private MockHttpServletResponse ejecutar(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain controlador = (req, res) -> {
+            int numero = llamadas.incrementAndGet();
+            HttpServletResponse http = (HttpServletResponse) res;
+            http.setStatus(estadoControlador);
+            http.setContentType("application/json");
+            http.getOutputStream().write(("{\"llamada\":" + numero + "}").getBytes(StandardCharsets.UTF_8));
+        };
+        filtro.doFilter(request, response, controlador);
+        return response;
+    }
+
+    private static MockHttpServletRequest get(String ruta) {
+        return new MockHttpServletRequest("GET", ruta);
+    }
+
+    private static MockHttpServletRequest get(String ruta, String consulta) {
+        MockHttpServletRequest request = get(ruta);
+        request.setQueryString(consulta);
+        return request;
+    }
+}
@@ -0,0 +1,142 @@
+package co.todotech.cache;
+
+import co.todotech.cache.VersionCatalogo.Seccion;
+import co.todotech.model.dto.MensajeDto;
+import co.todotech.model.dto.categoria.CategoriaDto;
+import co.todotech.model.dto.metodopago.MetodoPagoDto;
+import co.todotech.model.enums.TipoMetodo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FragmentosJsonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private VersionCatalogo versionCatalogo;
+    private FragmentosJson fragmentos;
+    private Map<Long, CategoriaDto> categorias;
+    private AtomicInteger cargas;
+
+    @BeforeEach
+    void setUp() {
+        versionCatalogo = new VersionCatalogo();
+        fragmentos = new FragmentosJson(objectMapper, versionCatalogo, 100);
+        categorias = new ConcurrentHashMap<>(Map.of(
+                1L, new CategoriaDto(1L, "Portátiles"),
+                2L, new CategoriaDto(2L, "Audio \"Pro\"")));
+        cargas = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Los bytes armados deberían ser idénticos a serializar el MensajeDto con Jackson")
+    void testMismosBytesQueJackson() throws Exception {
+        List<MetodoPagoDto> metodos = List.of(
+                new MetodoPagoDto(1L, TipoMetodo.EFECTIVO, "Pago en caja", true, 0.0),
+                new MetodoPagoDto(2L, TipoMetodo.TARJETA_CREDITO, null, false, 2.5));
+
+        RespuestaJson lista = fragmentos.lista("Métodos obtenidos", Seccion.METODOS_PAGO, "todos",
+                () -> metodos, MetodoPagoDto::id);
+        RespuestaJson una = fragmentos.uno("Categoría encontrada", Seccion.CATEGORIAS, 2L, () -> categorias.get(2L));
+        RespuestaJson vacia = fragmentos.lista("Sin datos", Seccion.CATEGORIAS, "vacia", List::<CategoriaDto>of,
+                CategoriaDto::getId);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(new MensajeDto<>(false, "Métodos obtenidos", metodos)), bytes(lista));
+        assertArrayEquals(objectMapper.writeValueAsBytes(new MensajeDto<>(false, "Categoría encontrada", categorias.get(2L))),
+                bytes(una));
+        assertArrayEquals(objectMapper.writeValueAsBytes(new MensajeDto<>(false, "Sin datos", List.of())), bytes(vacia));
+        assertEquals(bytes(lista).length, lista.longitud());
+    }
+
+    @Test
+    @DisplayName("Sin escrituras no debería volver a cargar ni serializar")
+    void testReutilizaMientrasNoCambie() throws Exception {
+        String primera = texto(fragmentos.uno("Categoría encontrada", Seccion.CATEGORIAS, 1L, this::cargarPortatiles));
+        categorias.put(1L, new CategoriaDto(1L, "Cambio sin versión"));
+        String segunda = texto(fragmentos.uno("Categoría encontrada", Seccion.CATEGORIAS, 1L, this::cargarPortatiles));
+
+        assertEquals(primera, segunda);
+        assertEquals(1, cargas.get());
+        assertEquals(1, fragmentos.getHits());
+        assertEquals(1, fragmentos.getMisses());
+    }
+
+    @Test
+    @DisplayName("Una escritura debería rehacer solo la entidad que cambió dentro del listado")
+    void testInvalidaPorEntidad() throws Exception {
+        fragmentos.lista("Categorías", Seccion.CATEGORIAS, "todas", this::cargarTodas, CategoriaDto::getId);
+
+        // La 1 cambia sin subir su versión: si aparece el nombre nuevo es que se volvió a serializar
+        categorias.put(1L, new CategoriaDto(1L, "No debería verse"));
+        categorias.put(2L, new CategoriaDto(2L, "Sonido"));
+        versionCatalogo.incrementar(Seccion.CATEGORIAS, 2L);
+
+        String json = texto(fragmentos.lista("Categorías", Seccion.CATEGORIAS, "todas", this::cargarTodas,
+                CategoriaDto::getId));
+        assertTrue(json.contains("Portátiles"));
+        assertTrue(json.contains("Sonido"));
+        assertEquals(2, cargas.get());
+
+        // Un cambio de toda la sección descarta también la 1
+        versionCatalogo.incrementar(Seccion.CATEGORIAS);
+        assertTrue(texto(fragmentos.uno("Categoría encontrada", Seccion.CATEGORIAS, 1L, () -> categorias.get(1L)))
+                .contains("No debería verse"));
+    }
+
+    @Test
+    @DisplayName("Los errores de la carga deberían propagarse sin guardar nada")
+    void testErrorNoSeGuarda() {
+        Exception error = assertThrows(Exception.class, () -> fragmentos.uno("Categoría encontrada",
+                Seccion.CATEGORIAS, 9L, () -> {
+                    throw new Exception("Categoría no encontrada con ID: 9");
+                }));
+
+        assertEquals("Categoría no encontrada con ID: 9", error.getMessage());
+        assertEquals(0, fragmentos.size());
+    }
+
+    @Test
+    @DisplayName("Lleno, debería descartar los fragmentos viejos antes de dejar de guardar")
+    void testTopeDeFragmentos() throws Exception {
+        FragmentosJson chico = new FragmentosJson(objectMapper, versionCatalogo, 1);
+        chico.uno("Categoría encontrada", Seccion.CATEGORIAS, 1L, () -> categorias.get(1L));
+        chico.uno("Categoría encontrada", Seccion.CATEGORIAS, 2L, () -> categorias.get(2L));
+        assertEquals(1, chico.size());
+        assertEquals(0, chico.getEvictions());
+
+        versionCatalogo.incrementar(Seccion.CATEGORIAS, 1L);
+        chico.uno("Categoría encontrada", Seccion.CATEGORIAS, 2L, () -> categorias.get(2L));
+        assertEquals(1, chico.size());
+        assertEquals(1, chico.getEvictions());
+    }
+
+    private CategoriaDto cargarPortatiles() {
+        cargas.incrementAndGet();
+        return categorias.get(1L);
+    }
+
+    private List<CategoriaDto> cargarTodas() {
+        cargas.incrementAndGet();
+        return List.of(categorias.get(1L), categorias.get(2L));
+    }
+
+    private static byte[] bytes(RespuestaJson respuesta) throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        respuesta.escribirEn(salida);
+        return salida.toByteArray();
+    }
+
+    private static String texto(RespuestaJson respuesta) throws Exception {
+        return new String(bytes(respuesta), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,195 @@
+package co.todotech.cache;
+
+import co.todotech.cache.ProductoCatalogCache.Clave;
+import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.model.enums.EstadoProducto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductoCatalogCacheTest {
+
+    private MutableClock clock;
+    private ProductoCatalogCache cache;
+    private AtomicInteger cargas;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        cache = new ProductoCatalogCache(5, Duration.ofMinutes(5), clock);
+        cargas = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Debería cargar una sola vez y servir los siguientes accesos desde caché")
+    void testHitMissCounters() {
+        List<ProductoDto> primera = cache.obtener(Clave.todos(), this::cargarCatalogo);
+        List<ProductoDto> segunda = cache.obtener(Clave.todos(), this::cargarCatalogo);
+
+        assertSame(primera, segunda);
+        assertEquals(1, cargas.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRatio());
+    }
+
+    @Test
+    @DisplayName("Invalidar un producto debería descartar su entrada y todas las vistas de listado")
+    void testInvalidarProducto() {
+        cache.obtener(Clave.producto(1L), () -> producto(1L, 10));
+        cache.obtener(Clave.producto(2L), () -> producto(2L, 5));
+        cache.obtener(Clave.estado(EstadoProducto.ACTIVO), this::cargarCatalogo);
+        cache.obtener(Clave.categoria(7L), this::cargarCatalogo);
+
+        cache.invalidarProducto(1L);
+
+        // Solo sobrevive el producto no modificado
+        assertEquals(1, cache.size());
+        ProductoDto otro = cache.obtener(Clave.producto(2L), () -> fail("No debería recargar"));
+        assertEquals(2L, otro.getId());
+    }
+
+    @Test
+    @DisplayName("Una carga concurrente con una invalidación no debería quedar en caché")
+    void testCargaObsoletaNoSeGuarda() {
+        ProductoDto obsoleto = cache.obtener(Clave.producto(1L), () -> {
+            // Mientras se consulta la BD, otra petición modifica el producto
+            cache.invalidarProducto(1L);
+            return producto(1L, 10);
+        });
+
+        assertNotNull(obsoleto);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Dentro de una transacción, el valor nuevo solo se publica tras el commit")
+    void testRefrescarTrasCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.refrescarProducto(1L, producto(1L, 3));
+
+        assertEquals(0, cache.size());
+
+        // Simular el commit
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+
+        ProductoDto dto = cache.obtener(Clave.producto(1L), () -> fail("No debería recargar"));
+        assertEquals(3, dto.getStock());
+    }
+
+    @Test
+    @DisplayName("Un commit más lento no debería pisar el valor de una escritura posterior")
+    void testCommitTardioNoPisaValorNuevo() {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.refrescarProducto(1L, producto(1L, 3));
+        List<TransactionSynchronization> lenta = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.refrescarProducto(1L, producto(1L, 2));
+        List<TransactionSynchronization> rapida = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        rapida.forEach(TransactionSynchronization::afterCommit);
+        lenta.forEach(TransactionSynchronization::afterCommit);
+
+        // El commit tardío solo descarta: la siguiente lectura va a la BD
+        ProductoDto dto = cache.obtener(Clave.producto(1L), () -> producto(1L, 2));
+        assertEquals(2, dto.getStock());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("Lo cacheado no debería poder modificarse desde un lector")
+    void testCopiasDeSoloLectura() {
+        ProductoDto original = producto(1L, 10);
+        ProductoDto cacheado = cache.obtener(Clave.producto(1L), () -> original);
+        List<ProductoDto> vista = cache.obtener(Clave.todos(), this::cargarCatalogo);
+
+        original.setStock(0);
+        assertEquals(10, cacheado.getStock());
+        assertEquals(original.getNombre(), cacheado.getNombre());
+        assertThrows(UnsupportedOperationException.class, () -> cacheado.setStock(1));
+        assertThrows(UnsupportedOperationException.class, () -> vista.get(0).setPrecio(1.0));
+        assertThrows(UnsupportedOperationException.class, () -> vista.add(producto(3L, 1)));
+    }
+
+    @Test
+    @DisplayName("Debería respetar el tamaño máximo y expirar entradas por TTL")
+    void testTamanoAcotadoYTtl() {
+        for (long id = 0; id < 20; id++) {
+            long productoId = id;
+            cache.obtener(Clave.producto(productoId), () -> producto(productoId, 1));
+        }
+
+        assertTrue(cache.size() <= 5);
+        assertTrue(cache.getEvictions() > 0);
+
+        clock.advance(Duration.ofMinutes(6));
+        cache.obtener(Clave.producto(19L), () -> producto(19L, 2));
+        assertEquals(2, cache.<ProductoDto>obtener(Clave.producto(19L), () -> fail("No debería recargar")).getStock());
+    }
+
+    private List<ProductoDto> cargarCatalogo() {
+        cargas.incrementAndGet();
+        return List.of(producto(1L, 10), producto(2L, 5));
+    }
+
+    private static ProductoDto producto(Long id, int stock) {
+        ProductoDto dto = new ProductoDto();
+        dto.setId(id);
+        dto.setNombre("Producto " + id);
+        dto.setStock(stock);
+        dto.setEstado(EstadoProducto.ACTIVO);
+        return dto;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
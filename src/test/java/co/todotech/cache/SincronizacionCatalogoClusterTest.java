@@ -0,0 +1,158 @@
+package co.todotech.cache;
+
+import co.todotech.cache.VersionCatalogo.Seccion;
+import co.todotech.model.entities.CatalogoVersion;
+import co.todotech.repository.CatalogoVersionRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dos instancias (dos contextos de Spring) sobre la misma base H2 en memoria: una escritura del
+ * catálogo en una debe cambiar la versión de la otra por el sondeo de {@code catalogo_version}.
+ */
+class SincronizacionCatalogoClusterTest {
+
+    private static final String URL_BASE = "jdbc:h2:mem:catalogo_cluster;DB_CLOSE_DELAY=-1";
+    private static final Duration ESPERA_MAXIMA = Duration.ofSeconds(5);
+    private static final long INTERVALO_MS = 100;
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+            DataSourceAutoConfiguration.class,
+            DataSourceTransactionManagerAutoConfiguration.class,
+            JdbcTemplateAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class
+    })
+    @EntityScan(basePackageClasses = CatalogoVersion.class)
+    @EnableJpaRepositories(basePackageClasses = CatalogoVersionRepository.class)
+    @EnableScheduling
+    @Import({VersionCatalogo.class, SincronizacionCatalogo.class})
+    static class Nodo {
+    }
+
+    private static ConfigurableApplicationContext nodoA;
+    private static ConfigurableApplicationContext nodoB;
+
+    @BeforeAll
+    static void iniciarNodos() {
+        nodoA = iniciarNodo();
+        nodoB = iniciarNodo();
+    }
+
+    @AfterAll
+    static void detenerNodos() {
+        nodoA.close();
+        nodoB.close();
+    }
+
+    @Test
+    @DisplayName("Una escritura en una instancia cambia la sección entera en la otra tras el sondeo")
+    void escrituraSePropagaEntreInstancias() {
+        // Arrange
+        long antesB = versiones(nodoB).version(Seccion.PRODUCTOS);
+        long otraEntidadB = versiones(nodoB).version(Seccion.PRODUCTOS, 7L);
+
+        // Act
+        enTransaccion(nodoA, () -> versiones(nodoA).incrementar(Seccion.PRODUCTOS, 1L));
+
+        // Assert
+        assertTrue(esperarHasta(() -> versiones(nodoB).version(Seccion.PRODUCTOS) > antesB),
+                "La otra instancia debe ver la escritura en pocos segundos");
+        assertTrue(versiones(nodoB).version(Seccion.PRODUCTOS, 7L) > otraEntidadB,
+                "No se sabe qué entidades cambiaron: cambian todas");
+    }
+
+    @Test
+    @DisplayName("Lo escrito por una instancia no le vuelve como cambio de toda la sección")
+    void escrituraPropiaNoDescartaLaSeccion() throws InterruptedException {
+        // Arrange
+        long antesB = versiones(nodoB).version(Seccion.CATEGORIAS);
+
+        // Act
+        enTransaccion(nodoA, () -> versiones(nodoA).incrementar(Seccion.CATEGORIAS, 1L));
+        long otraEntidadA = versiones(nodoA).version(Seccion.CATEGORIAS, 2L);
+
+        // Assert
+        assertTrue(esperarHasta(() -> versiones(nodoB).version(Seccion.CATEGORIAS) > antesB));
+        Thread.sleep(3 * INTERVALO_MS);
+        assertEquals(otraEntidadA, versiones(nodoA).version(Seccion.CATEGORIAS, 2L));
+    }
+
+    @Test
+    @DisplayName("Un cambio solo local no se avisa a las demás instancias")
+    void cambioLocalNoSePropaga() throws InterruptedException {
+        // Arrange
+        long antesB = versiones(nodoB).version(Seccion.METODOS_PAGO);
+
+        // Act
+        versiones(nodoA).incrementarLocal(Seccion.METODOS_PAGO);
+
+        // Assert
+        Thread.sleep(3 * INTERVALO_MS);
+        assertEquals(antesB, versiones(nodoB).version(Seccion.METODOS_PAGO));
+    }
+
+    private static ConfigurableApplicationContext iniciarNodo() {
+        // Como argumentos de línea de comandos: deben ganarle a application.properties
+        return new SpringApplicationBuilder(Nodo.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + URL_BASE,
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--catalogo.sincronizacion.intervalo-ms=" + INTERVALO_MS);
+    }
+
+    private static VersionCatalogo versiones(ConfigurableApplicationContext nodo) {
+        return nodo.getBean(VersionCatalogo.class);
+    }
+
+    private static void enTransaccion(ConfigurableApplicationContext nodo, Runnable escritura) {
+        new TransactionTemplate(nodo.getBean(PlatformTransactionManager.class))
+                .executeWithoutResult(estado -> escritura.run());
+    }
+
+    private static boolean esperarHasta(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + ESPERA_MAXIMA.toNanos();
+        while (System.nanoTime() < limite) {
+            if (condicion.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return condicion.getAsBoolean();
+    }
+}
@@ -0,0 +1,148 @@
+package co.todotech.jdbc;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdmisionDataSourceTest {
+
+    private DataSource destino;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        destino = mock(DataSource.class);
+        when(destino.getConnection()).thenAnswer(invocacion -> mock(Connection.class));
+    }
+
+    @Test
+    @DisplayName("Debería admitir en orden de llegada cuando no quedan permisos")
+    void testOrdenDeLlegada() throws Exception {
+        // Arrange
+        AdmisionDataSource admision = new AdmisionDataSource(destino, 1, Duration.ofSeconds(5));
+        Connection ocupada = admision.getConnection();
+        List<Integer> orden = new CopyOnWriteArrayList<>();
+        List<Thread> hilos = new CopyOnWriteArrayList<>();
+
+        // Act: cada hilo entra a la cola solo cuando el anterior ya espera
+        for (int i = 0; i < 5; i++) {
+            int turno = i;
+            hilos.add(Thread.ofVirtual().start(() -> {
+                try (Connection ignored = admision.getConnection()) {
+                    orden.add(turno);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+            esperarHasta(() -> admision.getEnEspera() == turno + 1);
+        }
+        ocupada.close();
+        for (Thread hilo : hilos) {
+            hilo.join(5_000);
+        }
+
+        // Assert
+        assertEquals(List.of(0, 1, 2, 3, 4), orden);
+        assertEquals(1, admision.getDisponibles());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar con una excepción transitoria al agotar la espera")
+    void testTimeout() throws Exception {
+        // Arrange
+        AdmisionDataSource admision = new AdmisionDataSource(destino, 1, Duration.ofMillis(50));
+        Connection ocupada = admision.getConnection();
+        CountDownLatch terminado = new CountDownLatch(1);
+        Throwable[] error = new Throwable[1];
+
+        // Act: desde otro hilo, que no tiene conexión abierta
+        Thread.ofVirtual().start(() -> {
+            try {
+                admision.getConnection();
+            } catch (SQLException e) {
+                error[0] = e;
+            } finally {
+                terminado.countDown();
+            }
+        });
+        assertTrue(terminado.await(5, TimeUnit.SECONDS));
+
+        // Assert
+        assertInstanceOf(SQLTransientConnectionException.class, error[0]);
+        assertEquals(1, admision.getRechazadas());
+        ocupada.close();
+        assertEquals(1, admision.getDisponibles());
+    }
+
+    @Test
+    @DisplayName("No debería pedir otro permiso para una conexión anidada del mismo hilo")
+    void testConexionAnidada() throws Exception {
+        // Arrange
+        AdmisionDataSource admision = new AdmisionDataSource(destino, 1, Duration.ofMillis(50));
+
+        // Act: con un solo permiso, esperar otro aquí sería un bloqueo seguro
+        try (Connection externa = admision.getConnection();
+             Connection anidada = admision.getConnection()) {
+
+            // Assert
+            assertInstanceOf(ConnectionProxy.class, externa);
+            assertFalse(anidada instanceof ConnectionProxy);
+            assertEquals(0, admision.getDisponibles());
+        }
+        assertEquals(1, admision.getDisponibles());
+        assertEquals(0, admision.getRechazadas());
+    }
+
+    @Test
+    @DisplayName("Debería devolver el permiso una sola vez aunque se cierre dos veces")
+    void testCierreRepetido() throws Exception {
+        // Arrange
+        AdmisionDataSource admision = new AdmisionDataSource(destino, 2, Duration.ofMillis(50));
+        Connection conexion = admision.getConnection();
+        Connection real = ((ConnectionProxy) conexion).getTargetConnection();
+
+        // Act
+        conexion.close();
+        conexion.close();
+
+        // Assert
+        assertEquals(2, admision.getDisponibles());
+        verify(real, times(2)).close();
+    }
+
+    @Test
+    @DisplayName("Debería devolver el permiso si el pool no entrega la conexión")
+    void testFalloDelPool() throws Exception {
+        // Arrange
+        when(destino.getConnection()).thenThrow(new SQLTransientConnectionException("pool agotado"));
+        AdmisionDataSource admision = new AdmisionDataSource(destino, 1, Duration.ofMillis(50));
+
+        // Act & Assert
+        assertThrows(SQLTransientConnectionException.class, admision::getConnection);
+        assertEquals(1, admision.getDisponibles());
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condicion.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                fail("La condición no se cumplió a tiempo");
+            }
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package co.todotech.metricas;
+
+import co.todotech.cache.ProductoCatalogCache;
+import co.todotech.cache.VersionCatalogo;
+import co.todotech.mapper.CategoriaMapper;
+import co.todotech.model.dto.categoria.CategoriaDto;
+import co.todotech.repository.CategoriaRepository;
+import co.todotech.service.CategoriaService;
+import co.todotech.service.impl.CategoriaServiceImpl;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MetricasServicioAspectTest {
+
+    private SimpleMeterRegistry registry;
+    private CategoriaService servicio;
+    private CategoriaRepository categoriaRepository;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        categoriaRepository = mock(CategoriaRepository.class);
+        CategoriaServiceImpl objetivo = new CategoriaServiceImpl(mock(CategoriaMapper.class), categoriaRepository,
+                new ProductoCatalogCache(100, 60), new VersionCatalogo());
+
+        AspectJProxyFactory fabrica = new AspectJProxyFactory(objetivo);
+        fabrica.addAspect(new MetricasServicioAspect(registry));
+        servicio = fabrica.getProxy();
+    }
+
+    @Test
+    @DisplayName("Cada método público del servicio debería medirse con su clase, método y excepción")
+    void testTimersPorMetodo() {
+        // Arrange
+        when(categoriaRepository.findAll()).thenReturn(List.of());
+
+        // Act
+        servicio.obtenerTodasLasCategorias();
+        servicio.obtenerTodasLasCategorias();
+        assertThrows(Exception.class, () -> servicio.crearCategoria(new CategoriaDto()));
+
+        // Assert
+        Timer exitosas = registry.get(MetricasServicioAspect.METRICA)
+                .tags("clase", "CategoriaServiceImpl", "metodo", "obtenerTodasLasCategorias", "excepcion", "none")
+                .timer();
+        assertEquals(2, exitosas.count());
+
+        Timer fallidas = registry.get(MetricasServicioAspect.METRICA)
+                .tags("clase", "CategoriaServiceImpl", "metodo", "crearCategoria", "excepcion", "Exception")
+                .timer();
+        assertEquals(1, fallidas.count());
+        assertEquals(2, registry.find(MetricasServicioAspect.METRICA).timers().size(), "Un timer por método y resultado");
+    }
+}
@@ -0,0 +1,116 @@
+package co.todotech.metricas;
+
+import co.todotech.cache.FragmentosJson;
+import co.todotech.cache.ProductoCatalogCache;
+import co.todotech.cache.VersionCatalogo;
+import co.todotech.pasarela.CircuitBreakerPasarela;
+import co.todotech.pasarela.MonitorPasarela;
+import co.todotech.security.VerifiedTokenCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.RegexPatternTypeFilter;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresupuestoMedidoresTest {
+
+    private static final int MAXIMO_POR_DEFECTO = 1500;
+
+    @Test
+    @DisplayName("Pasado el tope los medidores nuevos se descartan sin romper a quien los usa")
+    void testTopeDeMedidores() {
+        // Arrange
+        PresupuestoMedidores presupuesto = new PresupuestoMedidores(3);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(presupuesto);
+
+        // Act
+        for (String nombre : new String[]{"a", "b", "c", "d", "e"}) {
+            registry.counter("prueba." + nombre).increment();
+        }
+        registry.counter("prueba.a").increment();
+
+        // Assert
+        assertEquals(3, registry.getMeters().size());
+        assertEquals(3, presupuesto.getAceptados());
+        assertEquals(2, presupuesto.getRechazados());
+        assertEquals(2.0, registry.get("prueba.a").counter().count(), "Un medidor aceptado se sigue usando");
+    }
+
+    @Test
+    @DisplayName("Todos los timers de servicios, cachés, pasarelas y JVM caben en el presupuesto por defecto")
+    void testPresupuestoConTodosLosMedidores() throws Exception {
+        // Arrange
+        PresupuestoMedidores presupuesto = new PresupuestoMedidores(MAXIMO_POR_DEFECTO);
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(MeterFilter.commonTags(Tags.of("application", "TodoTech")));
+        registry.config().meterFilter(presupuesto);
+
+        // Act: un timer exitoso y uno fallido por cada método público de cada *ServiceImpl
+        int metodos = 0;
+        ClassPathScanningCandidateComponentProvider escaner = new ClassPathScanningCandidateComponentProvider(false);
+        escaner.addIncludeFilter(new RegexPatternTypeFilter(Pattern.compile(".*ServiceImpl")));
+        for (BeanDefinition definicion : escaner.findCandidateComponents("co.todotech.service.impl")) {
+            Class<?> clase = Class.forName(definicion.getBeanClassName());
+            for (Method metodo : clase.getDeclaredMethods()) {
+                if (!Modifier.isPublic(metodo.getModifiers()) || metodo.isSynthetic()) {
+                    continue;
+                }
+                metodos++;
+                for (String excepcion : new String[]{"none", "RuntimeException"}) {
+                    Timer.builder(MetricasServicioAspect.METRICA)
+                            .tags("clase", clase.getSimpleName(), "metodo", metodo.getName(), "excepcion", excepcion)
+                            .register(registry)
+                            .record(Duration.ofMillis(3));
+                }
+            }
+        }
+
+        ProductoCatalogCache catalogo = new ProductoCatalogCache(100, 60);
+        new CacheMetricas(catalogo, new VerifiedTokenCache(100),
+                new FragmentosJson(new ObjectMapper(), new VersionCatalogo(), 100)).bindTo(registry);
+        catalogo.obtener(ProductoCatalogCache.Clave.todos(), () -> "catálogo");
+        catalogo.obtener(ProductoCatalogCache.Clave.todos(), () -> "catálogo");
+        MonitorPasarela monitor = new MonitorPasarela("stripe",
+                new CircuitBreakerPasarela(20, 10, 0.5, Duration.ofSeconds(30)));
+        monitor.vincularMetricas(registry);
+        for (String operacion : new String[]{"crear", "confirmar", "consultar", "cancelar"}) {
+            monitor.ejecutar(operacion, () -> operacion, e -> true);
+        }
+        new JvmMemoryMetrics().bindTo(registry);
+        new JvmGcMetrics().bindTo(registry);
+        new JvmThreadMetrics().bindTo(registry);
+        Counter.builder(MetricasStock.METRICA).tag("origen", "detalle").register(registry).increment();
+
+        int bytesScrape = registry.scrape().getBytes(StandardCharsets.UTF_8).length;
+
+        // Assert
+        assertTrue(metodos > 50, "Se encontraron los servicios: " + metodos);
+        assertEquals(0, presupuesto.getRechazados());
+        assertTrue(presupuesto.getAceptados() < MAXIMO_POR_DEFECTO / 2,
+                "Medidores registrados: " + presupuesto.getAceptados() + ", debe quedar margen para HTTP y Hikari");
+        assertTrue(bytesScrape < 512 * 1024, "Tamaño del scrape: " + bytesScrape + " bytes");
+        assertNotNull(registry.get("todotech.pasarela.llamadas").tags("pasarela", "stripe", "operacion", "crear").timer());
+        assertEquals(1.0, registry.get("cache.gets").tags("cache", "catalogo", "result", "hit").functionCounter().count());
+        assertEquals(0.5, registry.get("cache.hit.ratio").tags("cache", "catalogo").gauge().value());
+    }
+}
@@ -0,0 +1,132 @@
+package co.todotech.model.entities;
+
+import co.todotech.model.enums.EstadoOrden;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compara los totales incrementales de {@link Orden} contra el recálculo completo,
+ * con el modo de verificación exacta (BigDecimal) activo en cada operación.
+ */
+class OrdenTotalesTest {
+
+    private Orden.VerificacionExacta verificacion;
+
+    @BeforeEach
+    void setUp() {
+        verificacion = Orden.verificarTotalesExactos();
+    }
+
+    @AfterEach
+    void tearDown() {
+        verificacion.close();
+    }
+
+    @Test
+    @DisplayName("Debería mantener los totales por deltas igual que el recálculo completo")
+    void testTotalesIncrementalesCoincidenConRecalculo() {
+        // Arrange
+        Random random = new Random(42);
+        Orden orden = nuevaOrden();
+        List<DetalleOrden> lineas = new ArrayList<>();
+
+        // Act: 1000 altas, cambios de cantidad, bajas y un descuento, en orden aleatorio
+        for (int i = 0; i < 1000; i++) {
+            DetalleOrden detalle = linea(1 + random.nextInt(5000) / 100.0, 1 + random.nextInt(20));
+            orden.agregarDetalle(detalle);
+            lineas.add(detalle);
+
+            if (i % 7 == 0) {
+                DetalleOrden cambiada = lineas.get(random.nextInt(lineas.size()));
+                orden.actualizarCantidadDetalle(cambiada, 1 + random.nextInt(30));
+            }
+            if (i % 11 == 0) {
+                orden.removerDetalle(lineas.remove(random.nextInt(lineas.size())));
+            }
+        }
+        orden.aplicarDescuentoPorcentaje(10.0);
+        double subtotalIncremental = orden.getSubtotal();
+        double totalIncremental = orden.getTotal();
+
+        // Assert: lo esperado es el recálculo completo sobre todas las líneas
+        orden.calcularTotales();
+        double subtotalEsperado = orden.getSubtotal();
+        double totalEsperado = orden.getTotal();
+        assertEquals(subtotalEsperado, subtotalIncremental, 1e-6);
+        assertEquals(totalEsperado, totalIncremental, 1e-6);
+        assertEquals(subtotalEsperado * 0.9 * 1.02, totalIncremental, 1e-6);
+    }
+
+    @Test
+    @DisplayName("Debería dejar los totales en cero al quitar todas las líneas")
+    void testRemoverTodasLasLineas() {
+        // Arrange
+        Orden orden = nuevaOrden();
+        DetalleOrden primera = linea(0.1, 3);
+        DetalleOrden segunda = linea(0.2, 7);
+        orden.agregarDetalle(primera);
+        orden.agregarDetalle(segunda);
+
+        // Act
+        orden.removerDetalle(primera);
+        orden.removerDetalle(segunda);
+
+        // Assert
+        assertEquals(0.0, orden.getSubtotal());
+        assertEquals(0.0, orden.getImpuestos());
+        assertEquals(0.0, orden.getTotal());
+    }
+
+    @Test
+    @DisplayName("Un desajuste que deja el subtotal negativo queda a la vista en vez de recortarse a cero")
+    void testDesajusteNoSeRecorta() {
+        // Arrange: sin verificación, para ver lo que queda guardado
+        verificacion.close();
+        Orden orden = nuevaOrden();
+        DetalleOrden detalle = linea(10.0, 1);
+        orden.agregarDetalle(detalle);
+
+        // Act: subtotal anterior equivocado
+        orden.registrarCambioDetalle(detalle, 50.0);
+
+        // Assert
+        assertEquals(-40.0, orden.getSubtotal(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Debería detectar una línea modificada sin pasar por la orden")
+    void testVerificacionDetectaDesincronizacion() {
+        // Arrange
+        Orden orden = nuevaOrden();
+        DetalleOrden detalle = linea(25.0, 2);
+        orden.agregarDetalle(detalle);
+
+        // Act: la cantidad cambia directamente en la línea
+        detalle.setCantidad(4);
+
+        // Assert
+        assertThrows(IllegalStateException.class, orden::actualizarTotalesAntesDeGuardar);
+    }
+
+    private static Orden nuevaOrden() {
+        return Orden.builder()
+                .numeroOrden("TOT-1")
+                .estado(EstadoOrden.PENDIENTE)
+                .build();
+    }
+
+    private static DetalleOrden linea(double precio, int cantidad) {
+        return DetalleOrden.builder()
+                .precioUnitario(precio)
+                .cantidad(cantidad)
+                .build();
+    }
+}
@@ -0,0 +1,179 @@
+package co.todotech.pasarela;
+
+import co.todotech.exception.pasarela.PasarelaNoDisponibleException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerPasarelaTest {
+
+    private MutableClock clock;
+    private CircuitBreakerPasarela circuito;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        circuito = new CircuitBreakerPasarela(10, 4, 0.5, Duration.ofSeconds(30), clock);
+    }
+
+    @Test
+    @DisplayName("No debería abrirse antes del mínimo de llamadas aunque todas fallen")
+    void testMinimoDeLlamadas() {
+        // Act
+        for (int i = 0; i < 3; i++) {
+            circuito.registrarFallo();
+        }
+
+        // Assert
+        assertEquals(CircuitBreakerPasarela.Estado.CERRADO, circuito.getEstado());
+        assertTrue(circuito.permitirLlamada());
+    }
+
+    @Test
+    @DisplayName("Debería abrirse al alcanzar el umbral y rechazar llamadas hasta que pase el tiempo")
+    void testAbreYRechaza() {
+        // Arrange
+        circuito.registrarExito();
+        circuito.registrarExito();
+
+        // Act
+        circuito.registrarFallo();
+        circuito.registrarFallo();
+
+        // Assert
+        assertEquals(CircuitBreakerPasarela.Estado.ABIERTO, circuito.getEstado());
+        assertFalse(circuito.permitirLlamada());
+
+        clock.advance(Duration.ofSeconds(29));
+        assertFalse(circuito.permitirLlamada());
+    }
+
+    @Test
+    @DisplayName("En semiabierto debería dejar pasar una sola prueba y cerrarse si funciona")
+    void testSemiabiertoCierra() {
+        // Arrange
+        abrirCircuito();
+        clock.advance(Duration.ofSeconds(30));
+
+        // Act
+        boolean prueba = circuito.permitirLlamada();
+        boolean segunda = circuito.permitirLlamada();
+        circuito.registrarExito();
+
+        // Assert
+        assertTrue(prueba);
+        assertFalse(segunda, "Mientras la prueba está en curso no pasa nadie más");
+        assertEquals(CircuitBreakerPasarela.Estado.CERRADO, circuito.getEstado());
+        assertEquals(0.0, circuito.getProporcionFallos(), "Al cerrarse la ventana empieza limpia");
+    }
+
+    @Test
+    @DisplayName("Si la prueba en semiabierto falla debería volver a abrirse")
+    void testSemiabiertoReabre() {
+        // Arrange
+        abrirCircuito();
+        clock.advance(Duration.ofSeconds(30));
+        assertTrue(circuito.permitirLlamada());
+
+        // Act
+        circuito.registrarFallo();
+
+        // Assert
+        assertEquals(CircuitBreakerPasarela.Estado.ABIERTO, circuito.getEstado());
+        assertFalse(circuito.permitirLlamada());
+    }
+
+    @Test
+    @DisplayName("Los fallos antiguos deberían salir de la ventana")
+    void testVentanaDeslizante() {
+        // Arrange: 4 fallos de 10 (por debajo del umbral) y luego 10 éxitos
+        for (int i = 0; i < 4; i++) {
+            circuito.registrarFallo();
+            circuito.registrarExito();
+            circuito.registrarExito();
+        }
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            circuito.registrarExito();
+        }
+
+        // Assert
+        assertEquals(0.0, circuito.getProporcionFallos());
+    }
+
+    @Test
+    @DisplayName("El monitor debería rechazar sin llamar con el circuito abierto e ignorar errores del cliente")
+    void testMonitorPasarela() throws IOException {
+        // Arrange
+        MonitorPasarela monitor = new MonitorPasarela("prueba", circuito);
+        AtomicInteger llamadas = new AtomicInteger();
+
+        // Act: errores que no son de la pasarela (p. ej. un 4xx) no cuentan como fallo
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IOException.class, () -> monitor.ejecutar("op", () -> {
+                llamadas.incrementAndGet();
+                throw new IOException("tarjeta rechazada");
+            }, e -> false));
+        }
+        assertEquals(CircuitBreakerPasarela.Estado.CERRADO, monitor.getEstadoCircuito());
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IOException.class, () -> monitor.ejecutar("op", () -> {
+                llamadas.incrementAndGet();
+                throw new IOException("timeout");
+            }, e -> true));
+        }
+
+        // Assert
+        assertEquals(10, llamadas.get());
+        assertThrows(PasarelaNoDisponibleException.class,
+                () -> monitor.ejecutar("op", llamadas::incrementAndGet, e -> true));
+        assertEquals(10, llamadas.get(), "Con el circuito abierto no se llama a la pasarela");
+        assertEquals(10L, monitor.getLatencia("op").count());
+    }
+
+    private void abrirCircuito() {
+        for (int i = 0; i < 4; i++) {
+            circuito.registrarFallo();
+        }
+        assertEquals(CircuitBreakerPasarela.Estado.ABIERTO, circuito.getEstado());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package co.todotech.repository;
+
+import co.todotech.busqueda.FacetasCatalogo;
+import co.todotech.busqueda.IndiceProductos;
+import co.todotech.busqueda.SugerenciasProductos;
+import co.todotech.cache.ProductoCatalogCache;
+import co.todotech.cache.VersionCatalogo;
+import co.todotech.exception.detalleorden.DetalleOrdenDuplicateException;
+import co.todotech.exception.detalleorden.StockInsufficientException;
+import co.todotech.mapper.DetalleOrdenMapperImpl;
+import co.todotech.mapper.ProductoMapperImpl;
+import co.todotech.model.dto.detalleorden.CreateDetalleOrdenDto;
+import co.todotech.model.dto.detalleorden.CreateDetallesOrdenDto;
+import co.todotech.model.dto.detalleorden.DetalleOrdenDto;
+import co.todotech.model.entities.*;
+import co.todotech.model.enums.EstadoOrden;
+import co.todotech.model.enums.EstadoProducto;
+import co.todotech.model.enums.TipoCliente;
+import co.todotech.model.enums.TipoUsuario;
+import co.todotech.service.impl.DetalleOrdenServiceImpl;
+import co.todotech.service.impl.InventarioServiceImpl;
+import co.todotech.service.impl.ProductoServiceImpl;
+import co.todotech.utils.BloqueoTareas;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica el alta de líneas por lotes contra H2.
+ * Sin transacción de test: cada llamada al servicio confirma o revierte su propia transacción.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:detalle_orden_lote;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DetalleOrdenServiceImpl.class, ProductoServiceImpl.class, InventarioServiceImpl.class, BloqueoTareas.class,
+        ProductoCatalogCache.class, VersionCatalogo.class, IndiceProductos.class, SugerenciasProductos.class, FacetasCatalogo.class,
+        DetalleOrdenMapperImpl.class, ProductoMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DetalleOrdenLoteTest {
+
+    private static final int PRODUCTOS = 5;
+
+    @Autowired
+    private DetalleOrdenServiceImpl detalleOrdenService;
+
+    @Autowired
+    private OrdenRepository ordenRepository;
+
+    @Autowired
+    private DetalleOrdenRepository detalleOrdenRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private final List<Long> productoIds = new ArrayList<>();
+    private Long ordenId;
+    private Orden.VerificacionExacta verificacion;
+
+    @BeforeEach
+    void setUp() {
+        verificacion = Orden.verificarTotalesExactos();
+
+        Categoria categoria = categoriaRepository.save(Categoria.builder().nombre("Lote").build());
+        for (int i = 0; i < PRODUCTOS; i++) {
+            productoIds.add(productoRepository.save(Producto.builder()
+                    .nombre("Producto " + i)
+                    .codigo("LOTE-" + i)
+                    .categoria(categoria)
+                    .precio(10.0 * (i + 1))
+                    .stock(5)
+                    .estado(EstadoProducto.ACTIVO)
+                    .build()).getId());
+        }
+        Cliente cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Cliente Lote")
+                .cedula("500600")
+                .tipoCliente(TipoCliente.NATURAL)
+                .build());
+        Usuario vendedor = usuarioRepository.save(Usuario.builder()
+                .nombre("Vendedor Lote")
+                .cedula("400700")
+                .correo("vendedor@lote.co")
+                .nombreUsuario("vendedor_lote")
+                .contrasena("secreto")
+                .tipoUsuario(TipoUsuario.VENDEDOR)
+                .build());
+        ordenId = ordenRepository.save(Orden.builder()
+                .numeroOrden("LOTE-1")
+                .fecha(LocalDateTime.now())
+                .cliente(cliente)
+                .vendedor(vendedor)
+                .estado(EstadoOrden.PENDIENTE)
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        detalleOrdenRepository.deleteAll();
+        ordenRepository.deleteAll();
+        inventarioRepository.deleteAll();
+        productoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+        clienteRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        productoIds.clear();
+        verificacion.close();
+    }
+
+    @Test
+    @DisplayName("Debería crear todas las líneas, descontar stock y recalcular totales una vez")
+    void testCrearDetallesOrden() {
+        // Arrange: 1 unidad del primero, 2 del segundo... y el último se agota
+        List<CreateDetalleOrdenDto> lineas = new ArrayList<>();
+        for (int i = 0; i < PRODUCTOS; i++) {
+            lineas.add(new CreateDetalleOrdenDto(productoIds.get(i), i + 1));
+        }
+
+        // Act
+        List<DetalleOrdenDto> creados = detalleOrdenService.crearDetallesOrden(new CreateDetallesOrdenDto(lineas), ordenId);
+
+        // Assert
+        assertEquals(PRODUCTOS, creados.size());
+        assertEquals(PRODUCTOS, detalleOrdenRepository.findByOrdenId(ordenId).size());
+        for (int i = 0; i < PRODUCTOS; i++) {
+            assertEquals(5 - (i + 1), productoRepository.findById(productoIds.get(i)).orElseThrow().getStock());
+        }
+        assertEquals(EstadoProducto.AGOTADO, productoRepository.findById(productoIds.get(PRODUCTOS - 1)).orElseThrow().getEstado());
+        assertEquals(PRODUCTOS, inventarioRepository.count());
+
+        // Subtotal = sum(10*(i+1) * (i+1)) = 10 + 40 + 90 + 160 + 250
+        Orden orden = ordenRepository.findById(ordenId).orElseThrow();
+        assertEquals(550.0, orden.getSubtotal(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Debería revertir todo el lote si una línea no tiene stock suficiente")
+    void testCrearDetallesOrdenStockInsuficiente() {
+        // Arrange
+        List<CreateDetalleOrdenDto> lineas = List.of(
+                new CreateDetalleOrdenDto(productoIds.get(0), 2),
+                new CreateDetalleOrdenDto(productoIds.get(1), 6));
+
+        // Act & Assert
+        assertThrows(StockInsufficientException.class,
+                () -> detalleOrdenService.crearDetallesOrden(new CreateDetallesOrdenDto(lineas), ordenId));
+
+        assertEquals(5, productoRepository.findById(productoIds.get(0)).orElseThrow().getStock());
+        assertEquals(5, productoRepository.findById(productoIds.get(1)).orElseThrow().getStock());
+        assertTrue(detalleOrdenRepository.findByOrdenId(ordenId).isEmpty());
+        assertEquals(0, inventarioRepository.count());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar productos repetidos dentro del mismo lote")
+    void testCrearDetallesOrdenDuplicados() {
+        // Arrange
+        List<CreateDetalleOrdenDto> lineas = List.of(
+                new CreateDetalleOrdenDto(productoIds.get(0), 1),
+                new CreateDetalleOrdenDto(productoIds.get(0), 1));
+
+        // Act & Assert
+        assertThrows(DetalleOrdenDuplicateException.class,
+                () -> detalleOrdenService.crearDetallesOrden(new CreateDetallesOrdenDto(lineas), ordenId));
+        assertEquals(5, productoRepository.findById(productoIds.get(0)).orElseThrow().getStock());
+    }
+
+    @Test
+    @DisplayName("Agregar o cambiar líneas ajusta los totales sin cargar las líneas que ya tenía la orden")
+    void testTotalesSinCargarLineas() {
+        // Arrange
+        detalleOrdenService.crearDetallesOrden(new CreateDetallesOrdenDto(
+                List.of(new CreateDetalleOrdenDto(productoIds.get(0), 1))), ordenId);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            Orden orden = ordenRepository.findById(ordenId).orElseThrow();
+            DetalleOrden nueva = DetalleOrden.builder()
+                    .producto(productoRepository.getReferenceById(productoIds.get(1)))
+                    .cantidad(2)
+                    .precioUnitario(20.0)
+                    .build();
+
+            // Act
+            orden.agregarDetalle(nueva);
+            nueva.setCantidad(3);
+            orden.registrarCambioDetalle(nueva, 40.0);
+
+            // Assert
+            assertFalse(Hibernate.isInitialized(orden.getProductos()));
+            assertEquals(70.0, orden.getSubtotal(), 0.001);
+            estado.setRollbackOnly();
+        });
+    }
+}
@@ -0,0 +1,176 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.*;
+import co.todotech.model.enums.*;
+import co.todotech.service.impl.ExportacionServiceImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica la exportación en streaming de órdenes y pagos contra H2.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:exportacion_stream;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ExportacionServiceImpl.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ExportacionStreamTest {
+
+    // Más filas que FILAS_POR_LOTE para pasar al menos una vez por entityManager.clear()
+    private static final int TOTAL_ORDENES = 520;
+
+    @Autowired
+    private ExportacionServiceImpl exportacionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrdenRepository ordenRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private MetodoPagoRepository metodoPagoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private final LocalDateTime base = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        Cliente cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Pérez, \"El Rápido\"")
+                .cedula("700300")
+                .tipoCliente(TipoCliente.NATURAL)
+                .build());
+        Usuario vendedor = usuarioRepository.save(Usuario.builder()
+                .nombre("Vendedor Export")
+                .cedula("600400")
+                .correo("vendedor@export.co")
+                .nombreUsuario("vendedor_export")
+                .contrasena("secreto")
+                .tipoUsuario(TipoUsuario.VENDEDOR)
+                .build());
+        MetodoPago efectivo = metodoPagoRepository.save(MetodoPago.builder()
+                .metodo(TipoMetodo.EFECTIVO)
+                .aprobacion(true)
+                .comision(0.0)
+                .build());
+
+        for (int i = 0; i < TOTAL_ORDENES; i++) {
+            Orden orden = ordenRepository.save(Orden.builder()
+                    .numeroOrden("EXP-" + i)
+                    .fecha(base.plusMinutes(i))
+                    .cliente(cliente)
+                    .vendedor(vendedor)
+                    .estado(EstadoOrden.PAGADA)
+                    .build());
+            if (i < 3) {
+                pagoRepository.save(Pago.builder()
+                        .ordenVenta(orden)
+                        .monto(100.0 * (i + 1))
+                        .metodoPago(efectivo)
+                        .fechaPago(base.plusDays(i))
+                        .usuario(vendedor)
+                        .estadoPago(EstadoPago.APROBADO)
+                        .build());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Debería exportar una línea NDJSON por orden, en orden cronológico")
+    void testExportarOrdenesNdjson() throws Exception {
+        // Arrange
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Act
+        long filas = exportacionService.exportarOrdenes(null, null, FormatoExportacion.NDJSON, salida);
+
+        // Assert
+        List<String> lineas = salida.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(TOTAL_ORDENES, filas);
+        assertEquals(TOTAL_ORDENES, lineas.size());
+        JsonNode primera = objectMapper.readTree(lineas.get(0));
+        assertEquals("EXP-0", primera.get("numeroOrden").asText());
+        assertEquals("Pérez, \"El Rápido\"", primera.get("cliente").asText());
+        assertEquals("EXP-" + (TOTAL_ORDENES - 1), objectMapper.readTree(lineas.get(TOTAL_ORDENES - 1)).get("numeroOrden").asText());
+    }
+
+    @Test
+    @DisplayName("Debería filtrar las órdenes por rango de fechas")
+    void testExportarOrdenesPorRango() throws Exception {
+        // Arrange
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Act
+        long filas = exportacionService.exportarOrdenes(base.plusMinutes(10), base.plusMinutes(19),
+                FormatoExportacion.NDJSON, salida);
+
+        // Assert
+        assertEquals(10, filas);
+        assertEquals(10, salida.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    @DisplayName("Debería exportar pagos en CSV con cabecera y valores escapados")
+    void testExportarPagosCsv() throws Exception {
+        // Arrange
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Act
+        long filas = exportacionService.exportarPagos(null, null, FormatoExportacion.CSV, salida);
+
+        // Assert
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, filas);
+        assertEquals(4, lineas.length);
+        assertTrue(lineas[0].startsWith("id,ordenVentaId,numeroOrden,monto"));
+        assertTrue(lineas[1].contains(",EXP-0,100.0,EFECTIVO,"));
+        assertTrue(lineas[1].endsWith(",APROBADO"));
+        assertTrue(lineas[3].contains(",EXP-2,300.0,"));
+    }
+
+    @Test
+    @DisplayName("Debería escapar comas y comillas en el CSV de órdenes")
+    void testExportarOrdenesCsvEscapado() throws Exception {
+        // Arrange
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        // Act
+        exportacionService.exportarOrdenes(base, base, FormatoExportacion.CSV, salida);
+
+        // Assert
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, lineas.length);
+        assertTrue(lineas[1].contains(",\"Pérez, \"\"El Rápido\"\"\",Vendedor Export,"));
+    }
+}
@@ -0,0 +1,154 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.Categoria;
+import co.todotech.model.entities.Inventario;
+import co.todotech.model.entities.InventarioSnapshot;
+import co.todotech.model.entities.Producto;
+import co.todotech.model.enums.EstadoProducto;
+import co.todotech.model.enums.TipoMovimiento;
+import co.todotech.service.impl.InventarioServiceImpl;
+import co.todotech.utils.BloqueoTareas;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica el libro de inventario contra H2: compactación en snapshots y
+ * consultas de stock actual e histórico a partir del snapshot.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventario;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({InventarioServiceImpl.class, BloqueoTareas.class})
+class InventarioRepositoryTest {
+
+    @Autowired
+    private InventarioRepository inventarioRepository;
+
+    @Autowired
+    private InventarioSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private InventarioServiceImpl inventarioService;
+
+    private Producto producto;
+    private LocalDateTime ahora;
+
+    @BeforeEach
+    void setUp() {
+        Categoria categoria = categoriaRepository.save(Categoria.builder().nombre("Inventario").build());
+        producto = productoRepository.save(Producto.builder()
+                .nombre("Teclado")
+                .codigo("TEC-001")
+                .categoria(categoria)
+                .precio(80.0)
+                .stock(10)
+                .estado(EstadoProducto.ACTIVO)
+                .build());
+
+        ahora = LocalDateTime.now();
+        inventarioRepository.saveAll(List.of(
+                movimiento(TipoMovimiento.INICIAL, 10, ahora.minusHours(3)),
+                movimiento(TipoMovimiento.VENTA, -3, ahora.minusHours(2)),
+                movimiento(TipoMovimiento.ENTRADA, 5, ahora.minusHours(1))
+        ));
+    }
+
+    @Test
+    @DisplayName("Debería calcular el stock sumando el historial cuando no hay snapshot")
+    void testStockSinSnapshot() {
+        // Act & Assert
+        assertEquals(12, inventarioService.consultarStockSegunLibro(producto.getId()));
+        assertEquals(7, inventarioService.consultarStockEn(producto.getId(), ahora.minusMinutes(90)));
+        assertEquals(0, inventarioService.consultarStockEn(producto.getId(), ahora.minusHours(4)));
+    }
+
+    @Test
+    @DisplayName("Debería compactar los movimientos pendientes en un snapshot")
+    void testCompactarSnapshots() {
+        // Act
+        int compactados = inventarioService.compactarSnapshots();
+
+        // Assert
+        assertEquals(1, compactados);
+        InventarioSnapshot snapshot = snapshotRepository.findById(producto.getId()).orElseThrow();
+        assertEquals(12, snapshot.getStock());
+
+        // Una segunda pasada sin movimientos nuevos no cambia nada
+        assertEquals(0, inventarioService.compactarSnapshots());
+        assertEquals(12, snapshotRepository.findById(producto.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    @DisplayName("Debería consultar stock actual e histórico partiendo del snapshot")
+    void testStockDesdeSnapshot() {
+        // Arrange
+        inventarioService.compactarSnapshots();
+        inventarioRepository.save(movimiento(TipoMovimiento.SALIDA, -2, ahora.minusMinutes(10)));
+
+        // Act & Assert: hacia adelante desde el corte
+        assertEquals(10, inventarioService.consultarStockSegunLibro(producto.getId()));
+        // Hacia atrás desde el corte
+        assertEquals(7, inventarioService.consultarStockEn(producto.getId(), ahora.minusMinutes(90)));
+        assertEquals(10, inventarioService.consultarStockEn(producto.getId(), ahora.minusMinutes(150)));
+    }
+
+    @Test
+    @DisplayName("Un movimiento confirmado después de una compactación entra en la siguiente aunque su fecha sea anterior")
+    void testMovimientoConfirmadoTardeSeCompacta() {
+        // Arrange: la fecha se asigna al persistir, antes del commit; aquí el commit llega tras compactar
+        inventarioService.compactarSnapshots();
+        inventarioRepository.save(movimiento(TipoMovimiento.ENTRADA, 4, ahora.minusHours(5)));
+
+        // Act & Assert: pendiente, ya cuenta para el stock actual
+        assertEquals(16, inventarioService.consultarStockSegunLibro(producto.getId()));
+
+        assertEquals(1, inventarioService.compactarSnapshots());
+        assertEquals(16, snapshotRepository.findById(producto.getId()).orElseThrow().getStock());
+        assertEquals(16, inventarioService.consultarStockSegunLibro(producto.getId()));
+        assertEquals(4, inventarioService.consultarStockEn(producto.getId(), ahora.minusMinutes(270)));
+    }
+
+    @Test
+    @DisplayName("Debería ignorar movimientos con cantidad cero")
+    void testRegistrarMovimientoCero() {
+        // Act
+        inventarioService.registrarMovimiento(producto.getId(), TipoMovimiento.AJUSTE, 0, null);
+        inventarioService.registrarMovimiento(producto.getId(), TipoMovimiento.VENTA, -1, "ORDEN-1");
+
+        // Assert
+        List<Inventario> movimientos = inventarioRepository.findByProductoIdOrderByFechaDescIdDesc(producto.getId());
+        assertEquals(4, movimientos.size());
+        assertEquals("ORDEN-1", movimientos.get(0).getReferencia());
+    }
+
+    private Inventario movimiento(TipoMovimiento tipo, int cantidad, LocalDateTime fecha) {
+        return Inventario.builder()
+                .producto(producto)
+                .tipo(tipo)
+                .cantidad(cantidad)
+                .fecha(fecha)
+                .build();
+    }
+}
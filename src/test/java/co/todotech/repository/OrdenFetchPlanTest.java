@@ -0,0 +1,247 @@
+package co.todotech.repository;
+
+import co.todotech.mapper.ClienteMapperImpl;
+import co.todotech.mapper.DetalleOrdenMapperImpl;
+import co.todotech.mapper.OrdenMapperImpl;
+import co.todotech.mapper.UsuarioMapperImpl;
+import co.todotech.model.dto.PaginaDto;
+import co.todotech.model.dto.ordenventa.OrdenConDetallesDto;
+import co.todotech.model.dto.ordenventa.OrdenDto;
+import co.todotech.model.entities.*;
+import co.todotech.model.enums.EstadoOrden;
+import co.todotech.model.enums.EstadoProducto;
+import co.todotech.model.enums.TipoCliente;
+import co.todotech.model.enums.TipoUsuario;
+import co.todotech.service.impl.OrdenServiceImpl;
+import co.todotech.service.impl.ResumenVentasServiceImpl;
+import co.todotech.utils.BloqueoTareas;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cuenta las sentencias SQL que ejecuta cada caso de uso de órdenes.
+ * Si alguien vuelve a poner las líneas en EAGER o agrega un acceso perezoso
+ * dentro de un listado, el conteo deja de ser constante y la prueba falla.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orden_fetch_plan;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrdenServiceImpl.class, ResumenVentasServiceImpl.class, BloqueoTareas.class,
+        OrdenMapperImpl.class, DetalleOrdenMapperImpl.class, ClienteMapperImpl.class, UsuarioMapperImpl.class})
+class OrdenFetchPlanTest {
+
+    private static final int ORDENES = 6;
+    private static final int LINEAS_POR_ORDEN = 3;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrdenServiceImpl ordenService;
+
+    private Statistics statistics;
+    private Long clienteId;
+    private Long vendedorId;
+    private Long ordenId;
+
+    @BeforeEach
+    void setUp() {
+        Categoria[] categorias = {
+                em.persist(Categoria.builder().nombre("Audio").build()),
+                em.persist(Categoria.builder().nombre("Video").build())
+        };
+
+        Producto[] productos = new Producto[LINEAS_POR_ORDEN];
+        for (int i = 0; i < productos.length; i++) {
+            productos[i] = em.persist(Producto.builder()
+                    .nombre("Producto " + i)
+                    .codigo("PRD-" + i)
+                    .categoria(categorias[i % categorias.length])
+                    .precio(10.0 * (i + 1))
+                    .stock(100)
+                    .estado(EstadoProducto.ACTIVO)
+                    .build());
+        }
+
+        LocalDateTime base = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < ORDENES; i++) {
+            // Cada orden con un cliente y un vendedor distintos: un N+1 se notaría en el conteo
+            Cliente cliente = em.persist(Cliente.builder()
+                    .nombre("Cliente " + i)
+                    .cedula("10" + i)
+                    .tipoCliente(TipoCliente.NATURAL)
+                    .build());
+            Usuario vendedor = em.persist(Usuario.builder()
+                    .nombre("Vendedor " + i)
+                    .cedula("20" + i)
+                    .correo("vendedor" + i + "@todotech.co")
+                    .nombreUsuario("vendedor" + i)
+                    .contrasena("secreto")
+                    .tipoUsuario(TipoUsuario.VENDEDOR)
+                    .build());
+
+            Orden orden = Orden.builder()
+                    .numeroOrden("ORD-" + i)
+                    // Fechas repetidas de a pares: el cursor debe desempatar por id
+                    .fecha(base.minusMinutes(i / 2))
+                    .cliente(cliente)
+                    .vendedor(vendedor)
+                    .estado(EstadoOrden.PENDIENTE)
+                    .build();
+            for (Producto producto : productos) {
+                orden.agregarDetalle(DetalleOrden.builder()
+                        .producto(producto)
+                        .cantidad(1)
+                        .precioUnitario(producto.getPrecio())
+                        .build());
+            }
+            em.persist(orden);
+
+            clienteId = cliente.getId();
+            vendedorId = vendedor.getId();
+            ordenId = orden.getId();
+        }
+
+        // Persistence context vacío: cada caso de uso carga desde la BD
+        em.flush();
+        em.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Listar todas las órdenes debería ejecutar una sola consulta sin cargar líneas")
+    void testObtenerTodasLasOrdenes() {
+        List<OrdenDto> ordenes = ordenService.obtenerTodasLasOrdenes();
+
+        assertEquals(ORDENES, ordenes.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    @DisplayName("Listar por estado, cliente y vendedor debería ser constante en sentencias")
+    void testListadosFiltrados() {
+        assertEquals(ORDENES, ordenService.obtenerOrdenesPorEstado(EstadoOrden.PENDIENTE).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(1, ordenService.obtenerOrdenesPorCliente(clienteId).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(1, ordenService.obtenerOrdenesPorVendedor(vendedorId).size());
+        // existsById del vendedor + la consulta de órdenes
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Obtener una orden sin detalles no debería cargar sus líneas")
+    void testObtenerOrden() {
+        OrdenDto orden = ordenService.obtenerOrden(ordenId);
+
+        assertEquals(ordenId, orden.id());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+
+    @Test
+    @DisplayName("Obtener una orden con detalles debería traer líneas, productos y categorías en una consulta")
+    void testObtenerOrdenConDetalles() {
+        OrdenConDetallesDto orden = ordenService.obtenerOrdenConDetalles(ordenId);
+
+        assertEquals(LINEAS_POR_ORDEN, orden.productos().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("La paginación por cursor debería recorrer todas las órdenes sin repetir, una consulta por página")
+    void testPaginacionPorCursor() {
+        List<Long> vistos = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+
+        do {
+            statistics.clear();
+            PaginaDto<OrdenDto> pagina = ordenService.obtenerOrdenesPaginadas(cursor, 4);
+
+            assertEquals(1, statistics.getPrepareStatementCount());
+            // Solo se materializa la página más la fila de control, nunca las anteriores
+            assertTrue(statistics.getEntityLoadCount() <= (4 + 1) * 3);
+            pagina.contenido().forEach(orden -> vistos.add(orden.id()));
+            cursor = pagina.next();
+            paginas++;
+        } while (cursor != null);
+
+        assertEquals(2, paginas);
+        assertEquals(ORDENES, vistos.size());
+        assertEquals(ORDENES, new HashSet<>(vistos).size());
+    }
+
+    @Test
+    @DisplayName("La paginación por estado debería respetar el orden fecha desc, id desc")
+    void testPaginacionPorEstado() {
+        PaginaDto<OrdenDto> primera = ordenService.obtenerOrdenesPorEstadoPaginadas(EstadoOrden.PENDIENTE, null, 3);
+        PaginaDto<OrdenDto> segunda = ordenService.obtenerOrdenesPorEstadoPaginadas(EstadoOrden.PENDIENTE, primera.next(), 3);
+
+        assertEquals(3, primera.contenido().size());
+        assertEquals(3, segunda.contenido().size());
+        assertNull(segunda.next());
+
+        List<OrdenDto> todas = new ArrayList<>(primera.contenido());
+        todas.addAll(segunda.contenido());
+        for (int i = 1; i < todas.size(); i++) {
+            OrdenDto anterior = todas.get(i - 1);
+            OrdenDto actual = todas.get(i);
+            assertTrue(anterior.fecha().isAfter(actual.fecha())
+                    || (anterior.fecha().isEqual(actual.fecha()) && anterior.id() > actual.id()));
+        }
+
+        assertTrue(ordenService.obtenerOrdenesPorEstadoPaginadas(EstadoOrden.PAGADA, null, 3).contenido().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Un cursor mal formado debería rechazarse")
+    void testCursorInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> ordenService.obtenerOrdenesPaginadas("no-es-un-cursor", 5));
+    }
+
+    @Test
+    @DisplayName("El monitoreo por estado debería contar líneas sin inicializar colecciones")
+    void testMonitoreoPorEstado() {
+        List<Map<String, Object>> ordenes = ordenService.getOrdenesPorEstadoForMonitoring(EstadoOrden.PENDIENTE);
+
+        assertEquals(ORDENES, ordenes.size());
+        ordenes.forEach(info -> assertEquals(LINEAS_POR_ORDEN, info.get("productosCount")));
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+    }
+}
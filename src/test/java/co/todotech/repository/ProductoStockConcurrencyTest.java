@@ -0,0 +1,146 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.Categoria;
+import co.todotech.model.entities.Producto;
+import co.todotech.model.enums.EstadoProducto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dispara cientos de decrementos concurrentes contra el UPDATE condicional
+ * y verifica que nunca se vende más stock del que existe. El rendimiento lo mide
+ * {@code DecrementoStockBenchmark} ({@code ./gradlew jmh -Pjmh.includes=DecrementoStock}).
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock_concurrency;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=16"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductoStockConcurrencyTest {
+
+    private static final int STOCK_INICIAL = 100;
+    private static final int DECREMENTOS = 500;
+    private static final int HILOS = 16;
+    private static final Set<EstadoProducto> ESTADOS = EnumSet.of(EstadoProducto.ACTIVO);
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long productoId;
+
+    @BeforeEach
+    void setUp() {
+        Categoria categoria = categoriaRepository.save(Categoria.builder().nombre("Concurrencia").build());
+        Producto producto = productoRepository.save(Producto.builder()
+                .nombre("Mouse")
+                .codigo("MOU-001")
+                .categoria(categoria)
+                .precio(50.0)
+                .stock(STOCK_INICIAL)
+                .estado(EstadoProducto.ACTIVO)
+                .build());
+        productoId = producto.getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Decrementos concurrentes no deberían vender más stock del existente")
+    void testSinSobreventa() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        AtomicInteger exitosos = new AtomicInteger();
+        AtomicInteger rechazados = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int i = 0; i < DECREMENTOS; i++) {
+            futuros.add(executor.submit(() -> {
+                salida.await();
+                Integer filas = tx.execute(status ->
+                        productoRepository.decrementarStockSiDisponible(productoId, 1, ESTADOS));
+                if (filas != null && filas == 1) {
+                    exitosos.incrementAndGet();
+                } else {
+                    rechazados.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        salida.countDown();
+        for (Future<?> futuro : futuros) {
+            futuro.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Producto producto = productoRepository.findById(productoId).orElseThrow();
+
+        assertEquals(STOCK_INICIAL, exitosos.get());
+        assertEquals(DECREMENTOS - STOCK_INICIAL, rechazados.get());
+        assertEquals(0, producto.getStock());
+        assertEquals(EstadoProducto.AGOTADO, producto.getEstado());
+    }
+
+    @Test
+    @DisplayName("El UPDATE condicional no debería tocar productos fuera de los estados permitidos")
+    void testEstadoNoPermitido() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        Integer filas = tx.execute(status -> productoRepository.decrementarStockSiDisponible(
+                productoId, 1, EnumSet.of(EstadoProducto.DESCONTINUADO)));
+
+        assertEquals(0, filas);
+        assertEquals(STOCK_INICIAL, productoRepository.findById(productoId).orElseThrow().getStock());
+    }
+
+    @Test
+    @DisplayName("Incrementar debería reactivar un producto AGOTADO")
+    void testIncrementoReactivaAgotado() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        tx.execute(status -> productoRepository.decrementarStockSiDisponible(productoId, STOCK_INICIAL, ESTADOS));
+        assertEquals(EstadoProducto.AGOTADO, productoRepository.findById(productoId).orElseThrow().getEstado());
+
+        tx.execute(status -> productoRepository.incrementarStockAtomico(
+                productoId, 5, EnumSet.of(EstadoProducto.ACTIVO, EstadoProducto.AGOTADO)));
+
+        Producto producto = productoRepository.findById(productoId).orElseThrow();
+        assertEquals(5, producto.getStock());
+        assertEquals(EstadoProducto.ACTIVO, producto.getEstado());
+    }
+}
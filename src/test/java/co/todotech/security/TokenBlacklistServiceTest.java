@@ -0,0 +1,152 @@
+package co.todotech.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBlacklistServiceTest {
+
+    private static final Algorithm ALGORITHM = Algorithm.HMAC256("secreto_de_prueba_para_blacklist_de_tokens");
+
+    private MutableClock clock;
+    private TokenBlacklistService blacklist;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        blacklist = new TokenBlacklistService(1000, 60, clock);
+    }
+
+    @Test
+    @DisplayName("Debería detectar el token revocado por token y por principal")
+    void testTokenRevocado() {
+        String revocado = token("jti-1", clock.instant().plusSeconds(3600));
+        String activo = token("jti-2", clock.instant().plusSeconds(3600));
+
+        blacklist.blacklistToken(revocado);
+
+        assertTrue(blacklist.isTokenBlacklisted(revocado));
+        assertTrue(blacklist.isRevoked(principal("jti-1"), revocado));
+        assertFalse(blacklist.isTokenBlacklisted(activo));
+        assertFalse(blacklist.isRevoked(principal("jti-2"), activo));
+    }
+
+    @Test
+    @DisplayName("Debería conservar cada token solo hasta su propio exp")
+    void testExpiracionPorExp() {
+        String corto = token("jti-corto", clock.instant().plusSeconds(120));
+        String largo = token("jti-largo", clock.instant().plusSeconds(7200));
+        blacklist.blacklistToken(corto);
+        blacklist.blacklistToken(largo);
+
+        clock.advance(Duration.ofSeconds(300));
+        blacklist.cleanExpiredTokens();
+
+        assertEquals(1, blacklist.size());
+        assertFalse(blacklist.isTokenBlacklisted(corto));
+        assertTrue(blacklist.isTokenBlacklisted(largo));
+    }
+
+    @Test
+    @DisplayName("No debería barrer una cubeta que todavía no terminó")
+    void testCubetaEnCurso() {
+        String token = token("jti-1", clock.instant().plusSeconds(30));
+        blacklist.blacklistToken(token);
+
+        clock.advance(Duration.ofSeconds(20));
+        blacklist.cleanExpiredTokens();
+
+        assertTrue(blacklist.isTokenBlacklisted(token));
+    }
+
+    @Test
+    @DisplayName("No debería guardar un token que ya expiró")
+    void testTokenYaExpirado() {
+        blacklist.blacklistToken(token("jti-1", clock.instant().minusSeconds(1)));
+
+        assertEquals(0, blacklist.size());
+    }
+
+    @Test
+    @DisplayName("Debería seguir detectando todos los tokens al superar la capacidad prevista")
+    void testRedimensionarFiltro() {
+        TokenBlacklistService pequena = new TokenBlacklistService(10, 60, clock);
+        for (int i = 0; i < 500; i++) {
+            pequena.blacklistToken(token("jti-" + i, clock.instant().plusSeconds(3600)));
+        }
+
+        for (int i = 0; i < 500; i++) {
+            assertTrue(pequena.isRevoked(principal("jti-" + i), null), "jti-" + i);
+        }
+        assertEquals(500, pequena.size());
+    }
+
+    @Test
+    @DisplayName("El filtro de Bloom no debería dar falsos negativos y sí pocos falsos positivos")
+    void testFiltroDeBloom() {
+        TokenBloomFilter filtro = TokenBloomFilter.paraCapacidad(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar(TokenDigest.of("dentro-" + i));
+        }
+
+        int falsosPositivos = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filtro.podriaContener(TokenDigest.of("dentro-" + i)));
+            if (filtro.podriaContener(TokenDigest.of("fuera-" + i))) {
+                falsosPositivos++;
+            }
+        }
+        assertTrue(falsosPositivos < 300, "Falsos positivos: " + falsosPositivos);
+    }
+
+    private static String token(String jwtId, Instant expiresAt) {
+        return JWT.create()
+                .withIssuer("todotech-app")
+                .withSubject("admin")
+                .withJWTId(jwtId)
+                .withExpiresAt(Date.from(expiresAt))
+                .sign(ALGORITHM);
+    }
+
+    private static JwtPrincipal principal(String jwtId) {
+        return new JwtPrincipal("admin", 1L, "ADMIN", jwtId, null);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
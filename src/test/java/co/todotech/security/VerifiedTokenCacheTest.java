@@ -0,0 +1,128 @@
+package co.todotech.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private MutableClock clock;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        cache = new VerifiedTokenCache(3, clock);
+    }
+
+    @Test
+    @DisplayName("Debería contar fallo y luego acierto para el mismo token")
+    void testHitMissCounters() {
+        JwtPrincipal principal = principal("admin", clock.instant().plusSeconds(3600));
+
+        assertNull(cache.get("token-a"));
+        cache.put("token-a", principal);
+
+        assertSame(principal, cache.get("token-a"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRatio());
+    }
+
+    @Test
+    @DisplayName("No debería devolver un principal cuyo exp ya pasó")
+    void testEntradaExpirada() {
+        cache.put("token-a", principal("admin", clock.instant().plusSeconds(60)));
+
+        clock.advance(Duration.ofSeconds(61));
+
+        assertNull(cache.get("token-a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Debería respetar el tamaño máximo descartando entradas")
+    void testTamanoAcotado() {
+        Instant exp = clock.instant().plusSeconds(3600);
+        for (int i = 0; i < 10; i++) {
+            cache.put("token-" + i, principal("user" + i, exp));
+        }
+
+        assertTrue(cache.size() <= 3);
+        assertTrue(cache.getEvictions() > 0);
+    }
+
+    @Test
+    @DisplayName("Debería preferir descartar expirados antes que entradas vigentes")
+    void testPurgaExpiradosAntesDeDescartar() {
+        cache.put("viejo-1", principal("a", clock.instant().plusSeconds(10)));
+        cache.put("viejo-2", principal("b", clock.instant().plusSeconds(10)));
+        cache.put("vigente", principal("c", clock.instant().plusSeconds(3600)));
+
+        clock.advance(Duration.ofSeconds(30));
+        cache.put("nuevo", principal("d", clock.instant().plusSeconds(3600)));
+
+        assertNotNull(cache.get("vigente"));
+        assertNotNull(cache.get("nuevo"));
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    @DisplayName("verifyToken debería decodificar todos los claims en una sola pasada")
+    void testVerifyTokenUnaPasada() {
+        JwtUtil jwtUtil = new JwtUtil(null);
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", "test_jwt_secret_muy_largo_y_seguro_minimo_32");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "issuer", "todotech-app");
+        jwtUtil.init();
+
+        String token = jwtUtil.generateToken("vendedor1", 7L, "vendedor");
+        JwtPrincipal principal = jwtUtil.verifyToken(token).orElseThrow();
+
+        assertEquals("vendedor1", principal.username());
+        assertEquals(7L, principal.userId());
+        assertEquals("VENDEDOR", principal.role());
+        assertNotNull(principal.jwtId());
+        assertTrue(jwtUtil.verifyToken(token + "x").isEmpty());
+    }
+
+    private JwtPrincipal principal(String username, Instant expiresAt) {
+        return new JwtPrincipal(username, 1L, "ADMIN", "jti_" + username, expiresAt);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package co.todotech.service.impl;
 
+import co.todotech.cache.ProductoCatalogCache;
+import co.todotech.cache.VersionCatalogo;
 import co.todotech.mapper.CategoriaMapper;
 import co.todotech.model.dto.categoria.CategoriaDto;
 import co.todotech.model.entities.Categoria;
@@ -29,6 +31,12 @@ class CategoriaServiceImplTest {
     @Mock
     private CategoriaMapper categoriaMapper;
 
+    @Mock
+    private ProductoCatalogCache catalogoCache;
+
+    @Mock
+    private VersionCatalogo versionCatalogo;
+
     @InjectMocks
     private CategoriaServiceImpl categoriaService;
 
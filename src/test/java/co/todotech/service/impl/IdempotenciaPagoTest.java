@@ -0,0 +1,341 @@
+package co.todotech.service.impl;
+
+import co.todotech.controller.PaymentGatewayController;
+import co.todotech.model.dto.MensajeDto;
+import co.todotech.model.dto.pasarela.PaymentIntentRequestDto;
+import co.todotech.model.dto.pasarela.PaymentIntentResponseDto;
+import co.todotech.model.enums.TipoMetodo;
+import co.todotech.repository.SolicitudIdempotenteRepository;
+import co.todotech.service.WebhookPasarelaService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Idempotency-Key de create-payment-intent contra un stub local de la API HTTP de Stripe.
+ * Sin transacción de test: los duplicados concurrentes llegan desde varios hilos.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotencia_pago;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "stripe.secret-key=sk_test_stub"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({PaymentGatewayController.class, PaymentGatewayFactory.class, StripePaymentService.class,
+        IdempotenciaServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotenciaPagoTest {
+
+    private static final StubStripe STRIPE = StubStripe.iniciar();
+
+    @DynamicPropertySource
+    static void apiDeStripe(DynamicPropertyRegistry registry) {
+        registry.add("stripe.api-base", STRIPE::getUrl);
+    }
+
+    @Autowired
+    private PaymentGatewayController controller;
+
+    // El webhook no interviene en la creación de pagos
+    @MockitoBean
+    private WebhookPasarelaService webhookPasarelaService;
+
+    @Autowired
+    private SolicitudIdempotenteRepository solicitudRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        solicitudRepository.deleteAll();
+        STRIPE.reiniciar();
+    }
+
+    @AfterAll
+    static void detenerStub() {
+        STRIPE.detener();
+    }
+
+    @Test
+    @DisplayName("Un reintento con la misma Idempotency-Key devuelve el mismo PaymentIntent sin llamar otra vez a Stripe")
+    void reintentoDevuelveRespuestaGuardada() {
+        // Arrange
+        PaymentIntentRequestDto request = crearRequest(150.0);
+
+        // Act
+        ResponseEntity<MensajeDto<PaymentIntentResponseDto>> primera = controller.createPaymentIntent(request, "clave-1");
+        ResponseEntity<MensajeDto<PaymentIntentResponseDto>> reintento = controller.createPaymentIntent(request, "clave-1");
+
+        // Assert
+        assertEquals(HttpStatus.OK, primera.getStatusCode());
+        assertEquals(HttpStatus.OK, reintento.getStatusCode());
+        assertEquals(primera.getBody().getData().paymentIntentId(), reintento.getBody().getData().paymentIntentId());
+        assertEquals(1, STRIPE.getLlamadas());
+        assertEquals(List.of("clave-1"), STRIPE.getClavesRecibidas(), "La clave se reenvía a Stripe");
+        assertTrue(solicitudRepository.existsById("clave-1"));
+    }
+
+    @Test
+    @DisplayName("Los duplicados concurrentes esperan a la primera llamada")
+    void duplicadosConcurrentesSeDeduplican() throws Exception {
+        // Arrange
+        PaymentIntentRequestDto request = crearRequest(99.5);
+        int hilos = 8;
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        STRIPE.setDemoraMs(300);
+
+        // Act
+        List<Future<ResponseEntity<MensajeDto<PaymentIntentResponseDto>>>> futuros = new ArrayList<>();
+        for (int i = 0; i < hilos; i++) {
+            futuros.add(executor.submit(() -> {
+                salida.await();
+                return controller.createPaymentIntent(request, "clave-concurrente");
+            }));
+        }
+        salida.countDown();
+
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        for (Future<ResponseEntity<MensajeDto<PaymentIntentResponseDto>>> futuro : futuros) {
+            ResponseEntity<MensajeDto<PaymentIntentResponseDto>> respuesta = futuro.get();
+            assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+            ids.add(respuesta.getBody().getData().paymentIntentId());
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(1, ids.size());
+        assertEquals(1, STRIPE.getLlamadas());
+    }
+
+    @Test
+    @DisplayName("La misma clave con otra petición responde 409")
+    void mismaClaveConOtraPeticionEsConflicto() {
+        // Arrange
+        controller.createPaymentIntent(crearRequest(100.0), "clave-conflicto");
+
+        // Act
+        ResponseEntity<MensajeDto<PaymentIntentResponseDto>> respuesta =
+                controller.createPaymentIntent(crearRequest(200.0), "clave-conflicto");
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, respuesta.getStatusCode());
+        assertTrue(respuesta.getBody().isError());
+        assertEquals(1, STRIPE.getLlamadas());
+    }
+
+    @Test
+    @DisplayName("Tras un reinicio la respuesta se recupera de la tabla")
+    void respuestaSobreviveAlReinicio() {
+        // Arrange
+        PaymentIntentRequestDto request = crearRequest(42.0);
+        ResponseEntity<MensajeDto<PaymentIntentResponseDto>> primera = controller.createPaymentIntent(request, "clave-persistida");
+
+        // Un servicio nuevo no tiene nada en memoria, como otra instancia o un reinicio
+        IdempotenciaServiceImpl otraInstancia = new IdempotenciaServiceImpl(solicitudRepository, objectMapper, 24, 100);
+
+        // Act
+        PaymentIntentResponseDto recuperada = otraInstancia.ejecutar("clave-persistida", "create-payment-intent",
+                request, PaymentIntentResponseDto.class,
+                () -> fail("No debe volver a llamar a la pasarela"),
+                r -> true);
+
+        // Assert
+        assertEquals(primera.getBody().getData().paymentIntentId(), recuperada.paymentIntentId());
+        assertEquals(primera.getBody().getData().clientSecret(), recuperada.clientSecret());
+        assertEquals(1, STRIPE.getLlamadas());
+    }
+
+    @Test
+    @DisplayName("Un error de Stripe no se guarda y el reintento vuelve a llamar")
+    void errorNoSeGuarda() {
+        // Arrange
+        PaymentIntentRequestDto request = crearRequest(10.0);
+        STRIPE.setFallosPendientes(1);
+
+        // Act
+        ResponseEntity<MensajeDto<PaymentIntentResponseDto>> fallida = controller.createPaymentIntent(request, "clave-error");
+        ResponseEntity<MensajeDto<PaymentIntentResponseDto>> reintento = controller.createPaymentIntent(request, "clave-error");
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, fallida.getStatusCode());
+        assertEquals(HttpStatus.OK, reintento.getStatusCode());
+        assertEquals(2, STRIPE.getLlamadas());
+        assertTrue(solicitudRepository.existsById("clave-error"));
+    }
+
+    @Test
+    @DisplayName("Sin Idempotency-Key cada petición crea un PaymentIntent")
+    void sinClaveNoHayDeduplicacion() {
+        // Arrange
+        PaymentIntentRequestDto request = crearRequest(75.0);
+
+        // Act
+        controller.createPaymentIntent(request, null);
+        controller.createPaymentIntent(request, null);
+
+        // Assert
+        assertEquals(2, STRIPE.getLlamadas());
+        assertEquals(0, solicitudRepository.count());
+    }
+
+    private static PaymentIntentRequestDto crearRequest(double monto) {
+        return new PaymentIntentRequestDto(monto, "USD", TipoMetodo.STRIPE, 1L, "cliente@todotech.co", Map.of());
+    }
+
+    /**
+     * Responde POST /v1/payment_intents como Stripe. Igual que la API real, una clave ya vista
+     * devuelve el PaymentIntent creado con ella.
+     */
+    static final class StubStripe {
+
+        private final HttpServer servidor;
+        private final AtomicInteger llamadas = new AtomicInteger();
+        private final AtomicInteger fallosPendientes = new AtomicInteger();
+        private final List<String> clavesRecibidas = new CopyOnWriteArrayList<>();
+        private final Map<String, String> respuestasPorClave = new ConcurrentHashMap<>();
+        private volatile long demoraMs;
+
+        private StubStripe(HttpServer servidor) {
+            this.servidor = servidor;
+        }
+
+        static StubStripe iniciar() {
+            try {
+                HttpServer servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+                StubStripe stub = new StubStripe(servidor);
+                servidor.createContext("/v1/payment_intents", stub::atender);
+                servidor.setExecutor(Executors.newCachedThreadPool());
+                servidor.start();
+                return stub;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void atender(HttpExchange exchange) throws IOException {
+            llamadas.incrementAndGet();
+            String clave = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+            if (clave != null) {
+                clavesRecibidas.add(clave);
+            }
+            dormir();
+
+            if (fallosPendientes.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                responder(exchange, 400, """
+                        {"error": {"type": "invalid_request_error", "message": "Fallo simulado"}}""");
+                return;
+            }
+
+            String id = "pi_stub_" + llamadas.get();
+            String cuerpo = clave == null
+                    ? cuerpoDe(id)
+                    : respuestasPorClave.computeIfAbsent(clave, k -> cuerpoDe(id));
+            responder(exchange, 200, cuerpo);
+        }
+
+        private static String cuerpoDe(String id) {
+            return """
+                    {"id": "%s", "object": "payment_intent", "amount": 1000, "amount_received": 0,
+                     "currency": "usd", "client_secret": "%s_secret_test", "status": "requires_payment_method",
+                     "payment_method_types": ["card"], "created": 1700000000, "livemode": false}"""
+                    .formatted(id, id);
+        }
+
+        private static void responder(HttpExchange exchange, int estado, String cuerpo) throws IOException {
+            byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(estado, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        private void dormir() {
+            if (demoraMs <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(demoraMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void reiniciar() {
+            llamadas.set(0);
+            fallosPendientes.set(0);
+            clavesRecibidas.clear();
+            respuestasPorClave.clear();
+            demoraMs = 0;
+        }
+
+        void setDemoraMs(long demoraMs) {
+            this.demoraMs = demoraMs;
+        }
+
+        void setFallosPendientes(int fallos) {
+            fallosPendientes.set(fallos);
+        }
+
+        int getLlamadas() {
+            return llamadas.get();
+        }
+
+        List<String> getClavesRecibidas() {
+            return clavesRecibidas.stream().collect(Collectors.toUnmodifiableList());
+        }
+
+        String getUrl() {
+            return "http://127.0.0.1:" + servidor.getAddress().getPort();
+        }
+
+        void detener() {
+            servidor.stop(0);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package co.todotech.service.impl;
 
+import co.todotech.cache.VersionCatalogo;
 import co.todotech.mapper.MetodoPagoMapper;
 import co.todotech.model.dto.metodopago.MetodoPagoDto;
 import co.todotech.model.entities.MetodoPago;
@@ -30,6 +31,9 @@ class MetodoPagoServiceImplTest {
     @Mock
     private MetodoPagoMapper metodoPagoMapper;
 
+    @Mock
+    private VersionCatalogo versionCatalogo;
+
     @InjectMocks
     private MetodoPagoServiceImpl metodoPagoService;
 
@@ -73,6 +77,7 @@ class MetodoPagoServiceImplTest {
         verify(metodoPagoMapper).toEntity(metodoPagoDto);
         verify(metodoPagoRepository).save(metodoPago);
         verify(metodoPagoMapper).toDto(metodoPago);
+        verify(versionCatalogo).incrementar(VersionCatalogo.Seccion.METODOS_PAGO, List.of());
     }
 
     @Test
@@ -88,6 +93,7 @@ class MetodoPagoServiceImplTest {
 
         assertEquals("Ya existe un método de pago con el tipo: TARJETA_CREDITO", exception.getMessage()); // CAMBIADO
         verify(metodoPagoRepository, never()).save(any(MetodoPago.class));
+        verifyNoInteractions(versionCatalogo);
     }
 
     @Test
@@ -20,6 +20,7 @@ import co.todotech.model.enums.TipoUsuario;
 import co.todotech.repository.ClienteRepository;
 import co.todotech.repository.OrdenRepository;
 import co.todotech.repository.UsuarioRepository;
+import co.todotech.service.ResumenVentasService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -62,6 +63,9 @@ class OrdenServiceImplTest {
     @Mock
     private UsuarioMapper usuarioMapper;
 
+    @Mock
+    private ResumenVentasService resumenVentasService;
+
     @InjectMocks
     private OrdenServiceImpl ordenService;
 
@@ -1,20 +1,32 @@
 package co.todotech.service.impl;
 
+import co.todotech.busqueda.FacetasCatalogo;
+import co.todotech.busqueda.IndiceProductos;
+import co.todotech.busqueda.SugerenciasProductos;
+import co.todotech.cache.CambioExternoCatalogo;
+import co.todotech.cache.ProductoCatalogCache;
+import co.todotech.cache.VersionCatalogo;
 import co.todotech.exception.producto.ProductoBusinessException;
 import co.todotech.exception.producto.ProductoDuplicateException;
 import co.todotech.exception.producto.ProductoNotFoundException;
 import co.todotech.mapper.ProductoMapper;
+import co.todotech.model.dto.producto.CatalogoFacetadoDto;
+import co.todotech.model.dto.producto.ConteoFacetaDto;
+import co.todotech.model.dto.producto.FiltroCatalogoDto;
 import co.todotech.model.dto.producto.ProductoDto;
+import co.todotech.model.dto.producto.SugerenciaProductoDto;
 import co.todotech.model.entities.Categoria;
 import co.todotech.model.entities.Producto;
 import co.todotech.model.enums.EstadoProducto;
 import co.todotech.repository.ProductoRepository;
+import co.todotech.service.InventarioService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
@@ -23,6 +35,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -35,6 +48,25 @@ class ProductoServiceImplTest {
     @Mock
     private ProductoMapper productoMapper;
 
+    @Mock
+    private InventarioService inventarioService;
+
+    @Mock
+    private VersionCatalogo versionCatalogo;
+
+    // Caché real: las pruebas de lectura deben seguir llegando al repositorio en el primer acceso
+    @Spy
+    private ProductoCatalogCache catalogoCache = new ProductoCatalogCache(100, 60);
+
+    @Spy
+    private IndiceProductos indiceProductos = new IndiceProductos(50);
+
+    @Spy
+    private SugerenciasProductos sugerenciasProductos = new SugerenciasProductos(10);
+
+    @Spy
+    private FacetasCatalogo facetasCatalogo = new FacetasCatalogo(new double[]{1000, 2000});
+
     @InjectMocks
     private ProductoServiceImpl productoService;
 
@@ -275,6 +307,7 @@ class ProductoServiceImplTest {
         // Assert
         verify(productoRepository).findById(1L);
         verify(productoRepository).delete(producto);
+        verify(versionCatalogo).incrementar(VersionCatalogo.Seccion.PRODUCTOS, 1L);
     }
 
     @Test
@@ -297,16 +330,175 @@ class ProductoServiceImplTest {
     @DisplayName("Debería buscar productos por nombre")
     void testBuscarProductosPorNombre() {
         // Arrange
-        List<Producto> productos = Arrays.asList(producto);
-        when(productoRepository.findByNombreContainingIgnoreCase("Laptop")).thenReturn(productos);
+        productoDto.setId(1L);
+        indiceProductos.actualizar(productoDto);
+        when(productoRepository.findAllById(List.of(1L))).thenReturn(Arrays.asList(producto));
         when(productoMapper.toDto(any(Producto.class))).thenReturn(productoDto);
 
         // Act
-        List<ProductoDto> resultados = productoService.buscarProductosPorNombre("Laptop");
+        List<ProductoDto> resultados = productoService.buscarProductosPorNombre("laptp");
 
         // Assert
         assertEquals(1, resultados.size());
-        verify(productoRepository).findByNombreContainingIgnoreCase("Laptop");
+        verify(productoRepository).findAllById(List.of(1L));
+        verify(productoRepository, never()).findByNombreContainingIgnoreCase(anyString());
+    }
+
+    @Test
+    @DisplayName("No debería consultar la BD si el índice no encuentra resultados")
+    void testBuscarProductosSinResultados() {
+        // Act
+        List<ProductoDto> resultados = productoService.buscarProductosPorNombre("inexistente");
+
+        // Assert
+        assertTrue(resultados.isEmpty());
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    @DisplayName("Debería reindexar el producto al actualizarlo y quitarlo al eliminarlo")
+    void testIndiceSigueEscrituras() {
+        // Arrange
+        productoDto.setId(1L);
+        indiceProductos.actualizar(productoDto);
+        ProductoDto renombrado = new ProductoDto();
+        renombrado.setId(1L);
+        renombrado.setNombre("Monitor Curvo");
+        renombrado.setCodigo("LAP-001");
+        renombrado.setCategoria(categoria);
+        renombrado.setPrecio(1500.0);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoMapper.toDto(any(Producto.class))).thenReturn(renombrado);
+
+        // Act & Assert
+        productoService.actualizarProducto(1L, renombrado);
+        assertEquals(List.of(), indiceProductos.buscar("laptop"));
+        assertEquals(List.of(1L), indiceProductos.buscar("monitor"));
+
+        productoService.eliminarProducto(1L);
+        assertEquals(List.of(), indiceProductos.buscar("monitor"));
+    }
+
+    @Test
+    @DisplayName("Debería sugerir productos sin consultar la BD")
+    void testSugerirProductos() {
+        // Arrange
+        productoDto.setId(1L);
+        productoDto.setEstado(EstadoProducto.ACTIVO);
+        sugerenciasProductos.actualizar(productoDto);
+
+        // Act
+        List<SugerenciaProductoDto> sugerencias = productoService.sugerirProductos("lap", null);
+
+        // Assert
+        assertEquals(List.of(new SugerenciaProductoDto(1L, "Laptop Gaming", 1500.0, "http://imagen.com/laptop.jpg")),
+                sugerencias);
+        assertTrue(productoService.sugerirProductos("  ", null).isEmpty());
+        assertThrows(ProductoBusinessException.class, () -> productoService.sugerirProductos("lap", 0));
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    @DisplayName("Debería filtrar el catálogo por facetas sin consultar la BD")
+    void testConsultarCatalogo() {
+        // Arrange
+        productoDto.setId(1L);
+        productoDto.setEstado(EstadoProducto.ACTIVO);
+        facetasCatalogo.actualizar(productoDto);
+
+        // Act
+        CatalogoFacetadoDto catalogo = productoService.consultarCatalogo(
+                new FiltroCatalogoDto(null, List.of("dell"), null, null, null, true, 0, 20));
+
+        // Assert
+        assertEquals(1, catalogo.total());
+        assertEquals("Laptop Gaming", catalogo.productos().get(0).getNombre());
+        assertEquals(List.of(new ConteoFacetaDto("1", "Electrónicos", 1)), catalogo.categorias());
+        assertThrows(ProductoBusinessException.class, () -> productoService.consultarCatalogo(
+                new FiltroCatalogoDto(null, null, null, null, null, null, 0, 101)));
+        assertThrows(ProductoBusinessException.class, () -> productoService.consultarCatalogo(
+                new FiltroCatalogoDto(null, null, 2000.0, 1000.0, null, null, 0, 20)));
+        assertThrows(ProductoBusinessException.class, () -> productoService.consultarCatalogo(
+                new FiltroCatalogoDto(null, null, null, null, null, null, Integer.MAX_VALUE / 20 + 1, 20)));
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    @DisplayName("Un cambio de productos en otra instancia debería vaciar la caché y rehacer los índices")
+    void testAplicarCambioExterno() {
+        // Arrange: la caché tiene el producto tal como estaba antes de la escritura remota
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoMapper.toDto(producto)).thenReturn(productoDto);
+        productoService.obtenerProductoPorId(1L);
+        when(productoRepository.findAll()).thenReturn(List.of(producto));
+
+        // Act
+        productoService.aplicarCambioExterno(new CambioExternoCatalogo(VersionCatalogo.Seccion.CATEGORIAS));
+        verify(productoRepository, never()).findAll();
+        productoService.aplicarCambioExterno(new CambioExternoCatalogo(VersionCatalogo.Seccion.PRODUCTOS));
+
+        // Assert
+        assertEquals(0, catalogoCache.size());
+        verify(facetasCatalogo).reconstruir(anyList());
+        productoService.obtenerProductoPorId(1L);
+        verify(productoRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Debería rehacer los índices desde la BD con lo escrito por otra instancia")
+    void testCambioExternoRehaceIndices() {
+        // Arrange: el índice local aún tiene el precio viejo
+        productoDto.setId(1L);
+        productoDto.setEstado(EstadoProducto.ACTIVO);
+        facetasCatalogo.actualizar(productoDto);
+
+        ProductoDto actualizado = new ProductoDto();
+        actualizado.setId(1L);
+        actualizado.setNombre("Laptop Gaming");
+        actualizado.setCategoria(categoria);
+        actualizado.setPrecio(2500.0);
+        actualizado.setStock(0);
+        actualizado.setMarca("Dell");
+        actualizado.setEstado(EstadoProducto.AGOTADO);
+        when(productoRepository.findAll()).thenReturn(List.of(producto));
+        when(productoMapper.toDto(producto)).thenReturn(actualizado);
+
+        // Act
+        CambioExternoCatalogo cambio = new CambioExternoCatalogo(VersionCatalogo.Seccion.PRODUCTOS);
+        productoService.aplicarCambioExterno(cambio);
+
+        // Assert
+        CatalogoFacetadoDto catalogo = productoService.consultarCatalogo(
+                new FiltroCatalogoDto(null, null, null, null, null, null, 0, 20));
+        assertEquals(2500.0, catalogo.productos().get(0).getPrecio());
+        assertEquals(EstadoProducto.AGOTADO, catalogo.productos().get(0).getEstado());
+        assertTrue(cambio.huboDiferencias());
+    }
+
+    @Test
+    @DisplayName("Si los índices rehechos quedan igual, la versión del catálogo no debería subir")
+    void testCambioExternoSinDiferencias() {
+        // Arrange: la BD devuelve lo mismo en cada lectura, con entidades nuevas cada vez
+        productoDto.setId(1L);
+        when(productoRepository.findAll()).thenReturn(List.of(producto));
+        when(productoMapper.toDto(producto)).thenAnswer(invocacion -> {
+            Categoria copia = new Categoria(categoria.getId(), categoria.getNombre());
+            return new ProductoDto(1L, productoDto.getNombre(), productoDto.getCodigo(), productoDto.getDescripcion(),
+                    copia, productoDto.getPrecio(), productoDto.getStock(), null, productoDto.getMarca(),
+                    productoDto.getGarantia(), productoDto.getEstado());
+        });
+        productoService.construirIndicesCatalogo();
+
+        // Act
+        CambioExternoCatalogo igual = new CambioExternoCatalogo(VersionCatalogo.Seccion.PRODUCTOS);
+        productoService.aplicarCambioExterno(igual);
+        when(versionCatalogo.cambiosLocales(VersionCatalogo.Seccion.PRODUCTOS)).thenReturn(1L);
+        CambioExternoCatalogo trasEscrituraLocal = new CambioExternoCatalogo(VersionCatalogo.Seccion.PRODUCTOS);
+        productoService.aplicarCambioExterno(trasEscrituraLocal);
+
+        // Assert
+        assertFalse(igual.huboDiferencias());
+        assertTrue(trasEscrituraLocal.huboDiferencias(), "Una escritura local entre medio cuenta como cambio");
     }
 
     @Test
@@ -0,0 +1,305 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.ordenventa.ConciliacionEnCursoException;
+import co.todotech.mapper.ClienteMapperImpl;
+import co.todotech.mapper.DetalleOrdenMapperImpl;
+import co.todotech.mapper.OrdenMapperImpl;
+import co.todotech.mapper.UsuarioMapperImpl;
+import co.todotech.model.dto.ordenventa.ConciliacionResumenDto;
+import co.todotech.model.dto.ordenventa.CreateOrdenDto;
+import co.todotech.model.dto.ordenventa.OrdenDto;
+import co.todotech.model.dto.ordenventa.ResumenVentasDto;
+import co.todotech.model.dto.ordenventa.TotalesVentaDto;
+import co.todotech.model.entities.*;
+import co.todotech.model.enums.EstadoOrden;
+import co.todotech.model.enums.EstadoProducto;
+import co.todotech.model.enums.TipoCliente;
+import co.todotech.model.enums.TipoUsuario;
+import co.todotech.repository.*;
+import co.todotech.utils.BloqueoTareas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Resúmenes de ventas mantenidos por deltas en las transiciones de las órdenes y conciliados
+ * contra ellas. Sin transacción de test: la conciliación abre una transacción por día.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:resumen_ventas;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ResumenVentasServiceImpl.class, BloqueoTareas.class, OrdenServiceImpl.class,
+        OrdenMapperImpl.class, DetalleOrdenMapperImpl.class, ClienteMapperImpl.class, UsuarioMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ResumenVentasServiceImplTest {
+
+    @Autowired
+    private ResumenVentasServiceImpl resumenVentasService;
+
+    @Autowired
+    private OrdenServiceImpl ordenService;
+
+    @Autowired
+    private OrdenRepository ordenRepository;
+
+    @Autowired
+    private ResumenVentaOrdenRepository resumenOrdenRepository;
+
+    @Autowired
+    private ResumenVentaVendedorRepository resumenVendedorRepository;
+
+    @Autowired
+    private ResumenVentaCategoriaRepository resumenCategoriaRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BloqueoTareas bloqueoTareas;
+
+    private final LocalDate hoy = LocalDate.now();
+
+    private Cliente cliente;
+    private Usuario vendedorA;
+    private Usuario vendedorB;
+    private Producto portatil;
+    private Producto mouse;
+
+    @BeforeEach
+    void setUp() {
+        Categoria computo = categoriaRepository.save(Categoria.builder().nombre("Cómputo").build());
+        Categoria accesorios = categoriaRepository.save(Categoria.builder().nombre("Accesorios").build());
+        portatil = productoRepository.save(Producto.builder()
+                .nombre("Portátil")
+                .codigo("POR-001")
+                .categoria(computo)
+                .precio(1000.0)
+                .stock(50)
+                .estado(EstadoProducto.ACTIVO)
+                .build());
+        mouse = productoRepository.save(Producto.builder()
+                .nombre("Mouse")
+                .codigo("MOU-001")
+                .categoria(accesorios)
+                .precio(50.0)
+                .stock(50)
+                .estado(EstadoProducto.ACTIVO)
+                .build());
+        cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Cliente Resumen")
+                .cedula("910100")
+                .tipoCliente(TipoCliente.NATURAL)
+                .build());
+        vendedorA = guardarVendedor("Vendedora A", "810001");
+        vendedorB = guardarVendedor("Vendedor B", "810002");
+    }
+
+    @AfterEach
+    void tearDown() {
+        resumenCategoriaRepository.deleteAll();
+        resumenVendedorRepository.deleteAll();
+        resumenOrdenRepository.deleteAll();
+        ordenRepository.deleteAll();
+        productoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+        clienteRepository.deleteAll();
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Las transiciones dejan los agregados iguales a un recálculo desde las órdenes")
+    void transicionesMantienenAgregados() {
+        // Arrange
+        Orden grande = guardarOrden(vendedorA, EstadoOrden.DISPONIBLEPARAPAGO, 2, 1);
+        Orden pequena = guardarOrden(vendedorB, EstadoOrden.DISPONIBLEPARAPAGO, 0, 3);
+
+        // Act
+        ordenService.marcarComoPagada(grande.getId());
+        ordenService.actualizarEstadoOrden(pequena.getId(), EstadoOrden.PAGADA);
+        ordenService.actualizarEstadoOrden(grande.getId(), EstadoOrden.ENTREGADA);
+        ResumenVentasDto resumen = resumenVentasService.obtenerResumen(hoy, hoy, null);
+
+        // Assert
+        Map<String, TotalesVentaDto> porEstado = porClave(resumen.porEstado());
+        assertEquals(Map.of("PAGADA", 1L, "ENTREGADA", 1L), porEstado.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().cantidadOrdenes())));
+        assertEquals(grande.getTotal(), porEstado.get("ENTREGADA").total(), 0.001);
+        assertEquals(pequena.getTotal(), porEstado.get("PAGADA").total(), 0.001);
+        assertEquals(grande.getTotal() + pequena.getTotal(), resumen.general().total(), 0.001);
+
+        Map<String, TotalesVentaDto> porCategoria = porClave(resumen.porCategoria());
+        TotalesVentaDto computo = porCategoria.get(String.valueOf(portatil.getCategoria().getId()));
+        TotalesVentaDto accesorios = porCategoria.get(String.valueOf(mouse.getCategoria().getId()));
+        assertEquals("Cómputo", computo.nombre());
+        assertEquals(2L, computo.unidades());
+        assertEquals(1L, computo.cantidadOrdenes());
+        assertEquals(4L, accesorios.unidades());
+        assertEquals(2L, accesorios.cantidadOrdenes());
+        assertEquals(resumen.general().total(), computo.total() + accesorios.total(), 0.001,
+                "El reparto por categoría suma el total de las órdenes");
+
+        assertEquals(List.of("Vendedora A", "Vendedor B"),
+                resumen.porVendedor().stream().map(TotalesVentaDto::nombre).toList(), "Ordenado por total");
+
+        Map<String, Object> monitoreo = ordenService.getOrdenesSummaryForMonitoring();
+        assertEquals(2L, monitoreo.get("totalOrdenes"));
+        assertEquals(1L, monitoreo.get("totalPagadas"));
+
+        ConciliacionResumenDto conciliacion = resumenVentasService.reconciliar(hoy, hoy);
+        assertEquals(0, conciliacion.ordenesCorregidas());
+        assertEquals(0, conciliacion.filasCorregidas());
+    }
+
+    @Test
+    @DisplayName("La conciliación corrige filas desviadas y órdenes que nunca sumaron su aporte")
+    void conciliacionCorrigeDesviaciones() {
+        // Arrange
+        Orden registrada = guardarOrden(vendedorA, EstadoOrden.DISPONIBLEPARAPAGO, 1, 0);
+        ordenService.marcarComoPagada(registrada.getId());
+        Orden sinAporte = guardarOrden(vendedorA, EstadoOrden.PAGADA, 0, 2);
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado ->
+                resumenVendedorRepository.sumar(hoy, vendedorA.getId(), EstadoOrden.PAGADA, 5, 0.0, 0.0, 0.0, 999.0));
+
+        // Act
+        ConciliacionResumenDto conciliacion = resumenVentasService.reconciliar(hoy.minusDays(1), hoy);
+        ResumenVentasDto resumen = resumenVentasService.obtenerResumen(hoy, hoy, Set.of(EstadoOrden.PAGADA));
+
+        // Assert
+        assertEquals(2, conciliacion.dias());
+        assertEquals(1, conciliacion.ordenesCorregidas());
+        assertTrue(conciliacion.filasCorregidas() >= 2, "Fila del vendedor y fila de la categoría nueva");
+        assertEquals(2L, resumen.general().cantidadOrdenes());
+        assertEquals(registrada.getTotal() + sinAporte.getTotal(), resumen.general().total(), 0.001);
+        assertEquals(List.of(EstadoOrden.PAGADA), resumen.estados());
+
+        ConciliacionResumenDto segunda = resumenVentasService.reconciliar(hoy, hoy);
+        assertEquals(0, segunda.ordenesCorregidas());
+        assertEquals(0, segunda.filasCorregidas());
+    }
+
+    @Test
+    @DisplayName("Crear y eliminar una orden suma y resta su aporte")
+    void crearYEliminarOrden() {
+        // Arrange
+        OrdenDto creada = ordenService.crearOrden(new CreateOrdenDto(cliente.getId(), vendedorB.getId(), null));
+        ResumenVentasDto conOrden = resumenVentasService.obtenerResumen(hoy, hoy, null);
+
+        // Act
+        ordenService.eliminarOrden(creada.id());
+        ResumenVentasDto sinOrden = resumenVentasService.obtenerResumen(hoy, hoy, null);
+
+        // Assert
+        assertEquals(List.of("PENDIENTE"), conOrden.porEstado().stream().map(TotalesVentaDto::clave).toList());
+        assertEquals(1L, conOrden.general().cantidadOrdenes());
+        assertTrue(sinOrden.porEstado().isEmpty(), "Los grupos en cero no se muestran");
+        assertFalse(resumenOrdenRepository.existsById(creada.id()));
+    }
+
+    @Test
+    @DisplayName("Con una conciliación en curso en otra ejecución, la siguiente se rechaza sin tocar nada")
+    void conciliacionEnCursoSeRechaza() {
+        // Arrange
+        Orden sinAporte = guardarOrden(vendedorA, EstadoOrden.PAGADA, 1, 0);
+
+        // Act: la tarea queda tomada mientras corre el trabajo
+        boolean corrio = bloqueoTareas.ejecutar("resumen-ventas-conciliacion", Duration.ofMinutes(1), () ->
+                assertThrows(ConciliacionEnCursoException.class, () -> resumenVentasService.reconciliar(hoy, hoy)));
+
+        // Assert
+        assertTrue(corrio);
+        assertFalse(resumenOrdenRepository.existsById(sinAporte.getId()));
+        assertEquals(1, resumenVentasService.reconciliar(hoy, hoy).ordenesCorregidas(), "Libre otra vez al terminar");
+    }
+
+    @Test
+    @DisplayName("Un rango invertido se rechaza")
+    void rangoInvalido() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> resumenVentasService.obtenerResumen(hoy, hoy.minusDays(1), null));
+        assertThrows(IllegalArgumentException.class, () -> resumenVentasService.reconciliar(hoy, hoy.minusDays(1)));
+    }
+
+    private Usuario guardarVendedor(String nombre, String cedula) {
+        return usuarioRepository.save(Usuario.builder()
+                .nombre(nombre)
+                .cedula(cedula)
+                .correo(cedula + "@resumen.co")
+                .nombreUsuario("vendedor" + cedula)
+                .contrasena("secreto")
+                .tipoUsuario(TipoUsuario.VENDEDOR)
+                .build());
+    }
+
+    // Se guarda directo en el repositorio: la orden queda sin aporte hasta su siguiente transición
+    private Orden guardarOrden(Usuario vendedor, EstadoOrden estado, int portatiles, int mouses) {
+        Orden orden = Orden.builder()
+                .numeroOrden("RV-" + System.nanoTime())
+                .fecha(LocalDateTime.now())
+                .cliente(cliente)
+                .vendedor(vendedor)
+                .estado(estado)
+                .subtotal(0.0)
+                .descuento(10.0)
+                .impuestos(0.0)
+                .total(0.0)
+                .build();
+        if (portatiles > 0) {
+            orden.getProductos().add(linea(orden, portatil, portatiles));
+        }
+        if (mouses > 0) {
+            orden.getProductos().add(linea(orden, mouse, mouses));
+        }
+        return ordenRepository.save(orden);
+    }
+
+    private static DetalleOrden linea(Orden orden, Producto producto, int cantidad) {
+        return DetalleOrden.builder()
+                .orden(orden)
+                .producto(producto)
+                .cantidad(cantidad)
+                .precioUnitario(producto.getPrecio())
+                .subtotal(producto.getPrecio() * cantidad)
+                .build();
+    }
+
+    private static Map<String, TotalesVentaDto> porClave(List<TotalesVentaDto> grupos) {
+        return grupos.stream().collect(Collectors.toMap(TotalesVentaDto::clave, grupo -> grupo));
+    }
+}
@@ -0,0 +1,203 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.entities.Sesion;
+import co.todotech.model.entities.Usuario;
+import co.todotech.model.enums.TipoUsuario;
+import co.todotech.repository.SesionRepository;
+import co.todotech.repository.UsuarioRepository;
+import co.todotech.security.TokenBlacklistService;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dos instancias de la aplicación (dos contextos de Spring) sobre la misma base H2 en memoria,
+ * como dos nodos detrás de un balanceador: un logout en una debe verse en la otra por el sondeo
+ * de versión, sin que el filtro consulte la base en cada petición.
+ */
+class SesionServiceImplClusterTest {
+
+    private static final String URL_BASE = "jdbc:h2:mem:sesion_cluster;DB_CLOSE_DELAY=-1";
+    private static final Duration ESPERA_MAXIMA = Duration.ofSeconds(5);
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+            DataSourceAutoConfiguration.class,
+            DataSourceTransactionManagerAutoConfiguration.class,
+            JdbcTemplateAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class
+    })
+    @EntityScan(basePackageClasses = Sesion.class)
+    @EnableJpaRepositories(basePackageClasses = SesionRepository.class)
+    @EnableScheduling
+    @Import({SesionServiceImpl.class, TokenBlacklistService.class})
+    static class Nodo {
+    }
+
+    private static ConfigurableApplicationContext nodoA;
+    private static ConfigurableApplicationContext nodoB;
+    private static Usuario usuario;
+
+    @BeforeAll
+    static void iniciarNodos() {
+        nodoA = iniciarNodo();
+        nodoB = iniciarNodo();
+
+        usuario = nodoA.getBean(UsuarioRepository.class).save(Usuario.builder()
+                .nombre("Usuario Cluster")
+                .cedula("900000001")
+                .correo("cluster@todotech.co")
+                .nombreUsuario("cluster")
+                .contrasena("secreta")
+                .tipoUsuario(TipoUsuario.VENDEDOR)
+                .estado(true)
+                .build());
+    }
+
+    @AfterAll
+    static void detenerNodos() {
+        nodoA.close();
+        nodoB.close();
+    }
+
+    @Test
+    @DisplayName("Un logout en una instancia se ve en la otra tras el sondeo")
+    void logoutSePropagaEntreInstancias() {
+        // Arrange
+        String token = crearToken();
+        servicio(nodoA).registrarSesion(token, usuario);
+        assertFalse(blacklist(nodoB).isTokenBlacklisted(token));
+
+        // Act
+        boolean revocada = servicio(nodoA).revocarSesion(token);
+
+        // Assert
+        assertTrue(revocada);
+        assertTrue(blacklist(nodoA).isTokenBlacklisted(token), "El nodo que hizo el logout lo ve de inmediato");
+        assertTrue(esperarHasta(() -> blacklist(nodoB).isTokenBlacklisted(token)),
+                "La otra instancia debe ver la revocación en pocos segundos");
+
+        Sesion sesion = nodoB.getBean(SesionRepository.class).findById(JWT.decode(token).getId()).orElseThrow();
+        assertTrue(sesion.isRevocada());
+        assertNotNull(sesion.getVersionRevocacion());
+    }
+
+    @Test
+    @DisplayName("Revocar en la otra instancia una sesión ya cerrada devuelve false")
+    void revocarDosVecesEnInstanciasDistintas() {
+        // Arrange
+        String token = crearToken();
+        servicio(nodoB).registrarSesion(token, usuario);
+        assertTrue(servicio(nodoB).revocarSesion(token));
+
+        // Act
+        boolean revocadaDeNuevo = servicio(nodoA).revocarSesion(token);
+
+        // Assert
+        assertFalse(revocadaDeNuevo);
+        assertTrue(blacklist(nodoA).isTokenBlacklisted(token));
+    }
+
+    @Test
+    @DisplayName("Un token sin sesión registrada también se revoca en todas las instancias")
+    void revocarTokenSinSesionRegistrada() {
+        // Arrange
+        String token = crearToken();
+
+        // Act
+        assertTrue(servicio(nodoB).revocarSesion(token));
+
+        // Assert
+        assertTrue(esperarHasta(() -> blacklist(nodoA).isTokenBlacklisted(token)));
+    }
+
+    @Test
+    @DisplayName("Una instancia que arranca después carga las revocaciones vigentes")
+    void revocacionesSobrevivenAlReinicio() {
+        // Arrange
+        String token = crearToken();
+        servicio(nodoA).registrarSesion(token, usuario);
+        servicio(nodoA).revocarSesion(token);
+
+        // Act
+        try (ConfigurableApplicationContext nodoNuevo = iniciarNodo()) {
+
+            // Assert: sin esperar al sondeo
+            assertTrue(blacklist(nodoNuevo).isTokenBlacklisted(token));
+            assertEquals(servicio(nodoA).getUltimaVersion(), servicio(nodoNuevo).getUltimaVersion());
+        }
+    }
+
+    private static ConfigurableApplicationContext iniciarNodo() {
+        // Como argumentos de línea de comandos: deben ganarle a application.properties
+        return new SpringApplicationBuilder(Nodo.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + URL_BASE,
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--sesion.sincronizacion.intervalo-ms=100");
+    }
+
+    private static SesionServiceImpl servicio(ConfigurableApplicationContext nodo) {
+        return nodo.getBean(SesionServiceImpl.class);
+    }
+
+    private static TokenBlacklistService blacklist(ConfigurableApplicationContext nodo) {
+        return nodo.getBean(TokenBlacklistService.class);
+    }
+
+    private static String crearToken() {
+        return JWT.create()
+                .withJWTId("jti_" + UUID.randomUUID())
+                .withSubject("cluster")
+                .withIssuedAt(Instant.now())
+                .withExpiresAt(Instant.now().plus(Duration.ofHours(1)))
+                .sign(Algorithm.HMAC256("clave-de-prueba"));
+    }
+
+    private static boolean esperarHasta(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + ESPERA_MAXIMA.toNanos();
+        while (System.nanoTime() < limite) {
+            if (condicion.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return condicion.getAsBoolean();
+    }
+}
@@ -9,6 +9,7 @@ import co.todotech.model.enums.TipoUsuario;
 import co.todotech.repository.UsuarioRepository;
 import co.todotech.security.JwtUtil;
 import co.todotech.security.TokenBlacklistService;
+import co.todotech.service.SesionService;
 import co.todotech.utils.EmailService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -49,6 +50,9 @@ class UsuarioServiceImplTest {
     @Mock
     private TokenBlacklistService tokenBlacklistService;
 
+    @Mock
+    private SesionService sesionService;
+
     @InjectMocks
     private UsuarioServiceImpl usuarioService;
 
@@ -140,6 +144,7 @@ class UsuarioServiceImplTest {
         verify(usuarioRepository).findByNombreUsuario(nombreUsuario);
         verify(passwordEncoder).matches(contrasena, usuario.getContrasena());
         verify(jwtUtil).generateToken("juanperez", 1L, "VENDEDOR");
+        verify(sesionService).registrarSesion(anyString(), eq(usuario));
     }
 
     @Test
@@ -0,0 +1,321 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.pasarela.FirmaWebhookInvalidaException;
+import co.todotech.mapper.ClienteMapperImpl;
+import co.todotech.mapper.DetalleOrdenMapperImpl;
+import co.todotech.mapper.OrdenMapperImpl;
+import co.todotech.mapper.UsuarioMapperImpl;
+import co.todotech.model.dto.pasarela.PaymentIntentResponseDto;
+import co.todotech.model.entities.*;
+import co.todotech.model.enums.*;
+import co.todotech.repository.*;
+import co.todotech.utils.BloqueoTareas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reproduce a alta frecuencia payloads grabados de webhooks de Stripe, firmados como lo hace Stripe.
+ * Sin transacción de test: los eventos se concilian en los hilos del servicio.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:webhook_stripe_replay;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "stripe.secret-key=sk_test_stub",
+        "stripe.webhook-secret=" + WebhookStripeReplayTest.SECRETO,
+        "pasarela.webhook.workers=4"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({WebhookPasarelaServiceImpl.class, ConciliacionPagoServiceImpl.class, StripePaymentService.class,
+        OrdenServiceImpl.class, ResumenVentasServiceImpl.class, BloqueoTareas.class,
+        OrdenMapperImpl.class, DetalleOrdenMapperImpl.class, ClienteMapperImpl.class, UsuarioMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WebhookStripeReplayTest {
+
+    static final String SECRETO = "whsec_replay_test";
+
+    // Ids tal como vienen en los payloads grabados
+    private static final String PI_GRABADO = "pi_3OqRcdLkdIwHu7ix0uXb1n7T";
+    private static final String EVT_SUCCEEDED = "evt_3OqRcdLkdIwHu7ix0a2Xq9Zs";
+    private static final String EVT_PROCESSING = "evt_3OqRcdLkdIwHu7ix0b7Lp2Qw";
+    private static final String EVT_FAILED = "evt_3OqRcdLkdIwHu7ix0c9Tn4Ke";
+
+    private static final int ORDENES = 150;
+    private static final Duration ESPERA_MAXIMA = Duration.ofSeconds(30);
+
+    @Autowired
+    private WebhookPasarelaServiceImpl webhookService;
+
+    @Autowired
+    private StripePaymentService stripePaymentService;
+
+    @Autowired
+    private EventoPasarelaRepository eventoRepository;
+
+    @Autowired
+    private IntentoPagoRepository intentoPagoRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private OrdenRepository ordenRepository;
+
+    @Autowired
+    private MetodoPagoRepository metodoPagoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private final List<Long> ordenIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Cliente cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Cliente Webhook")
+                .cedula("700800")
+                .tipoCliente(TipoCliente.NATURAL)
+                .build());
+        Usuario cajero = usuarioRepository.save(Usuario.builder()
+                .nombre("Cajero Webhook")
+                .cedula("800900")
+                .correo("cajero@webhook.co")
+                .nombreUsuario("cajero_webhook")
+                .contrasena("secreto")
+                .tipoUsuario(TipoUsuario.CAJERO)
+                .build());
+        MetodoPago stripe = metodoPagoRepository.save(MetodoPago.builder()
+                .metodo(TipoMetodo.STRIPE)
+                .descripcion("Stripe")
+                .aprobacion(true)
+                .comision(0.0)
+                .build());
+
+        for (int i = 0; i < ORDENES; i++) {
+            Orden orden = ordenRepository.save(Orden.builder()
+                    .numeroOrden("WH-" + i)
+                    .fecha(LocalDateTime.now())
+                    .cliente(cliente)
+                    .vendedor(cajero)
+                    .estado(EstadoOrden.DISPONIBLEPARAPAGO)
+                    .build());
+            pagoRepository.save(Pago.builder()
+                    .ordenVenta(orden)
+                    .monto(150.0)
+                    .metodoPago(stripe)
+                    .numeroTransaccion(paymentIntent(i))
+                    .usuario(cajero)
+                    .estadoPago(EstadoPago.PENDIENTE)
+                    .build());
+            ordenIds.add(orden.getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventoRepository.deleteAll();
+        intentoPagoRepository.deleteAll();
+        pagoRepository.deleteAll();
+        ordenRepository.deleteAll();
+        metodoPagoRepository.deleteAll();
+        clienteRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        ordenIds.clear();
+    }
+
+    @Test
+    @DisplayName("Reproducir eventos grabados en paralelo concilia cada pago y orden una sola vez")
+    void replayConcurrenteConciliaPagosYOrdenes() throws Exception {
+        // Arrange: cada pago recibe succeeded, un processing más antiguo y una reentrega del succeeded
+        String succeeded = grabado("payment_intent.succeeded");
+        String processing = grabado("payment_intent.processing");
+        List<String> entregas = new ArrayList<>();
+        for (int i = 0; i < ORDENES; i++) {
+            String exito = instanciar(succeeded, EVT_SUCCEEDED, i);
+            entregas.add(exito);
+            entregas.add(exito);
+            entregas.add(instanciar(processing, EVT_PROCESSING, i));
+        }
+        Collections.shuffle(entregas, new Random(42));
+
+        AtomicInteger aceptados = new AtomicInteger();
+        AtomicInteger duplicados = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<?>> futuros = new ArrayList<>();
+        for (String payload : entregas) {
+            futuros.add(executor.submit(() -> {
+                boolean nuevo = webhookService.registrarEventoStripe(payload, firmar(payload, Instant.now()));
+                (nuevo ? aceptados : duplicados).incrementAndGet();
+            }));
+        }
+        for (Future<?> futuro : futuros) {
+            futuro.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(2 * ORDENES, aceptados.get());
+        assertEquals(ORDENES, duplicados.get());
+        assertEquals(2L * ORDENES, eventoRepository.count());
+
+        assertTrue(esperarHasta(() -> eventoRepository.countByEstado(EstadoEventoPasarela.PROCESADO) == 2L * ORDENES),
+                "Todos los eventos deben quedar procesados");
+        assertEquals(0, eventoRepository.countByEstado(EstadoEventoPasarela.FALLIDO));
+
+        for (int i = 0; i < ORDENES; i++) {
+            assertEquals(EstadoPago.APROBADO,
+                    pagoRepository.findByNumeroTransaccion(paymentIntent(i)).orElseThrow().getEstadoPago());
+            assertEquals(EstadoOrden.PAGADA, ordenRepository.findById(ordenIds.get(i)).orElseThrow().getEstado());
+            // El processing es más antiguo: nunca pisa el succeeded
+            assertEquals("succeeded", intentoPagoRepository.findById(paymentIntent(i)).orElseThrow().getEstado());
+        }
+    }
+
+    @Test
+    @DisplayName("Un processing del mismo segundo que llega después del succeeded no pisa el estado final")
+    void processingDelMismoSegundoNoPisaSucceeded() {
+        // Arrange: mismo created que el succeeded grabado
+        String succeeded = instanciar(grabado("payment_intent.succeeded"), EVT_SUCCEEDED, 0);
+        String processing = instanciar(grabado("payment_intent.processing"), EVT_PROCESSING, 0)
+                .replace("\"created\": 1709145590", "\"created\": 1709145600");
+
+        // Act
+        assertTrue(webhookService.registrarEventoStripe(succeeded, firmar(succeeded, Instant.now())));
+        assertTrue(esperarHasta(() -> eventoRepository.countByEstado(EstadoEventoPasarela.PROCESADO) == 1));
+        assertTrue(webhookService.registrarEventoStripe(processing, firmar(processing, Instant.now())));
+
+        // Assert
+        assertTrue(esperarHasta(() -> eventoRepository.countByEstado(EstadoEventoPasarela.PROCESADO) == 2));
+        assertEquals("succeeded", intentoPagoRepository.findById(paymentIntent(0)).orElseThrow().getEstado());
+        assertEquals(EstadoPago.APROBADO,
+                pagoRepository.findByNumeroTransaccion(paymentIntent(0)).orElseThrow().getEstadoPago());
+        assertEquals(EstadoOrden.PAGADA, ordenRepository.findById(ordenIds.get(0)).orElseThrow().getEstado());
+    }
+
+    @Test
+    @DisplayName("Un pago rechazado no marca la orden y su estado se consulta sin llamar a Stripe")
+    void pagoRechazadoYEstadoLocal() {
+        // Arrange
+        String payload = instanciar(grabado("payment_intent.payment_failed"), EVT_FAILED, 0);
+
+        // Act
+        assertTrue(webhookService.registrarEventoStripe(payload, firmar(payload, Instant.now())));
+
+        // Assert
+        assertTrue(esperarHasta(() -> eventoRepository.countByEstado(EstadoEventoPasarela.PROCESADO) == 1));
+        assertEquals(EstadoPago.RECHAZADO,
+                pagoRepository.findByNumeroTransaccion(paymentIntent(0)).orElseThrow().getEstadoPago());
+        assertEquals(EstadoOrden.DISPONIBLEPARAPAGO, ordenRepository.findById(ordenIds.get(0)).orElseThrow().getEstado());
+
+        PaymentIntentResponseDto estado = stripePaymentService.getPaymentStatus(paymentIntent(0));
+        assertEquals("requires_payment_method", estado.status());
+        assertEquals("webhook", estado.additionalData().get("source"));
+        assertEquals("Your card has insufficient funds.", estado.additionalData().get("last_payment_error"));
+    }
+
+    @Test
+    @DisplayName("Una firma inválida o vencida se rechaza y no se guarda nada")
+    void firmaInvalidaSeRechaza() {
+        // Arrange
+        String payload = instanciar(grabado("payment_intent.succeeded"), EVT_SUCCEEDED, 0);
+        String alterado = payload.replace("\"amount\": 15000", "\"amount\": 1");
+
+        // Act & Assert
+        assertThrows(FirmaWebhookInvalidaException.class,
+                () -> webhookService.registrarEventoStripe(alterado, firmar(payload, Instant.now())));
+        assertThrows(FirmaWebhookInvalidaException.class,
+                () -> webhookService.registrarEventoStripe(payload, firmar(payload, Instant.now().minus(Duration.ofHours(1)))));
+        assertThrows(FirmaWebhookInvalidaException.class,
+                () -> webhookService.registrarEventoStripe(payload, null));
+        assertEquals(0, eventoRepository.count());
+    }
+
+    private String instanciar(String grabado, String eventoGrabado, int indice) {
+        return grabado
+                .replace(PI_GRABADO, paymentIntent(indice))
+                .replace(eventoGrabado, eventoGrabado + "_" + indice)
+                .replace("{{ORDER_ID}}", String.valueOf(ordenIds.get(indice)));
+    }
+
+    private static String paymentIntent(int indice) {
+        return "pi_replay_" + indice;
+    }
+
+    private static String grabado(String tipo) {
+        try (InputStream in = WebhookStripeReplayTest.class.getResourceAsStream("/stripe/eventos/" + tipo + ".json")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Mismo esquema que Stripe: t=<epoch>,v1=HMAC-SHA256(secreto, "<epoch>.<payload>")
+    private static String firmar(String payload, Instant instante) {
+        try {
+            long t = instante.getEpochSecond();
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRETO.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] firma = mac.doFinal((t + "." + payload).getBytes(StandardCharsets.UTF_8));
+            return "t=" + t + ",v1=" + HexFormat.of().formatHex(firma);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean esperarHasta(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + ESPERA_MAXIMA.toNanos();
+        while (System.nanoTime() < limite) {
+            if (condicion.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return condicion.getAsBoolean();
+    }
+}
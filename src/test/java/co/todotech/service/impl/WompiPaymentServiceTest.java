@@ -0,0 +1,552 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.pasarela.FirmaWebhookInvalidaException;
+import co.todotech.exception.pasarela.PasarelaNoDisponibleException;
+import co.todotech.mapper.ClienteMapperImpl;
+import co.todotech.mapper.DetalleOrdenMapperImpl;
+import co.todotech.mapper.OrdenMapperImpl;
+import co.todotech.mapper.UsuarioMapperImpl;
+import co.todotech.model.dto.pasarela.PaymentConfirmationDto;
+import co.todotech.model.dto.pasarela.PaymentIntentRequestDto;
+import co.todotech.model.dto.pasarela.PaymentIntentResponseDto;
+import co.todotech.model.entities.*;
+import co.todotech.model.enums.*;
+import co.todotech.pasarela.CircuitBreakerPasarela;
+import co.todotech.pasarela.FirmaWompi;
+import co.todotech.repository.*;
+import co.todotech.utils.BloqueoTareas;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pasarela Wompi contra un stub local de su API que simula latencia, fallos 5xx y
+ * transacciones que tardan en salir de PENDING. Sin transacción de test: los eventos se
+ * concilian en los hilos del servicio de webhooks.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:wompi_pasarela;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "wompi.public-key=" + WompiPaymentServiceTest.LLAVE_PUBLICA,
+        "wompi.private-key=" + WompiPaymentServiceTest.LLAVE_PRIVADA,
+        "wompi.integrity-secret=" + WompiPaymentServiceTest.SECRETO_INTEGRIDAD,
+        "wompi.events-secret=" + WompiPaymentServiceTest.SECRETO_EVENTOS,
+        "pasarela.wompi.http.timeout-lectura-ms=400",
+        "pasarela.wompi.circuito.ventana=10",
+        "pasarela.wompi.circuito.minimo-llamadas=6",
+        "pasarela.wompi.circuito.abierto-segundos=60",
+        "pasarela.wompi.sondeo.espera-inicial-ms=40",
+        "pasarela.wompi.sondeo.espera-maxima-ms=400",
+        "pasarela.wompi.sondeo.tiempo-maximo-ms=3000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({WompiPaymentService.class, WebhookPasarelaServiceImpl.class, ConciliacionPagoServiceImpl.class,
+        OrdenServiceImpl.class, ResumenVentasServiceImpl.class, BloqueoTareas.class,
+        OrdenMapperImpl.class, DetalleOrdenMapperImpl.class, ClienteMapperImpl.class, UsuarioMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WompiPaymentServiceTest {
+
+    static final String LLAVE_PUBLICA = "pub_test_stub";
+    static final String LLAVE_PRIVADA = "prv_test_stub";
+    static final String SECRETO_INTEGRIDAD = "test_integrity_stub";
+    static final String SECRETO_EVENTOS = "test_events_stub";
+
+    private static final String TRANSACCION = "1234-1700000000-1";
+    private static final Duration ESPERA_MAXIMA = Duration.ofSeconds(10);
+
+    private static final StubWompi WOMPI = StubWompi.iniciar();
+
+    @DynamicPropertySource
+    static void apiDeWompi(DynamicPropertyRegistry registry) {
+        registry.add("wompi.api-base", WOMPI::getUrlBase);
+    }
+
+    @Autowired
+    private WompiPaymentService wompiPaymentService;
+
+    @Autowired
+    private WebhookPasarelaServiceImpl webhookService;
+
+    @Autowired
+    private EventoPasarelaRepository eventoRepository;
+
+    @Autowired
+    private IntentoPagoRepository intentoPagoRepository;
+
+    @Autowired
+    private PagoRepository pagoRepository;
+
+    @Autowired
+    private OrdenRepository ordenRepository;
+
+    @Autowired
+    private MetodoPagoRepository metodoPagoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @BeforeEach
+    void setUp() {
+        WOMPI.reiniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventoRepository.deleteAll();
+        intentoPagoRepository.deleteAll();
+        pagoRepository.deleteAll();
+        ordenRepository.deleteAll();
+        metodoPagoRepository.deleteAll();
+        clienteRepository.deleteAll();
+        usuarioRepository.deleteAll();
+    }
+
+    @AfterAll
+    static void detenerStub() {
+        WOMPI.detener();
+    }
+
+    @Test
+    @DisplayName("Crea la transacción con firma de integridad y token de aceptación; la referencia sale de la Idempotency-Key")
+    void crearTransaccion() {
+        // Arrange
+        PaymentIntentRequestDto request = crearRequest(Map.of("payment_method_token", "tok_test_1"));
+
+        // Act
+        PaymentIntentResponseDto primera = wompiPaymentService.createPaymentIntent(request, "clave-1");
+        PaymentIntentResponseDto reintento = wompiPaymentService.createPaymentIntent(request, "clave-1");
+
+        // Assert
+        assertNull(primera.errorMessage(), primera.errorMessage());
+        assertEquals("processing", primera.status());
+        assertEquals("PENDING", primera.additionalData().get("wompi_status"));
+        assertTrue(primera.paymentIntentId().matches("\\d+-\\d+-\\d+"));
+        assertEquals(2, WOMPI.getConsultasComercio(), "Sin acceptance_token se pide el del comercio");
+        assertEquals(List.of(LLAVE_PRIVADA, LLAVE_PRIVADA), WOMPI.getLlavesCreacion());
+
+        String referencia = (String) primera.additionalData().get("reference");
+        assertTrue(referencia.startsWith("TT-7-"));
+        assertEquals(referencia, reintento.additionalData().get("reference"), "Misma clave, misma referencia");
+        assertEquals(7L, WompiPaymentService.ordenDeReferencia(referencia));
+    }
+
+    @Test
+    @DisplayName("Sin token de método de pago devuelve los datos del widget sin llamar a Wompi; otra moneda se rechaza")
+    void datosDelWidget() {
+        // Act
+        PaymentIntentResponseDto checkout = wompiPaymentService.createPaymentIntent(crearRequest(Map.of()), "clave-2");
+        PaymentIntentResponseDto usd = wompiPaymentService.createPaymentIntent(
+                new PaymentIntentRequestDto(10.0, "USD", TipoMetodo.WOMPI, 7L, "cliente@todotech.co", Map.of()));
+
+        // Assert
+        assertTrue(checkout.requiresAction());
+        assertEquals("wompi_widget", checkout.nextActionType());
+        String referencia = (String) checkout.additionalData().get("reference");
+        assertEquals(FirmaWompi.integridad(referencia, 4_500_000L, "COP", SECRETO_INTEGRIDAD),
+                checkout.additionalData().get("signature_integrity"));
+        assertEquals(LLAVE_PUBLICA, checkout.additionalData().get("public_key"));
+
+        assertNotNull(usd.errorMessage());
+        assertEquals(0, WOMPI.getLlamadas());
+    }
+
+    @Test
+    @DisplayName("confirmPayment sondea con backoff exponencial hasta que la transacción sale de PENDING")
+    void sondeoConBackoff() {
+        // Arrange
+        WOMPI.setPendientesAntesDeAprobar(3);
+
+        // Act
+        PaymentIntentResponseDto respuesta = wompiPaymentService.confirmPayment(
+                new PaymentConfirmationDto(TRANSACCION, null, null));
+
+        // Assert
+        assertEquals("succeeded", respuesta.status());
+        List<Long> instantes = WOMPI.getInstantesConsulta();
+        assertEquals(4, instantes.size());
+
+        long primeraEspera = instantes.get(1) - instantes.get(0);
+        long terceraEspera = instantes.get(3) - instantes.get(2);
+        // Esperas de [20, 40] ms, [40, 80] ms y [80, 160] ms
+        assertTrue(terceraEspera >= Duration.ofMillis(80).toNanos(), "La espera crece con cada intento");
+        assertTrue(terceraEspera > primeraEspera);
+    }
+
+    @Test
+    @DisplayName("Los 503 transitorios durante el sondeo se reintentan en lugar de cortar la confirmación")
+    void sondeoToleraFallosTransitorios() {
+        // Arrange
+        WOMPI.setFallosPendientes(2);
+
+        // Act
+        PaymentIntentResponseDto respuesta = wompiPaymentService.confirmPayment(
+                new PaymentConfirmationDto(TRANSACCION, null, null));
+
+        // Assert
+        assertEquals("succeeded", respuesta.status());
+        assertEquals(3, WOMPI.getLlamadas());
+    }
+
+    @Test
+    @DisplayName("Una respuesta más lenta que el timeout de lectura se corta y cuenta como fallo de la pasarela")
+    void timeoutDeLectura() {
+        // Arrange
+        WOMPI.setDemoraMs(1_000);
+        long fallosAntes = (long) wompiPaymentService.getMonitor().resumen().get("fallos");
+
+        // Act
+        long inicio = System.nanoTime();
+        PaymentIntentResponseDto respuesta = wompiPaymentService.getPaymentStatus("1234-1700000000-99");
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        // Assert
+        assertNotNull(respuesta.errorMessage());
+        assertTrue(duracionMs < 1_000, "Se corta en el timeout, no espera la respuesta: " + duracionMs + " ms");
+        assertEquals(fallosAntes + 1, wompiPaymentService.getMonitor().resumen().get("fallos"));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    @DisplayName("Con Wompi caído el circuito se abre y las consultas fallan rápido sin llegar a Wompi")
+    void circuitoAbierto() {
+        // Arrange
+        WOMPI.setFallosPendientes(1_000);
+
+        // Act
+        for (int i = 0; i < 10 && wompiPaymentService.getMonitor().getEstadoCircuito() != CircuitBreakerPasarela.Estado.ABIERTO; i++) {
+            assertNotNull(wompiPaymentService.getPaymentStatus("1234-1700000000-" + i).errorMessage());
+        }
+        int llamadas = WOMPI.getLlamadas();
+
+        // Assert
+        assertEquals(CircuitBreakerPasarela.Estado.ABIERTO, wompiPaymentService.getMonitor().getEstadoCircuito());
+        assertThrows(PasarelaNoDisponibleException.class,
+                () -> wompiPaymentService.getPaymentStatus("1234-1700000000-50"));
+        assertEquals(llamadas, WOMPI.getLlamadas(), "Con el circuito abierto no se llama a Wompi");
+    }
+
+    @Test
+    @DisplayName("Un evento transaction.updated firmado aprueba el pago, marca la orden y el estado se sirve localmente")
+    void webhookApruebaPago() {
+        // Arrange
+        Orden orden = crearOrdenConPago(TRANSACCION);
+        long timestamp = 1_700_000_100L;
+        String aprobado = evento(TRANSACCION, "APPROVED", timestamp);
+
+        // Act
+        assertTrue(webhookService.registrarEventoWompi(aprobado, null));
+        assertFalse(webhookService.registrarEventoWompi(aprobado, null), "Reentrega descartada");
+        // Un PENDING del mismo segundo que llega tarde no pisa el APPROVED
+        assertTrue(webhookService.registrarEventoWompi(evento(TRANSACCION, "PENDING", timestamp), null));
+
+        // Assert
+        assertTrue(esperarHasta(() -> eventoRepository.countByEstado(EstadoEventoPasarela.PROCESADO) == 2));
+        assertEquals(EstadoPago.APROBADO, pagoRepository.findByNumeroTransaccion(TRANSACCION).orElseThrow().getEstadoPago());
+        assertEquals(EstadoOrden.PAGADA, ordenRepository.findById(orden.getId()).orElseThrow().getEstado());
+
+        PaymentIntentResponseDto estado = wompiPaymentService.getPaymentStatus(TRANSACCION);
+        assertEquals("succeeded", estado.status());
+        assertEquals("webhook", estado.additionalData().get("source"));
+        assertEquals(0, WOMPI.getLlamadas());
+    }
+
+    @Test
+    @DisplayName("Un evento de Wompi con checksum alterado se rechaza y no se guarda")
+    void webhookChecksumInvalido() {
+        // Arrange
+        String payload = evento(TRANSACCION, "APPROVED", 1_700_000_100L);
+        String alterado = payload.replace("\"amount_in_cents\": 4500000", "\"amount_in_cents\": 100");
+
+        // Act + Assert
+        assertThrows(FirmaWebhookInvalidaException.class, () -> webhookService.registrarEventoWompi(alterado, null));
+        assertThrows(FirmaWebhookInvalidaException.class, () -> webhookService.registrarEventoWompi(payload, "ABCDEF"));
+        assertEquals(0, eventoRepository.count());
+    }
+
+    private static PaymentIntentRequestDto crearRequest(Map<String, String> metadata) {
+        return new PaymentIntentRequestDto(45_000.0, "COP", TipoMetodo.WOMPI, 7L, "cliente@todotech.co", metadata);
+    }
+
+    private Orden crearOrdenConPago(String transaccionId) {
+        Cliente cliente = clienteRepository.save(Cliente.builder()
+                .nombre("Cliente Wompi")
+                .cedula("900100")
+                .tipoCliente(TipoCliente.NATURAL)
+                .build());
+        Usuario cajero = usuarioRepository.save(Usuario.builder()
+                .nombre("Cajero Wompi")
+                .cedula("900200")
+                .correo("cajero@wompi.co")
+                .nombreUsuario("cajero_wompi")
+                .contrasena("secreto")
+                .tipoUsuario(TipoUsuario.CAJERO)
+                .build());
+        MetodoPago wompi = metodoPagoRepository.save(MetodoPago.builder()
+                .metodo(TipoMetodo.WOMPI)
+                .descripcion("Wompi")
+                .aprobacion(true)
+                .comision(0.0)
+                .build());
+        Orden orden = ordenRepository.save(Orden.builder()
+                .numeroOrden("WP-1")
+                .fecha(LocalDateTime.now())
+                .cliente(cliente)
+                .vendedor(cajero)
+                .estado(EstadoOrden.DISPONIBLEPARAPAGO)
+                .build());
+        pagoRepository.save(Pago.builder()
+                .ordenVenta(orden)
+                .monto(45_000.0)
+                .metodoPago(wompi)
+                .numeroTransaccion(transaccionId)
+                .usuario(cajero)
+                .estadoPago(EstadoPago.PENDIENTE)
+                .build());
+        return orden;
+    }
+
+    // Firmado como lo documenta Wompi: SHA-256 de id + status + amount_in_cents + timestamp + secreto
+    private static String evento(String transaccionId, String estado, long timestamp) {
+        String checksum = sha256(transaccionId + estado + 4_500_000 + timestamp + SECRETO_EVENTOS).toUpperCase();
+        return """
+                {"event": "transaction.updated",
+                 "data": {"transaction": {"id": "%s", "amount_in_cents": 4500000, "reference": "TT-1-abc",
+                   "customer_email": "cliente@todotech.co", "currency": "COP", "payment_method_type": "CARD",
+                   "status": "%s", "status_message": null}},
+                 "environment": "test",
+                 "signature": {"properties": ["transaction.id", "transaction.status", "transaction.amount_in_cents"],
+                   "checksum": "%s"},
+                 "timestamp": %d,
+                 "sent_at": "2023-11-14T22:15:00.000Z"}"""
+                .formatted(transaccionId, estado, checksum, timestamp);
+    }
+
+    private static String sha256(String valor) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(valor.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean esperarHasta(BooleanSupplier condicion) {
+        long limite = System.nanoTime() + ESPERA_MAXIMA.toNanos();
+        while (System.nanoTime() < limite) {
+            if (condicion.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return condicion.getAsBoolean();
+    }
+
+    /**
+     * Responde /v1/transactions y /v1/merchants como Wompi. Las consultas de una transacción
+     * devuelven PENDING las primeras N veces y luego APPROVED.
+     */
+    static final class StubWompi {
+
+        private static final ObjectMapper JSON = new ObjectMapper();
+
+        private final HttpServer servidor;
+        private final AtomicInteger llamadas = new AtomicInteger();
+        private final AtomicInteger consultasComercio = new AtomicInteger();
+        private final AtomicInteger consultasEstado = new AtomicInteger();
+        private final AtomicInteger fallosPendientes = new AtomicInteger();
+        private final List<Long> instantesConsulta = new CopyOnWriteArrayList<>();
+        private final List<String> llavesCreacion = new CopyOnWriteArrayList<>();
+        private volatile int pendientesAntesDeAprobar;
+        private volatile long demoraMs;
+
+        private StubWompi(HttpServer servidor) {
+            this.servidor = servidor;
+        }
+
+        static StubWompi iniciar() {
+            try {
+                HttpServer servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+                StubWompi stub = new StubWompi(servidor);
+                servidor.createContext("/v1/transactions", stub::atenderTransacciones);
+                servidor.createContext("/v1/merchants/", stub::atenderComercio);
+                servidor.setExecutor(Executors.newCachedThreadPool());
+                servidor.start();
+                return stub;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void atenderTransacciones(HttpExchange exchange) throws IOException {
+            llamadas.incrementAndGet();
+            if ("GET".equals(exchange.getRequestMethod())) {
+                instantesConsulta.add(System.nanoTime());
+            }
+            dormir();
+            if (fallosPendientes.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                responder(exchange, 503, """
+                        {"error": {"type": "SERVICE_UNAVAILABLE", "reason": "Fallo simulado"}}""");
+                return;
+            }
+
+            if ("POST".equals(exchange.getRequestMethod())) {
+                crear(exchange);
+            } else {
+                String id = exchange.getRequestURI().getPath().substring("/v1/transactions/".length());
+                String estado = consultasEstado.incrementAndGet() <= pendientesAntesDeAprobar ? "PENDING" : "APPROVED";
+                responder(exchange, 200, transaccion(id, "TT-7-stub", 4_500_000L, estado));
+            }
+        }
+
+        private void crear(HttpExchange exchange) throws IOException {
+            String autorizacion = exchange.getRequestHeaders().getFirst("Authorization");
+            llavesCreacion.add(autorizacion == null ? "" : autorizacion.replace("Bearer ", ""));
+
+            JsonNode cuerpo = JSON.readTree(exchange.getRequestBody());
+            String referencia = cuerpo.path("reference").asText();
+            long monto = cuerpo.path("amount_in_cents").asLong();
+            String firmaEsperada = FirmaWompi.integridad(referencia, monto, cuerpo.path("currency").asText(), SECRETO_INTEGRIDAD);
+            if (!firmaEsperada.equals(cuerpo.path("signature").asText())
+                    || !"acc_stub".equals(cuerpo.path("acceptance_token").asText())
+                    || !"tok_test_1".equals(cuerpo.path("payment_method").path("token").asText())) {
+                responder(exchange, 422, """
+                        {"error": {"type": "INPUT_VALIDATION_ERROR", "messages": {"signature": ["Firma inválida"]}}}""");
+                return;
+            }
+            responder(exchange, 201, transaccion("1234-1700000000-" + llamadas.get(), referencia, monto, "PENDING"));
+        }
+
+        private void atenderComercio(HttpExchange exchange) throws IOException {
+            llamadas.incrementAndGet();
+            consultasComercio.incrementAndGet();
+            responder(exchange, 200, """
+                    {"data": {"id": 1, "name": "TodoTech", "presigned_acceptance": {
+                      "acceptance_token": "acc_stub", "permalink": "https://wompi.co/terminos.pdf", "type": "END_USER_POLICY"}}}""");
+        }
+
+        private static String transaccion(String id, String referencia, long monto, String estado) {
+            return """
+                    {"data": {"id": "%s", "created_at": "2023-11-14T22:13:20.000Z", "amount_in_cents": %d,
+                      "reference": "%s", "customer_email": "cliente@todotech.co", "currency": "COP",
+                      "payment_method_type": "CARD", "payment_method": {"type": "CARD", "extra": {"name": "VISA-4242", "card_brand": "VISA"}},
+                      "status": "%s", "status_message": null, "merchant": {"name": "TodoTech"},
+                      "redirect_url": null, "payment_link_id": null}}"""
+                    .formatted(id, monto, referencia, estado);
+        }
+
+        private static void responder(HttpExchange exchange, int estado, String cuerpo) throws IOException {
+            byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(estado, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+
+        private void dormir() {
+            if (demoraMs <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(demoraMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void reiniciar() {
+            llamadas.set(0);
+            consultasComercio.set(0);
+            consultasEstado.set(0);
+            fallosPendientes.set(0);
+            instantesConsulta.clear();
+            llavesCreacion.clear();
+            pendientesAntesDeAprobar = 0;
+            demoraMs = 0;
+        }
+
+        String getUrlBase() {
+            return "http://" + servidor.getAddress().getHostString() + ":" + servidor.getAddress().getPort() + "/v1";
+        }
+
+        void setPendientesAntesDeAprobar(int pendientes) {
+            this.pendientesAntesDeAprobar = pendientes;
+        }
+
+        void setDemoraMs(long demoraMs) {
+            this.demoraMs = demoraMs;
+        }
+
+        void setFallosPendientes(int fallos) {
+            fallosPendientes.set(fallos);
+        }
+
+        int getLlamadas() {
+            return llamadas.get();
+        }
+
+        int getConsultasComercio() {
+            return consultasComercio.get();
+        }
+
+        List<Long> getInstantesConsulta() {
+            return List.copyOf(instantesConsulta);
+        }
+
+        List<String> getLlavesCreacion() {
+            return List.copyOf(llavesCreacion);
+        }
+
+        void detener() {
+            servidor.stop(0);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package co.todotech.utils;
+
+import co.todotech.model.entities.BloqueoTarea;
+import co.todotech.repository.BloqueoTareaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sin transacción de test: tomar y soltar la tarea confirman en transacciones propias.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bloqueo_tareas;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BloqueoTareasTest {
+
+    private static final Duration PLAZO = Duration.ofMinutes(5);
+
+    @Autowired
+    private BloqueoTareaRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private MutableClock clock;
+    private BloqueoTareas bloqueos;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+        bloqueos = new BloqueoTareas(repository, transactionManager, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Mientras una ejecución tiene la tarea, otra no la corre; al terminar queda libre")
+    void ejecucionesNoSeSolapan() {
+        // Act
+        Optional<String> anidada = bloqueos.ejecutar("conciliacion", PLAZO,
+                () -> bloqueos.ejecutar("conciliacion", PLAZO, () -> "otra").orElse("rechazada"));
+        Optional<String> despues = bloqueos.ejecutar("conciliacion", PLAZO, () -> "siguiente");
+
+        // Assert
+        assertEquals(Optional.of("rechazada"), anidada);
+        assertEquals(Optional.of("siguiente"), despues);
+        assertTrue(bloqueos.ejecutar("compactacion", PLAZO, () -> { }), "Cada tarea tiene su propia fila");
+    }
+
+    @Test
+    @DisplayName("Un fallo en el trabajo también suelta la tarea")
+    void falloSueltaLaTarea() {
+        // Act
+        assertThrows(IllegalStateException.class, () -> bloqueos.ejecutar("conciliacion", PLAZO, () -> {
+            throw new IllegalStateException("falla");
+        }));
+
+        // Assert
+        assertTrue(bloqueos.ejecutar("conciliacion", PLAZO, () -> { }));
+    }
+
+    @Test
+    @DisplayName("Una tarea que nunca se soltó queda libre al vencer su plazo")
+    void plazoVencidoLiberaLaTarea() {
+        // Arrange: otra instancia la tomó y murió sin soltarla
+        repository.saveAndFlush(new BloqueoTarea("conciliacion", "caida", clock.instant().plus(PLAZO)));
+
+        // Act & Assert
+        assertFalse(bloqueos.ejecutar("conciliacion", PLAZO, () -> { }));
+        clock.advance(PLAZO.plusSeconds(1));
+        assertTrue(bloqueos.ejecutar("conciliacion", PLAZO, () -> { }));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package co.todotech.utils.impl;
+
+import co.todotech.model.entities.CorreoSaliente;
+import co.todotech.model.enums.EstadoCorreo;
+import co.todotech.repository.CorreoSalienteRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica el envío asíncrono de correos contra un servidor SMTP falso local.
+ * Sin transacción de test: los workers leen la bandeja de salida desde sus propios hilos.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:correo_despachador;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "correo.workers=1",
+        "correo.reintento.intentos=2",
+        "correo.reintento.espera-inicial-ms=50",
+        "correo.reintento.espera-maxima-ms=100"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmailServiceImpl.class, CorreoDespachador.class, CorreoDespachadorTest.ConfiguracionSmtp.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CorreoDespachadorTest {
+
+    // Se arranca antes que el contexto para que el JavaMailSender conozca su puerto
+    private static final ServidorSmtpFalso SERVIDOR = ServidorSmtpFalso.iniciar();
+
+    @TestConfiguration
+    static class ConfiguracionSmtp {
+
+        @Bean
+        JavaMailSender javaMailSender() {
+            return crearSender(SERVIDOR.getPuerto());
+        }
+    }
+
+    @Autowired
+    private EmailServiceImpl emailService;
+
+    @Autowired
+    private CorreoDespachador correoDespachador;
+
+    @Autowired
+    private CorreoSalienteRepository correoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        correoDespachador.iniciar();
+        esperarHasta(() -> correoDespachador.getTamanoCola() == 0
+                && correoRepository.countByEstado(EstadoCorreo.ENVIANDO) == 0, Duration.ofSeconds(5));
+        correoRepository.deleteAll();
+        SERVIDOR.reiniciar();
+    }
+
+    @Test
+    @DisplayName("Debería encolar la notificación de login sin esperar al servidor SMTP")
+    void testNotificacionLoginNoBloquea() throws Exception {
+        // Arrange: el servidor tarda en saludar, como un handshake TLS lento
+        SERVIDOR.setRetardoSaludoMs(1500);
+
+        // Act
+        long inicio = System.nanoTime();
+        emailService.sendAdminLoginNotification("admin@todotech.com", "Admin", "2025-03-01 12:00:00");
+        long duracionMs = Duration.ofNanos(System.nanoTime() - inicio).toMillis();
+
+        // Assert
+        assertTrue(duracionMs < 1000, "El encolado tardó " + duracionMs + " ms");
+        esperarHasta(() -> correoRepository.countByEstado(EstadoCorreo.ENVIADO) == 1, Duration.ofSeconds(10));
+        assertEquals(1, SERVIDOR.getMensajes().size());
+        assertTrue(SERVIDOR.getMensajes().get(0).contains("admin@todotech.com"));
+    }
+
+    @Test
+    @DisplayName("Debería reutilizar la conexión SMTP para los correos de un mismo lote")
+    void testEnvioPorLotes() throws Exception {
+        // Arrange: mientras el primer lote espera el saludo, el resto se acumula en la cola
+        SERVIDOR.setRetardoSaludoMs(300);
+        int total = 8;
+
+        // Act
+        for (int i = 0; i < total; i++) {
+            emailService.sendPasswordReminder("usuario" + i + "@todotech.com", "Usuario " + i, "usuario" + i, "texto");
+        }
+
+        // Assert
+        esperarHasta(() -> correoRepository.countByEstado(EstadoCorreo.ENVIADO) == total, Duration.ofSeconds(10));
+        assertEquals(total, SERVIDOR.getMensajes().size());
+        assertTrue(SERVIDOR.getConexiones() < total,
+                "Se abrieron " + SERVIDOR.getConexiones() + " conexiones para " + total + " correos");
+    }
+
+    @Test
+    @DisplayName("Debería reprogramar el correo con backoff cuando el servidor no responde")
+    void testReprogramarCuandoFallaElServidor() throws Exception {
+        // Arrange: un despachador sin workers apuntando a un puerto sin servidor
+        int puertoCerrado;
+        try (ServerSocket libre = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            puertoCerrado = libre.getLocalPort();
+        }
+        CorreoDespachador sinServidor = new CorreoDespachador(correoRepository, crearSender(puertoCerrado),
+                transactionManager, 10, 1, 20, 2, 10, 20, 3, 60, 600);
+        Long id = sinServidor.encolar("todotech@todotech.com", "cliente@todotech.com", "Asunto", "<p>Hola</p>");
+
+        // Act
+        sinServidor.procesarLote(List.of(id));
+
+        // Assert
+        CorreoSaliente correo = correoRepository.findById(id).orElseThrow();
+        assertEquals(EstadoCorreo.PENDIENTE, correo.getEstado());
+        assertEquals(1, correo.getIntentos());
+        assertNotNull(correo.getUltimoError());
+        assertTrue(correo.getProximoIntento().isAfter(LocalDateTime.now().plusSeconds(50)));
+    }
+
+    @Test
+    @DisplayName("Debería marcar como FALLIDO al agotar los intentos")
+    void testFallidoAlAgotarIntentos() throws Exception {
+        // Arrange
+        int puertoCerrado;
+        try (ServerSocket libre = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            puertoCerrado = libre.getLocalPort();
+        }
+        CorreoDespachador sinServidor = new CorreoDespachador(correoRepository, crearSender(puertoCerrado),
+                transactionManager, 10, 1, 20, 1, 10, 20, 1, 60, 600);
+        Long id = sinServidor.encolar("todotech@todotech.com", "cliente@todotech.com", "Asunto", "<p>Hola</p>");
+
+        // Act
+        sinServidor.procesarLote(List.of(id));
+
+        // Assert
+        assertEquals(EstadoCorreo.FALLIDO, correoRepository.findById(id).orElseThrow().getEstado());
+    }
+
+    @Test
+    @DisplayName("El barrido devuelve a PENDIENTE solo los reclamos vencidos, no los que otra instancia está enviando")
+    void testBarridoSoloLiberaReclamosVencidos() {
+        // Arrange: dos correos en ENVIANDO, uno reclamado ahora y otro hace más que el plazo
+        Long vigente = guardarCorreo("vigente@todotech.com");
+        Long vencido = guardarCorreo("vencido@todotech.com");
+        correoRepository.reclamar(vigente, LocalDateTime.now());
+        correoRepository.reclamar(vencido, LocalDateTime.now().minusSeconds(601));
+
+        // Act
+        correoDespachador.reencolarPendientes();
+
+        // Assert
+        esperarHasta(() -> correoRepository.findById(vencido).orElseThrow().getEstado() == EstadoCorreo.ENVIADO,
+                Duration.ofSeconds(10));
+        assertEquals(EstadoCorreo.ENVIANDO, correoRepository.findById(vigente).orElseThrow().getEstado());
+        assertEquals(1, SERVIDOR.getMensajes().size());
+
+        correoRepository.deleteById(vigente);
+    }
+
+    @Test
+    @DisplayName("Un error inesperado a mitad del lote devuelve sus correos a PENDIENTE sin esperar al plazo")
+    void testErrorInesperadoLiberaElLote() {
+        // Arrange
+        JavaMailSenderImpl senderRoto = new JavaMailSenderImpl() {
+            @Override
+            public void send(MimeMessage... mimeMessages) {
+                throw new IllegalStateException("sesión SMTP corrupta");
+            }
+        };
+        CorreoDespachador despachador = new CorreoDespachador(correoRepository, senderRoto,
+                transactionManager, 10, 1, 20, 1, 10, 20, 3, 60, 600);
+        Long id = despachador.encolar("todotech@todotech.com", "cliente@todotech.com", "Asunto", "<p>Hola</p>");
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> despachador.procesarLote(List.of(id)));
+
+        // Assert
+        CorreoSaliente correo = correoRepository.findById(id).orElseThrow();
+        assertEquals(EstadoCorreo.PENDIENTE, correo.getEstado());
+        assertNull(correo.getReclamadoEn());
+        assertEquals(0, correo.getIntentos());
+    }
+
+    private Long guardarCorreo(String destinatario) {
+        return correoRepository.save(CorreoSaliente.builder()
+                .remitente("todotech@todotech.com")
+                .destinatario(destinatario)
+                .asunto("Asunto")
+                .cuerpoHtml("<p>Hola</p>")
+                .build()).getId();
+    }
+
+    private static JavaMailSender crearSender(int puerto) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("127.0.0.1");
+        sender.setPort(puerto);
+        sender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+        sender.getJavaMailProperties().put("mail.smtp.timeout", "5000");
+        return sender;
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion, Duration limite) {
+        long fin = System.nanoTime() + limite.toNanos();
+        while (!condicion.getAsBoolean()) {
+            if (System.nanoTime() > fin) {
+                fail("La condición no se cumplió en " + limite.toMillis() + " ms");
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrumpido esperando la condición");
+            }
+        }
+    }
+
+    /**
+     * Servidor SMTP mínimo en memoria: acepta todo, guarda el contenido de cada DATA
+     * y cuenta las conexiones abiertas.
+     */
+    static final class ServidorSmtpFalso implements Closeable {
+
+        private final ServerSocket serverSocket;
+        private final AtomicInteger conexiones = new AtomicInteger();
+        private final List<String> mensajes = new CopyOnWriteArrayList<>();
+        private volatile long retardoSaludoMs;
+
+        private ServidorSmtpFalso(ServerSocket serverSocket) {
+            this.serverSocket = serverSocket;
+        }
+
+        static ServidorSmtpFalso iniciar() {
+            try {
+                ServidorSmtpFalso servidor = new ServidorSmtpFalso(
+                        new ServerSocket(0, 50, InetAddress.getLoopbackAddress()));
+                Thread.ofPlatform().name("smtp-falso").daemon(true).start(servidor::aceptar);
+                return servidor;
+            } catch (IOException e) {
+                throw new IllegalStateException("No se pudo iniciar el servidor SMTP falso", e);
+            }
+        }
+
+        int getPuerto() {
+            return serverSocket.getLocalPort();
+        }
+
+        int getConexiones() {
+            return conexiones.get();
+        }
+
+        List<String> getMensajes() {
+            return mensajes;
+        }
+
+        void setRetardoSaludoMs(long retardoSaludoMs) {
+            this.retardoSaludoMs = retardoSaludoMs;
+        }
+
+        void reiniciar() {
+            conexiones.set(0);
+            mensajes.clear();
+            retardoSaludoMs = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private void aceptar() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread.ofPlatform().daemon(true).start(() -> atender(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void atender(Socket socket) {
+            conexiones.incrementAndGet();
+            try (socket;
+                 BufferedReader entrada = new BufferedReader(
+                         new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                OutputStream salida = socket.getOutputStream();
+                Thread.sleep(retardoSaludoMs);
+                responder(salida, "220 localhost ESMTP");
+
+                String linea;
+                while ((linea = entrada.readLine()) != null) {
+                    String comando = linea.toUpperCase();
+                    if (comando.startsWith("DATA")) {
+                        responder(salida, "354 Fin con <CRLF>.<CRLF>");
+                        StringBuilder contenido = new StringBuilder();
+                        while ((linea = entrada.readLine()) != null && !linea.equals(".")) {
+                            contenido.append(linea).append('\n');
+                        }
+                        mensajes.add(contenido.toString());
+                        responder(salida, "250 OK");
+                    } else if (comando.startsWith("QUIT")) {
+                        responder(salida, "221 Adiós");
+                        return;
+                    } else {
+                        responder(salida, "250 OK");
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                // Conexión cerrada por el cliente
+            }
+        }
+
+        private static void responder(OutputStream salida, String linea) throws IOException {
+            salida.write((linea + "\r\n").getBytes(StandardCharsets.UTF_8));
+            salida.flush();
+        }
+    }
+}